@@ -0,0 +1,232 @@
+package client_server_host;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * BoundedEventQueue is a lock-free queue backed by an array, for many producers and one
+ * consumer. Elements are stored in a ring of slots, so adding an element does not allocate.
+ *
+ * Each slot has a sequence number telling whether it is ready to be written for a position
+ * (sequence == position) or read (sequence == position + 1). A producer claims a position by
+ * advancing the tail with compareAndSet, writes its element and then publishes the slot by
+ * advancing its sequence number. Removal follows the same protocol on the head, so a producer
+ * may also remove the oldest element when the queue is full and the policy is DROP_OLDEST.
+ *
+ * offer() never waits; add() applies the queue's QueueFullPolicy when the queue is full.
+ * peek() may only be called by the consumer. The queue is not a Collection: its elements cannot
+ * be iterated or removed from the middle while producers and the consumer move past them.
+ *
+ * @param <E> the type of the elements in the queue
+ */
+public class BoundedEventQueue<E> {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final QueueFullPolicy fullPolicy;
+    private final AtomicLong tail;
+    private final AtomicLong head;
+    private final AtomicLong droppedElements;
+    private final AtomicLong rejectedElements;
+
+    /**
+     * Constructor for BoundedEventQueue.
+     *
+     * @param capacity the maximum number of elements, rounded up to a power of two
+     * @param fullPolicy what add() does while the queue is full
+     */
+    public BoundedEventQueue(int capacity, QueueFullPolicy fullPolicy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Error: Invalid capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        this.fullPolicy = fullPolicy;
+        tail = new AtomicLong();
+        head = new AtomicLong();
+        droppedElements = new AtomicLong();
+        rejectedElements = new AtomicLong();
+    }
+
+    /**
+     * Returns the maximum number of elements in the queue.
+     *
+     * @return the capacity of the queue
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the policy applied by add() while the queue is full.
+     *
+     * @return the queue's QueueFullPolicy
+     */
+    public QueueFullPolicy getFullPolicy() {
+        return fullPolicy;
+    }
+
+    /**
+     * Adds an element if there is room, without waiting.
+     *
+     * @param element the element to add
+     * @return true if the element was added, false if the queue is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // publish the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the element added one lap earlier
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Adds an element, applying the queue's QueueFullPolicy if the queue is full.
+     * BLOCK waits until the consumer makes room, DROP_OLDEST removes the oldest elements
+     * until there is room, and REJECT throws.
+     *
+     * @param element the element to add
+     * @return true
+     * @throws IllegalStateException if the queue is full and the policy is REJECT
+     */
+    public boolean add(E element) {
+        if (offer(element)) {
+            return true;
+        }
+        switch (fullPolicy) {
+            case BLOCK -> {
+                SpinThenParkWaiter waiter = new SpinThenParkWaiter();
+                while (!offer(element)) {
+                    waiter.idle();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!offer(element)) {
+                    if (poll() != null) {
+                        droppedElements.incrementAndGet();
+                    }
+                }
+            }
+            case REJECT -> {
+                rejectedElements.incrementAndGet();
+                throw new IllegalStateException("Error: Queue full");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest element.
+     *
+     * @return the oldest element, or null if the queue is empty
+     */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.lazySet(index, null);
+                    // free the slot for the element added one lap later
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the oldest element without removing it. Only the consumer may call this method.
+     *
+     * @return the oldest element, or null if the queue is empty
+     */
+    public E peek() {
+        long position = head.get();
+        int index = (int) position & mask;
+        return sequences.get(index) == position + 1 ? elements.get(index) : null;
+    }
+
+    /**
+     * Returns the number of elements in the queue, which may already be out of date
+     * while producers are adding elements.
+     *
+     * @return the depth of the queue
+     */
+    public int size() {
+        long depth = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(depth, capacity()));
+    }
+
+    /**
+     * Indicates whether the queue has no elements.
+     *
+     * @return true if the queue is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of elements removed to make room under the DROP_OLDEST policy.
+     *
+     * @return the number of dropped elements
+     */
+    public long getDroppedElements() {
+        return droppedElements.get();
+    }
+
+    /**
+     * Returns the number of elements refused under the REJECT policy.
+     *
+     * @return the number of rejected elements
+     */
+    public long getRejectedElements() {
+        return rejectedElements.get();
+    }
+
+    /**
+     * Returns a description of the queue's depth, capacity and policy, for logging.
+     *
+     * @return a String describing the queue
+     */
+    @Override
+    public String toString() {
+        return "BoundedEventQueue[" + size() + "/" + capacity() + ", " + fullPolicy + "]";
+    }
+}
@@ -0,0 +1,65 @@
+package client_server_host;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * BufferPool keeps a set of direct ByteBuffers so that messages can be sent
+ * and received without allocating a new buffer for each message.
+ */
+public class BufferPool {
+
+    private final ArrayDeque<ByteBuffer> freeBuffers;
+    private final int bufferSize;
+    private final int capacity;
+
+    /**
+     * Constructor for BufferPool.
+     *
+     * @param capacity the number of buffers kept by the pool
+     * @param bufferSize the size of each buffer in bytes
+     */
+    public BufferPool(int capacity, int bufferSize) {
+        this.capacity = capacity;
+        this.bufferSize = bufferSize;
+        freeBuffers = new ArrayDeque<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            freeBuffers.push(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    /**
+     * Removes a cleared buffer from the pool. If the pool is exhausted,
+     * a new buffer is allocated.
+     *
+     * @return a cleared buffer
+     */
+    public synchronized ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers beyond the pool's capacity are discarded.
+     *
+     * @param buffer the buffer to return
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        if (freeBuffers.size() < capacity) {
+            freeBuffers.push(buffer);
+        }
+    }
+
+    /**
+     * Returns the number of buffers currently available in the pool.
+     *
+     * @return the number of available buffers
+     */
+    public synchronized int available() {
+        return freeBuffers.size();
+    }
+}
@@ -1,8 +1,16 @@
 package client_server_host;
 
 import requests.SystemEvent;
+import systemwide.ElevatorRegistration;
 
-import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client sends and receives messages from an IntermediateHost.
@@ -12,104 +20,156 @@ import java.net.DatagramPacket;
 public class Client {
 
     private final int portNumber;
-    private final MessageTransfer messageTransfer;
+    private final Transport transport;
+    private final InetSocketAddress clientToServerAddress;
+    private final InetSocketAddress serverToClientAddress;
+    private final Semaphore acknowledgements;
+    private final List<InetSocketAddress> eventDestination;
+    private final Queue<Object> receivedObjects;
 
     /**
-     * Constructor for Client.
+     * Constructor for Client using the transport selected by TransportFactory.getDefault().
+     *
+     * @param portNumber the port number of the Client
      */
     public Client(int portNumber) {
+        this(portNumber, TransportFactory.getDefault());
+    }
+
+    /**
+     * Constructor for Client.
+     *
+     * @param portNumber the port number of the Client
+     * @param transportFactory the factory opening the Client's Transport
+     */
+    public Client(int portNumber, TransportFactory transportFactory) {
         this.portNumber = portNumber;
-        messageTransfer = new MessageTransfer(portNumber);
+        transport = transportFactory.open(portNumber);
+        clientToServerAddress = createAddress(Port.CLIENT_TO_SERVER);
+        serverToClientAddress = createAddress(Port.SERVER_TO_CLIENT);
+        acknowledgements = new Semaphore(0);
+        eventDestination = List.of(portNumber == Port.CLIENT.getNumber() ? clientToServerAddress : serverToClientAddress);
+        receivedObjects = new ArrayDeque<>();
     }
 
     /**
-     * Builds a Datagram Packet according to its class type.
+     * Creates the address of the specified Port on the local host.
      *
-     * @param object to convert into a packet
-     * @return packet of the object
+     * @param port the port of the address
+     * @return the address of the port
      */
-    public DatagramPacket buildPacket(Object object) {
-        byte[] newByteArray;
-        Port tempPort;
+    private static InetSocketAddress createAddress(Port port) {
+        try {
+            return new InetSocketAddress(InetAddress.getLocalHost(), port.getNumber());
+        } catch (UnknownHostException e) {
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
 
+    /**
+     * Returns the address to send an object to according to its class type.
+     *
+     * @param object the object to send
+     * @return the address of the Scheduler port that receives the object
+     */
+    public InetSocketAddress getDestination(Object object) {
         //Determine type of message
         if (object instanceof SystemEvent) {
             if (portNumber == Port.CLIENT.getNumber()) {
-                tempPort = Port.CLIENT_TO_SERVER;
+                return clientToServerAddress;
             } else {
-                tempPort = Port.SERVER_TO_CLIENT;
+                return serverToClientAddress;
             }
-            newByteArray = messageTransfer.encodeObject(object);
-        } else if (object instanceof String) {
+        } else if (object instanceof String || object instanceof ElevatorRegistration) {
             if (portNumber == Port.CLIENT.getNumber()) {
-                tempPort = Port.SERVER_TO_CLIENT;
+                return serverToClientAddress;
             } else {
-                tempPort = Port.CLIENT_TO_SERVER;
+                return clientToServerAddress;
             }
-            // NOTE: this code might be unnecessary
-            newByteArray = ((String) object).getBytes();
         } else {
             throw new IllegalArgumentException("Error: Invalid Object");
         }
-
-        if (tempPort == null) {
-            throw new IllegalArgumentException("Error: Invalid PortNumber");
-        }
-
-        return messageTransfer.createPacket(newByteArray, tempPort.getNumber());
     }
 
     /**
-     * Send and Receive a reply using MessageTransfer.
+     * Waits for the Scheduler to acknowledge a previously sent object.
+     * Acknowledgements are collected by receive(), so another thread must be receiving.
+     * A reliable Transport acknowledges messages itself, so no wait is needed.
      *
-     * @param object with the message to send, either an Event or an Array
-     * @return packet of the object
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if an acknowledgement was received, false if the timeout expired
      */
-    public Object sendAndReceiveReply(Object object) {
-        send(object);
-        return receive();
+    public boolean awaitAcknowledgement(long timeout) {
+        if (transport.isReliable()) {
+            return true;
+        }
+        try {
+            return acknowledgements.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     /**
-     * Build a DatagramPacket according to its class type
-     * and sends that DatagramPacket using messageTransfer.
+     * Sends a string or event object to the Scheduler port
+     * corresponding to its class type using the Client's Transport.
      *
-     * @param object a string or event object to send in the DatagramPacket
+     * @param object a string or event object to send
      */
     public void send(Object object) {
-        DatagramPacket sendPacket = buildPacket(object);
-        messageTransfer.sendMessage(sendPacket);
+        InetSocketAddress destination = getDestination(object);
+        transport.sendObject(object, destination);
         if (!(object instanceof String)) {
-            messageTransfer.printSendMessage(Thread.currentThread().getName(), sendPacket);
+            MessageTransfer.printSendMessage(Thread.currentThread().getName(), object, destination);
         }
     }
 
     /**
-     * Receive a DatagramPacket from the MessageTransfer and
-     * return the string or object in the packet as an object.
+     * Sends as many events from the head of the queue as fit in one message to the
+     * Scheduler. The Scheduler acknowledges the whole batch once.
+     *
+     * @param events the queue of events to send; the events sent are removed from it
+     * @return the number of events sent
+     */
+    public int send(Queue<? extends SystemEvent> events) {
+        return transport.sendBatch(events, eventDestination);
+    }
+
+    /**
+     * Receive a message from the Transport and
+     * return the string or object in the message as an object.
+     * Acknowledgements are consumed and handed to threads waiting in awaitAcknowledgement.
+     * Batches are unpacked and their events returned one at a time in order.
      *
      * @return an object containing a string or event object.
      */
     public Object receive() {
         //Receiving reply
-        DatagramPacket receivePacket = messageTransfer.receiveMessage();
-        Object object = convertToSystemEvent(receivePacket);
+        Object object = receivedObjects.poll();
+        while (object == null) {
+            object = transport.receiveObject(0);
+            if (object instanceof String string && RequestMessage.fromMessage(string) == RequestMessage.ACKNOWLEDGE) {
+                acknowledgements.release();
+                object = null;
+            } else if (object instanceof List<?> batch) {
+                receivedObjects.addAll(batch);
+                object = receivedObjects.poll();
+            }
+        }
 
-        if (!(object instanceof String string)) {
-            messageTransfer.printReceiveMessage(Thread.currentThread().getName(), receivePacket);
-        } else if (string.trim().equals(RequestMessage.TERMINATE.getMessage())) {
-            messageTransfer.closeSocket();
+        if (!(object instanceof String)) {
+            MessageTransfer.printReceiveMessage(Thread.currentThread().getName(), object, (InetSocketAddress) transport.getLastSender());
         }
         return object;
     }
 
     /**
-     * Converts a packet into it's corresponding SystemEvent object
-     *
-     * @param packet to convert to event
-     * @return event of packet
+     * Closes the Client's Transport.
      */
-    public Object convertToSystemEvent(DatagramPacket packet) {
-        return messageTransfer.decodeObject(packet.getData());
+    public void close() {
+        transport.close();
     }
 }
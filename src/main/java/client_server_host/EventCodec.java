@@ -0,0 +1,551 @@
+package client_server_host;
+
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import requests.*;
+import systemwide.Direction;
+import systemwide.ElevatorRegistration;
+import systemwide.Origin;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * EventCodec converts SystemEvents, Structures and ElevatorRegistrations to and from a compact binary form.
+ * Each message starts with a one-byte type tag followed by the fixed-width fields
+ * of the class (and its superclasses). Type tags are control characters, so they never
+ * collide with the first byte of a String message.
+ *
+ * Encoded sizes: SystemEvent 14 bytes, ServiceRequest 19, ElevatorRequest 23,
+ * ApproachEvent 24, ElevatorMonitor 33 (+19 with a currentRequest), Structure 19 + 20 per Zone,
+ * ElevatorRegistration 3 + 4 per elevator.
+ *
+ * ElevatorMonitors that are deltas are encoded with the ELEVATOR_MONITOR_DELTA tag,
+ * the elevator number, a two-byte mask of the changed fields and only those fields,
+ * in the order of a full ElevatorMonitor. The time and origin are not sent. A status
+ * update therefore shrinks from 33 bytes to 7 bytes plus the changed fields: 11 for a
+ * new floor, 19 for a new floor and queue time, 8 for a change of doors state.
+ *
+ * Several SystemEvents can share one message as a batch: a BATCH tag and a two-byte
+ * count followed by the encoded events, which are decoded into a List in the same order.
+ */
+public final class EventCodec {
+
+    public static final byte SYSTEM_EVENT = 1;
+    public static final byte SERVICE_REQUEST = 2;
+    public static final byte ELEVATOR_REQUEST = 3;
+    public static final byte APPROACH_EVENT = 4;
+    public static final byte ELEVATOR_MONITOR = 5;
+    public static final byte STRUCTURE = 6;
+    public static final byte BATCH = 7;
+    public static final byte ELEVATOR_MONITOR_DELTA = 8;
+    public static final byte ELEVATOR_REGISTRATION = 9;
+    // followed by the opcode of a RequestMessage; decoded by MessageTransfer
+    public static final byte CONTROL = 10;
+    public static final int BATCH_HEADER_SIZE = 3;
+
+    private static final byte NO_VALUE = -1;
+    private static final byte NO_REQUEST = 0;
+
+    /**
+     * Private constructor; EventCodec only provides static methods.
+     */
+    private EventCodec() {
+    }
+
+    /**
+     * Indicates whether the provided object can be encoded by EventCodec.
+     *
+     * @param object the object to check
+     * @return true if the object is a SystemEvent, Structure or ElevatorRegistration, false otherwise
+     */
+    public static boolean canEncode(Object object) {
+        return object instanceof SystemEvent || object instanceof Structure || object instanceof ElevatorRegistration;
+    }
+
+    /**
+     * Indicates whether the provided byte is the type tag of an encoded object.
+     *
+     * @param tag the first byte of a message
+     * @return true if the byte is a type tag, false otherwise
+     */
+    public static boolean isTypeTag(byte tag) {
+        return tag >= SYSTEM_EVENT && tag <= ELEVATOR_REGISTRATION;
+    }
+
+    /**
+     * Encodes a SystemEvent or Structure into a new byte array.
+     *
+     * @param object the object to encode
+     * @return the encoded object
+     */
+    public static byte[] encode(Object object) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(object));
+        encode(object, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes a SystemEvent or Structure into the buffer at its current position.
+     *
+     * @param object the object to encode
+     * @param buffer the buffer to write the encoded object to
+     */
+    public static void encode(Object object, ByteBuffer buffer) {
+        if (object instanceof Structure structure) {
+            buffer.put(STRUCTURE);
+            buffer.putInt(structure.getNumberOfFloors());
+            buffer.putInt(structure.getNumberOfElevators());
+            buffer.putInt(structure.getElevatorTime());
+            buffer.putInt(structure.getDoorsTime());
+            buffer.putShort((short) structure.getZones().size());
+            for (Zone zone : structure.getZones()) {
+                buffer.putInt(zone.getLobbyFloor());
+                buffer.putInt(zone.getLowestFloor());
+                buffer.putInt(zone.getHighestFloor());
+                buffer.putInt(zone.getFirstElevator());
+                buffer.putInt(zone.getLastElevator());
+            }
+        } else if (object instanceof ElevatorRegistration registration) {
+            buffer.put(ELEVATOR_REGISTRATION);
+            buffer.putShort((short) registration.getElevatorNumbers().size());
+            for (int elevatorNumber : registration.getElevatorNumbers()) {
+                buffer.putInt(elevatorNumber);
+            }
+        } else if (object instanceof ElevatorMonitor monitor && !monitor.isKeyframe()) {
+            buffer.put(ELEVATOR_MONITOR_DELTA);
+            putElevatorMonitorDelta(monitor, buffer);
+        } else if (object instanceof SystemEvent event) {
+            buffer.put(typeTagOf(event));
+            putSystemEvent(event, buffer);
+            if (event instanceof ServiceRequest request) {
+                putServiceRequest(request, buffer);
+            } else if (event instanceof ElevatorMonitor monitor) {
+                putElevatorMonitor(monitor, buffer);
+            }
+        } else {
+            throw new IllegalArgumentException("Error: Invalid Object");
+        }
+    }
+
+    /**
+     * Encodes as many events from the head of the queue as fit in the buffer as a batch.
+     * The encoded events are removed from the queue; the rest are left for another batch.
+     *
+     * @param events the queue of events to encode
+     * @param buffer the buffer to write the batch to
+     * @return the number of events encoded
+     */
+    public static int encodeBatch(Queue<? extends SystemEvent> events, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put(BATCH);
+        buffer.putShort((short) 0);
+
+        int count = 0;
+        SystemEvent event;
+        while (count < Short.MAX_VALUE && (event = events.peek()) != null && encodedSize(event) <= buffer.remaining()) {
+            encode(event, buffer);
+            events.poll();
+            count++;
+        }
+        buffer.putShort(start + 1, (short) count);
+        return count;
+    }
+
+    /**
+     * Decodes an object from the buffer, starting at its current position.
+     *
+     * @param buffer the buffer containing an encoded object
+     * @return the decoded SystemEvent, Structure or ElevatorRegistration, or a List of SystemEvents for a batch
+     */
+    public static Object decode(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        if (tag == STRUCTURE) {
+            return getStructure(buffer);
+        } else if (tag == ELEVATOR_REGISTRATION) {
+            return getElevatorRegistration(buffer);
+        } else if (tag == BATCH) {
+            return getBatch(buffer);
+        } else if (tag == ELEVATOR_MONITOR_DELTA) {
+            return getElevatorMonitorDelta(buffer);
+        }
+        LocalTime time = getTime(buffer);
+        Origin origin = getEnum(Origin.values(), buffer);
+        int elevatorNumber = buffer.getInt();
+
+        SystemEvent event;
+        switch (tag) {
+            case SYSTEM_EVENT -> event = new SystemEvent(time, origin);
+            case SERVICE_REQUEST, ELEVATOR_REQUEST, APPROACH_EVENT -> event = getServiceRequest(tag, time, origin, elevatorNumber, buffer);
+            case ELEVATOR_MONITOR -> event = getElevatorMonitor(elevatorNumber, buffer);
+            default -> throw new IllegalArgumentException("Error: Unknown type tag " + tag);
+        }
+        event.setTime(time);
+        event.setOrigin(origin);
+        event.setElevatorNumber(elevatorNumber);
+        return event;
+    }
+
+    /**
+     * Returns the number of bytes needed to encode the provided object.
+     *
+     * @param object a SystemEvent, Structure or ElevatorRegistration
+     * @return the size of the encoded object in bytes
+     */
+    public static int encodedSize(Object object) {
+        if (object instanceof Structure structure) {
+            return 19 + 20 * structure.getZones().size();
+        } else if (object instanceof ElevatorRegistration registration) {
+            return 3 + 4 * registration.getElevatorNumbers().size();
+        } else if (object instanceof ElevatorRequest) {
+            return 23;
+        } else if (object instanceof ApproachEvent) {
+            return 24;
+        } else if (object instanceof ServiceRequest) {
+            return 19;
+        } else if (object instanceof ElevatorMonitor monitor && !monitor.isKeyframe()) {
+            return deltaSize(monitor);
+        } else if (object instanceof ElevatorMonitor monitor) {
+            int size = 33;
+            if (monitor.getCurrentRequest() != null) {
+                size += encodedSize(monitor.getCurrentRequest());
+            }
+            return size;
+        } else if (object instanceof SystemEvent) {
+            return 14;
+        }
+        throw new IllegalArgumentException("Error: Invalid Object");
+    }
+
+    /**
+     * Returns the type tag corresponding to the event's class.
+     *
+     * @param event the event to find the tag of
+     * @return the type tag of the event
+     */
+    private static byte typeTagOf(SystemEvent event) {
+        if (event instanceof ElevatorRequest) {
+            return ELEVATOR_REQUEST;
+        } else if (event instanceof ApproachEvent) {
+            return APPROACH_EVENT;
+        } else if (event instanceof ServiceRequest) {
+            return SERVICE_REQUEST;
+        } else if (event instanceof ElevatorMonitor) {
+            return ELEVATOR_MONITOR;
+        }
+        return SYSTEM_EVENT;
+    }
+
+    /**
+     * Writes the fields shared by all SystemEvents.
+     *
+     * @param event the event to write
+     * @param buffer the buffer to write to
+     */
+    private static void putSystemEvent(SystemEvent event, ByteBuffer buffer) {
+        LocalTime time = event.getTime();
+        buffer.putLong(time == null ? NO_VALUE : time.toNanoOfDay());
+        putEnum(event.getOrigin(), buffer);
+        buffer.putInt(event.getElevatorNumber());
+    }
+
+    /**
+     * Writes the fields of a ServiceRequest and those of its subclasses.
+     *
+     * @param request the request to write
+     * @param buffer the buffer to write to
+     */
+    private static void putServiceRequest(ServiceRequest request, ByteBuffer buffer) {
+        buffer.putInt(request.getFloorNumber());
+        putEnum(request.getDirection(), buffer);
+        if (request instanceof ElevatorRequest elevatorRequest) {
+            buffer.putInt(elevatorRequest.getDesiredFloor());
+        } else if (request instanceof ApproachEvent approachEvent) {
+            buffer.put((byte) (approachEvent.elevatorMayStop() ? 1 : 0));
+            buffer.putInt(approachEvent.getFloorToVisit());
+        }
+    }
+
+    /**
+     * Writes the fields of an ElevatorMonitor, including its optional currentRequest.
+     *
+     * @param monitor the monitor to write
+     * @param buffer the buffer to write to
+     */
+    private static void putElevatorMonitor(ElevatorMonitor monitor, ByteBuffer buffer) {
+        buffer.putInt(monitor.getCurrentFloor());
+        putEnum(monitor.getDirection(), buffer);
+        putEnum(monitor.getState(), buffer);
+        putEnum(monitor.getMovementDirection(), buffer);
+        putEnum(monitor.getDoorsState(), buffer);
+        putEnum(monitor.getFault(), buffer);
+        buffer.put((byte) (monitor.hasNoRequests() ? 1 : 0));
+        buffer.putDouble(monitor.getQueueTime());
+        ServiceRequest currentRequest = monitor.getCurrentRequest();
+        if (currentRequest == null) {
+            buffer.put(NO_REQUEST);
+        } else {
+            encode(currentRequest, buffer);
+        }
+    }
+
+    /**
+     * Returns the number of bytes needed to encode an ElevatorMonitor delta.
+     *
+     * @param monitor an ElevatorMonitor that is not a keyframe
+     * @return the size of the encoded delta in bytes
+     */
+    private static int deltaSize(ElevatorMonitor monitor) {
+        int changed = monitor.getChangedFields();
+        int size = 7;
+        if ((changed & ElevatorMonitor.CURRENT_FLOOR) != 0) {
+            size += 4;
+        }
+        // the five enums and hasNoRequests take one byte each
+        size += Integer.bitCount(changed & (ElevatorMonitor.DIRECTION | ElevatorMonitor.STATE
+                | ElevatorMonitor.MOVEMENT_DIRECTION | ElevatorMonitor.DOORS_STATE
+                | ElevatorMonitor.FAULT | ElevatorMonitor.HAS_NO_REQUESTS));
+        if ((changed & ElevatorMonitor.QUEUE_TIME) != 0) {
+            size += 8;
+        }
+        if ((changed & ElevatorMonitor.CURRENT_REQUEST) != 0) {
+            size += monitor.getCurrentRequest() == null ? 1 : encodedSize(monitor.getCurrentRequest());
+        }
+        return size;
+    }
+
+    /**
+     * Writes the elevator number, the changed field mask and the changed fields of an ElevatorMonitor.
+     *
+     * @param monitor the delta to write
+     * @param buffer the buffer to write to
+     */
+    private static void putElevatorMonitorDelta(ElevatorMonitor monitor, ByteBuffer buffer) {
+        int changed = monitor.getChangedFields();
+        buffer.putInt(monitor.getElevatorNumber());
+        buffer.putShort((short) changed);
+        if ((changed & ElevatorMonitor.CURRENT_FLOOR) != 0) {
+            buffer.putInt(monitor.getCurrentFloor());
+        }
+        if ((changed & ElevatorMonitor.DIRECTION) != 0) {
+            putEnum(monitor.getDirection(), buffer);
+        }
+        if ((changed & ElevatorMonitor.STATE) != 0) {
+            putEnum(monitor.getState(), buffer);
+        }
+        if ((changed & ElevatorMonitor.MOVEMENT_DIRECTION) != 0) {
+            putEnum(monitor.getMovementDirection(), buffer);
+        }
+        if ((changed & ElevatorMonitor.DOORS_STATE) != 0) {
+            putEnum(monitor.getDoorsState(), buffer);
+        }
+        if ((changed & ElevatorMonitor.FAULT) != 0) {
+            putEnum(monitor.getFault(), buffer);
+        }
+        if ((changed & ElevatorMonitor.HAS_NO_REQUESTS) != 0) {
+            buffer.put((byte) (monitor.hasNoRequests() ? 1 : 0));
+        }
+        if ((changed & ElevatorMonitor.QUEUE_TIME) != 0) {
+            buffer.putDouble(monitor.getQueueTime());
+        }
+        if ((changed & ElevatorMonitor.CURRENT_REQUEST) != 0) {
+            ServiceRequest currentRequest = monitor.getCurrentRequest();
+            if (currentRequest == null) {
+                buffer.put(NO_REQUEST);
+            } else {
+                encode(currentRequest, buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads an ElevatorMonitor delta. Fields that did not change keep their default values.
+     *
+     * @param buffer the buffer to read from, positioned after the ELEVATOR_MONITOR_DELTA tag
+     * @return the decoded delta
+     */
+    private static ElevatorMonitor getElevatorMonitorDelta(ByteBuffer buffer) {
+        ElevatorMonitor monitor = new ElevatorMonitor(buffer.getInt());
+        int changed = Short.toUnsignedInt(buffer.getShort());
+        int currentFloor = monitor.getCurrentFloor();
+        Direction serviceDirection = monitor.getDirection();
+        MovementState state = monitor.getState();
+        Direction movementDirection = monitor.getMovementDirection();
+        Doors.State doorsState = monitor.getDoorsState();
+        Fault fault = monitor.getFault();
+        boolean hasNoRequests = monitor.hasNoRequests();
+        double queueTime = monitor.getQueueTime();
+        if ((changed & ElevatorMonitor.CURRENT_FLOOR) != 0) {
+            currentFloor = buffer.getInt();
+        }
+        if ((changed & ElevatorMonitor.DIRECTION) != 0) {
+            serviceDirection = getEnum(Direction.values(), buffer);
+        }
+        if ((changed & ElevatorMonitor.STATE) != 0) {
+            state = getEnum(MovementState.values(), buffer);
+        }
+        if ((changed & ElevatorMonitor.MOVEMENT_DIRECTION) != 0) {
+            movementDirection = getEnum(Direction.values(), buffer);
+        }
+        if ((changed & ElevatorMonitor.DOORS_STATE) != 0) {
+            doorsState = getEnum(Doors.State.values(), buffer);
+        }
+        if ((changed & ElevatorMonitor.FAULT) != 0) {
+            fault = getEnum(Fault.values(), buffer);
+        }
+        if ((changed & ElevatorMonitor.HAS_NO_REQUESTS) != 0) {
+            hasNoRequests = buffer.get() == 1;
+        }
+        if ((changed & ElevatorMonitor.QUEUE_TIME) != 0) {
+            queueTime = buffer.getDouble();
+        }
+        ElevatorMonitor delta = new ElevatorMonitor(monitor.getElevatorNumber(), currentFloor, serviceDirection, state,
+                movementDirection, doorsState, fault, hasNoRequests, queueTime);
+        if ((changed & ElevatorMonitor.CURRENT_REQUEST) != 0) {
+            if (buffer.get(buffer.position()) == NO_REQUEST) {
+                buffer.get();
+            } else {
+                delta.setCurrentRequest((ServiceRequest) decode(buffer));
+            }
+        }
+        delta.setChangedFields(changed);
+        return delta;
+    }
+
+    /**
+     * Reads the fields of a ServiceRequest or one of its subclasses.
+     *
+     * @param tag the type tag of the request
+     * @param time the time of the request
+     * @param origin the origin of the request
+     * @param elevatorNumber the number of the elevator of the request
+     * @param buffer the buffer to read from
+     * @return the decoded ServiceRequest
+     */
+    private static ServiceRequest getServiceRequest(byte tag, LocalTime time, Origin origin, int elevatorNumber, ByteBuffer buffer) {
+        int floorNumber = buffer.getInt();
+        Direction direction = getEnum(Direction.values(), buffer);
+        if (tag == ELEVATOR_REQUEST) {
+            return new ElevatorRequest(time, floorNumber, direction, buffer.getInt(), origin);
+        } else if (tag == APPROACH_EVENT) {
+            ApproachEvent approachEvent = new ApproachEvent(time, floorNumber, direction, elevatorNumber, origin);
+            if (buffer.get() == 1) {
+                approachEvent.allowElevatorStop();
+            }
+            approachEvent.setFloorToVisit(buffer.getInt());
+            return approachEvent;
+        }
+        return new ServiceRequest(time, floorNumber, direction, origin);
+    }
+
+    /**
+     * Reads the fields of an ElevatorMonitor, including its optional currentRequest.
+     *
+     * @param elevatorNumber the number of the monitored elevator
+     * @param buffer the buffer to read from
+     * @return the decoded ElevatorMonitor
+     */
+    private static ElevatorMonitor getElevatorMonitor(int elevatorNumber, ByteBuffer buffer) {
+        int currentFloor = buffer.getInt();
+        Direction serviceDirection = getEnum(Direction.values(), buffer);
+        MovementState state = getEnum(MovementState.values(), buffer);
+        Direction movementDirection = getEnum(Direction.values(), buffer);
+        Doors.State doorsState = getEnum(Doors.State.values(), buffer);
+        Fault fault = getEnum(Fault.values(), buffer);
+        boolean hasNoRequests = buffer.get() == 1;
+        double queueTime = buffer.getDouble();
+        ElevatorMonitor monitor = new ElevatorMonitor(elevatorNumber, currentFloor, serviceDirection, state,
+                movementDirection, doorsState, fault, hasNoRequests, queueTime);
+
+        if (buffer.get(buffer.position()) == NO_REQUEST) {
+            buffer.get();
+        } else {
+            monitor.setCurrentRequest((ServiceRequest) decode(buffer));
+        }
+        return monitor;
+    }
+
+    /**
+     * Reads the events of a batch in the order they were encoded.
+     *
+     * @param buffer the buffer to read from, positioned after the BATCH tag
+     * @return the list of decoded events
+     */
+    private static List<SystemEvent> getBatch(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        List<SystemEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add((SystemEvent) decode(buffer));
+        }
+        return events;
+    }
+
+    /**
+     * Reads the sizes and times of a Structure, followed by its Zones.
+     *
+     * @param buffer the buffer to read from, positioned after the STRUCTURE tag
+     * @return the decoded Structure
+     */
+    private static Structure getStructure(ByteBuffer buffer) {
+        Structure structure = new Structure(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+        int count = buffer.getShort();
+        for (int i = 0; i < count; i++) {
+            structure.addZone(new Zone(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        }
+        return structure;
+    }
+
+    /**
+     * Reads the elevator numbers of an ElevatorRegistration.
+     *
+     * @param buffer the buffer to read from, positioned after the ELEVATOR_REGISTRATION tag
+     * @return the decoded ElevatorRegistration
+     */
+    private static ElevatorRegistration getElevatorRegistration(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        List<Integer> elevatorNumbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            elevatorNumbers.add(buffer.getInt());
+        }
+        return new ElevatorRegistration(elevatorNumbers);
+    }
+
+    /**
+     * Reads a LocalTime stored as nanoseconds of the day.
+     *
+     * @param buffer the buffer to read from
+     * @return the time read, or null if no time was written
+     */
+    private static LocalTime getTime(ByteBuffer buffer) {
+        long nanoOfDay = buffer.getLong();
+        return nanoOfDay == NO_VALUE ? null : LocalTime.ofNanoOfDay(nanoOfDay);
+    }
+
+    /**
+     * Writes an enum constant as its ordinal.
+     *
+     * @param value the enum constant to write, may be null
+     * @param buffer the buffer to write to
+     */
+    private static void putEnum(Enum<?> value, ByteBuffer buffer) {
+        buffer.put(value == null ? NO_VALUE : (byte) value.ordinal());
+    }
+
+    /**
+     * Reads an enum constant written by putEnum.
+     *
+     * @param values the constants of the enum
+     * @param buffer the buffer to read from
+     * @return the enum constant read, or null if no constant was written
+     */
+    private static <E extends Enum<E>> E getEnum(E[] values, ByteBuffer buffer) {
+        byte ordinal = buffer.get();
+        return ordinal == NO_VALUE ? null : values[ordinal];
+    }
+}
@@ -0,0 +1,187 @@
+package client_server_host;
+
+import requests.SystemEvent;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InMemoryTransport is a Transport that passes objects by reference through a queue,
+ * without encoding them or involving the network. It lets all subsystems run in one JVM.
+ */
+public class InMemoryTransport implements Transport {
+
+    private final InMemoryTransportFactory factory;
+    private final int portNumber;
+    private final InetSocketAddress address;
+    private final BlockingQueue<Message> mailbox;
+    private SocketAddress lastSender;
+    private volatile InMemoryTransportSelector selector;
+    private volatile Object attachment;
+
+    /**
+     * Message is an object delivered to an InMemoryTransport along with its sender.
+     */
+    private static final class Message {
+        private final SocketAddress sender;
+        private final Object object;
+
+        /**
+         * Constructor for Message.
+         *
+         * @param sender the address of the sending Transport
+         * @param object the object delivered
+         */
+        private Message(SocketAddress sender, Object object) {
+            this.sender = sender;
+            this.object = object;
+        }
+    }
+
+    /**
+     * Constructor for InMemoryTransport.
+     *
+     * @param factory the factory connecting the InMemoryTransports
+     * @param portNumber the port number of the Transport
+     */
+    InMemoryTransport(InMemoryTransportFactory factory, int portNumber) {
+        this.factory = factory;
+        this.portNumber = portNumber;
+        address = new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+        mailbox = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Returns the port number identifying the Transport.
+     *
+     * @return the port number of the Transport
+     */
+    @Override
+    public int getPortNumber() {
+        return portNumber;
+    }
+
+    /**
+     * Sends an object to the destination by reference.
+     *
+     * @param object the SystemEvent, Structure or String to send
+     * @param destination the address of the receiving Transport
+     */
+    @Override
+    public void sendObject(Object object, SocketAddress destination) {
+        factory.deliver(address, object, destination);
+    }
+
+    /**
+     * Sends every event in the queue to every destination as one batch.
+     * Unlike datagrams, a batch is not limited in size.
+     *
+     * @param events the queue of events to send
+     * @param destinations the addresses of the receiving Transports
+     * @return the number of events sent
+     */
+    @Override
+    public int sendBatch(Queue<? extends SystemEvent> events, Collection<? extends SocketAddress> destinations) {
+        List<SystemEvent> batch = new ArrayList<>(events);
+        events.clear();
+        for (SocketAddress destination : destinations) {
+            factory.deliver(address, batch, destination);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Receives an object, waiting at most the specified time for it to arrive.
+     *
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the object received, or null if the wait timed out
+     */
+    @Override
+    public Object receiveObject(long timeout) {
+        Message message;
+        try {
+            if (timeout < 0) {
+                message = mailbox.poll();
+            } else if (timeout == 0) {
+                message = mailbox.take();
+            } else {
+                message = mailbox.poll(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (message == null) {
+            return null;
+        }
+        lastSender = message.sender;
+        return message.object;
+    }
+
+    /**
+     * Returns the address from which the last object was received.
+     *
+     * @return the address of the sender of the last object
+     */
+    @Override
+    public SocketAddress getLastSender() {
+        return lastSender;
+    }
+
+    /**
+     * Registers the Transport with an InMemoryTransportSelector, which is signalled
+     * whenever an object is delivered.
+     *
+     * @param selector an InMemoryTransportSelector
+     * @param attachment the object reported by the selector
+     */
+    @Override
+    public void register(TransportSelector selector, Object attachment) {
+        this.attachment = attachment;
+        this.selector = (InMemoryTransportSelector) selector;
+        if (!mailbox.isEmpty()) {
+            this.selector.signal(attachment);
+        }
+    }
+
+    /**
+     * Adds an object to the Transport's mailbox and signals its selector.
+     *
+     * @param sender the address of the sending Transport
+     * @param object the object delivered
+     */
+    void deliver(SocketAddress sender, Object object) {
+        mailbox.add(new Message(sender, object));
+        InMemoryTransportSelector currentSelector = selector;
+        if (currentSelector != null) {
+            currentSelector.signal(attachment);
+        }
+    }
+
+    /**
+     * Indicates that messages are delivered in order without loss.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isReliable() {
+        return true;
+    }
+
+    /**
+     * Closes the Transport so that its port can be opened again.
+     */
+    @Override
+    public void close() {
+        factory.remove(this);
+    }
+}
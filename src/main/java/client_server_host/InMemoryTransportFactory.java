@@ -0,0 +1,72 @@
+package client_server_host;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * InMemoryTransportFactory opens InMemoryTransports that deliver objects by reference
+ * to other InMemoryTransports opened by the same factory. Transports are addressed
+ * by port number, so the addresses used over UDP can be used unchanged.
+ */
+public class InMemoryTransportFactory implements TransportFactory {
+
+    private final Map<Integer, InMemoryTransport> transports;
+
+    /**
+     * Constructor for InMemoryTransportFactory.
+     */
+    public InMemoryTransportFactory() {
+        transports = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Opens an InMemoryTransport on the specified port.
+     *
+     * @param portNumber the port number of the Transport
+     * @return the opened InMemoryTransport
+     */
+    @Override
+    public Transport open(int portNumber) {
+        InMemoryTransport transport = new InMemoryTransport(this, portNumber);
+        if (transports.putIfAbsent(portNumber, transport) != null) {
+            throw new IllegalStateException("Error: Port " + portNumber + " is already in use");
+        }
+        return transport;
+    }
+
+    /**
+     * Opens a selector that can wait on InMemoryTransports.
+     *
+     * @return the opened selector
+     */
+    @Override
+    public TransportSelector openSelector() {
+        return new InMemoryTransportSelector();
+    }
+
+    /**
+     * Delivers an object to the Transport at the destination. Objects sent to a port
+     * without an open Transport are dropped, as they would be over UDP.
+     *
+     * @param sender the address of the sending Transport
+     * @param object the object to deliver
+     * @param destination the address of the receiving Transport
+     */
+    void deliver(SocketAddress sender, Object object, SocketAddress destination) {
+        InMemoryTransport transport = transports.get(((InetSocketAddress) destination).getPort());
+        if (transport != null) {
+            transport.deliver(sender, object);
+        }
+    }
+
+    /**
+     * Removes a closed Transport so that its port can be opened again.
+     *
+     * @param transport the closed Transport
+     */
+    void remove(InMemoryTransport transport) {
+        transports.remove(transport.getPortNumber(), transport);
+    }
+}
@@ -0,0 +1,68 @@
+package client_server_host;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * InMemoryTransportSelector waits on several InMemoryTransports. Transports signal
+ * the selector when an object is delivered to them.
+ */
+public class InMemoryTransportSelector implements TransportSelector {
+
+    private final Set<Object> signalledAttachments;
+    private final List<Object> readyAttachments;
+
+    /**
+     * Constructor for InMemoryTransportSelector.
+     */
+    public InMemoryTransportSelector() {
+        signalledAttachments = new LinkedHashSet<>();
+        readyAttachments = new ArrayList<>();
+    }
+
+    /**
+     * Waits until at least one registered InMemoryTransport has been delivered an object.
+     *
+     * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
+     * @return the attachments of the Transports with objects, empty if the wait timed out
+     */
+    @Override
+    public synchronized List<Object> select(long timeout) {
+        readyAttachments.clear();
+        long deadline = System.currentTimeMillis() + timeout;
+        while (signalledAttachments.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (timeout > 0 && remaining <= 0) {
+                return readyAttachments;
+            }
+            try {
+                wait(timeout > 0 ? remaining : 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return readyAttachments;
+            }
+        }
+        readyAttachments.addAll(signalledAttachments);
+        signalledAttachments.clear();
+        return readyAttachments;
+    }
+
+    /**
+     * Marks the Transport with the attachment as having objects to receive.
+     *
+     * @param attachment the attachment of a registered Transport
+     */
+    synchronized void signal(Object attachment) {
+        signalledAttachments.add(attachment);
+        notifyAll();
+    }
+
+    /**
+     * Closes the selector. Nothing needs to be released.
+     */
+    @Override
+    public void close() {
+    }
+}
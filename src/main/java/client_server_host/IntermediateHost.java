@@ -1,65 +1,348 @@
 package client_server_host;
 
+import requests.ElevatorRequest;
 import requests.SystemEvent;
 
-import java.net.DatagramPacket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
-import java.util.LinkedList;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * IntermediateHost is a service class used by Scheduler. It provides methods
- * that manipulate MessageTransfer to receive and send messages to both Client and Server.
+ * that manipulate a Transport to receive and send messages to both Client and Server.
+ * Queued events are pushed to the Clients or Servers that subscribed to the IntermediateHost.
+ * Once routes are added, an event for an elevator is pushed only to the Server that registered
+ * the elevator, and stays queued until that elevator is registered. Events for no elevator
+ * are pushed to every subscriber, except ElevatorRequests that no elevator could be assigned,
+ * which no Server can serve and are dropped.
+ * Events are queued in a lock-free BoundedEventQueue, so several threads can queue events
+ * without waiting for each other. Publishing moves them to a pending queue, where events wait
+ * for a subscriber or a route; the pending queue, subscribers and routes are guarded by the
+ * IntermediateHost's lock. The queue's capacity bounds every event queued and not yet sent,
+ * including the pending events, and its QueueFullPolicy applies once that many are waiting.
  *
  * @author Liam Tripp, Ryan Dash
  */
 public class IntermediateHost {
 
-    private final MessageTransfer messageTransfer;
-    private final Queue<SystemEvent> messageQueue;
+    private final Transport transport;
+    private final BoundedEventQueue<SystemEvent> messageQueue;
+    private final Queue<SystemEvent> pendingEvents;
+    private final List<InetSocketAddress> subscribers;
+    // routing table from elevator number to the address of the Server running the elevator
+    private final Map<Integer, InetSocketAddress> routes;
+    private final Map<InetSocketAddress, Queue<SystemEvent>> routedEvents;
+    private final QueueFullPolicy queueFullPolicy;
+    // the number of events queued and not yet sent, reserved before an event is queued
+    private final AtomicInteger queuedEvents;
+    private final AtomicLong droppedEvents;
 
     /**
-     * Constructor for IntermediateHost.
+     * Constructor for IntermediateHost using the transport selected by TransportFactory.getDefault().
      *
      * @param portNumber the port number corresponding to a DatagramSocket
      */
     public IntermediateHost(int portNumber) {
-        messageTransfer = new MessageTransfer(portNumber);
-        messageQueue = new LinkedList<>();
+        this(portNumber, TransportFactory.getDefault());
+    }
+
+    /**
+     * Constructor for IntermediateHost.
+     *
+     * @param portNumber the port number of the IntermediateHost
+     * @param transportFactory the factory opening the IntermediateHost's Transport
+     */
+    public IntermediateHost(int portNumber, TransportFactory transportFactory) {
+        this(portNumber, transportFactory, BoundedEventQueue.DEFAULT_CAPACITY, QueueFullPolicy.BLOCK);
+    }
+
+    /**
+     * Constructor for IntermediateHost.
+     *
+     * @param portNumber the port number of the IntermediateHost
+     * @param transportFactory the factory opening the IntermediateHost's Transport
+     * @param queueCapacity the maximum number of events queued before they are published
+     * @param queueFullPolicy what happens to an event queued while the queue is full
+     */
+    public IntermediateHost(int portNumber, TransportFactory transportFactory, int queueCapacity, QueueFullPolicy queueFullPolicy) {
+        transport = transportFactory.open(portNumber);
+        // the IntermediateHost applies the policy; the queue never holds more than its capacity
+        messageQueue = new BoundedEventQueue<>(queueCapacity, QueueFullPolicy.BLOCK);
+        this.queueFullPolicy = queueFullPolicy;
+        queuedEvents = new AtomicInteger();
+        droppedEvents = new AtomicLong();
+        pendingEvents = new ArrayDeque<>();
+        subscribers = new ArrayList<>();
+        routes = new HashMap<>();
+        routedEvents = new LinkedHashMap<>();
+    }
+
+    /**
+     * Registers a Server or Client to receive the events queued by this IntermediateHost.
+     *
+     * @param address the address of the subscribing Server or Client
+     */
+    public synchronized void addSubscriber(InetSocketAddress address) {
+        if (!subscribers.contains(address)) {
+            subscribers.add(address);
+        }
+    }
+
+    /**
+     * Routes the events of the specified elevator to a Server, replacing any previous route.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param address the address of the Server running the elevator
+     */
+    public synchronized void addRoute(int elevatorNumber, InetSocketAddress address) {
+        routes.put(elevatorNumber, address);
+    }
+
+    /**
+     * Returns the address of the Server that the events of an elevator are routed to.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @return the address of the Server running the elevator, or null if the elevator has no route
+     */
+    public synchronized InetSocketAddress getRoute(int elevatorNumber) {
+        return routes.get(elevatorNumber);
     }
 
     /**
-     * Receives and returns a DatagramPacket from the IntermediateHost's MessageTransfer.
+     * Indicates whether any Server or Client has subscribed to the IntermediateHost.
      *
-     * @return packet received from the IntermediateHost's MessageTransfer
+     * @return true if there is at least one subscriber, false otherwise
      */
-    public DatagramPacket receivePacket() {
-        DatagramPacket receivePacket = messageTransfer.receiveMessage();
-        messageTransfer.printReceiveMessage(Thread.currentThread().getName(), receivePacket);
-        return receivePacket;
+    public synchronized boolean hasSubscribers() {
+        return !subscribers.isEmpty();
     }
 
     /**
-     * Converts a packet into it's corresponding SystemEvent object
+     * Pushes every queued event to the subscribers in the order the events were queued.
+     * Events are packed into as few batches as possible.
+     * Events stay queued until a subscriber is registered. Producers waiting for room
+     * in the queue are woken once events are sent.
+     */
+    public synchronized void publishQueuedEvents() {
+        movePendingEvents();
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        int unsentEvents = pendingEvents.size();
+        sendPendingEvents();
+        releaseEvents(unsentEvents - pendingEvents.size());
+    }
+
+    /**
+     * Sends the pending events to their subscribers, leaving the events of unregistered
+     * elevators pending and dropping unassigned ElevatorRequests once routes are added.
+     * Must be called while holding the IntermediateHost's lock.
+     */
+    private void sendPendingEvents() {
+        if (routes.isEmpty()) {
+            while (!pendingEvents.isEmpty()) {
+                transport.sendBatch(pendingEvents, subscribers);
+            }
+            return;
+        }
+        // sort the events by destination, keeping their order, then send a batch per destination
+        int events = pendingEvents.size();
+        for (int i = 0; i < events; i++) {
+            SystemEvent event = pendingEvents.remove();
+            InetSocketAddress route = routes.get(event.getElevatorNumber());
+            if (route != null) {
+                routedEvents.computeIfAbsent(route, address -> new ArrayDeque<>()).add(event);
+            } else if (event.getElevatorNumber() == 0 && event instanceof ElevatorRequest) {
+                // no elevator can serve the request, so no Server can process it
+                System.out.println(LocalTime.now() + "\nIntermediateHost dropped an ElevatorRequest assigned to no elevator.\n");
+            } else if (event.getElevatorNumber() == 0) {
+                for (InetSocketAddress subscriber : subscribers) {
+                    routedEvents.computeIfAbsent(subscriber, address -> new ArrayDeque<>()).add(event);
+                }
+            } else {
+                // the elevator's Server has not registered yet
+                pendingEvents.add(event);
+            }
+        }
+        for (Map.Entry<InetSocketAddress, Queue<SystemEvent>> entry : routedEvents.entrySet()) {
+            List<InetSocketAddress> destination = List.of(entry.getKey());
+            while (!entry.getValue().isEmpty()) {
+                transport.sendBatch(entry.getValue(), destination);
+            }
+        }
+    }
+
+    /**
+     * Frees the room taken by events that were sent or removed, and wakes the producers waiting for room.
+     * Must be called while holding the IntermediateHost's lock.
+     *
+     * @param events the number of events that left the queue
+     */
+    private void releaseEvents(int events) {
+        if (events > 0) {
+            queuedEvents.addAndGet(-events);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Moves the events queued by producers to the pending events, in order.
+     * Must be called while holding the IntermediateHost's lock.
+     */
+    private void movePendingEvents() {
+        SystemEvent event;
+        while ((event = messageQueue.poll()) != null) {
+            pendingEvents.add(event);
+        }
+    }
+
+    /**
+     * Returns the number of events queued and not yet sent, including the events waiting
+     * for a subscriber or for their elevator to be registered.
      *
-     * @param packet to convert to event
-     * @return object stored in the packet
+     * @return the depth of the IntermediateHost's queue
      */
-    public Object convertToObject(DatagramPacket packet) {
-        return messageTransfer.decodeObject(packet.getData());
+    public int getQueueDepth() {
+        return queuedEvents.get();
     }
 
     /**
-     * Adds a packets containing an event to the MessageTransfer queue.
+     * Returns the number of queued events dropped because the queue was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Receives and returns an object from the IntermediateHost's Transport.
+     * The sender of the object is available from getLastSender().
+     *
+     * @return the SystemEvent or String received by the IntermediateHost's Transport
+     */
+    public Object receiveObject() {
+        return receiveObject(0);
+    }
+
+    /**
+     * Receives and returns an object from the IntermediateHost's Transport,
+     * waiting at most the specified time for it to arrive.
+     *
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the SystemEvent or String received, or null if the wait timed out
+     */
+    public Object receiveObject(long timeout) {
+        Object object = transport.receiveObject(timeout);
+        if (object != null) {
+            MessageTransfer.printReceiveMessage(Thread.currentThread().getName(), object, getLastSender());
+        }
+        return object;
+    }
+
+    /**
+     * Receives and returns an object if one is available, without waiting.
+     *
+     * @return the SystemEvent or String received, or null if no object was available
+     */
+    public Object pollObject() {
+        return receiveObject(-1);
+    }
+
+    /**
+     * Registers the IntermediateHost with a Selector, attaching the IntermediateHost
+     * to its SelectionKey so that the Scheduler can tell which host has messages.
+     *
+     * @param selector the selector used by the Scheduler
+     */
+    public void register(TransportSelector selector) {
+        transport.register(selector, this);
+    }
+
+    /**
+     * Returns the address from which the last object was received.
+     *
+     * @return the address of the sender of the last object
+     */
+    public InetSocketAddress getLastSender() {
+        return (InetSocketAddress) transport.getLastSender();
+    }
+
+    /**
+     * Adds an event to the queue of events to publish, without taking the IntermediateHost's
+     * lock unless the queue is full. A full queue applies its QueueFullPolicy: with BLOCK,
+     * the producer publishes the queued events itself, so that a thread queuing many events
+     * before publishing cannot wait on itself, then waits until events are sent; with
+     * DROP_OLDEST, the oldest unsent event is dropped; with REJECT, the event is refused.
      *
      * @param event an event to send to either the Client or Server
+     * @throws IllegalStateException if the queue is full and its policy is REJECT
      */
     public void addEventToQueue(SystemEvent event) {
-        // encode the altered event into a new packet
+        while (!reserveRoom()) {
+            switch (queueFullPolicy) {
+                case BLOCK -> waitForRoom();
+                case DROP_OLDEST -> dropOldestEvent();
+                case REJECT -> throw new IllegalStateException("Error: Queue full");
+            }
+        }
         messageQueue.add(event);
     }
 
+    /**
+     * Reserves room for an event if fewer events than the capacity are queued and not yet sent.
+     *
+     * @return true if room was reserved, false if the queue is full
+     */
+    private boolean reserveRoom() {
+        int events;
+        do {
+            events = queuedEvents.get();
+            if (events >= messageQueue.capacity()) {
+                return false;
+            }
+        } while (!queuedEvents.compareAndSet(events, events + 1));
+        return true;
+    }
+
+    /**
+     * Publishes the queued events, then waits until events have been sent if the queue is still full.
+     */
+    private synchronized void waitForRoom() {
+        publishQueuedEvents();
+        if (queuedEvents.get() < messageQueue.capacity()) {
+            return;
+        }
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Error: Interrupted while waiting for room in the queue", e);
+        }
+    }
+
+    /**
+     * Drops the oldest event that has not been sent.
+     */
+    private synchronized void dropOldestEvent() {
+        movePendingEvents();
+        if (pendingEvents.poll() != null) {
+            droppedEvents.incrementAndGet();
+            releaseEvents(1);
+        }
+    }
+
     /**
      * Responds to a data request depending on whether the queue of messages is empty.
      *
@@ -68,38 +351,55 @@ public class IntermediateHost {
      * @param port the port to send the packet to
      */
     public void sendObject(Object object, InetAddress address, int port) {
-        byte[] message = messageTransfer.encodeObject(object);
-        messageTransfer.sendMessage(new DatagramPacket(message, message.length, address, port));
+        sendObject(object, new InetSocketAddress(address, port));
+    }
+
+    /**
+     * Sends an object to the Server or Client at the specified address.
+     *
+     * @param object the object to send to the Server or Client
+     * @param address the address of the Server or Client
+     */
+    public void sendObject(Object object, InetSocketAddress address) {
+        transport.sendObject(object, address);
     }
 
     /**
      * Responds to a SystemEvent object being received.
+     * A reliable Transport acknowledges messages itself, so no response is sent.
      *
-     * @param packet a packet received from a scheduler
+     * @param address the address of the sender of the SystemEvent
      */
-    public void acknowledgeDataReception(DatagramPacket packet) {
-        byte[] acknowledgeMessage = RequestMessage.ACKNOWLEDGE.getMessage().getBytes();
-        DatagramPacket acknowledgePacket = new DatagramPacket(acknowledgeMessage, acknowledgeMessage.length, packet.getAddress(), packet.getPort());
-        messageTransfer.sendMessage(acknowledgePacket);
+    public void acknowledgeDataReception(InetSocketAddress address) {
+        if (transport.isReliable()) {
+            return;
+        }
+        transport.sendObject(RequestMessage.ACKNOWLEDGE.getMessage(), address);
     }
 
     /**
-     * Terminates the ElevatorSubsystem and the FloorSubsystem threads.
+     * Terminates the ElevatorSubsystem and the FloorSubsystem threads,
+     * including every subscriber on a port other than the default one.
      */
-    public void terminateSystem() {
+    public synchronized void terminateSystem() {
         try {
             InetAddress inetAddress = InetAddress.getLocalHost();
             int portNumber;
-            if (messageTransfer.getPortNumber() == Port.CLIENT_TO_SERVER.getNumber()) {
+            if (transport.getPortNumber() == Port.CLIENT_TO_SERVER.getNumber()) {
                 portNumber = Port.SERVER.getNumber();
             } else {
                 portNumber = Port.CLIENT.getNumber();
             }
             sendObject(RequestMessage.TERMINATE.getMessage(), inetAddress, portNumber);
+            for (InetSocketAddress subscriber : subscribers) {
+                if (subscriber.getPort() != portNumber) {
+                    sendObject(RequestMessage.TERMINATE.getMessage(), subscriber);
+                }
+            }
         } catch (UnknownHostException e) {
             e.printStackTrace();
         }
-        messageTransfer.closeSocket();
+        transport.close();
     }
 
     /**
@@ -107,8 +407,11 @@ public class IntermediateHost {
      *
      * @return a packet from the queue
      */
-    public SystemEvent getPacketFromQueue() {
-        return messageQueue.remove();
+    public synchronized SystemEvent getPacketFromQueue() {
+        movePendingEvents();
+        SystemEvent event = pendingEvents.remove();
+        releaseEvents(1);
+        return event;
     }
 
     /**
@@ -116,7 +419,7 @@ public class IntermediateHost {
      *
      * @return true if the queue is empty, false otherwise
      */
-    public boolean queueIsEmpty() {
-        return messageQueue.isEmpty();
+    public synchronized boolean queueIsEmpty() {
+        return queuedEvents.get() == 0;
     }
 }
@@ -1,57 +1,404 @@
 package client_server_host;
 
-import java.io.*;
+import requests.SystemEvent;
+
+import java.io.IOException;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * MessageTransfer provides methods for other classes to send, receive, and
- * print DatagramPacket data using a DatagramSocket.
+ * print messages using a DatagramChannel. Messages are encoded into and decoded
+ * from pooled direct buffers, so exchanging messages does not allocate buffers.
+ * MessageTransfer is the UDP implementation of Transport.
+ * Messages too large for one datagram are split into fragments, which the
+ * receiving MessageTransfer reassembles before decoding the message.
  *
  * @author Liam Tripp, Ryan Dash, Gregory Franks?
  */
-public class MessageTransfer {
+public class MessageTransfer implements Transport {
 
-    private DatagramSocket socket;
+    private DatagramChannel channel;
+    private Selector selector;
+    private final BufferPool bufferPool;
+    private final ReassemblyBuffer reassemblyBuffer;
+    private final AtomicInteger nextMessageId;
+    private SocketAddress lastSender;
     public final static int MAX_BYTE_ARRAY_SIZE = 1400;
+    private final static int BUFFER_POOL_CAPACITY = 4;
+    private final static int MAX_FRAGMENTS = 0xFFFF;
+    // the CONTROL tag and the opcode of a RequestMessage
+    private final static int CONTROL_MESSAGE_SIZE = 2;
 
     /**
      * Constructor for MessageTransfer.
      *
-     * @param portNumber number of the port associated with the DatagramSocket
+     * @param portNumber number of the port associated with the DatagramChannel
      */
     public MessageTransfer(int portNumber) {
+        bufferPool = new BufferPool(BUFFER_POOL_CAPACITY, MAX_BYTE_ARRAY_SIZE);
+        reassemblyBuffer = new ReassemblyBuffer(ReassemblyBuffer.DEFAULT_TIMEOUT);
+        nextMessageId = new AtomicInteger();
         try {
-            socket = new DatagramSocket(portNumber);
-        } catch (SocketException e) {
+            channel = DatagramChannel.open();
+            channel.bind(new InetSocketAddress(portNumber));
+            // receives wait on the selector so that they can time out
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Returns the port number associated with the MessageTransfer's DatagramSocket.
+     * Returns the port number associated with the MessageTransfer's DatagramChannel.
      *
-     * @return the port number of a DatagramSocket
+     * @return the port number of a DatagramChannel
      */
+    @Override
     public int getPortNumber() {
-        return socket.getLocalPort();
+        return channel.socket().getLocalPort();
+    }
+
+    /**
+     * Closes the DatagramChannel.
+     */
+    @Override
+    public void close() {
+        closeSocket();
     }
 
     /**
-     * Closes the DatagramSocket.
+     * Closes the DatagramChannel.
      */
     public void closeSocket() {
-        socket.close();
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the BufferPool used to send and receive messages.
+     *
+     * @return the BufferPool of the MessageTransfer
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Returns the ReassemblyBuffer holding the fragments of partially received messages.
+     *
+     * @return the ReassemblyBuffer of the MessageTransfer
+     */
+    public ReassemblyBuffer getReassemblyBuffer() {
+        return reassemblyBuffer;
+    }
+
+    /**
+     * Returns the address from which the last message was received by receiveObject.
+     *
+     * @return the address of the sender of the last message
+     */
+    @Override
+    public SocketAddress getLastSender() {
+        return lastSender;
+    }
+
+    /**
+     * Encodes an object into a pooled buffer and sends it to the destination.
+     * Objects too large for one datagram are sent as fragments.
+     *
+     * @param object the SystemEvent, Structure or String to send
+     * @param destination the address of the receiving DatagramChannel
+     */
+    @Override
+    public void sendObject(Object object, SocketAddress destination) {
+        if (encodedSize(object) > MAX_BYTE_ARRAY_SIZE) {
+            for (ByteBuffer fragment : fragment(encodeLargeObject(object), MAX_BYTE_ARRAY_SIZE)) {
+                sendFrame(fragment, destination);
+            }
+            return;
+        }
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            encodeObject(object, buffer);
+            buffer.flip();
+            send(buffer, destination);
+        } catch (IOException e) {
+            System.err.print("Send error");
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Encodes as many events from the head of the queue as fit in one message and
+     * sends the batch to every destination. The events sent are removed from the queue.
+     *
+     * @param events the queue of events to send
+     * @param destinations the addresses of the receiving DatagramChannels
+     * @return the number of events sent
+     */
+    @Override
+    public int sendBatch(Queue<? extends SystemEvent> events, Collection<? extends SocketAddress> destinations) {
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            int count = EventCodec.encodeBatch(events, buffer);
+            buffer.flip();
+            for (SocketAddress destination : destinations) {
+                send(buffer, destination);
+                buffer.rewind();
+            }
+            return count;
+        } catch (IOException e) {
+            System.err.print("Send error");
+            e.printStackTrace();
+            System.exit(1);
+            return 0;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Receives a message into a pooled buffer and decodes it.
+     * The sender of the message is available from getLastSender().
+     *
+     * @return the SystemEvent, Structure, String or List of batched SystemEvents received
+     */
+    public Object receiveObject() {
+        return receiveObject(0);
+    }
+
+    /**
+     * Receives a message into a pooled buffer and decodes it, waiting at most
+     * the specified time for a message to arrive.
+     * The sender of the message is available from getLastSender().
+     *
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the SystemEvent, Structure or String received, or null if the wait timed out
+     */
+    @Override
+    public Object receiveObject(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            while (true) {
+                long remaining = timeout;
+                if (timeout > 0) {
+                    remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                }
+                buffer.clear();
+                SocketAddress sender = receive(buffer, remaining);
+                if (sender == null) {
+                    return null;
+                }
+                buffer.flip();
+                // keep receiving until a message is complete
+                Object object = decodeFrame(sender, buffer);
+                if (object != null) {
+                    lastSender = sender;
+                    return object;
+                }
+            }
+        } catch (IOException e) {
+            System.out.print("IO Exception: likely:");
+            System.out.println("Receive Socket Timed Out.\n" + e);
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        } finally {
+            bufferPool.release(buffer);
+        }
     }
 
     /**
-     * Sends a message from this object's socket to the socket corresponding to the
+     * Receives and decodes a message if one is available, without waiting.
+     * The sender of the message is available from getLastSender().
+     *
+     * @return the object received, or null if no message was available
+     */
+    public Object pollObject() {
+        return receiveObject(-1);
+    }
+
+    /**
+     * Registers the MessageTransfer's channel with a UdpTransportSelector so that one thread
+     * can wait for messages on several channels. Messages are then read with pollObject().
+     *
+     * @param selector a UdpTransportSelector
+     * @param attachment the object reported by the selector
+     */
+    @Override
+    public void register(TransportSelector selector, Object attachment) {
+        try {
+            channel.register(((UdpTransportSelector) selector).getSelector(), SelectionKey.OP_READ, attachment);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Encodes an object too large for a pooled buffer into a new buffer.
+     *
+     * @param object the SystemEvent, Structure or String to encode
+     * @return the flipped buffer containing the encoded object
+     */
+    ByteBuffer encodeLargeObject(Object object) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(object));
+        encodeObject(object, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Splits an encoded message into fragments that each fit in the specified number of bytes.
+     *
+     * @param message the buffer containing the encoded message
+     * @param maxFragmentSize the maximum size of a fragment, including its header
+     * @return the flipped buffers containing the fragments, in order
+     */
+    List<ByteBuffer> fragment(ByteBuffer message, int maxFragmentSize) {
+        int payloadSize = maxFragmentSize - ReassemblyBuffer.FRAGMENT_HEADER_SIZE;
+        int count = (message.remaining() + payloadSize - 1) / payloadSize;
+        if (count > MAX_FRAGMENTS) {
+            throw new IllegalArgumentException("Error: message of " + message.remaining() + " bytes is too large");
+        }
+        int messageId = nextMessageId.getAndIncrement();
+        List<ByteBuffer> fragments = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            int length = Math.min(payloadSize, message.remaining());
+            ByteBuffer fragment = ByteBuffer.allocate(ReassemblyBuffer.FRAGMENT_HEADER_SIZE + length);
+            ReassemblyBuffer.putHeader(fragment, messageId, index, count);
+            fragment.put(message.slice(message.position(), length));
+            message.position(message.position() + length);
+            fragments.add(fragment.flip());
+        }
+        return fragments;
+    }
+
+    /**
+     * Decodes a received datagram. Fragments are added to the ReassemblyBuffer,
+     * and the message is decoded once its last fragment arrives.
+     *
+     * @param sender the address of the sender of the datagram
+     * @param buffer the buffer containing the datagram
+     * @return the decoded object, or null if the datagram is a fragment of an incomplete message
+     */
+    Object decodeFrame(SocketAddress sender, ByteBuffer buffer) {
+        if (ReassemblyBuffer.isFragment(buffer)) {
+            ByteBuffer message = reassemblyBuffer.add(sender, buffer);
+            return message == null ? null : decodeObject(message);
+        }
+        return decodeObject(buffer);
+    }
+
+    /**
+     * Sends the remaining bytes of the buffer as one datagram.
+     * Used by transports layered on top of MessageTransfer.
+     *
+     * @param buffer the buffer containing the datagram
+     * @param destination the address of the receiving DatagramChannel
+     */
+    void sendFrame(ByteBuffer buffer, SocketAddress destination) {
+        try {
+            send(buffer, destination);
+        } catch (IOException e) {
+            System.err.print("Send error");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Receives one datagram into the buffer without decoding it.
+     * Used by transports layered on top of MessageTransfer.
+     *
+     * @param buffer the buffer to receive the datagram into
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the address of the sender, or null if the wait timed out
+     */
+    SocketAddress receiveFrame(ByteBuffer buffer, long timeout) {
+        try {
+            return receive(buffer, timeout);
+        } catch (IOException e) {
+            System.out.print("IO Exception: likely:");
+            System.out.println("Receive Socket Timed Out.\n" + e);
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Sends the remaining bytes of the buffer, retrying while the channel's
+     * send buffer is full.
+     *
+     * @param buffer the buffer containing the message
+     * @param destination the address of the receiving DatagramChannel
+     * @throws IOException if the channel fails to send the message
+     */
+    private void send(ByteBuffer buffer, SocketAddress destination) throws IOException {
+        while (channel.send(buffer, destination) == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Receives a datagram into the buffer, waiting on the selector until one arrives.
+     *
+     * @param buffer the buffer to receive the datagram into
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the address of the sender, or null if the wait timed out
+     * @throws IOException if the channel fails to receive the datagram
+     */
+    private SocketAddress receive(ByteBuffer buffer, long timeout) throws IOException {
+        long deadline = System.currentTimeMillis() + timeout;
+        SocketAddress sender;
+        while ((sender = channel.receive(buffer)) == null) {
+            if (timeout < 0) {
+                return null;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (timeout > 0 && remaining <= 0) {
+                return null;
+            }
+            selector.select(timeout > 0 ? remaining : 0);
+            selector.selectedKeys().clear();
+        }
+        return sender;
+    }
+
+    /**
+     * Sends a message from this object's channel to the socket corresponding to the
      * packet's destination.
      *
      * @param packet a DatagramPacket containing data to be sent
      */
     public void sendMessage(DatagramPacket packet) {
         try {
-            socket.send(packet);
+            send(ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getLength()), packet.getSocketAddress());
         } catch (IOException e) {
             System.err.print("Send error");
             e.printStackTrace();
@@ -63,14 +410,16 @@ public class MessageTransfer {
      * Receives a message from a socket and transfers it to the socket associated
      * with the packet's specified port.
      *
-     * @return the DatagramPacket containing data received from the DatagramSocket
+     * @return the DatagramPacket containing data received from the DatagramChannel
      */
     public DatagramPacket receiveMessage() {
         byte[] data = new byte[MAX_BYTE_ARRAY_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
         DatagramPacket packet = new DatagramPacket(data, data.length);
-        // Block until a DatagramPacket is received from a socket
+        // Block until a datagram is received from a channel
         try {
-            socket.receive(packet);
+            packet.setSocketAddress(receive(buffer, 0));
+            packet.setLength(buffer.position());
         } catch (IOException e) {
             System.out.print("IO Exception: likely:");
             System.out.println("Receive Socket Timed Out.\n" + e);
@@ -81,22 +430,21 @@ public class MessageTransfer {
     }
 
     /**
-     * Prints the contents of a packet and what class is sending the packet.
+     * Prints the contents of a message and what class is sending the message.
      * (Please uncomment this method for adding messages with UPD details.)
      *
-     * @param name the name of the class sending the packet
-     * @param packet the DatagramPacket containing data
+     * @param name the name of the class sending the message
+     * @param object the object contained in the message
+     * @param address the address the message is sent to
      */
-    public void printSendMessage(String name, DatagramPacket packet) {
-//        // Form a String from the byte array.
-//        Object object = decodeObject(packet.getData());
+    public static void printSendMessage(String name, Object object, InetSocketAddress address) {
 //        String messageToPrint = LocalTime.now().toString() + "\n";
 //        messageToPrint += name + " sending to ";
-//        if (packet.getPort() == Port.CLIENT_TO_SERVER.getNumber() || packet.getPort() == Port.SERVER_TO_CLIENT.getNumber()) {
+//        if (address.getPort() == Port.CLIENT_TO_SERVER.getNumber() || address.getPort() == Port.SERVER_TO_CLIENT.getNumber()) {
 //            messageToPrint += Scheduler.class.getSimpleName();
-//        } else if (packet.getPort() == Port.CLIENT.getNumber()) {
+//        } else if (address.getPort() == Port.CLIENT.getNumber()) {
 //            messageToPrint += FloorSubsystem.class.getSimpleName();
-//        } else if (packet.getPort() == Port.SERVER.getNumber()) {
+//        } else if (address.getPort() == Port.SERVER.getNumber()) {
 //            messageToPrint += ElevatorSubsystem.class.getSimpleName();
 //        }
 //        messageToPrint += ": \n";
@@ -105,36 +453,33 @@ public class MessageTransfer {
 //        } else {
 //            messageToPrint += object.getClass().getSimpleName() + " Packet: ";
 //        }
-//        messageToPrint += "Host port: " + packet.getPort() + ", ";
-//        messageToPrint += "Length: " + packet.getLength() + "\n";
+//        messageToPrint += "Host port: " + address.getPort() + ", ";
 //        messageToPrint += object + "\n";
 //        System.out.println(messageToPrint);
     }
 
     /**
-     * Prints the contents of a packet and what class is receiving the packet.
+     * Prints the contents of a message and what class is receiving the message.
      * (Please uncomment this method for adding messages with UPD details.)
      *
-     * @param name the name of the class receiving the packet
-     * @param packet the DatagramPacket containing data
+     * @param name the name of the class receiving the message
+     * @param object the object contained in the message
+     * @param address the address the message was received from
      */
-    public void printReceiveMessage(String name, DatagramPacket packet) {
-//        // Form a String from the byte array.
-//        Object object = decodeObject(packet.getData());
+    public static void printReceiveMessage(String name, Object object, InetSocketAddress address) {
 //        if (!(object instanceof String)) {
 //            String messageToPrint = LocalTime.now().toString() + "\n";
 //            messageToPrint += name + " received from ";
-//            if (packet.getPort() == Port.CLIENT_TO_SERVER.getNumber() || packet.getPort() == Port.SERVER_TO_CLIENT.getNumber()) {
+//            if (address.getPort() == Port.CLIENT_TO_SERVER.getNumber() || address.getPort() == Port.SERVER_TO_CLIENT.getNumber()) {
 //                messageToPrint += Scheduler.class.getSimpleName();
-//            } else if (packet.getPort() == Port.CLIENT.getNumber()) {
+//            } else if (address.getPort() == Port.CLIENT.getNumber()) {
 //                messageToPrint += FloorSubsystem.class.getSimpleName();
-//            } else if (packet.getPort() == Port.SERVER.getNumber()) {
+//            } else if (address.getPort() == Port.SERVER.getNumber()) {
 //                messageToPrint += ElevatorSubsystem.class.getSimpleName();
 //            }
 //            messageToPrint += ": \n";
 //            messageToPrint += object.getClass().getSimpleName() + " Packet: ";
-//            messageToPrint += "Host port: " + packet.getPort() + ", ";
-//            messageToPrint += "Length: " + packet.getLength() + "\n";
+//            messageToPrint += "Host port: " + address.getPort() + ", ";
 //            messageToPrint += object + "\n";
 //            System.out.println(messageToPrint);
 //        }
@@ -155,22 +500,57 @@ public class MessageTransfer {
     /**
      * Encodes the object into a Byte Array, which can be used to prepare
      * requests to be sent through UDP packets.
+     * SystemEvents and Structures are encoded with EventCodec; RequestMessages are sent as
+     * opcodes and other Strings as raw bytes.
      *
      * @param object the object to encode
      * @return objectBytes the object coded into a byte array.
      */
     public byte[] encodeObject(Object object) {
-        byte[] objectBytes = null;
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            ObjectOutputStream out;
-            out = new ObjectOutputStream(bos);
-            out.writeObject(object);
-            out.flush();
-            objectBytes = bos.toByteArray();
-        } catch (Exception ex) {
-            // ignore exception
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(object));
+        encodeObject(object, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Returns the number of bytes needed to encode the object.
+     *
+     * @param object the SystemEvent, Structure or String to encode
+     * @return the size of the encoded object in bytes
+     */
+    public static int encodedSize(Object object) {
+        if (EventCodec.canEncode(object)) {
+            return EventCodec.encodedSize(object);
+        } else if (object instanceof String string) {
+            return RequestMessage.fromMessage(string) != null ? CONTROL_MESSAGE_SIZE : string.length();
+        }
+        throw new IllegalArgumentException("Error: Invalid Object");
+    }
+
+    /**
+     * Encodes the object into the buffer at its current position.
+     * The message of a RequestMessage is written as the CONTROL tag and its opcode;
+     * other Strings are written as single-byte characters.
+     *
+     * @param object the object to encode
+     * @param buffer the buffer to write the object to
+     */
+    public static void encodeObject(Object object, ByteBuffer buffer) {
+        if (EventCodec.canEncode(object)) {
+            EventCodec.encode(object, buffer);
+        } else if (object instanceof String string) {
+            RequestMessage requestMessage = RequestMessage.fromMessage(string);
+            if (requestMessage != null) {
+                buffer.put(EventCodec.CONTROL);
+                buffer.put(requestMessage.getOpcode());
+                return;
+            }
+            for (int i = 0; i < string.length(); i++) {
+                buffer.put((byte) string.charAt(i));
+            }
+        } else {
+            throw new IllegalArgumentException("Error: Invalid Object");
         }
-        return objectBytes;
     }
 
     /**
@@ -181,16 +561,33 @@ public class MessageTransfer {
      * @return object the object instance decoded.
      */
     public Object decodeObject(byte[] objectBytes) {
-        Object object = null;
-        ByteArrayInputStream bis = new ByteArrayInputStream(objectBytes);
-        try (ObjectInput in = new ObjectInputStream(bis)) {
-            object = in.readObject();
-        } catch (Exception ex) {
-            // ignore exception
+        return decodeObject(ByteBuffer.wrap(objectBytes));
+    }
+
+    /**
+     * Decodes the remaining bytes of the buffer to its object instance.
+     * Opcodes, and Strings matching a RequestMessage, are returned as that RequestMessage's
+     * message instead of a new String.
+     *
+     * @param buffer the buffer containing the object
+     * @return object the object instance decoded.
+     */
+    public static Object decodeObject(ByteBuffer buffer) {
+        if (buffer.hasRemaining()) {
+            byte tag = buffer.get(buffer.position());
+            if (tag == EventCodec.CONTROL && buffer.remaining() == CONTROL_MESSAGE_SIZE) {
+                buffer.get();
+                return RequestMessage.fromOpcode(buffer.get()).getMessage();
+            } else if (EventCodec.isTypeTag(tag)) {
+                return EventCodec.decode(buffer);
+            }
         }
-        if (object == null) {
-            object = new String(objectBytes);
+        String message = RequestMessage.findMessage(buffer);
+        if (message == null) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            message = new String(bytes);
         }
-        return object;
+        return message;
     }
 }
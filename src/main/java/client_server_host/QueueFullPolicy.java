@@ -0,0 +1,13 @@
+package client_server_host;
+
+/**
+ * QueueFullPolicy indicates what a BoundedEventQueue does with an element added while it is full.
+ */
+public enum QueueFullPolicy {
+    // the producer waits until the consumer makes room
+    BLOCK,
+    // the oldest element is removed to make room
+    DROP_OLDEST,
+    // the element is refused with an IllegalStateException
+    REJECT
+}
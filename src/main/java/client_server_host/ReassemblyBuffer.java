@@ -0,0 +1,177 @@
+package client_server_host;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * ReassemblyBuffer collects the fragments of messages too large for one datagram
+ * and returns each message once all of its fragments have arrived.
+ * Messages whose fragments do not all arrive within the timeout are evicted,
+ * and their fragments are counted as dropped.
+ *
+ * Fragment: FRAGMENT tag, int message id, short fragment index, short fragment count, payload.
+ */
+public class ReassemblyBuffer {
+
+    public static final byte FRAGMENT = 18;
+    public static final int FRAGMENT_HEADER_SIZE = 9;
+    public static final long DEFAULT_TIMEOUT = 2000; // milliseconds
+
+    private final long timeout;
+    private final Map<Key, Message> messages;
+    private long droppedFragments;
+    private long droppedMessages;
+
+    /**
+     * Key identifies a fragmented message by its sender and message id.
+     */
+    private record Key(SocketAddress sender, int messageId) {
+    }
+
+    /**
+     * Message holds the fragments of one message received so far.
+     */
+    private static final class Message {
+        private final byte[][] fragments;
+        private final long startTime;
+        private int fragmentsReceived;
+        private int size;
+
+        /**
+         * Constructor for Message.
+         *
+         * @param fragmentCount the number of fragments in the message
+         * @param startTime the time the first fragment arrived, in milliseconds
+         */
+        private Message(int fragmentCount, long startTime) {
+            fragments = new byte[fragmentCount][];
+            this.startTime = startTime;
+        }
+    }
+
+    /**
+     * Constructor for ReassemblyBuffer.
+     *
+     * @param timeout the time in milliseconds a message may take to arrive completely
+     */
+    public ReassemblyBuffer(long timeout) {
+        this.timeout = timeout;
+        messages = new HashMap<>();
+    }
+
+    /**
+     * Indicates whether a buffer contains a fragment.
+     *
+     * @param buffer the buffer containing a received datagram
+     * @return true if the datagram is a fragment, false otherwise
+     */
+    public static boolean isFragment(ByteBuffer buffer) {
+        return buffer.hasRemaining() && buffer.get(buffer.position()) == FRAGMENT;
+    }
+
+    /**
+     * Writes the header of a fragment into the buffer at its current position.
+     *
+     * @param buffer the buffer to write the header to
+     * @param messageId the id of the fragmented message, unique per sender
+     * @param index the index of the fragment
+     * @param count the number of fragments in the message
+     */
+    public static void putHeader(ByteBuffer buffer, int messageId, int index, int count) {
+        buffer.put(FRAGMENT);
+        buffer.putInt(messageId);
+        buffer.putShort((short) index);
+        buffer.putShort((short) count);
+    }
+
+    /**
+     * Adds a fragment to the buffer, evicting messages that have timed out.
+     * Duplicate and malformed fragments are dropped.
+     *
+     * @param sender the address of the sender of the fragment
+     * @param buffer the buffer positioned at the fragment's header
+     * @return the reassembled message if the fragment completed it, null otherwise
+     */
+    public synchronized ByteBuffer add(SocketAddress sender, ByteBuffer buffer) {
+        long now = System.currentTimeMillis();
+        evictExpiredMessages(now);
+
+        buffer.get();
+        Key key = new Key(sender, buffer.getInt());
+        int index = Short.toUnsignedInt(buffer.getShort());
+        int count = Short.toUnsignedInt(buffer.getShort());
+        Message message = messages.computeIfAbsent(key, k -> new Message(count, now));
+        if (count != message.fragments.length || index >= count || message.fragments[index] != null) {
+            droppedFragments++;
+            return null;
+        }
+        byte[] fragment = new byte[buffer.remaining()];
+        buffer.get(fragment);
+        message.fragments[index] = fragment;
+        message.size += fragment.length;
+        if (++message.fragmentsReceived < count) {
+            return null;
+        }
+
+        messages.remove(key);
+        ByteBuffer reassembled = ByteBuffer.allocate(message.size);
+        for (byte[] part : message.fragments) {
+            reassembled.put(part);
+        }
+        return reassembled.flip();
+    }
+
+    /**
+     * Removes the messages that have not arrived completely within the timeout.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void evictExpiredMessages(long now) {
+        Iterator<Message> iterator = messages.values().iterator();
+        while (iterator.hasNext()) {
+            Message message = iterator.next();
+            if (now - message.startTime > timeout) {
+                iterator.remove();
+                droppedFragments += message.fragmentsReceived;
+                droppedMessages++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of fragments dropped as duplicates, malformed, or part of an evicted message.
+     *
+     * @return the number of dropped fragments
+     */
+    public synchronized long getDroppedFragments() {
+        return droppedFragments;
+    }
+
+    /**
+     * Returns the number of messages evicted before all of their fragments arrived.
+     *
+     * @return the number of dropped messages
+     */
+    public synchronized long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * Returns the number of messages waiting for more fragments.
+     *
+     * @return the number of incomplete messages
+     */
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Removes the messages that have timed out.
+     */
+    public synchronized void evictExpiredMessages() {
+        evictExpiredMessages(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,646 @@
+package client_server_host;
+
+import requests.SystemEvent;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReliableTransport adds ordered, reliable delivery on top of a MessageTransfer.
+ * Every message sent to a peer gets a sequence number and up to windowSize messages
+ * may be unacknowledged at once; further messages wait until the window opens.
+ * The receiver delivers messages in order and answers each data frame with a
+ * cumulative acknowledgement plus a bitmap of the frames received after it, so the
+ * sender only retransmits the frames that were lost once their RTO expires.
+ * A frame is retransmitted, backing off up to the maximum RTO, until it is acknowledged,
+ * so a message sent is never lost while the peer is unreachable.
+ * Each ReliableTransport sends in a session whose epoch is the time it was created: a receiver
+ * that sees a newer epoch from a peer starts over with the peer's new session from the lowest
+ * sequence number the peer still retransmits, which each data frame carries, and acks of
+ * another session are ignored, so peers may restart without stalling each other.
+ *
+ * Data frame: DATA_FRAME tag, long epoch, int lowest unacknowledged sequence number,
+ * int sequence number, encoded message.
+ * Ack frame: ACK_FRAME tag, long epoch, int cumulative sequence number, long selective ack bitmap.
+ * Frames without a tag are delivered as they are, so plain MessageTransfers can still
+ * send to a ReliableTransport.
+ */
+public class ReliableTransport implements Transport {
+
+    public static final byte DATA_FRAME = 16;
+    public static final byte ACK_FRAME = 17;
+    private static final int DATA_HEADER_SIZE = 17;
+    private static final int EPOCH_OFFSET = 1;
+    private static final int BASE_OFFSET = 9;
+    private static final int SEQUENCE_OFFSET = 13;
+    private static final int MAX_PAYLOAD_SIZE = MessageTransfer.MAX_BYTE_ARRAY_SIZE - DATA_HEADER_SIZE;
+    private static final int SELECTIVE_ACK_RANGE = Long.SIZE;
+    public static final int DEFAULT_WINDOW_SIZE = 32;
+    public static final long DEFAULT_INITIAL_RTO = 200; // milliseconds
+    private static final long MIN_RTO = 20; // milliseconds
+    public static final long DEFAULT_MAX_RTO = 2000; // milliseconds
+    private static final long TIMER_PERIOD = 10; // milliseconds
+    private static final long CLOSE_LINGER_TIME = 1000; // milliseconds
+    // the last epoch given to a ReliableTransport, so that epochs increase within a JVM
+    private static final AtomicLong LAST_EPOCH = new AtomicLong();
+
+    private final MessageTransfer messageTransfer;
+    private final int windowSize;
+    private final long initialRto;
+    private final long maxRto;
+    private final long epoch;
+    private final Map<SocketAddress, Peer> peers;
+    // buffers and Frames reused for the frames waiting to be acknowledged
+    private final BufferPool framePool;
+    private final Queue<Frame> freeFrames;
+    private final Queue<Delivery> deliveries;
+    private final Timer retransmitTimer;
+    private SocketAddress lastSender;
+    // only updated by the retransmit timer's thread
+    private volatile long retransmissions;
+
+    /**
+     * Frame is a data frame that has been sent, or is waiting to be sent, to a peer.
+     * Frames and their buffers are returned to the ReliableTransport once acknowledged.
+     */
+    private static final class Frame {
+        private int sequenceNumber;
+        // the encoded frame, including its header, from position 0 to its limit
+        private ByteBuffer buffer;
+        private long sentTime;
+        private int transmissions;
+    }
+
+    /**
+     * Delivery is a message received in order, waiting to be returned by receiveObject.
+     */
+    private static final class Delivery {
+        private final SocketAddress sender;
+        private final Object object;
+
+        /**
+         * Constructor for Delivery.
+         *
+         * @param sender the address of the sender of the message
+         * @param object the decoded message
+         */
+        private Delivery(SocketAddress sender, Object object) {
+            this.sender = sender;
+            this.object = object;
+        }
+    }
+
+    /**
+     * Peer is the sending and receiving state kept for one remote address.
+     */
+    private final class Peer {
+        private final SocketAddress address;
+        // sending state
+        private int nextSequenceNumber;
+        private final TreeMap<Integer, Frame> unacknowledged;
+        private final Queue<Frame> pending;
+        private double smoothedRtt = -1;
+        private double rttVariation;
+        private long rto;
+        // receiving state
+        private long receiveEpoch;
+        private int expectedSequenceNumber;
+        private final TreeMap<Integer, Object> outOfOrder;
+
+        /**
+         * Constructor for Peer.
+         *
+         * @param address the address of the peer
+         */
+        private Peer(SocketAddress address) {
+            this.address = address;
+            unacknowledged = new TreeMap<>();
+            pending = new ArrayDeque<>();
+            outOfOrder = new TreeMap<>();
+            rto = initialRto;
+        }
+
+        /**
+         * Sends pending frames while there is room in the window.
+         */
+        private void fillWindow() {
+            while (!pending.isEmpty() && unacknowledged.size() < windowSize) {
+                Frame frame = pending.remove();
+                unacknowledged.put(frame.sequenceNumber, frame);
+                transmit(frame);
+            }
+        }
+
+        /**
+         * Sends a frame with the lowest sequence number still unacknowledged, and records when it was sent.
+         *
+         * @param frame the frame to send, which is unacknowledged
+         */
+        private void transmit(Frame frame) {
+            frame.sentTime = System.nanoTime();
+            frame.transmissions++;
+            frame.buffer.putInt(BASE_OFFSET, unacknowledged.firstKey());
+            frame.buffer.position(0);
+            messageTransfer.sendFrame(frame.buffer, address);
+        }
+
+        /**
+         * Removes the frames covered by an acknowledgement of the current session and sends pending frames.
+         *
+         * @param ackEpoch the epoch of the session acknowledged
+         * @param cumulative the highest sequence number received in order
+         * @param selectiveAcks bit i is set if sequence number cumulative + 2 + i was received
+         */
+        private void acknowledge(long ackEpoch, int cumulative, long selectiveAcks) {
+            if (ackEpoch != epoch) {
+                return;
+            }
+            Iterator<Frame> iterator = unacknowledged.headMap(cumulative, true).values().iterator();
+            while (iterator.hasNext()) {
+                Frame frame = iterator.next();
+                sampleRtt(frame);
+                iterator.remove();
+                releaseFrame(frame);
+            }
+            for (int i = 0; i < SELECTIVE_ACK_RANGE && selectiveAcks != 0; i++) {
+                if ((selectiveAcks & (1L << i)) != 0) {
+                    Frame frame = unacknowledged.remove(cumulative + 2 + i);
+                    if (frame != null) {
+                        sampleRtt(frame);
+                        releaseFrame(frame);
+                    }
+                }
+            }
+            fillWindow();
+        }
+
+        /**
+         * Updates the RTO with the round trip time of a frame that was sent once (RFC 6298).
+         *
+         * @param frame an acknowledged frame
+         */
+        private void sampleRtt(Frame frame) {
+            if (frame.transmissions != 1) {
+                return;
+            }
+            double rtt = (System.nanoTime() - frame.sentTime) / 1e6;
+            if (smoothedRtt < 0) {
+                smoothedRtt = rtt;
+                rttVariation = rtt / 2;
+            } else {
+                rttVariation = 0.75 * rttVariation + 0.25 * Math.abs(smoothedRtt - rtt);
+                smoothedRtt = 0.875 * smoothedRtt + 0.125 * rtt;
+            }
+            rto = Math.min(maxRto, Math.max(MIN_RTO, (long) Math.ceil(smoothedRtt + 4 * rttVariation)));
+        }
+
+        /**
+         * Retransmits the unacknowledged frames whose RTO has expired, backing off the RTO
+         * up to the maximum RTO. Frames are retransmitted until they are acknowledged.
+         */
+        private void retransmitExpiredFrames() {
+            long now = System.nanoTime();
+            boolean retransmitted = false;
+            for (Frame frame : unacknowledged.values()) {
+                if ((now - frame.sentTime) / 1000000 >= rto) {
+                    transmit(frame);
+                    retransmissions++;
+                    retransmitted = true;
+                }
+            }
+            if (retransmitted) {
+                rto = Math.min(maxRto, rto * 2);
+            }
+        }
+
+        /**
+         * Builds the acknowledgement of the data frames received in the peer's current session.
+         *
+         * @param buffer the buffer to write the ack frame to
+         */
+        private void putAcknowledgement(ByteBuffer buffer) {
+            long selectiveAcks = 0;
+            for (int sequenceNumber : outOfOrder.keySet()) {
+                int bit = sequenceNumber - expectedSequenceNumber - 1;
+                if (bit >= 0 && bit < SELECTIVE_ACK_RANGE) {
+                    selectiveAcks |= 1L << bit;
+                }
+            }
+            buffer.put(ACK_FRAME);
+            buffer.putLong(receiveEpoch);
+            buffer.putInt(expectedSequenceNumber - 1);
+            buffer.putLong(selectiveAcks);
+        }
+    }
+
+    /**
+     * Constructor for ReliableTransport with the default window size, initial RTO and maximum RTO.
+     *
+     * @param messageTransfer the MessageTransfer used to send and receive frames
+     */
+    public ReliableTransport(MessageTransfer messageTransfer) {
+        this(messageTransfer, DEFAULT_WINDOW_SIZE, DEFAULT_INITIAL_RTO);
+    }
+
+    /**
+     * Constructor for ReliableTransport.
+     *
+     * @param messageTransfer the MessageTransfer used to send and receive frames
+     * @param windowSize the maximum number of unacknowledged frames per peer, at most 64
+     * @param initialRto the retransmission timeout used before any round trip is measured, in milliseconds
+     */
+    public ReliableTransport(MessageTransfer messageTransfer, int windowSize, long initialRto) {
+        this(messageTransfer, windowSize, initialRto, DEFAULT_MAX_RTO);
+    }
+
+    /**
+     * Constructor for ReliableTransport with a maximum RTO, which bounds the time between
+     * retransmissions of a frame while its peer is unreachable.
+     *
+     * @param messageTransfer the MessageTransfer used to send and receive frames
+     * @param windowSize the maximum number of unacknowledged frames per peer, at most 64
+     * @param initialRto the retransmission timeout used before any round trip is measured, in milliseconds
+     * @param maxRto the longest retransmission timeout after backing off, in milliseconds
+     */
+    ReliableTransport(MessageTransfer messageTransfer, int windowSize, long initialRto, long maxRto) {
+        if (windowSize < 1 || windowSize > SELECTIVE_ACK_RANGE) {
+            throw new IllegalArgumentException("Error: windowSize must be between 1 and " + SELECTIVE_ACK_RANGE);
+        }
+        this.messageTransfer = messageTransfer;
+        this.windowSize = windowSize;
+        this.initialRto = initialRto;
+        this.maxRto = maxRto;
+        epoch = LAST_EPOCH.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        peers = new ConcurrentHashMap<>();
+        framePool = new BufferPool(2 * windowSize, MessageTransfer.MAX_BYTE_ARRAY_SIZE);
+        freeFrames = new ArrayDeque<>();
+        deliveries = new ArrayDeque<>();
+        retransmitTimer = new Timer("ReliableTransport " + messageTransfer.getPortNumber(), true);
+        retransmitTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                for (Peer peer : peers.values()) {
+                    synchronized (peer) {
+                        peer.retransmitExpiredFrames();
+                    }
+                }
+            }
+        }, TIMER_PERIOD, TIMER_PERIOD);
+    }
+
+    /**
+     * Returns the state kept for the peer, creating it on first contact.
+     *
+     * @param address the address of the peer
+     * @return the Peer for the address
+     */
+    private Peer getPeer(SocketAddress address) {
+        return peers.computeIfAbsent(address, Peer::new);
+    }
+
+    /**
+     * Returns the port number of the underlying MessageTransfer.
+     *
+     * @return the port number of the Transport
+     */
+    @Override
+    public int getPortNumber() {
+        return messageTransfer.getPortNumber();
+    }
+
+    /**
+     * Sends an object to the destination, retransmitting it until it is acknowledged.
+     *
+     * @param object the SystemEvent, Structure or String to send
+     * @param destination the address of the receiving Transport
+     */
+    @Override
+    public void sendObject(Object object, SocketAddress destination) {
+        BufferPool bufferPool = messageTransfer.getBufferPool();
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            if (MessageTransfer.encodedSize(object) > MAX_PAYLOAD_SIZE) {
+                // each fragment is sequenced and retransmitted on its own
+                ByteBuffer message = messageTransfer.encodeLargeObject(object);
+                for (ByteBuffer fragment : messageTransfer.fragment(message, MAX_PAYLOAD_SIZE)) {
+                    buffer.clear();
+                    buffer.position(DATA_HEADER_SIZE);
+                    buffer.put(fragment);
+                    buffer.flip();
+                    queueFrame(buffer, destination);
+                }
+                return;
+            }
+            buffer.position(DATA_HEADER_SIZE);
+            MessageTransfer.encodeObject(object, buffer);
+            buffer.flip();
+            queueFrame(buffer, destination);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Sends as many events from the head of the queue as fit in one frame to every
+     * destination, retransmitting the frame until it is acknowledged.
+     *
+     * @param events the queue of events to send
+     * @param destinations the addresses of the receiving Transports
+     * @return the number of events sent
+     */
+    @Override
+    public int sendBatch(Queue<? extends SystemEvent> events, Collection<? extends SocketAddress> destinations) {
+        BufferPool bufferPool = messageTransfer.getBufferPool();
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            buffer.position(DATA_HEADER_SIZE);
+            int count = EventCodec.encodeBatch(events, buffer);
+            buffer.flip();
+            for (SocketAddress destination : destinations) {
+                queueFrame(buffer, destination);
+            }
+            return count;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Gives the encoded message in the buffer the destination's next sequence number and
+     * queues a copy of it in a pooled Frame, sending it straight away if the destination's window is open.
+     *
+     * @param buffer the buffer containing the encoded message after DATA_HEADER_SIZE bytes
+     * @param destination the address of the receiving Transport
+     */
+    private void queueFrame(ByteBuffer buffer, SocketAddress destination) {
+        Peer peer = getPeer(destination);
+        synchronized (peer) {
+            Frame frame = acquireFrame();
+            frame.sequenceNumber = peer.nextSequenceNumber++;
+            frame.buffer.put(0, buffer, 0, buffer.limit());
+            frame.buffer.limit(buffer.limit());
+            frame.buffer.put(0, DATA_FRAME);
+            frame.buffer.putLong(EPOCH_OFFSET, epoch);
+            frame.buffer.putInt(SEQUENCE_OFFSET, frame.sequenceNumber);
+            peer.pending.add(frame);
+            peer.fillWindow();
+        }
+    }
+
+    /**
+     * Returns a Frame with a cleared buffer, reusing a released Frame if there is one.
+     *
+     * @return a Frame that has not been transmitted
+     */
+    private Frame acquireFrame() {
+        Frame frame;
+        synchronized (freeFrames) {
+            frame = freeFrames.poll();
+        }
+        if (frame == null) {
+            frame = new Frame();
+        }
+        frame.buffer = framePool.acquire();
+        frame.transmissions = 0;
+        return frame;
+    }
+
+    /**
+     * Returns a Frame that was acknowledged, and its buffer, to be reused.
+     *
+     * @param frame a Frame that is no longer unacknowledged
+     */
+    private void releaseFrame(Frame frame) {
+        framePool.release(frame.buffer);
+        frame.buffer = null;
+        synchronized (freeFrames) {
+            if (freeFrames.size() < 2 * windowSize) {
+                freeFrames.add(frame);
+            }
+        }
+    }
+
+    /**
+     * Receives an object, waiting at most the specified time for it to arrive.
+     * Acknowledgements received in the meantime are processed, and objects are
+     * returned in the order they were sent by each peer.
+     *
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the object received, or null if the wait timed out
+     */
+    @Override
+    public Object receiveObject(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        BufferPool bufferPool = messageTransfer.getBufferPool();
+        ByteBuffer buffer = bufferPool.acquire();
+        try {
+            while (deliveries.isEmpty()) {
+                long remaining = timeout;
+                if (timeout > 0) {
+                    remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                }
+                buffer.clear();
+                SocketAddress sender = messageTransfer.receiveFrame(buffer, remaining);
+                if (sender == null) {
+                    return null;
+                }
+                buffer.flip();
+                handleFrame(sender, buffer);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        Delivery delivery = deliveries.remove();
+        lastSender = delivery.sender;
+        return delivery.object;
+    }
+
+    /**
+     * Processes a received frame: acknowledgements update the sender's window,
+     * data frames are acknowledged and delivered in order, and untagged frames
+     * are delivered immediately.
+     *
+     * @param sender the address of the sender of the frame
+     * @param buffer the buffer containing the frame
+     */
+    private void handleFrame(SocketAddress sender, ByteBuffer buffer) {
+        byte tag = buffer.get(0);
+        if (tag == ACK_FRAME) {
+            buffer.get();
+            Peer peer = getPeer(sender);
+            synchronized (peer) {
+                peer.acknowledge(buffer.getLong(), buffer.getInt(), buffer.getLong());
+            }
+        } else if (tag == DATA_FRAME) {
+            buffer.get();
+            long frameEpoch = buffer.getLong();
+            int base = buffer.getInt();
+            int sequenceNumber = buffer.getInt();
+            Peer peer = getPeer(sender);
+            synchronized (peer) {
+                if (!startSession(peer, frameEpoch, base)) {
+                    // a frame of a session the peer has since restarted
+                    return;
+                }
+                receiveDataFrame(peer, sequenceNumber, buffer);
+                buffer.clear();
+                peer.putAcknowledgement(buffer);
+                buffer.flip();
+                messageTransfer.sendFrame(buffer, sender);
+            }
+        } else {
+            Object object = messageTransfer.decodeFrame(sender, buffer);
+            if (object != null) {
+                deliveries.add(new Delivery(sender, object));
+            }
+        }
+    }
+
+    /**
+     * Follows the peer's current session: a newer epoch starts receiving again from the peer's
+     * lowest unacknowledged frame.
+     *
+     * @param peer the sender of a data frame
+     * @param frameEpoch the epoch of the frame's session
+     * @param base the lowest sequence number the peer still retransmits
+     * @return true if the frame belongs to the peer's current session, false if it is from an older one
+     */
+    private boolean startSession(Peer peer, long frameEpoch, int base) {
+        if (frameEpoch < peer.receiveEpoch) {
+            return false;
+        }
+        if (frameEpoch > peer.receiveEpoch) {
+            peer.receiveEpoch = frameEpoch;
+            peer.outOfOrder.clear();
+            peer.expectedSequenceNumber = base;
+        }
+        return true;
+    }
+
+    /**
+     * Delivers the message of a data frame if it is the next one expected from the peer,
+     * along with any buffered messages that follow it. Later frames are buffered and
+     * duplicates are ignored. Fragments are reassembled and their message is delivered
+     * in the position of the fragment that completed it.
+     *
+     * @param peer the sender of the frame
+     * @param sequenceNumber the sequence number of the frame
+     * @param buffer the buffer positioned at the encoded message
+     */
+    private void receiveDataFrame(Peer peer, int sequenceNumber, ByteBuffer buffer) {
+        int offset = sequenceNumber - peer.expectedSequenceNumber;
+        if (offset < 0 || offset > SELECTIVE_ACK_RANGE || peer.outOfOrder.containsKey(sequenceNumber)) {
+            // duplicate, or too far ahead to be acknowledged selectively
+            return;
+        }
+        // fragments complete their message as soon as the last one arrives, in any order
+        Object object = messageTransfer.decodeFrame(peer.address, buffer);
+        if (offset > 0) {
+            peer.outOfOrder.put(sequenceNumber, object);
+            return;
+        }
+        deliver(peer, object);
+        peer.expectedSequenceNumber++;
+        while (!peer.outOfOrder.isEmpty() && peer.outOfOrder.firstKey() == peer.expectedSequenceNumber) {
+            deliver(peer, peer.outOfOrder.pollFirstEntry().getValue());
+            peer.expectedSequenceNumber++;
+        }
+    }
+
+    /**
+     * Queues a received message to be returned by receiveObject.
+     *
+     * @param peer the sender of the message
+     * @param object the decoded message, or null for a fragment that did not complete a message
+     */
+    private void deliver(Peer peer, Object object) {
+        if (object != null) {
+            deliveries.add(new Delivery(peer.address, object));
+        }
+    }
+
+    /**
+     * Returns the address from which the last object was received.
+     *
+     * @return the address of the sender of the last object
+     */
+    @Override
+    public SocketAddress getLastSender() {
+        return lastSender;
+    }
+
+    /**
+     * Registers the underlying MessageTransfer with a UdpTransportSelector.
+     *
+     * @param selector a UdpTransportSelector
+     * @param attachment the object reported by the selector
+     */
+    @Override
+    public void register(TransportSelector selector, Object attachment) {
+        messageTransfer.register(selector, attachment);
+    }
+
+    /**
+     * Indicates that messages are delivered in order without loss.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isReliable() {
+        return true;
+    }
+
+    /**
+     * Returns the number of frames retransmitted after their RTO expired.
+     *
+     * @return the number of retransmissions
+     */
+    public long getRetransmissions() {
+        return retransmissions;
+    }
+
+    /**
+     * Indicates whether any frame sent by the Transport is still unacknowledged.
+     *
+     * @return true if a frame is pending or unacknowledged, false otherwise
+     */
+    private boolean hasUnacknowledgedFrames() {
+        for (Peer peer : peers.values()) {
+            synchronized (peer) {
+                if (!peer.unacknowledged.isEmpty() || !peer.pending.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits a short time for the frames already sent to be acknowledged, then stops
+     * retransmitting and closes the underlying MessageTransfer.
+     */
+    @Override
+    public void close() {
+        long deadline = System.currentTimeMillis() + CLOSE_LINGER_TIME;
+        long remaining;
+        while (hasUnacknowledgedFrames() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            receiveObject(Math.min(remaining, TIMER_PERIOD));
+        }
+        retransmitTimer.cancel();
+        messageTransfer.closeSocket();
+    }
+}
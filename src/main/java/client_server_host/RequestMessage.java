@@ -1,12 +1,19 @@
 package client_server_host;
 
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * RequestMessage indicates the String messages exchanged between systems.
+ * On the wire, a RequestMessage is sent as the EventCodec.CONTROL tag followed by
+ * a one-byte opcode, so receivers identify it without comparing characters.
  *
  * @author Julian
  */
 public enum RequestMessage {
     REQUEST("Request"),
+    SUBSCRIBE("Subscribe"),
     ACKNOWLEDGE("Message Received"),
     EMPTYQUEUE("Queue is empty"),
     LIGHTON("Light is ON"),
@@ -15,6 +22,15 @@ public enum RequestMessage {
     DOORCLOSED("Door is closed"),
     TERMINATE("Terminate Threads");
 
+    private static final RequestMessage[] MESSAGES = values();
+    private static final Map<String, RequestMessage> BY_MESSAGE = new HashMap<>();
+
+    static {
+        for (RequestMessage requestMessage : MESSAGES) {
+            BY_MESSAGE.put(requestMessage.msg, requestMessage);
+        }
+    }
+
     private final String msg;
 
     /**
@@ -34,4 +50,63 @@ public enum RequestMessage {
     public String getMessage() {
         return msg;
     }
+
+    /**
+     * Returns the opcode identifying the RequestMessage on the wire.
+     *
+     * @return the opcode of the RequestMessage
+     */
+    public byte getOpcode() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Returns the RequestMessage identified by an opcode.
+     *
+     * @param opcode the opcode of a RequestMessage
+     * @return the RequestMessage with the opcode
+     */
+    public static RequestMessage fromOpcode(byte opcode) {
+        if (opcode < 0 || opcode >= MESSAGES.length) {
+            throw new IllegalArgumentException("Error: Unknown opcode " + opcode);
+        }
+        return MESSAGES[opcode];
+    }
+
+    /**
+     * Returns the RequestMessage whose message is the provided String.
+     *
+     * @param message a message received or about to be sent
+     * @return the RequestMessage with the message, or null if the String is not a RequestMessage
+     */
+    public static RequestMessage fromMessage(String message) {
+        return BY_MESSAGE.get(message);
+    }
+
+    /**
+     * Returns the message of the RequestMessage whose characters match the
+     * remaining bytes of the buffer. If a message matches, the buffer's position
+     * is advanced past it. Used for messages sent as characters rather than opcodes.
+     *
+     * @param buffer the buffer containing a message
+     * @return the matching message, or null if no RequestMessage matches
+     */
+    public static String findMessage(ByteBuffer buffer) {
+        int start = buffer.position();
+        for (RequestMessage requestMessage : MESSAGES) {
+            String message = requestMessage.msg;
+            if (message.length() != buffer.remaining()) {
+                continue;
+            }
+            int i = 0;
+            while (i < message.length() && buffer.get(start + i) == (byte) message.charAt(i)) {
+                i++;
+            }
+            if (i == message.length()) {
+                buffer.position(start + i);
+                return message;
+            }
+        }
+        return null;
+    }
 }
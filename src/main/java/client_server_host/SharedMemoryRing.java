@@ -0,0 +1,153 @@
+package client_server_host;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SharedMemoryRing is a single-producer/single-consumer ring buffer of messages in a
+ * memory-mapped file, so that two processes on the same host can exchange messages
+ * without a system call. The producer and consumer each map the same file.
+ *
+ * Layout: the producer's head position at offset 0 and the consumer's tail position at
+ * offset 64, each on its own cache line, followed by the message records. A record is an
+ * int length followed by the message, padded to a multiple of 4 bytes. A record that does
+ * not fit before the end of the ring is preceded by a PADDING length and written at the start.
+ * Positions only increase; a position's offset in the ring is the position modulo the capacity.
+ */
+public class SharedMemoryRing {
+
+    private static final int HEAD_OFFSET = 0;
+    private static final int TAIL_OFFSET = 64;
+    private static final int DATA_OFFSET = 128;
+    private static final int LENGTH_SIZE = 4;
+    private static final int PADDING = -1;
+    private static final VarHandle POSITION = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    /**
+     * Constructor for SharedMemoryRing. Maps the file, creating it if it does not exist.
+     *
+     * @param path the path of the file shared by the producer and the consumer
+     * @param capacity the number of bytes available for records, a power of two
+     * @throws IOException if the file cannot be mapped
+     */
+    public SharedMemoryRing(Path path, int capacity) throws IOException {
+        if (Integer.bitCount(capacity) != 1 || capacity < LENGTH_SIZE) {
+            throw new IllegalArgumentException("Error: capacity must be a power of two");
+        }
+        this.capacity = capacity;
+        mask = capacity - 1;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + capacity);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the largest message that fits in the ring.
+     *
+     * @return the maximum message size in bytes
+     */
+    public int getMaxMessageSize() {
+        return capacity - LENGTH_SIZE;
+    }
+
+    /**
+     * Returns the size of the record holding a message of the specified length.
+     *
+     * @param length the length of the message
+     * @return the size of the record in bytes
+     */
+    private static int recordSize(int length) {
+        return (LENGTH_SIZE + length + 3) & ~3;
+    }
+
+    /**
+     * Appends the remaining bytes of the message to the ring, if there is room.
+     * Only the producer may call this method.
+     *
+     * @param message the buffer containing the message
+     * @return true if the message was appended, false if the ring is full
+     */
+    public boolean offer(ByteBuffer message) {
+        int length = message.remaining();
+        if (length > getMaxMessageSize()) {
+            throw new IllegalArgumentException("Error: message of " + length + " bytes does not fit in the ring");
+        }
+        int recordSize = recordSize(length);
+        long head = (long) POSITION.getAcquire(buffer, HEAD_OFFSET);
+        long tail = (long) POSITION.getAcquire(buffer, TAIL_OFFSET);
+        int offset = (int) (head & mask);
+        int contiguous = capacity - offset;
+        int padding = contiguous < recordSize ? contiguous : 0;
+        if (head + padding + recordSize - tail > capacity) {
+            return false;
+        }
+        if (padding > 0) {
+            buffer.putInt(DATA_OFFSET + offset, PADDING);
+            head += padding;
+            offset = 0;
+        }
+        buffer.putInt(DATA_OFFSET + offset, length);
+        buffer.put(DATA_OFFSET + offset + LENGTH_SIZE, message, message.position(), length);
+        message.position(message.limit());
+        // publish the record to the consumer
+        POSITION.setRelease(buffer, HEAD_OFFSET, head + recordSize);
+        return true;
+    }
+
+    /**
+     * Removes the oldest message from the ring and writes it into the destination
+     * at its current position. Only the consumer may call this method.
+     *
+     * @param destination the buffer to write the message to, with room for getMaxMessageSize() bytes
+     * @return true if a message was removed, false if the ring is empty
+     */
+    public boolean poll(ByteBuffer destination) {
+        long tail = (long) POSITION.getOpaque(buffer, TAIL_OFFSET);
+        long head = (long) POSITION.getAcquire(buffer, HEAD_OFFSET);
+        if (tail == head) {
+            return false;
+        }
+        int offset = (int) (tail & mask);
+        int length = buffer.getInt(DATA_OFFSET + offset);
+        if (length == PADDING) {
+            tail += capacity - offset;
+            offset = 0;
+            length = buffer.getInt(DATA_OFFSET);
+        }
+        destination.put(destination.position(), buffer, DATA_OFFSET + offset + LENGTH_SIZE, length);
+        destination.position(destination.position() + length);
+        // free the record for the producer
+        POSITION.setRelease(buffer, TAIL_OFFSET, tail + recordSize(length));
+        return true;
+    }
+
+    /**
+     * Indicates whether the ring has no messages.
+     *
+     * @return true if the ring is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return (long) POSITION.getAcquire(buffer, HEAD_OFFSET) == (long) POSITION.getOpaque(buffer, TAIL_OFFSET);
+    }
+
+    /**
+     * Discards every message in the ring, such as those left by a previous consumer.
+     * Only the consumer may call this method.
+     */
+    public void clear() {
+        POSITION.setRelease(buffer, TAIL_OFFSET, (long) POSITION.getAcquire(buffer, HEAD_OFFSET));
+    }
+}
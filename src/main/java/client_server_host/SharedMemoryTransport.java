@@ -0,0 +1,381 @@
+package client_server_host;
+
+import requests.SystemEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SharedMemoryTransport exchanges messages with Transports in other processes on the same
+ * host through SharedMemoryRings, one ring per sending and receiving port. Messages are
+ * encoded as they are over UDP. A port is held by a lock file while the Transport is open.
+ *
+ * Inbound rings are discovered by scanning the factory's directory when no message is waiting.
+ * Messages left in a ring by a previous Transport on the same port are discarded when the
+ * Transport opens, and messages sent to a port without a Transport are discarded when one opens,
+ * as they would be over UDP. A sender waits while the receiver's ring is full, checking every
+ * RECEIVER_CHECK_INTERVAL that the receiver's lock file is still held, and only drops the message
+ * once the receiver has closed, as its ring is discarded when the port opens again.
+ */
+public class SharedMemoryTransport implements Transport {
+
+    private static final long SCAN_INTERVAL = 1000000; // nanoseconds
+    private static final long RECEIVER_CHECK_INTERVAL = 1000; // milliseconds
+    // the lock files held in this JVM; closing a channel on one of them would release its lock, so they are never probed
+    private static final Set<Path> HELD_LOCK_FILES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * InboundRing is a ring received by the Transport and the port sending to it.
+     */
+    private record InboundRing(int senderPort, SharedMemoryRing ring) {
+    }
+
+    private final SharedMemoryTransportFactory factory;
+    private final int portNumber;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final Map<Integer, SharedMemoryRing> outboundRings;
+    private final List<InboundRing> inboundRings;
+    private final ByteBuffer sendBuffer;
+    private final ByteBuffer receiveBuffer;
+    private final SpinThenParkWaiter receiveWaiter;
+    private final SpinThenParkWaiter sendWaiter;
+    private long lastScanTime;
+    private int nextRing;
+    private SocketAddress lastSender;
+    private long droppedMessages;
+
+    /**
+     * Constructor for SharedMemoryTransport. Takes the port's lock file and
+     * discards the messages waiting in its inbound rings.
+     *
+     * @param factory the factory providing the ring files
+     * @param portNumber the port number of the Transport
+     */
+    SharedMemoryTransport(SharedMemoryTransportFactory factory, int portNumber) {
+        this.factory = factory;
+        this.portNumber = portNumber;
+        outboundRings = new HashMap<>();
+        inboundRings = new CopyOnWriteArrayList<>();
+        sendBuffer = ByteBuffer.allocateDirect(factory.getRingCapacity());
+        receiveBuffer = ByteBuffer.allocateDirect(factory.getRingCapacity());
+        receiveWaiter = new SpinThenParkWaiter();
+        sendWaiter = new SpinThenParkWaiter();
+        Path lockPath = heldLockFile(portNumber);
+        synchronized (HELD_LOCK_FILES) {
+            if (HELD_LOCK_FILES.contains(lockPath)) {
+                throw new IllegalStateException("Error: Port " + portNumber + " is already in use");
+            }
+            try {
+                lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock fileLock;
+                try {
+                    fileLock = lockChannel.tryLock();
+                } catch (OverlappingFileLockException e) {
+                    fileLock = null;
+                }
+                if (fileLock == null) {
+                    lockChannel.close();
+                    throw new IllegalStateException("Error: Port " + portNumber + " is already in use");
+                }
+                lock = fileLock;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            HELD_LOCK_FILES.add(lockPath);
+        }
+        scanInboundRings();
+        for (InboundRing inboundRing : inboundRings) {
+            inboundRing.ring().clear();
+        }
+    }
+
+    /**
+     * Returns the port number of the Transport.
+     *
+     * @return the port number of the Transport
+     */
+    @Override
+    public int getPortNumber() {
+        return portNumber;
+    }
+
+    /**
+     * Encodes an object and appends it to the destination's ring.
+     *
+     * @param object the SystemEvent, Structure or String to send
+     * @param destination the address of the receiving Transport
+     */
+    @Override
+    public synchronized void sendObject(Object object, SocketAddress destination) {
+        sendBuffer.clear();
+        MessageTransfer.encodeObject(object, sendBuffer);
+        sendBuffer.flip();
+        send(sendBuffer, destination);
+    }
+
+    /**
+     * Encodes events from the head of the queue as one batch and appends it to
+     * the ring of every destination.
+     *
+     * @param events the queue of events to send
+     * @param destinations the addresses of the receiving Transports
+     * @return the number of events sent
+     */
+    @Override
+    public synchronized int sendBatch(Queue<? extends SystemEvent> events, Collection<? extends SocketAddress> destinations) {
+        sendBuffer.clear();
+        sendBuffer.limit(factory.getRingCapacity() - Integer.BYTES);
+        int count = EventCodec.encodeBatch(events, sendBuffer);
+        sendBuffer.flip();
+        for (SocketAddress destination : destinations) {
+            send(sendBuffer, destination);
+            sendBuffer.rewind();
+        }
+        return count;
+    }
+
+    /**
+     * Appends an encoded message to the destination's ring, waiting while the ring is full
+     * for as long as the destination's Transport is open.
+     *
+     * @param message the buffer containing the encoded message
+     * @param destination the address of the receiving Transport
+     */
+    private void send(ByteBuffer message, SocketAddress destination) {
+        int receiverPort = ((InetSocketAddress) destination).getPort();
+        SharedMemoryRing ring = getOutboundRing(receiverPort);
+        long nextCheck = System.currentTimeMillis() + RECEIVER_CHECK_INTERVAL;
+        sendWaiter.reset();
+        while (!ring.offer(message)) {
+            if (System.currentTimeMillis() >= nextCheck) {
+                if (!isOpen(receiverPort)) {
+                    droppedMessages++;
+                    return;
+                }
+                nextCheck = System.currentTimeMillis() + RECEIVER_CHECK_INTERVAL;
+            }
+            sendWaiter.idle();
+        }
+    }
+
+    /**
+     * Returns the absolute path of a port's lock file, as kept in HELD_LOCK_FILES.
+     *
+     * @param port the port of a Transport
+     * @return the normalized absolute path of the port's lock file
+     */
+    private Path heldLockFile(int port) {
+        return factory.lockPath(port).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Indicates whether a Transport holds the lock file of a port, in this process or another.
+     *
+     * @param port the port of a Transport
+     * @return true if the port's lock file is held, false otherwise
+     */
+    private boolean isOpen(int port) {
+        Path lockPath = heldLockFile(port);
+        synchronized (HELD_LOCK_FILES) {
+            if (HELD_LOCK_FILES.contains(lockPath)) {
+                return true;
+            }
+            if (!Files.exists(lockPath)) {
+                return false;
+            }
+            try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.WRITE)) {
+                FileLock probe = channel.tryLock();
+                if (probe == null) {
+                    return true;
+                }
+                probe.release();
+                return false;
+            } catch (OverlappingFileLockException e) {
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the ring from the Transport to a port, mapping it on first use.
+     *
+     * @param receiverPort the port of the receiving Transport
+     * @return the ring to the port
+     */
+    private SharedMemoryRing getOutboundRing(int receiverPort) {
+        SharedMemoryRing ring = outboundRings.get(receiverPort);
+        if (ring == null) {
+            ring = mapRing(factory.ringPath(portNumber, receiverPort));
+            outboundRings.put(receiverPort, ring);
+        }
+        return ring;
+    }
+
+    /**
+     * Maps the ring stored in a file.
+     *
+     * @param path the path of the ring file
+     * @return the mapped ring
+     */
+    private SharedMemoryRing mapRing(Path path) {
+        try {
+            return new SharedMemoryRing(path, factory.getRingCapacity());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps the rings that other Transports have created to send to this Transport.
+     */
+    private void scanInboundRings() {
+        synchronized (inboundRings) {
+            lastScanTime = System.nanoTime();
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(factory.getDirectory(), factory.inboundRingGlob(portNumber))) {
+                for (Path path : paths) {
+                    int senderPort = factory.senderPortOf(path);
+                    if (inboundRings.stream().noneMatch(inboundRing -> inboundRing.senderPort() == senderPort)) {
+                        inboundRings.add(new InboundRing(senderPort, mapRing(path)));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Scans for new inbound rings if SCAN_INTERVAL has passed since the last scan.
+     */
+    private void scanInboundRingsIfDue() {
+        if (System.nanoTime() - lastScanTime >= SCAN_INTERVAL) {
+            scanInboundRings();
+        }
+    }
+
+    /**
+     * Indicates whether a message is waiting in one of the Transport's inbound rings.
+     *
+     * @return true if a message is waiting, false otherwise
+     */
+    boolean hasMessages() {
+        for (InboundRing inboundRing : inboundRings) {
+            if (!inboundRing.ring().isEmpty()) {
+                return true;
+            }
+        }
+        scanInboundRingsIfDue();
+        return false;
+    }
+
+    /**
+     * Receives an object, waiting at most the specified time for it to arrive.
+     * The inbound rings are polled in turn, so that no sender is starved.
+     *
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the object received, or null if the wait timed out
+     */
+    @Override
+    public Object receiveObject(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        receiveWaiter.reset();
+        while (true) {
+            int ringCount = inboundRings.size();
+            for (int i = 0; i < ringCount; i++) {
+                InboundRing inboundRing = inboundRings.get((nextRing + i) % ringCount);
+                receiveBuffer.clear();
+                if (inboundRing.ring().poll(receiveBuffer)) {
+                    nextRing = (nextRing + i + 1) % ringCount;
+                    lastSender = new InetSocketAddress(InetAddress.getLoopbackAddress(), inboundRing.senderPort());
+                    receiveBuffer.flip();
+                    return MessageTransfer.decodeObject(receiveBuffer);
+                }
+            }
+            scanInboundRingsIfDue();
+            if (timeout < 0 || (timeout > 0 && System.currentTimeMillis() >= deadline)) {
+                return null;
+            }
+            receiveWaiter.idle();
+        }
+    }
+
+    /**
+     * Returns the address from which the last object was received.
+     *
+     * @return the address of the sender of the last object
+     */
+    @Override
+    public SocketAddress getLastSender() {
+        return lastSender;
+    }
+
+    /**
+     * Registers the Transport with a SharedMemoryTransportSelector.
+     *
+     * @param selector a SharedMemoryTransportSelector
+     * @param attachment the object reported by the selector
+     */
+    @Override
+    public void register(TransportSelector selector, Object attachment) {
+        ((SharedMemoryTransportSelector) selector).register(this, attachment);
+    }
+
+    /**
+     * Indicates that messages are delivered in order without loss while the receiver is open.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isReliable() {
+        return true;
+    }
+
+    /**
+     * Returns the number of messages dropped because the receiver closed while its ring was full.
+     *
+     * @return the number of dropped messages
+     */
+    public synchronized long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * Releases the port's lock file so that the port can be opened again.
+     * The ring files are kept, as other processes may still have them mapped.
+     */
+    @Override
+    public void close() {
+        synchronized (HELD_LOCK_FILES) {
+            try {
+                lock.release();
+                lockChannel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            HELD_LOCK_FILES.remove(heldLockFile(portNumber));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package client_server_host;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SharedMemoryTransportFactory opens SharedMemoryTransports that exchange messages
+ * through memory-mapped files in a directory shared by the processes on one host.
+ * Each pair of sending and receiving ports has its own SharedMemoryRing, so every ring
+ * has a single producer and a single consumer. Transports are addressed by port number,
+ * so the addresses used over UDP can be used unchanged.
+ */
+public class SharedMemoryTransportFactory implements TransportFactory {
+
+    public static final int DEFAULT_RING_CAPACITY = 1 << 18;
+    private static final String RING_SUFFIX = ".ring";
+
+    private final Path directory;
+    private final int ringCapacity;
+
+    /**
+     * Constructor for SharedMemoryTransportFactory using the default directory
+     * in the temporary directory and the default ring capacity.
+     */
+    public SharedMemoryTransportFactory() {
+        this(Path.of(System.getProperty("java.io.tmpdir"), "elevator-simulation"), DEFAULT_RING_CAPACITY);
+    }
+
+    /**
+     * Constructor for SharedMemoryTransportFactory.
+     *
+     * @param directory the directory holding the ring files, shared by every process
+     * @param ringCapacity the capacity of each ring in bytes, a power of two
+     */
+    public SharedMemoryTransportFactory(Path directory, int ringCapacity) {
+        this.directory = directory;
+        this.ringCapacity = ringCapacity;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens a SharedMemoryTransport on the specified port.
+     *
+     * @param portNumber the port number of the Transport
+     * @return the opened SharedMemoryTransport
+     */
+    @Override
+    public Transport open(int portNumber) {
+        return new SharedMemoryTransport(this, portNumber);
+    }
+
+    /**
+     * Opens a selector that can wait on SharedMemoryTransports.
+     *
+     * @return the opened selector
+     */
+    @Override
+    public TransportSelector openSelector() {
+        return new SharedMemoryTransportSelector();
+    }
+
+    /**
+     * Returns the directory holding the ring files.
+     *
+     * @return the directory of the factory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the capacity of each ring.
+     *
+     * @return the ring capacity in bytes
+     */
+    public int getRingCapacity() {
+        return ringCapacity;
+    }
+
+    /**
+     * Returns the path of the file holding the ring from one port to another.
+     *
+     * @param senderPort the port of the producer
+     * @param receiverPort the port of the consumer
+     * @return the path of the ring file
+     */
+    Path ringPath(int senderPort, int receiverPort) {
+        return directory.resolve(senderPort + "-" + receiverPort + RING_SUFFIX);
+    }
+
+    /**
+     * Returns the glob matching the files of every ring received by a port.
+     *
+     * @param receiverPort the port of the consumer
+     * @return the glob of the port's inbound ring files
+     */
+    String inboundRingGlob(int receiverPort) {
+        return "*-" + receiverPort + RING_SUFFIX;
+    }
+
+    /**
+     * Returns the sending port of a ring file.
+     *
+     * @param ringPath the path of a ring file
+     * @return the port of the ring's producer
+     */
+    int senderPortOf(Path ringPath) {
+        String name = ringPath.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.indexOf('-')));
+    }
+
+    /**
+     * Returns the path of the lock file held by the Transport open on a port.
+     *
+     * @param portNumber the port of the Transport
+     * @return the path of the lock file
+     */
+    Path lockPath(int portNumber) {
+        return directory.resolve(portNumber + ".lock");
+    }
+}
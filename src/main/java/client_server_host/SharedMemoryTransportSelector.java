@@ -0,0 +1,69 @@
+package client_server_host;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * SharedMemoryTransportSelector waits on several SharedMemoryTransports by polling
+ * their rings, busy-spinning at first and then parking.
+ */
+public class SharedMemoryTransportSelector implements TransportSelector {
+
+    private final List<SharedMemoryTransport> transports;
+    private final List<Object> attachments;
+    private final List<Object> readyAttachments;
+    private final SpinThenParkWaiter waiter;
+
+    /**
+     * Constructor for SharedMemoryTransportSelector.
+     */
+    public SharedMemoryTransportSelector() {
+        transports = new CopyOnWriteArrayList<>();
+        attachments = new CopyOnWriteArrayList<>();
+        readyAttachments = new ArrayList<>();
+        waiter = new SpinThenParkWaiter();
+    }
+
+    /**
+     * Adds a Transport to the Transports waited on.
+     *
+     * @param transport a SharedMemoryTransport
+     * @param attachment the object reported when the Transport has messages
+     */
+    void register(SharedMemoryTransport transport, Object attachment) {
+        transports.add(transport);
+        attachments.add(attachment);
+    }
+
+    /**
+     * Waits until at least one registered SharedMemoryTransport has messages.
+     *
+     * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
+     * @return the attachments of the Transports with messages, empty if the wait timed out
+     */
+    @Override
+    public List<Object> select(long timeout) {
+        readyAttachments.clear();
+        long deadline = System.currentTimeMillis() + timeout;
+        waiter.reset();
+        while (true) {
+            for (int i = 0; i < transports.size(); i++) {
+                if (transports.get(i).hasMessages()) {
+                    readyAttachments.add(attachments.get(i));
+                }
+            }
+            if (!readyAttachments.isEmpty() || (timeout > 0 && System.currentTimeMillis() >= deadline)) {
+                return readyAttachments;
+            }
+            waiter.idle();
+        }
+    }
+
+    /**
+     * Closes the selector. Nothing needs to be released.
+     */
+    @Override
+    public void close() {
+    }
+}
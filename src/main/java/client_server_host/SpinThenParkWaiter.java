@@ -0,0 +1,52 @@
+package client_server_host;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SpinThenParkWaiter is the wait strategy of threads polling shared memory for messages.
+ * A thread first busy-spins, so that a message arriving soon is seen within microseconds,
+ * then yields, then parks for increasing periods up to MAX_PARK_NANOS so that an idle
+ * thread does not occupy a core. A thread on a host with a single processor yields at once.
+ */
+public class SpinThenParkWaiter {
+
+    // spinning only delays the thread being waited on when there is a single processor
+    private static final int SPIN_ITERATIONS = Runtime.getRuntime().availableProcessors() > 1 ? 10000 : 0;
+    private static final int YIELD_ITERATIONS = 100;
+    private static final long MIN_PARK_NANOS = 1000;
+    private static final long MAX_PARK_NANOS = 1000000;
+
+    private int iterations;
+    private long parkNanos;
+
+    /**
+     * Constructor for SpinThenParkWaiter.
+     */
+    public SpinThenParkWaiter() {
+        reset();
+    }
+
+    /**
+     * Restarts the wait strategy from busy-spinning, after work was found.
+     */
+    public void reset() {
+        iterations = 0;
+        parkNanos = MIN_PARK_NANOS;
+    }
+
+    /**
+     * Waits briefly after polling found no work.
+     */
+    public void idle() {
+        if (iterations < SPIN_ITERATIONS) {
+            iterations++;
+            Thread.onSpinWait();
+        } else if (iterations < SPIN_ITERATIONS + YIELD_ITERATIONS) {
+            iterations++;
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(MAX_PARK_NANOS, parkNanos * 2);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package client_server_host;
+
+import requests.SystemEvent;
+
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.Queue;
+
+/**
+ * Transport is an endpoint, identified by a port number, that sends and receives
+ * the messages exchanged by Client and IntermediateHost. Messages are SystemEvents,
+ * Structures, Strings, or Lists of SystemEvents sent as a batch.
+ */
+public interface Transport {
+
+    /**
+     * Returns the port number identifying the Transport.
+     *
+     * @return the port number of the Transport
+     */
+    int getPortNumber();
+
+    /**
+     * Sends an object to the destination.
+     *
+     * @param object the SystemEvent, Structure or String to send
+     * @param destination the address of the receiving Transport
+     */
+    void sendObject(Object object, SocketAddress destination);
+
+    /**
+     * Sends events from the head of the queue to every destination as one batch.
+     * The events sent are removed from the queue.
+     *
+     * @param events the queue of events to send
+     * @param destinations the addresses of the receiving Transports
+     * @return the number of events sent
+     */
+    int sendBatch(Queue<? extends SystemEvent> events, Collection<? extends SocketAddress> destinations);
+
+    /**
+     * Receives an object, waiting at most the specified time for it to arrive.
+     * The sender of the object is available from getLastSender().
+     *
+     * @param timeout the maximum time to wait in milliseconds, 0 to wait indefinitely,
+     *                or a negative number to not wait
+     * @return the object received, or null if the wait timed out
+     */
+    Object receiveObject(long timeout);
+
+    /**
+     * Returns the address from which the last object was received.
+     *
+     * @return the address of the sender of the last object
+     */
+    SocketAddress getLastSender();
+
+    /**
+     * Registers the Transport with a TransportSelector, which then reports the
+     * attachment whenever the Transport has objects to receive.
+     *
+     * @param selector a selector opened by the same TransportFactory as the Transport
+     * @param attachment the object reported by the selector
+     */
+    void register(TransportSelector selector, Object attachment);
+
+    /**
+     * Indicates whether the Transport delivers every message in order, so that
+     * receivers do not need to acknowledge messages themselves.
+     *
+     * @return true if delivery is reliable, false otherwise
+     */
+    default boolean isReliable() {
+        return false;
+    }
+
+    /**
+     * Closes the Transport.
+     */
+    void close();
+}
@@ -0,0 +1,75 @@
+package client_server_host;
+
+/**
+ * TransportFactory opens the Transports and TransportSelectors of one kind of transport,
+ * so that Clients and IntermediateHosts can run over UDP, shared memory or in the same process.
+ */
+public interface TransportFactory {
+
+    /**
+     * The factory for Transports exchanging datagrams over UDP.
+     */
+    TransportFactory UDP = new TransportFactory() {
+        @Override
+        public Transport open(int portNumber) {
+            return new MessageTransfer(portNumber);
+        }
+
+        @Override
+        public TransportSelector openSelector() {
+            return new UdpTransportSelector();
+        }
+    };
+
+    /**
+     * The factory for Transports exchanging datagrams over UDP with sequence numbers,
+     * acknowledgements and retransmission, so that messages arrive in order without loss.
+     */
+    TransportFactory RELIABLE_UDP = new TransportFactory() {
+        @Override
+        public Transport open(int portNumber) {
+            return new ReliableTransport(new MessageTransfer(portNumber));
+        }
+
+        @Override
+        public TransportSelector openSelector() {
+            return new UdpTransportSelector();
+        }
+    };
+
+    /**
+     * The system property selecting the transport of the default constructors.
+     */
+    String TRANSPORT_PROPERTY = "elevator.transport";
+
+    /**
+     * Returns the factory selected by the TRANSPORT_PROPERTY system property:
+     * "udp", "reliable-udp" or "shared-memory". Reliable UDP is used if the property is not set.
+     *
+     * @return the factory of the selected transport
+     */
+    static TransportFactory getDefault() {
+        String transport = System.getProperty(TRANSPORT_PROPERTY, "reliable-udp");
+        return switch (transport) {
+            case "udp" -> UDP;
+            case "reliable-udp" -> RELIABLE_UDP;
+            case "shared-memory" -> new SharedMemoryTransportFactory();
+            default -> throw new IllegalArgumentException("Error: Unknown transport " + transport);
+        };
+    }
+
+    /**
+     * Opens a Transport on the specified port.
+     *
+     * @param portNumber the port number of the Transport
+     * @return the opened Transport
+     */
+    Transport open(int portNumber);
+
+    /**
+     * Opens a selector that can wait on the Transports opened by this factory.
+     *
+     * @return the opened selector
+     */
+    TransportSelector openSelector();
+}
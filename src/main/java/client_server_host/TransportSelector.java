@@ -0,0 +1,23 @@
+package client_server_host;
+
+import java.util.List;
+
+/**
+ * TransportSelector lets one thread wait for objects on several Transports.
+ */
+public interface TransportSelector {
+
+    /**
+     * Waits until at least one registered Transport has objects to receive.
+     * The returned list is reused by the next call to select.
+     *
+     * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
+     * @return the attachments of the Transports with objects to receive, empty if the wait timed out
+     */
+    List<Object> select(long timeout);
+
+    /**
+     * Closes the TransportSelector.
+     */
+    void close();
+}
@@ -0,0 +1,72 @@
+package client_server_host;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UdpTransportSelector waits on the DatagramChannels of several MessageTransfers
+ * with a single NIO Selector.
+ */
+public class UdpTransportSelector implements TransportSelector {
+
+    private final Selector selector;
+    private final List<Object> readyAttachments;
+
+    /**
+     * Constructor for UdpTransportSelector.
+     */
+    public UdpTransportSelector() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Error: Could not open Selector", e);
+        }
+        readyAttachments = new ArrayList<>();
+    }
+
+    /**
+     * Returns the NIO Selector that MessageTransfers register their channels with.
+     *
+     * @return the Selector of the UdpTransportSelector
+     */
+    Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Waits until at least one registered MessageTransfer has datagrams to receive.
+     *
+     * @param timeout the maximum time to wait in milliseconds, or 0 to wait indefinitely
+     * @return the attachments of the MessageTransfers with datagrams, empty if the wait timed out
+     */
+    @Override
+    public List<Object> select(long timeout) {
+        readyAttachments.clear();
+        try {
+            selector.select(timeout);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return readyAttachments;
+        }
+        for (SelectionKey key : selector.selectedKeys()) {
+            readyAttachments.add(key.attachment());
+        }
+        selector.selectedKeys().clear();
+        return readyAttachments;
+    }
+
+    /**
+     * Closes the NIO Selector.
+     */
+    @Override
+    public void close() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -42,6 +42,10 @@ public class Elevator implements Runnable, SubsystemPasser {
     private volatile boolean doorsMalfunctioning;
     private volatile boolean cartMalfunctioning;
 
+    // status updates are sent as deltas against the last ElevatorMonitor sent
+    private ElevatorMonitor lastElevatorMonitor;
+    private int updatesSinceKeyframe;
+
     /**
      * Constructor for Elevator.
      * Instantiates subsystem, currentFloor, speed, displacement, and status
@@ -92,7 +96,7 @@ public class Elevator implements Runnable, SubsystemPasser {
             // Loop until the active queue is empty
             while (!requestQueue.isCurrentQueueEmpty()) {
                 respondToRequest();
-                elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+                sendElevatorMonitor();
             }
         }
     }
@@ -228,7 +232,7 @@ public class Elevator implements Runnable, SubsystemPasser {
             }
             // do nothing if floorToVisit == requestFloor || floorToVisit != requestFloor
         }
-        elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+        sendElevatorMonitor();
     }
 
     /**
@@ -255,7 +259,7 @@ public class Elevator implements Runnable, SubsystemPasser {
     public void stopAtFloor(int requestFloor) {
         attemptToRemoveFloor(requestFloor);
         motor.stop();
-        elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+        sendElevatorMonitor();
         System.out.println("\n" + LocalTime.now() + "\nElevator #" + elevatorNumber + " reached its destination");
 
         // try to open doors until successful
@@ -263,7 +267,7 @@ public class Elevator implements Runnable, SubsystemPasser {
             System.out.println("Elevator #" + elevatorNumber + " failed to make doors " + Doors.State.OPEN + ". Trying again...");
         }
         System.out.println("\n" + LocalTime.now() + "\nElevator #" + elevatorNumber + " opened its doors");
-        elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+        sendElevatorMonitor();
 
     }
 
@@ -283,7 +287,7 @@ public class Elevator implements Runnable, SubsystemPasser {
         currentRequest = null;
         motor.setDirection(Direction.NONE);
         systemStatus.setSystemActivated(false);
-        elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+        sendElevatorMonitor();
     }
 
     /**
@@ -522,7 +526,7 @@ public class Elevator implements Runnable, SubsystemPasser {
         System.out.println("Elevator #" + elevatorNumber + " Fault: " + this.fault.toString() + ".");
         if (fault == Fault.ELEVATOR_STUCK) {
             motor.setMovementState(MovementState.STUCK);
-            elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+            sendElevatorMonitor();
         }
     }
 
@@ -545,7 +549,7 @@ public class Elevator implements Runnable, SubsystemPasser {
         if (doorsAreMalfunctioning && doors.getState() != Doors.State.STUCK) {
             setFault(Fault.DOOR_STUCK);
             doors.setToStuck();
-            elevatorSubsystem.addEventToQueue(makeElevatorMonitor());
+            sendElevatorMonitor();
         }
     }
 
@@ -579,6 +583,43 @@ public class Elevator implements Runnable, SubsystemPasser {
         return elevatorMonitor;
     }
 
+    /**
+     * Sends the changes to the Elevator's status since the last ElevatorMonitor it sent.
+     * Every KEYFRAME_INTERVAL updates, and for the first update, every field is sent.
+     * Nothing is sent if the status has not changed.
+     */
+    public void sendElevatorMonitor() {
+        sendElevatorMonitor(false);
+    }
+
+    /**
+     * Sends every field of the Elevator's status, so that the Scheduler's ElevatorMonitor
+     * is brought up to date before it assigns further requests.
+     */
+    public void sendElevatorKeyframe() {
+        sendElevatorMonitor(true);
+    }
+
+    /**
+     * Sends the Elevator's status as a keyframe or as a delta against the last ElevatorMonitor sent.
+     *
+     * @param keyframe true to send every field, false to send a delta when a keyframe is not due
+     */
+    private synchronized void sendElevatorMonitor(boolean keyframe) {
+        ElevatorMonitor elevatorMonitor = makeElevatorMonitor();
+        ElevatorMonitor update = elevatorMonitor;
+        if (!keyframe && lastElevatorMonitor != null && ++updatesSinceKeyframe < ElevatorMonitor.KEYFRAME_INTERVAL) {
+            update = elevatorMonitor.deltaFrom(lastElevatorMonitor);
+            if (update.getChangedFields() == 0) {
+                return;
+            }
+        } else {
+            updatesSinceKeyframe = 0;
+        }
+        lastElevatorMonitor = elevatorMonitor;
+        elevatorSubsystem.addEventToQueue(update);
+    }
+
     /**
      * Prints the status of the elevator (current floor, requestFloor, door state, motor state, motor direction).
      *
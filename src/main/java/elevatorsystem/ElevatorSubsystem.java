@@ -3,38 +3,84 @@ package elevatorsystem;
 import client_server_host.Client;
 import client_server_host.Port;
 import client_server_host.RequestMessage;
+import client_server_host.TransportFactory;
 import requests.ApproachEvent;
 import requests.ElevatorRequest;
 import requests.SystemEvent;
 import requests.SystemEventListener;
+import systemwide.ElevatorRegistration;
 import systemwide.Structure;
 import systemwide.SystemStatus;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 /**
  * ElevatorSubsystem manages the elevators and their requests to the Scheduler.
+ * The elevators of a structure can be split between several ElevatorSubsystems on
+ * different ports; each registers its elevators so the Scheduler routes their events to it.
  *
  * @author Liam Tripp, Julian, Ryan Dash
  */
 public class ElevatorSubsystem implements Runnable, SystemEventListener {
 
     private final ArrayList<Elevator> elevatorList;
+    private final Map<Integer, Elevator> elevatorsByNumber;
     private final ArrayList<Thread> elevatorThreads;
     private final Client server;
-    private final Queue<SystemEvent> eventQueue;
+    private final OutboundEventQueue eventQueue;
+    // collects the acknowledgements that the sending thread waits for, so it must never wait for the queue
+    private volatile Thread receiverThread;
+    private final Queue<SystemEvent> outgoingEvents;
     private final SystemStatus systemStatus;
+    // set by the receiver thread; systemStatus is only deactivated once the socket is closed
+    private volatile boolean terminated;
+    private final static long POLL_TIMEOUT = 50; // milliseconds
 
     /**
-     * Constructor for ElevatorSubsystem.
+     * Constructor for ElevatorSubsystem using the transport selected by TransportFactory.getDefault().
      */
     public ElevatorSubsystem() {
-        server = new Client(Port.SERVER.getNumber());
+        this(TransportFactory.getDefault());
+    }
+
+    /**
+     * Constructor for ElevatorSubsystem.
+     *
+     * @param transportFactory the factory opening the Transport used to reach the Scheduler
+     */
+    public ElevatorSubsystem(TransportFactory transportFactory) {
+        this(Port.SERVER.getNumber(), transportFactory);
+    }
+
+    /**
+     * Constructor for ElevatorSubsystem.
+     *
+     * @param portNumber the port number of the ElevatorSubsystem, unique to each ElevatorSubsystem
+     * @param transportFactory the factory opening the Transport used to reach the Scheduler
+     */
+    public ElevatorSubsystem(int portNumber, TransportFactory transportFactory) {
+        this(portNumber, transportFactory, OutboundEventQueue.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for ElevatorSubsystem.
+     *
+     * @param portNumber the port number of the ElevatorSubsystem, unique to each ElevatorSubsystem
+     * @param transportFactory the factory opening the Transport used to reach the Scheduler
+     * @param queueCapacity the number of events waiting to be sent before elevators wait to add events
+     */
+    public ElevatorSubsystem(int portNumber, TransportFactory transportFactory, int queueCapacity) {
+        server = new Client(portNumber, transportFactory);
         elevatorList = new ArrayList<>();
+        elevatorsByNumber = new HashMap<>();
         elevatorThreads = new ArrayList<>();
-        eventQueue = new LinkedList<>();
+        eventQueue = new OutboundEventQueue(queueCapacity);
+        outgoingEvents = new ArrayDeque<>();
         systemStatus = new SystemStatus(false);
     }
 
@@ -47,6 +93,26 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
         return elevatorList;
     }
 
+    /**
+     * Returns the Elevator with the specified number.
+     *
+     * @param elevatorNumber the number of the Elevator
+     * @return the Elevator with the number, or null if the Elevator is run by another ElevatorSubsystem
+     */
+    public Elevator getElevator(int elevatorNumber) {
+        return elevatorsByNumber.get(elevatorNumber);
+    }
+
+    /**
+     * Returns the queue of events waiting to be sent to the Scheduler, whose length and
+     * enqueue wait times show whether the uplink keeps up with the elevators.
+     *
+     * @return the ElevatorSubsystem's OutboundEventQueue
+     */
+    public OutboundEventQueue getEventQueue() {
+        return eventQueue;
+    }
+
     /**
      * Returns the list of Elevator Threads.
      *
@@ -57,7 +123,9 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
     }
 
     /**
-     * Simple message requesting and sending between subsystems.
+     * Registers its elevators with the Scheduler, which subscribes to the Scheduler's events,
+     * then sends events until the system is terminated.
+     * Events pushed by the Scheduler are received on a separate thread.
      * ElevatorSubsystem
      * Sends: ApproachEvent, ElevatorMonitor
      * Receives: ApproachEvent, ElevatorRequest
@@ -65,9 +133,26 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
     @Override
     public void run() {
         systemStatus.setSystemActivated(true);
-        while (systemStatus.activated()) {
-            subsystemUDPMethod();
+        receiverThread = new Thread(this::receiveEvents, Thread.currentThread().getName() + " Receiver");
+        receiverThread.start();
+        List<Integer> elevatorNumbers = new ArrayList<>();
+        for (Elevator elevator : elevatorList) {
+            elevatorNumbers.add(elevator.getElevatorNumber());
+        }
+        server.send(new ElevatorRegistration(elevatorNumbers));
+
+        while (!terminated) {
+            sendEvents();
         }
+        // release elevators waiting for room, as no more events will be sent
+        eventQueue.close();
+        try {
+            receiverThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        server.close();
+        systemStatus.setSystemActivated(false);
         // terminate elevator threads
         for (Elevator elevator : elevatorList) {
             elevator.getSystemStatus().setSystemActivated(false);
@@ -82,16 +167,22 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
      */
     public void addElevator(Elevator elevator) {
         elevatorList.add(elevator);
+        elevatorsByNumber.put(elevator.getElevatorNumber(), elevator);
     }
 
     /**
-     * Adds a SystemEvent to a System's queue of events.
+     * Adds a SystemEvent to a System's queue of events. Elevators wait while the queue
+     * is full, unless they are called from the thread receiving the Scheduler's events.
      *
      * @param systemEvent the SystemEvent to add
      */
     @Override
     public void addEventToQueue(SystemEvent systemEvent) {
-        eventQueue.add(systemEvent);
+        if (Thread.currentThread() == receiverThread) {
+            eventQueue.addWithoutWaiting(systemEvent);
+        } else {
+            eventQueue.add(systemEvent);
+        }
     }
 
     /**
@@ -104,36 +195,71 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
     }
 
     /**
-     * Sends and receives messages for system using UDP packets.
+     * Sends the events in the queue to the Scheduler in batches, waiting for each
+     * batch to be acknowledged. ElevatorMonitors added while a batch is being sent
+     * are coalesced, so each batch carries the latest status of each elevator.
      */
-    private void subsystemUDPMethod() {
-        Object object;
-        /*
-            Previous system of (!eventQueue.empty) { eventQueue.remove() } produced
-            NoSuchElementException errors. Using queue.poll() circumvents this
-         */
-        SystemEvent event = eventQueue.poll();
+    private void sendEvents() {
+        SystemEvent event;
+        try {
+            event = eventQueue.poll(POLL_TIMEOUT);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            return;
+        }
         if (event != null) {
-            object = server.sendAndReceiveReply(event);
-        } else {
-            object = server.sendAndReceiveReply(RequestMessage.REQUEST.getMessage());
+            outgoingEvents.add(event);
+            eventQueue.drainTo(outgoingEvents);
+            while (!outgoingEvents.isEmpty() && !terminated) {
+                server.send(outgoingEvents);
+                while (!server.awaitAcknowledgement(POLL_TIMEOUT) && !terminated) {
+                    // keep waiting until the Scheduler acknowledges the batch
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives and processes the events pushed by the Scheduler until the system is terminated.
+     */
+    private void receiveEvents() {
+        while (!terminated) {
+            handleEvent(server.receive());
         }
+    }
 
+    /**
+     * Processes an event pushed by the Scheduler. Events for elevators that this ElevatorSubsystem
+     * does not run, and requests that an elevator cannot serve, are skipped so that the receiver
+     * thread keeps running.
+     *
+     * @param object an event or message received from the Scheduler
+     */
+    void handleEvent(Object object) {
         if (object instanceof ElevatorRequest elevatorRequest) {
-            Elevator elevator = elevatorList.get(elevatorRequest.getElevatorNumber() - 1);
-            elevator.addRequest(elevatorRequest);
-            eventQueue.add(elevator.makeElevatorMonitor());
+            Elevator elevator = getElevator(elevatorRequest.getElevatorNumber());
+            if (elevator == null) {
+                System.out.println("ElevatorSubsystem skipped a request for unknown Elevator #" + elevatorRequest.getElevatorNumber());
+                return;
+            }
+            try {
+                elevator.addRequest(elevatorRequest);
+            } catch (IllegalArgumentException e) {
+                System.out.println("ElevatorSubsystem skipped a request: " + e.getMessage());
+                return;
+            }
+            // the Scheduler assigns the next request using this elevator's full status
+            elevator.sendElevatorKeyframe();
         } else if (object instanceof ApproachEvent approachEvent) {
-            elevatorList.get(approachEvent.getElevatorNumber() - 1).receiveApproachEvent(approachEvent);
+            Elevator elevator = getElevator(approachEvent.getElevatorNumber());
+            if (elevator == null) {
+                System.out.println("ElevatorSubsystem skipped an ApproachEvent for unknown Elevator #" + approachEvent.getElevatorNumber());
+                return;
+            }
+            elevator.receiveApproachEvent(approachEvent);
         } else if (object instanceof String string) {
-            if (string.trim().equals(RequestMessage.EMPTYQUEUE.getMessage())) {
-                try {
-                    Thread.sleep(5);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            } else if (string.trim().equals(RequestMessage.TERMINATE.getMessage())) {
-                systemStatus.setSystemActivated(false);
+            if (RequestMessage.fromMessage(string) == RequestMessage.TERMINATE) {
+                terminated = true;
             }
         }
     }
@@ -144,11 +270,23 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
      * @param structure contains the information for initializing the elevators
      */
     public void initializeElevators(Structure structure) {
+        initializeElevators(structure, 1, structure.getNumberOfElevators());
+    }
+
+    /**
+     * Initializes the ElevatorSubsystem with a range of the structure's Elevators.
+     *
+     * @param structure contains the information for initializing the elevators
+     * @param firstElevator the number of the first Elevator run by the ElevatorSubsystem
+     * @param lastElevator the number of the last Elevator run by the ElevatorSubsystem
+     */
+    public void initializeElevators(Structure structure, int firstElevator, int lastElevator) {
         // initialize the list of elevators
-        for (int i = 1; i <= structure.getNumberOfElevators(); i++) {
+        for (int i = firstElevator; i <= lastElevator; i++) {
             Elevator elevator = new Elevator(i, this);
             elevator.setTravelTime(structure.getElevatorTime());
             elevator.setDoorTime(structure.getDoorsTime());
+            elevator.getRequestQueue().setZone(structure.getZone(i));
             addElevator(elevator);
         }
     }
@@ -177,10 +315,24 @@ public class ElevatorSubsystem implements Runnable, SystemEventListener {
         return (Structure) server.receive();
     }
 
+    /**
+     * Starts an ElevatorSubsystem. Without arguments, it runs every Elevator on the default port.
+     * Otherwise, the arguments are its port number and the numbers of its first and last Elevators.
+     *
+     * @param args the port number, first Elevator and last Elevator, or nothing
+     */
     public static void main(String[] args) {
-        ElevatorSubsystem elevatorSubsystem = new ElevatorSubsystem();
-        Structure structure = elevatorSubsystem.receiveStructure();
-        elevatorSubsystem.initializeElevators(structure);
+        ElevatorSubsystem elevatorSubsystem;
+        Structure structure;
+        if (args.length == 3) {
+            elevatorSubsystem = new ElevatorSubsystem(Integer.parseInt(args[0]), TransportFactory.getDefault());
+            structure = elevatorSubsystem.receiveStructure();
+            elevatorSubsystem.initializeElevators(structure, Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        } else {
+            elevatorSubsystem = new ElevatorSubsystem();
+            structure = elevatorSubsystem.receiveStructure();
+            elevatorSubsystem.initializeElevators(structure);
+        }
 
         Thread elevatorSubsystemThread = new Thread(elevatorSubsystem, elevatorSubsystem.getClass().getSimpleName());
         elevatorSubsystemThread.start();
@@ -0,0 +1,280 @@
+package elevatorsystem;
+
+import requests.ElevatorMonitor;
+import requests.SystemEvent;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * OutboundEventQueue holds the events an ElevatorSubsystem has yet to send to the Scheduler.
+ * Events are sent in the order they were added, except that each elevator has at most one
+ * ElevatorMonitor waiting: a newer ElevatorMonitor is merged into the waiting one, which
+ * keeps its place in the queue. The queue therefore never holds more ElevatorMonitors than
+ * there are elevators, and the Scheduler always receives an elevator's latest status.
+ *
+ * The queue is bounded: an event that would grow the queue past its capacity waits until
+ * the ElevatorSubsystem sends enough events, so elevators slow down instead of building an
+ * unbounded backlog when the uplink falls behind. Merging into a waiting ElevatorMonitor never
+ * waits. The time spent waiting is recorded so the capacity can be sized for the number of
+ * elevators on a node.
+ */
+public class OutboundEventQueue {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final ArrayDeque<SystemEvent> events;
+    private final Map<Integer, ElevatorMonitor> waitingMonitors;
+    private final int capacity;
+    private boolean closed;
+    private long coalescedMonitors;
+    private long addedEvents;
+    private long blockedAdds;
+    private long totalWaitTime;
+    private long maximumWaitTime;
+    private int maximumSize;
+
+    /**
+     * Constructor for OutboundEventQueue with the default capacity.
+     */
+    public OutboundEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for OutboundEventQueue.
+     *
+     * @param capacity the maximum number of events waiting to be sent
+     */
+    public OutboundEventQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Error: Invalid capacity " + capacity);
+        }
+        events = new ArrayDeque<>();
+        waitingMonitors = new HashMap<>();
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds an event to the queue. An ElevatorMonitor is merged into the elevator's waiting
+     * ElevatorMonitor if there is one. Otherwise, if the queue is full, the caller waits until
+     * there is room or the queue is closed. An interrupted caller stops waiting and adds its
+     * event anyway, so that no event is lost.
+     *
+     * @param event the event to send
+     */
+    public synchronized void add(SystemEvent event) {
+        add(event, true);
+    }
+
+    /**
+     * Adds an event to the queue without waiting for room, even if the queue is full.
+     * Used by threads that the consumer depends on, which must never wait for it.
+     *
+     * @param event the event to send
+     */
+    public synchronized void addWithoutWaiting(SystemEvent event) {
+        add(event, false);
+    }
+
+    /**
+     * Adds an event to the queue, merging an ElevatorMonitor into the elevator's waiting
+     * ElevatorMonitor if there is one.
+     *
+     * @param event the event to send
+     * @param mayWait whether the caller waits for room while the queue is full
+     */
+    private void add(SystemEvent event, boolean mayWait) {
+        if (event instanceof ElevatorMonitor elevatorMonitor) {
+            ElevatorMonitor waitingMonitor = waitingMonitors.get(elevatorMonitor.getElevatorNumber());
+            if (waitingMonitor != null) {
+                waitingMonitor.mergeUpdate(elevatorMonitor);
+                coalescedMonitors++;
+                return;
+            }
+        }
+        if (mayWait && events.size() >= capacity && !closed) {
+            awaitRoom();
+        }
+        if (event instanceof ElevatorMonitor elevatorMonitor) {
+            // the monitor may have been queued by another elevator thread while waiting
+            ElevatorMonitor waitingMonitor = waitingMonitors.get(elevatorMonitor.getElevatorNumber());
+            if (waitingMonitor != null) {
+                waitingMonitor.mergeUpdate(elevatorMonitor);
+                coalescedMonitors++;
+                return;
+            }
+            // the queue merges into its own copy so that the sender's ElevatorMonitor is unchanged
+            waitingMonitor = new ElevatorMonitor(elevatorMonitor.getElevatorNumber());
+            waitingMonitor.setChangedFields(0);
+            waitingMonitor.mergeUpdate(elevatorMonitor);
+            waitingMonitors.put(waitingMonitor.getElevatorNumber(), waitingMonitor);
+            event = waitingMonitor;
+        }
+        events.add(event);
+        addedEvents++;
+        maximumSize = Math.max(maximumSize, events.size());
+        notifyAll();
+    }
+
+    /**
+     * Waits until the queue has room for an event or is closed, and records the time waited.
+     */
+    private void awaitRoom() {
+        long start = System.nanoTime();
+        blockedAdds++;
+        try {
+            while (events.size() >= capacity && !closed) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long waitTime = System.nanoTime() - start;
+        totalWaitTime += waitTime;
+        maximumWaitTime = Math.max(maximumWaitTime, waitTime);
+    }
+
+    /**
+     * Closes the queue, releasing the callers waiting for room. Events added after the queue
+     * is closed are queued without waiting.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Removes the event at the head of the queue, waiting at most the specified time for one.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return the event at the head of the queue, or null if the wait timed out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized SystemEvent poll(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (events.isEmpty() && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return remove();
+    }
+
+    /**
+     * Moves every event in the queue to the collection, in order.
+     *
+     * @param collection the collection to add the events to
+     * @return the number of events moved
+     */
+    public synchronized int drainTo(Collection<? super SystemEvent> collection) {
+        int count = 0;
+        SystemEvent event;
+        while ((event = remove()) != null) {
+            collection.add(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes the event at the head of the queue, freeing its elevator's slot if it is an ElevatorMonitor.
+     *
+     * @return the event at the head of the queue, or null if the queue is empty
+     */
+    private SystemEvent remove() {
+        SystemEvent event = events.poll();
+        if (event instanceof ElevatorMonitor elevatorMonitor) {
+            waitingMonitors.remove(elevatorMonitor.getElevatorNumber());
+        }
+        if (event != null && events.size() == capacity - 1) {
+            // the queue was full; wake the callers waiting for room
+            notifyAll();
+        }
+        return event;
+    }
+
+    /**
+     * Returns the number of events waiting to be sent.
+     *
+     * @return the number of events in the queue
+     */
+    public synchronized int size() {
+        return events.size();
+    }
+
+    /**
+     * Returns the number of ElevatorMonitors merged into a waiting ElevatorMonitor
+     * instead of being queued.
+     *
+     * @return the number of coalesced ElevatorMonitors
+     */
+    public synchronized long getCoalescedMonitors() {
+        return coalescedMonitors;
+    }
+
+    /**
+     * Returns the maximum number of events waiting to be sent.
+     *
+     * @return the capacity of the queue
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the largest number of events that have waited to be sent at once.
+     *
+     * @return the maximum size of the queue
+     */
+    public synchronized int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of events added to the queue, excluding coalesced ElevatorMonitors.
+     *
+     * @return the number of events added
+     */
+    public synchronized long getAddedEvents() {
+        return addedEvents;
+    }
+
+    /**
+     * Returns the number of calls to add() that waited because the queue was full.
+     *
+     * @return the number of blocked additions
+     */
+    public synchronized long getBlockedAdds() {
+        return blockedAdds;
+    }
+
+    /**
+     * Returns the total time callers of add() spent waiting for room.
+     *
+     * @return the total enqueue wait time in nanoseconds
+     */
+    public synchronized long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the longest time a caller of add() waited for room.
+     *
+     * @return the maximum enqueue wait time in nanoseconds
+     */
+    public synchronized long getMaximumWaitTime() {
+        return maximumWaitTime;
+    }
+
+    /**
+     * Returns the average time that each event added to the queue waited for room.
+     *
+     * @return the mean enqueue wait time in nanoseconds
+     */
+    public synchronized double getMeanWaitTime() {
+        return addedEvents == 0 ? 0 : (double) totalWaitTime / addedEvents;
+    }
+}
@@ -3,14 +3,17 @@ package elevatorsystem;
 import requests.ElevatorRequest;
 import requests.ServiceRequest;
 import systemwide.Direction;
+import systemwide.Zone;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.TreeSet;
 
 /**
  * RequestQueue maintains queues of serviceRequests that indicate
  * the floors  for an elevator to visit. It also provides methods
- * to manage and modify the queues.
+ * to manage and modify the queues. An elevator in a Zone only
+ * accepts requests for the floors its Zone serves.
  *
  * @author Julian, Liam Tripp
  */
@@ -24,6 +27,7 @@ public class RequestQueue {
      * (if serviceDirection is DOWN) the elevator's floor.
      */
     private final TreeSet<ServiceRequest> missedRequests;
+    private volatile Zone zone;
 
     /**
      * Constructor for RequestQueue.
@@ -48,6 +52,10 @@ public class RequestQueue {
         if (floorNumber < 0 || elevatorFloorNumber < 0) {
             throw new IllegalArgumentException("FloorNumber must be greater than zero.");
         }
+        int desiredFloor = request instanceof ElevatorRequest elevatorRequest ? elevatorRequest.getDesiredFloor() : -1;
+        if (!servesFloor(floorNumber) || (desiredFloor >= 0 && !servesFloor(desiredFloor))) {
+            throw new IllegalArgumentException("Floor is not served by " + zone + ".");
+        }
 
         TreeSet<ServiceRequest> queueToAddTo;
         // if the elevator's floor number == request floor number
@@ -87,6 +95,35 @@ public class RequestQueue {
         }
     }
 
+    /**
+     * Sets the Zone of the elevator, whose floors are the only floors the RequestQueue accepts.
+     *
+     * @param zone the Zone of the elevator, or null if the elevator serves every floor
+     */
+    public void setZone(Zone zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Returns the Zone of the elevator.
+     *
+     * @return the Zone of the elevator, or null if the elevator serves every floor
+     */
+    public Zone getZone() {
+        return zone;
+    }
+
+    /**
+     * Determines whether the elevator serves a floor.
+     *
+     * @param floorNumber a floor of the structure
+     * @return true if the elevator has no Zone or its Zone serves the floor, false otherwise
+     */
+    public boolean servesFloor(int floorNumber) {
+        Zone currentZone = zone;
+        return currentZone == null || currentZone.servesFloor(floorNumber);
+    }
+
     /**
      * Removes a request from the head of the currentDirectionQueue.
      *
@@ -198,33 +235,54 @@ public class RequestQueue {
      * Gets the total expected time that the elevator will need to take to
      * perform its current requests along with the new elevatorRequest.
      *
+     * Requests are ordered by floor number alone, so the floors of a queue are distinct and
+     * sorted: the elevator stops at each of them and travels from the first to the last.
+     * The time of a queue therefore only depends on its size, first and last floor, which
+     * the TreeSets keep up to date as requests are added and removed.
+     *
      * @param elevatorFloor the floor the elevator starts at
      * @return a double containing the elevator's total expected queue time
      */
     public double getExpectedTime(int elevatorFloor, int loadTime, int travelTime) {
-        double queueTime = 0;
+        long stops = 0;
+        long floorsTravelled = 0;
+        int floor = elevatorFloor;
 
-        for (ServiceRequest request : currentDirectionQueue) {
-            int floor = request.getFloorNumber();
-            if (elevatorFloor != floor) {
-                queueTime += loadTime + requestTime(elevatorFloor, floor, travelTime);
-                elevatorFloor = floor;
+        for (TreeSet<ServiceRequest> queue : List.of(currentDirectionQueue, oppositeDirectionQueue, missedRequests)) {
+            if (queue.isEmpty()) {
+                continue;
             }
-        }
-
-        for (ServiceRequest request : oppositeDirectionQueue) {
-            int floor = request.getFloorNumber();
-            if (elevatorFloor != floor) {
-                queueTime += loadTime + requestTime(elevatorFloor, floor, travelTime);
-                elevatorFloor = floor;
+            int firstFloor = queue.first().getFloorNumber();
+            int lastFloor = queue.last().getFloorNumber();
+            if (firstFloor != floor) {
+                stops++;
+                floorsTravelled += Math.abs(firstFloor - floor);
             }
+            stops += queue.size() - 1;
+            floorsTravelled += Math.abs(lastFloor - firstFloor);
+            floor = lastFloor;
         }
 
-        for (ServiceRequest request : missedRequests) {
-            int floor = request.getFloorNumber();
-            if (elevatorFloor != floor) {
-                queueTime += loadTime + requestTime(elevatorFloor, floor, travelTime);
-                elevatorFloor = floor;
+        return (stops * loadTime + floorsTravelled * travelTime) / 1000.0;
+    }
+
+    /**
+     * Gets the total expected time of the elevator's requests by visiting every request.
+     * Used to verify getExpectedTime.
+     *
+     * @param elevatorFloor the floor the elevator starts at
+     * @return a double containing the elevator's total expected queue time
+     */
+    double recomputeExpectedTime(int elevatorFloor, int loadTime, int travelTime) {
+        double queueTime = 0;
+
+        for (TreeSet<ServiceRequest> queue : List.of(currentDirectionQueue, oppositeDirectionQueue, missedRequests)) {
+            for (ServiceRequest request : queue) {
+                int floor = request.getFloorNumber();
+                if (elevatorFloor != floor) {
+                    queueTime += loadTime + requestTime(elevatorFloor, floor, travelTime);
+                    elevatorFloor = floor;
+                }
             }
         }
 
@@ -3,14 +3,20 @@ package floorsystem;
 import client_server_host.Client;
 import client_server_host.Port;
 import client_server_host.RequestMessage;
+import client_server_host.TransportFactory;
 import requests.*;
 import systemwide.InputFileReader;
 import systemwide.Structure;
 import systemwide.SystemStatus;
 
 import java.time.LocalTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * FloorSubsystem manages the floors and their requests to the Scheduler.
@@ -20,21 +26,35 @@ import java.util.Collections;
 public class FloorSubsystem implements Runnable, SystemEventListener {
 
     private final Client client;
-    private final ArrayList<SystemEvent> eventList;
+    private final BlockingQueue<SystemEvent> eventList;
+    private final Queue<SystemEvent> outgoingEvents;
     private final ArrayList<SystemEvent> requestList;
     private final ArrayList<Floor> floorList;
     private final SystemStatus systemStatus;
+    // set by the receiver thread; systemStatus is only deactivated once the socket is closed
+    private volatile boolean terminated;
     private long startTime;
     private long delayToSendRequest;
+    private final static long POLL_TIMEOUT = 50; // milliseconds
 
     /**
-     * Constructor for FloorSubsystem.
+     * Constructor for FloorSubsystem using the transport selected by TransportFactory.getDefault().
      */
     public FloorSubsystem() {
-        client = new Client(Port.CLIENT.getNumber());
+        this(TransportFactory.getDefault());
+    }
+
+    /**
+     * Constructor for FloorSubsystem.
+     *
+     * @param transportFactory the factory opening the Transport used to reach the Scheduler
+     */
+    public FloorSubsystem(TransportFactory transportFactory) {
+        client = new Client(Port.CLIENT.getNumber(), transportFactory);
         InputFileReader inputFileReader = new InputFileReader();
         requestList = inputFileReader.readInputFile(InputFileReader.INPUTS_FILENAME);
-        eventList = new ArrayList<>();
+        eventList = new LinkedBlockingQueue<>();
+        outgoingEvents = new ArrayDeque<>();
         floorList = new ArrayList<>();
         systemStatus = new SystemStatus(false);
         delayToSendRequest = 0;
@@ -42,19 +62,33 @@ public class FloorSubsystem implements Runnable, SystemEventListener {
     }
 
     /**
-     * Simple message requesting and sending between subsystems.
+     * Subscribes to the Scheduler's events, then sends requests and events until the
+     * system is terminated. Events pushed by the Scheduler are received on a separate thread.
      * FloorSubsystem
      * Sends: ApproachEvent, ElevatorRequest
      * Receives: ApproachEvent
      */
     @Override
     public void run() {
-        Collections.reverse(requestList);
+        synchronized (requestList) {
+            Collections.reverse(requestList);
+        }
 
         systemStatus.setSystemActivated(true);
-        while (systemStatus.activated()) {
-            subsystemUDPMethod();
+        Thread receiverThread = new Thread(this::receiveEvents, Thread.currentThread().getName() + " Receiver");
+        receiverThread.start();
+        client.send(RequestMessage.SUBSCRIBE.getMessage());
+
+        while (!terminated) {
+            sendEvents();
+        }
+        try {
+            receiverThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+        client.close();
+        systemStatus.setSystemActivated(false);
         System.out.println(getClass().getSimpleName() + " Thread terminated");
     }
 
@@ -113,7 +147,9 @@ public class FloorSubsystem implements Runnable, SystemEventListener {
      * @return size of the list of requests
      */
     public int getRequestListSize() {
-        return requestList.size();
+        synchronized (requestList) {
+            return requestList.size();
+        }
     }
 
     /**
@@ -122,7 +158,9 @@ public class FloorSubsystem implements Runnable, SystemEventListener {
      * @param serviceRequest serviceRequest to be added to the list of requests.
      */
     public void addRequest(ServiceRequest serviceRequest) {
-        requestList.add(serviceRequest);
+        synchronized (requestList) {
+            requestList.add(serviceRequest);
+        }
     }
 
     /**
@@ -145,33 +183,66 @@ public class FloorSubsystem implements Runnable, SystemEventListener {
     }
 
     /**
-     * Sends and receives messages for the system using UDP packets.
+     * Sends the next request once its delay has elapsed, together with the events
+     * in the queue. Events are sent to the Scheduler in batches, waiting for each
+     * batch to be acknowledged.
      */
-    private void subsystemUDPMethod() {
-        if (!requestList.isEmpty() && delayTimeElapsed()) {
-            SystemEvent request = requestList.remove(requestList.size() - 1);
+    private void sendEvents() {
+        SystemEvent request = null;
+        long timeout = POLL_TIMEOUT;
+        synchronized (requestList) {
+            // requests can only be made from floors once the floors are initialized
+            if (!requestList.isEmpty() && !floorList.isEmpty()) {
+                if (delayTimeElapsed()) {
+                    request = requestList.remove(requestList.size() - 1);
+                } else {
+                    // wake up in time to send the next request
+                    timeout = Math.min(timeout, delayToSendRequest - (System.nanoTime() - startTime) / 1000000 + 1);
+                }
+            }
+        }
+
+        if (request != null) {
             // update request's time to now
             request.setTime(LocalTime.now());
-            client.sendAndReceiveReply(request);
             startTime = System.nanoTime();
-        } else if (!eventList.isEmpty()) {
-            client.sendAndReceiveReply(eventList.remove(eventList.size() - 1));
+            outgoingEvents.add(request);
         } else {
-            Object object = client.sendAndReceiveReply(RequestMessage.REQUEST.getMessage());
+            try {
+                SystemEvent event = eventList.poll(timeout, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    return;
+                }
+                outgoingEvents.add(event);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        eventList.drainTo(outgoingEvents);
+        while (!outgoingEvents.isEmpty() && !terminated) {
+            client.send(outgoingEvents);
+            while (!client.awaitAcknowledgement(POLL_TIMEOUT) && !terminated) {
+                // keep waiting until the Scheduler acknowledges the batch
+            }
+        }
+    }
+
+    /**
+     * Receives and processes the events pushed by the Scheduler until the system is terminated.
+     */
+    private void receiveEvents() {
+        while (!terminated) {
+            Object object = client.receive();
 
             if (object instanceof ApproachEvent approachEvent) {
                 processApproachEvent(approachEvent);
             } else if (object instanceof ElevatorRequest elevatorRequest) {
-                requestList.add(elevatorRequest);
+                addRequest(elevatorRequest);
             } else if (object instanceof String string) {
-                if (string.trim().equals(RequestMessage.EMPTYQUEUE.getMessage())) {
-                    try {
-                        Thread.sleep(5);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                } else if (string.trim().equals(RequestMessage.TERMINATE.getMessage())) {
-                    systemStatus.setSystemActivated(false);
+                if (RequestMessage.fromMessage(string) == RequestMessage.TERMINATE) {
+                    terminated = true;
                 }
             }
         }
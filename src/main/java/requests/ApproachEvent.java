@@ -75,6 +75,15 @@ public class ApproachEvent extends ServiceRequest {
         return floorToVisit;
     }
 
+    /**
+     * Sets the elevators floor to visit.
+     *
+     * @param floorToVisit the destination floor of the elevator
+     */
+    public void setFloorToVisit(int floorToVisit) {
+        this.floorToVisit = floorToVisit;
+    }
+
     /**
      * Convert ApproachEvent to a String.
      */
@@ -13,11 +13,30 @@ import java.time.LocalTime;
  * which Elevator to send new ServiceRequests to. Scheduler's list of ElevatorMonitors is
  * updated by Elevator sending ElevatorMonitors to Scheduler.
  *
+ * An ElevatorMonitor is either a keyframe, holding every field, or a delta, in which
+ * only the fields marked in changedFields are valid. Elevators send a delta against the
+ * last monitor they sent, and a keyframe every KEYFRAME_INTERVAL updates and whenever
+ * they are assigned a request, so a Scheduler that missed an update is corrected.
+ * Encoded, a keyframe is 33 bytes and a delta is 7 bytes plus its changed fields; a move
+ * to the next floor is typically 19 bytes.
+ *
  * @author Ryan Dash, Brady Norton
  * @version 2022/04/05
  */
 public class ElevatorMonitor extends SystemEvent {
 
+    public static final int CURRENT_FLOOR = 1;
+    public static final int DIRECTION = 1 << 1;
+    public static final int STATE = 1 << 2;
+    public static final int MOVEMENT_DIRECTION = 1 << 3;
+    public static final int DOORS_STATE = 1 << 4;
+    public static final int FAULT = 1 << 5;
+    public static final int HAS_NO_REQUESTS = 1 << 6;
+    public static final int QUEUE_TIME = 1 << 7;
+    public static final int CURRENT_REQUEST = 1 << 8;
+    public static final int ALL_FIELDS = (1 << 9) - 1;
+    public static final int KEYFRAME_INTERVAL = 16;
+
     private int currentFloor;
     private Direction currentDirection;
     private MovementState state;
@@ -27,6 +46,7 @@ public class ElevatorMonitor extends SystemEvent {
     private boolean hasNoRequests;
     private double queueTime;
     private ServiceRequest currentRequest;
+    private int changedFields;
 
     /**
      * Main Constructor for ElevatorMonitor.
@@ -44,6 +64,7 @@ public class ElevatorMonitor extends SystemEvent {
         doorsState = Doors.State.OPEN;
         fault = Fault.NONE;
         hasNoRequests = true;
+        changedFields = ALL_FIELDS;
     }
 
     /**
@@ -160,20 +181,123 @@ public class ElevatorMonitor extends SystemEvent {
         this.currentRequest = currentRequest;
     }
 
+    /**
+     * Returns the fields that are valid in the ElevatorMonitor.
+     *
+     * @return a bitmask of field constants, ALL_FIELDS for a keyframe
+     */
+    public int getChangedFields() {
+        return changedFields;
+    }
+
+    /**
+     * Sets the fields that are valid in the ElevatorMonitor.
+     *
+     * @param changedFields a bitmask of field constants, ALL_FIELDS for a keyframe
+     */
+    public void setChangedFields(int changedFields) {
+        this.changedFields = changedFields;
+    }
+
+    /**
+     * Indicates whether the ElevatorMonitor holds every field.
+     *
+     * @return true if the ElevatorMonitor is a keyframe, false if it is a delta
+     */
+    public boolean isKeyframe() {
+        return changedFields == ALL_FIELDS;
+    }
+
+    /**
+     * Returns a copy of the ElevatorMonitor marking only the fields that differ
+     * from a previous ElevatorMonitor of the same elevator.
+     *
+     * @param previous the ElevatorMonitor last sent for the elevator
+     * @return a delta containing the fields changed since the previous ElevatorMonitor
+     */
+    public ElevatorMonitor deltaFrom(ElevatorMonitor previous) {
+        int changed = 0;
+        if (currentFloor != previous.currentFloor) {
+            changed |= CURRENT_FLOOR;
+        }
+        if (currentDirection != previous.currentDirection) {
+            changed |= DIRECTION;
+        }
+        if (state != previous.state) {
+            changed |= STATE;
+        }
+        if (movementDirection != previous.movementDirection) {
+            changed |= MOVEMENT_DIRECTION;
+        }
+        if (doorsState != previous.doorsState) {
+            changed |= DOORS_STATE;
+        }
+        if (fault != previous.fault) {
+            changed |= FAULT;
+        }
+        if (hasNoRequests != previous.hasNoRequests) {
+            changed |= HAS_NO_REQUESTS;
+        }
+        if (queueTime != previous.queueTime) {
+            changed |= QUEUE_TIME;
+        }
+        if (currentRequest != previous.currentRequest) {
+            changed |= CURRENT_REQUEST;
+        }
+        ElevatorMonitor delta = new ElevatorMonitor(getElevatorNumber(), currentFloor, currentDirection, state, movementDirection, doorsState, fault, hasNoRequests, queueTime);
+        delta.setTime(getTime());
+        delta.currentRequest = currentRequest;
+        delta.changedFields = changed;
+        return delta;
+    }
+
     /**
      * Updates the ElevatorMonitor with the latest ElevatorMonitor information.
+     * Only the fields marked as changed in a delta are updated.
      *
      * @param elevatorMonitor an elevator monitor containing new elevator information
      */
     public void updateMonitor(ElevatorMonitor elevatorMonitor) {
-        this.queueTime = elevatorMonitor.getQueueTime();
-        this.state = elevatorMonitor.getState();
-        this.currentFloor = elevatorMonitor.getCurrentFloor();
-        this.currentDirection = elevatorMonitor.getDirection();
-        movementDirection = elevatorMonitor.getMovementDirection();
-        doorsState = elevatorMonitor.getDoorsState();
-        fault = elevatorMonitor.getFault();
-        this.hasNoRequests = elevatorMonitor.hasNoRequests();
+        int changed = elevatorMonitor.getChangedFields();
+        if ((changed & QUEUE_TIME) != 0) {
+            this.queueTime = elevatorMonitor.getQueueTime();
+        }
+        if ((changed & STATE) != 0) {
+            this.state = elevatorMonitor.getState();
+        }
+        if ((changed & CURRENT_FLOOR) != 0) {
+            this.currentFloor = elevatorMonitor.getCurrentFloor();
+        }
+        if ((changed & DIRECTION) != 0) {
+            this.currentDirection = elevatorMonitor.getDirection();
+        }
+        if ((changed & MOVEMENT_DIRECTION) != 0) {
+            movementDirection = elevatorMonitor.getMovementDirection();
+        }
+        if ((changed & DOORS_STATE) != 0) {
+            doorsState = elevatorMonitor.getDoorsState();
+        }
+        if ((changed & FAULT) != 0) {
+            fault = elevatorMonitor.getFault();
+        }
+        if ((changed & HAS_NO_REQUESTS) != 0) {
+            this.hasNoRequests = elevatorMonitor.hasNoRequests();
+        }
+        if ((changed & CURRENT_REQUEST) != 0) {
+            currentRequest = elevatorMonitor.getCurrentRequest();
+        }
+    }
+
+    /**
+     * Combines a newer ElevatorMonitor of the same elevator into this one, so that
+     * sending this ElevatorMonitor has the same effect as sending both in order.
+     *
+     * @param newer an ElevatorMonitor created after this one
+     */
+    public void mergeUpdate(ElevatorMonitor newer) {
+        updateMonitor(newer);
+        changedFields |= newer.getChangedFields();
+        setTime(newer.getTime());
     }
 
     /**
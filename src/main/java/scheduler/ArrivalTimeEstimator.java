@@ -0,0 +1,254 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+import systemwide.Direction;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ArrivalTimeEstimator estimates when an elevator reaches each of its planned stops and
+ * how much assigning it a new ElevatorRequest would cost.
+ *
+ * The elevator is assumed to sweep like a collective elevator: it keeps moving in its
+ * direction, stopping at car calls and hall calls in that direction, and turns around at the
+ * farthest stop ahead of it. Each stop takes the doors time, and each floor travelled
+ * takes the elevator time. A car call is only served after the hall call where its passenger boards.
+ */
+public class ArrivalTimeEstimator {
+
+    private final int elevatorTime;
+    private final int doorsTime;
+
+    /**
+     * Constructor for ArrivalTimeEstimator.
+     *
+     * @param elevatorTime the time for an elevator to travel one floor in milliseconds
+     * @param doorsTime the time for an elevator to stop at a floor in milliseconds
+     */
+    public ArrivalTimeEstimator(int elevatorTime, int doorsTime) {
+        this.elevatorTime = elevatorTime;
+        this.doorsTime = doorsTime;
+    }
+
+    /**
+     * Returns the time an extra stop adds to an elevator's trip: stopping at a floor
+     * and travelling one floor.
+     *
+     * @return the time of one stop in milliseconds
+     */
+    public double getStopTime() {
+        return elevatorTime + doorsTime;
+    }
+
+    /**
+     * Estimates the time at which an elevator arrives at each of its stops.
+     *
+     * @param elevatorFloor the floor of the elevator
+     * @param direction the direction the elevator is moving in, or Direction.NONE if it is idle
+     * @param stops the stops of the elevator
+     * @return the arrival time at each stop in milliseconds, in the order of the stops
+     */
+    public double[] estimateArrivalTimes(int elevatorFloor, Direction direction, List<PlannedStop> stops) {
+        int numberOfStops = stops.size();
+        double[] arrivalTimes = new double[numberOfStops];
+        boolean[] served = new boolean[numberOfStops];
+        Map<PlannedStop, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < numberOfStops; i++) {
+            indices.put(stops.get(i), i);
+        }
+
+        int floor = elevatorFloor;
+        double time = 0;
+        int remainingStops = numberOfStops;
+        while (remainingStops > 0) {
+            if (direction == Direction.NONE) {
+                direction = directionToNearestStop(floor, stops, served, indices);
+            }
+            int nextFloor = nextFloor(floor, direction, stops, served, indices);
+            boolean turnAround = false;
+            if (nextFloor == -1) {
+                nextFloor = farthestFloorAhead(floor, direction, stops, served, indices);
+                turnAround = true;
+            }
+            if (nextFloor == -1) {
+                direction = Direction.swapDirection(direction);
+                continue;
+            }
+
+            time += (double) Math.abs(nextFloor - floor) * elevatorTime;
+            floor = nextFloor;
+            // serve every stop at the floor, including car calls of passengers boarding there
+            boolean servedStop = true;
+            while (servedStop) {
+                servedStop = false;
+                for (int i = 0; i < numberOfStops; i++) {
+                    if (!served[i] && stops.get(i).getFloorNumber() == floor && isActive(stops.get(i), served, indices)) {
+                        served[i] = true;
+                        arrivalTimes[i] = time;
+                        remainingStops--;
+                        servedStop = true;
+                    }
+                }
+            }
+            time += doorsTime;
+            if (turnAround) {
+                direction = Direction.swapDirection(direction);
+            }
+        }
+        return arrivalTimes;
+    }
+
+    /**
+     * Estimates the cost of assigning an ElevatorRequest to an elevator: the time until the
+     * elevator arrives at the request's floor, plus the delay it adds to the arrival at each
+     * of the elevator's stops.
+     *
+     * @param elevatorFloor the floor of the elevator
+     * @param direction the direction the elevator is moving in, or Direction.NONE if it is idle
+     * @param stops the stops of the elevator
+     * @param elevatorRequest the request to assign
+     * @return the cost of the assignment in milliseconds
+     */
+    public double estimateCost(int elevatorFloor, Direction direction, List<PlannedStop> stops, ElevatorRequest elevatorRequest) {
+        double[] arrivalTimes = estimateArrivalTimes(elevatorFloor, direction, stops);
+        List<PlannedStop> stopsWithRequest = new ArrayList<>(stops);
+        stopsWithRequest.addAll(PlannedStops.stopsOf(elevatorRequest));
+        double[] arrivalTimesWithRequest = estimateArrivalTimes(elevatorFloor, direction, stopsWithRequest);
+
+        double addedDelay = 0;
+        for (int i = 0; i < arrivalTimes.length; i++) {
+            addedDelay += arrivalTimesWithRequest[i] - arrivalTimes[i];
+        }
+        return arrivalTimesWithRequest[stops.size()] + addedDelay;
+    }
+
+    /**
+     * Estimates the cost of adding several requests to an elevator's stops: the time until the
+     * elevator arrives at each request's floor, plus the delay they add to the arrival at each
+     * of the elevator's stops.
+     *
+     * @param elevatorFloor the floor of the elevator
+     * @param direction the direction the elevator is moving in, or Direction.NONE if it is idle
+     * @param stops the stops of the elevator
+     * @param elevatorRequests the requests to add
+     * @return the cost of the requests in milliseconds
+     */
+    public double estimateCost(int elevatorFloor, Direction direction, List<PlannedStop> stops, List<ElevatorRequest> elevatorRequests) {
+        if (elevatorRequests.isEmpty()) {
+            return 0;
+        }
+        double[] arrivalTimes = estimateArrivalTimes(elevatorFloor, direction, stops);
+        List<PlannedStop> stopsWithRequests = new ArrayList<>(stops);
+        List<Integer> hallCalls = new ArrayList<>();
+        for (ElevatorRequest elevatorRequest : elevatorRequests) {
+            hallCalls.add(stopsWithRequests.size());
+            stopsWithRequests.addAll(PlannedStops.stopsOf(elevatorRequest));
+        }
+        double[] arrivalTimesWithRequests = estimateArrivalTimes(elevatorFloor, direction, stopsWithRequests);
+
+        double cost = 0;
+        for (int i = 0; i < arrivalTimes.length; i++) {
+            cost += arrivalTimesWithRequests[i] - arrivalTimes[i];
+        }
+        for (int hallCall : hallCalls) {
+            cost += arrivalTimesWithRequests[hallCall];
+        }
+        return cost;
+    }
+
+    /**
+     * Determines whether a stop can be served, which is the case once its boarding stop is served.
+     *
+     * @param stop a stop
+     * @param served whether each stop has been served
+     * @param indices the index of each stop
+     * @return true if the stop can be served, false otherwise
+     */
+    private boolean isActive(PlannedStop stop, boolean[] served, Map<PlannedStop, Integer> indices) {
+        Integer boardingIndex = indices.get(stop.getBoardingStop());
+        return boardingIndex == null || served[boardingIndex];
+    }
+
+    /**
+     * Determines whether a floor is at or beyond another floor in a direction.
+     *
+     * @param floor the floor of the elevator
+     * @param direction the direction the elevator is moving in
+     * @param otherFloor another floor
+     * @return true if the elevator reaches the other floor by moving in the direction, false otherwise
+     */
+    private boolean isAhead(int floor, Direction direction, int otherFloor) {
+        return direction == Direction.UP ? otherFloor >= floor : otherFloor <= floor;
+    }
+
+    /**
+     * Returns the nearest floor ahead with a car call or a hall call in the elevator's direction.
+     *
+     * @param floor the floor of the elevator
+     * @param direction the direction the elevator is moving in
+     * @param stops the stops of the elevator
+     * @param served whether each stop has been served
+     * @param indices the index of each stop
+     * @return the nearest floor to stop at, or -1 if there is none
+     */
+    private int nextFloor(int floor, Direction direction, List<PlannedStop> stops, boolean[] served, Map<PlannedStop, Integer> indices) {
+        int nextFloor = -1;
+        for (int i = 0; i < stops.size(); i++) {
+            PlannedStop stop = stops.get(i);
+            int stopFloor = stop.getFloorNumber();
+            if (!served[i] && isActive(stop, served, indices) && isAhead(floor, direction, stopFloor)
+                    && (stop.getDirection() == Direction.NONE || stop.getDirection() == direction)
+                    && (nextFloor == -1 || Math.abs(stopFloor - floor) < Math.abs(nextFloor - floor))) {
+                nextFloor = stopFloor;
+            }
+        }
+        return nextFloor;
+    }
+
+    /**
+     * Returns the farthest floor ahead with a stop, where the elevator turns around.
+     *
+     * @param floor the floor of the elevator
+     * @param direction the direction the elevator is moving in
+     * @param stops the stops of the elevator
+     * @param served whether each stop has been served
+     * @param indices the index of each stop
+     * @return the farthest floor with a stop, or -1 if there is none
+     */
+    private int farthestFloorAhead(int floor, Direction direction, List<PlannedStop> stops, boolean[] served, Map<PlannedStop, Integer> indices) {
+        int farthestFloor = -1;
+        for (int i = 0; i < stops.size(); i++) {
+            int stopFloor = stops.get(i).getFloorNumber();
+            if (!served[i] && isActive(stops.get(i), served, indices) && isAhead(floor, direction, stopFloor)
+                    && (farthestFloor == -1 || Math.abs(stopFloor - floor) > Math.abs(farthestFloor - floor))) {
+                farthestFloor = stopFloor;
+            }
+        }
+        return farthestFloor;
+    }
+
+    /**
+     * Returns the direction of the nearest stop, used when the elevator is idle.
+     *
+     * @param floor the floor of the elevator
+     * @param stops the stops of the elevator
+     * @param served whether each stop has been served
+     * @param indices the index of each stop
+     * @return the direction to move in to reach the nearest stop
+     */
+    private Direction directionToNearestStop(int floor, List<PlannedStop> stops, boolean[] served, Map<PlannedStop, Integer> indices) {
+        int nearestFloor = floor;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < stops.size(); i++) {
+            int stopFloor = stops.get(i).getFloorNumber();
+            if (!served[i] && isActive(stops.get(i), served, indices) && Math.abs(stopFloor - floor) < nearestDistance) {
+                nearestFloor = stopFloor;
+                nearestDistance = Math.abs(stopFloor - floor);
+            }
+        }
+        return nearestFloor < floor ? Direction.DOWN : Direction.UP;
+    }
+}
@@ -0,0 +1,114 @@
+package scheduler;
+
+import java.util.Arrays;
+
+/**
+ * AssignmentSolver solves the minimum-cost assignment problem with the Hungarian algorithm:
+ * given the cost of assigning each row to each column, it assigns rows to distinct columns so
+ * that the total cost is as low as possible. Runs in O(n^2 m) time for n rows and m columns, n <= m.
+ */
+public final class AssignmentSolver {
+
+    /**
+     * Private constructor; AssignmentSolver only provides static methods.
+     */
+    private AssignmentSolver() {
+    }
+
+    /**
+     * Assigns each row to a distinct column at minimum total cost. If there are more rows than
+     * columns, only as many rows as there are columns are assigned.
+     *
+     * @param costs the cost of assigning each row to each column; every row has the same length
+     * @return the column assigned to each row, or -1 if the row is not assigned
+     */
+    public static int[] solve(double[][] costs) {
+        int rows = costs.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int columns = costs[0].length;
+        if (rows <= columns) {
+            return solveRowsToColumns(costs, rows, columns);
+        }
+        double[][] transposed = new double[columns][rows];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                transposed[j][i] = costs[i][j];
+            }
+        }
+        int[] rowOfColumn = solveRowsToColumns(transposed, columns, rows);
+        int[] columnOfRow = new int[rows];
+        Arrays.fill(columnOfRow, -1);
+        for (int j = 0; j < columns; j++) {
+            columnOfRow[rowOfColumn[j]] = j;
+        }
+        return columnOfRow;
+    }
+
+    /**
+     * Assigns every row to a distinct column at minimum total cost, using potentials on the rows
+     * and columns and growing the assignment by one row along a shortest augmenting path.
+     *
+     * @param costs the cost of assigning each row to each column
+     * @param rows the number of rows
+     * @param columns the number of columns, at least the number of rows
+     * @return the column assigned to each row
+     */
+    private static int[] solveRowsToColumns(double[][] costs, int rows, int columns) {
+        // arrays are indexed from 1; column 0 is a sentinel holding the row being assigned
+        double[] rowPotentials = new double[rows + 1];
+        double[] columnPotentials = new double[columns + 1];
+        int[] rowOfColumn = new int[columns + 1];
+        int[] previousColumn = new int[columns + 1];
+        for (int row = 1; row <= rows; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            double[] minimumSlack = new double[columns + 1];
+            boolean[] used = new boolean[columns + 1];
+            Arrays.fill(minimumSlack, Double.POSITIVE_INFINITY);
+            do {
+                used[column] = true;
+                int currentRow = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+                for (int j = 1; j <= columns; j++) {
+                    if (!used[j]) {
+                        double slack = costs[currentRow - 1][j - 1] - rowPotentials[currentRow] - columnPotentials[j];
+                        if (slack < minimumSlack[j]) {
+                            minimumSlack[j] = slack;
+                            previousColumn[j] = column;
+                        }
+                        if (minimumSlack[j] < delta) {
+                            delta = minimumSlack[j];
+                            nextColumn = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= columns; j++) {
+                    if (used[j]) {
+                        rowPotentials[rowOfColumn[j]] += delta;
+                        columnPotentials[j] -= delta;
+                    } else {
+                        minimumSlack[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (rowOfColumn[column] != 0);
+            // flip the augmenting path
+            do {
+                int previous = previousColumn[column];
+                rowOfColumn[column] = rowOfColumn[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] columnOfRow = new int[rows];
+        for (int j = 1; j <= columns; j++) {
+            if (rowOfColumn[j] != 0) {
+                columnOfRow[rowOfColumn[j] - 1] = j - 1;
+            }
+        }
+        return columnOfRow;
+    }
+}
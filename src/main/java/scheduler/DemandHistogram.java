@@ -0,0 +1,99 @@
+package scheduler;
+
+/**
+ * DemandHistogram estimates the rate at which requests are made at each floor from the requests
+ * observed so far. Each request adds one to its floor's count and every count decays exponentially,
+ * halving every half-life, so that recent traffic outweighs old traffic. A count decaying with
+ * time constant tau estimates the arrival rate as count / tau.
+ */
+public class DemandHistogram {
+
+    private static final double MILLISECONDS_PER_MINUTE = 60000;
+
+    private final double[] counts;
+    private final double timeConstant; // milliseconds
+    private long lastUpdateTime;
+
+    /**
+     * Constructor for DemandHistogram.
+     *
+     * @param numberOfFloors the number of floors, numbered from 1
+     * @param halfLife the time for a request's weight to halve in milliseconds
+     */
+    public DemandHistogram(int numberOfFloors, long halfLife) {
+        if (numberOfFloors < 1 || halfLife < 1) {
+            throw new IllegalArgumentException("Error: Invalid histogram of " + numberOfFloors + " floors with half-life " + halfLife);
+        }
+        counts = new double[numberOfFloors + 1];
+        timeConstant = halfLife / Math.log(2);
+    }
+
+    /**
+     * Returns the number of floors of the histogram.
+     *
+     * @return the number of floors
+     */
+    public int getNumberOfFloors() {
+        return counts.length - 1;
+    }
+
+    /**
+     * Decays the counts to the specified time. Times earlier than the last update are treated as the last update.
+     *
+     * @param time the current time in milliseconds
+     */
+    private void decayTo(long time) {
+        if (time <= lastUpdateTime) {
+            return;
+        }
+        double decay = Math.exp(-(time - lastUpdateTime) / timeConstant);
+        for (int floor = 1; floor < counts.length; floor++) {
+            counts[floor] *= decay;
+        }
+        lastUpdateTime = time;
+    }
+
+    /**
+     * Records a request made at a floor. Requests at floors outside the histogram are ignored.
+     *
+     * @param floorNumber the floor of the request
+     * @param time the time of the request in milliseconds
+     */
+    public synchronized void recordRequest(int floorNumber, long time) {
+        if (floorNumber < 1 || floorNumber >= counts.length) {
+            return;
+        }
+        decayTo(time);
+        counts[floorNumber]++;
+    }
+
+    /**
+     * Returns the estimated rate of requests at every floor.
+     *
+     * @param time the current time in milliseconds
+     * @return the rate of requests per minute, indexed by floor number; index 0 is unused
+     */
+    public synchronized double[] getRates(long time) {
+        decayTo(time);
+        double[] rates = new double[counts.length];
+        for (int floor = 1; floor < counts.length; floor++) {
+            rates[floor] = counts[floor] / timeConstant * MILLISECONDS_PER_MINUTE;
+        }
+        return rates;
+    }
+
+    /**
+     * Returns the estimated rate of requests at a floor.
+     *
+     * @param floorNumber a floor
+     * @param time the current time in milliseconds
+     * @return the rate of requests per minute, or 0 for a floor outside the histogram
+     */
+    public synchronized double getRate(int floorNumber, long time) {
+        if (floorNumber < 1 || floorNumber >= counts.length) {
+            return 0;
+        }
+        decayTo(time);
+        return counts[floorNumber] / timeConstant * MILLISECONDS_PER_MINUTE;
+    }
+}
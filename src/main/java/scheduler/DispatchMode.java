@@ -0,0 +1,17 @@
+package scheduler;
+
+/**
+ * DispatchMode indicates how the Scheduler chooses the elevator that serves an ElevatorRequest.
+ */
+public enum DispatchMode {
+    // the elevator in the best tier (in path, opposite direction, missed), by queue time
+    TIERED,
+    // the nearest elevator that can absorb the request on its path, found in the ElevatorIndex
+    NEAREST,
+    // the elevator whose estimated arrival time and delay to assigned passengers is lowest
+    ESTIMATED_TIME,
+    // requests received within the batch window are assigned together by minimum-cost assignment
+    BATCHED,
+    // the elevator of the request's zone of floors whose estimated time is lowest
+    ZONED
+}
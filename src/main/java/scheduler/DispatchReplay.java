@@ -0,0 +1,528 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import requests.ElevatorMonitor;
+import requests.ElevatorRequest;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.InputFileReader;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * DispatchReplay replays a trace of hall calls through the Scheduler's dispatcher against
+ * simulated elevators, without threads or sockets, and measures how long passengers wait and
+ * how much processor time the dispatcher spends choosing elevators. Replaying the same trace
+ * with each DispatchStrategy compares them on equal terms.
+ * Time advances in fixed steps; each simulated elevator reports its status to the Scheduler
+ * after every floor it travels and every stop it makes. In DispatchMode.BATCHED, calls are
+ * collected for the Scheduler's batch window before they are assigned, and the wait includes
+ * that delay. With a ParkingEngine, idle elevators are sent to the floors where calls are expected.
+ * If the Structure defines Zones, each elevator waits at the lobby of its Zone, and a passenger
+ * whose trip crosses Zones calls an elevator again at each floor where they transfer. With a car
+ * capacity, a full elevator passes the hall calls it was assigned until its passengers have left.
+ */
+public class DispatchReplay {
+
+    public static final int DEFAULT_TIME_STEP = 100; // milliseconds
+    private static final long MAXIMUM_TIME = 24 * 3600 * 1000L; // milliseconds
+
+    private final Structure structure;
+    private final int timeStep;
+    private final ThreadMXBean threadMXBean;
+    private int carCapacity = Integer.MAX_VALUE;
+
+    /**
+     * Passenger is a simulated passenger's hall call.
+     *
+     * @param callTime the time at which the passenger pressed the button, in milliseconds
+     * @param request the ElevatorRequest made by the passenger
+     */
+    public record Passenger(long callTime, ElevatorRequest request) {
+    }
+
+    /**
+     * ReplayResult holds the measurements of a replay.
+     *
+     * @param averageWaitTime the average time from a call until the passenger boards, in milliseconds
+     * @param percentile95WaitTime the 95th percentile of the time from a call until the passenger boards, in milliseconds
+     * @param averageBatchLatency the average time from a call until it is assigned, in milliseconds
+     * @param averageDispatchTime the average processor time spent choosing the elevator of a call, in microseconds
+     * @param averageJourneyTime the average time from a call until the passenger leaves at their desired floor, in milliseconds
+     * @param averageRoundTripTime the average time between an elevator's departures from its lobby with passengers, in milliseconds, or 0 if no elevator returned to its lobby
+     * @param handlingCapacity the number of passengers delivered per five minutes, from the first call until the last passenger arrived
+     */
+    public record ReplayResult(double averageWaitTime, double percentile95WaitTime, double averageBatchLatency,
+                               double averageDispatchTime, double averageJourneyTime, double averageRoundTripTime,
+                               double handlingCapacity) {
+    }
+
+    /**
+     * Leg is the part of a passenger's trip served by one elevator.
+     *
+     * @param passenger the passenger making the trip
+     * @param request the ElevatorRequest of the leg, to the desired floor or to a transfer floor
+     * @param callTime the time at which the passenger called an elevator for the leg, in milliseconds
+     */
+    private record Leg(Passenger passenger, ElevatorRequest request, long callTime) {
+
+        /**
+         * Determines whether the leg starts the passenger's trip.
+         *
+         * @return true if the passenger called for the leg when they arrived, false if they called at a transfer floor
+         */
+        boolean isFirstLeg() {
+            return callTime == passenger.callTime();
+        }
+    }
+
+    /**
+     * SimulatedElevator is an elevator that serves its stops in the order the ArrivalTimeEstimator expects.
+     */
+    private class SimulatedElevator {
+
+        private final int elevatorNumber;
+        private final ArrivalTimeEstimator estimator;
+        private final List<PlannedStop> stops;
+        private final int lobbyFloor;
+        private int floor;
+        private Direction direction;
+        private long busyUntil;
+        private int passengers;
+        private long lastDeparture = -1;
+        private long totalRoundTripTime;
+        private int roundTrips;
+
+        /**
+         * Constructor for SimulatedElevator.
+         *
+         * @param elevatorNumber the number of the elevator
+         * @param estimator the estimator whose sweep the elevator follows
+         */
+        SimulatedElevator(int elevatorNumber, ArrivalTimeEstimator estimator) {
+            this.elevatorNumber = elevatorNumber;
+            this.estimator = estimator;
+            stops = new ArrayList<>();
+            Zone zone = structure.getZone(elevatorNumber);
+            lobbyFloor = zone == null ? 1 : zone.getLobbyFloor();
+            floor = lobbyFloor;
+            direction = Direction.NONE;
+        }
+
+        /**
+         * Advances the elevator to the specified time: it serves the stops at its floor,
+         * or moves one floor towards its next stop. A full elevator moves towards the floors
+         * where its passengers leave.
+         *
+         * @param time the current time in milliseconds
+         * @param scheduler the Scheduler receiving the elevator's status
+         * @param boardingTimes the time at which each hall call is served
+         * @param servedStops the stops served in this step, to which the elevator adds its stops
+         */
+        void step(long time, Scheduler scheduler, Map<PlannedStop, Long> boardingTimes, List<PlannedStop> servedStops) {
+            if (time < busyUntil) {
+                return;
+            }
+            if (stops.isEmpty()) {
+                if (direction != Direction.NONE) {
+                    direction = Direction.NONE;
+                    report(scheduler, MovementState.IDLE, Doors.State.CLOSED);
+                }
+                return;
+            }
+            if (serveFloor(time, boardingTimes, servedStops)) {
+                busyUntil = time + structure.getDoorsTime();
+                report(scheduler, MovementState.IDLE, Doors.State.OPEN);
+                return;
+            }
+            // the first stop of the elevator's sweep is the one with the earliest arrival time
+            double[] arrivalTimes = estimator.estimateArrivalTimes(floor, direction, stops);
+            int nextStop = -1;
+            for (int i = 0; i < arrivalTimes.length; i++) {
+                if ((passengers < carCapacity || isPassengerStop(stops.get(i)))
+                        && (nextStop < 0 || arrivalTimes[i] < arrivalTimes[nextStop])) {
+                    nextStop = i;
+                }
+            }
+            if (floor == lobbyFloor && passengers > 0) {
+                if (lastDeparture >= 0) {
+                    totalRoundTripTime += time - lastDeparture;
+                    roundTrips++;
+                }
+                lastDeparture = time;
+            }
+            direction = stops.get(nextStop).getFloorNumber() > floor ? Direction.UP : Direction.DOWN;
+            floor += direction == Direction.UP ? 1 : -1;
+            busyUntil = time + structure.getElevatorTime();
+            report(scheduler, MovementState.ACTIVE, Doors.State.CLOSED);
+        }
+
+        /**
+         * Serves the stops at the elevator's floor, including car calls of passengers boarding there.
+         * Passengers leave before others board, and passengers do not board a full elevator.
+         *
+         * @param time the current time in milliseconds
+         * @param boardingTimes the time at which each hall call is served
+         * @param servedStops the stops served in this step, to which the elevator adds its stops
+         * @return true if a stop was served, false otherwise
+         */
+        private boolean serveFloor(long time, Map<PlannedStop, Long> boardingTimes, List<PlannedStop> servedStops) {
+            boolean servedFloor = false;
+            boolean served = true;
+            while (served) {
+                served = false;
+                for (int i = 0; i < stops.size(); i++) {
+                    PlannedStop stop = stops.get(i);
+                    boolean hallCall = stop.getDirection() != Direction.NONE;
+                    if (stop.getFloorNumber() == floor && !stops.contains(stop.getBoardingStop())
+                            && (!hallCall || passengers < carCapacity)) {
+                        stops.remove(i);
+                        if (hallCall) {
+                            boardingTimes.put(stop, time);
+                            passengers++;
+                        } else if (stop.getBoardingStop() != null) {
+                            passengers--;
+                        }
+                        servedStops.add(stop);
+                        served = true;
+                        servedFloor = true;
+                        break;
+                    }
+                }
+            }
+            return servedFloor;
+        }
+
+        /**
+         * Determines whether a stop is where a passenger in the elevator leaves.
+         *
+         * @param stop one of the elevator's stops
+         * @return true if the stop is a car call whose passenger has boarded, false otherwise
+         */
+        private boolean isPassengerStop(PlannedStop stop) {
+            return stop.getBoardingStop() != null && !stops.contains(stop.getBoardingStop());
+        }
+
+        /**
+         * Sends the elevator's status to the Scheduler.
+         *
+         * @param scheduler the Scheduler receiving the status
+         * @param state the MovementState of the elevator
+         * @param doorsState the state of the elevator's doors
+         */
+        private void report(Scheduler scheduler, MovementState state, Doors.State doorsState) {
+            double queueTime = 0;
+            for (double arrivalTime : estimator.estimateArrivalTimes(floor, direction, stops)) {
+                queueTime = Math.max(queueTime, arrivalTime + structure.getDoorsTime());
+            }
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(elevatorNumber, floor, direction, state, direction,
+                    doorsState, Fault.NONE, stops.isEmpty(), queueTime / 1000));
+        }
+    }
+
+    /**
+     * Constructor for DispatchReplay with the default time step.
+     *
+     * @param structure the floors, elevators, and elevator and doors times of the simulated building
+     */
+    public DispatchReplay(Structure structure) {
+        this(structure, DEFAULT_TIME_STEP);
+    }
+
+    /**
+     * Constructor for DispatchReplay.
+     *
+     * @param structure the floors, elevators, and elevator and doors times of the simulated building
+     * @param timeStep the time the simulation advances in each step, in milliseconds
+     */
+    public DispatchReplay(Structure structure, int timeStep) {
+        this.structure = structure;
+        this.timeStep = timeStep;
+        threadMXBean = ManagementFactory.getThreadMXBean();
+    }
+
+    /**
+     * Sets the number of passengers a simulated elevator carries at once.
+     *
+     * @param carCapacity the capacity of each elevator, or Integer.MAX_VALUE for elevators that are never full
+     * @throws IllegalArgumentException if the capacity is less than one passenger
+     */
+    public void setCarCapacity(int carCapacity) {
+        if (carCapacity < 1) {
+            throw new IllegalArgumentException("An elevator must carry at least one passenger.");
+        }
+        this.carCapacity = carCapacity;
+    }
+
+    /**
+     * Creates a Scheduler for the simulated building, with a monitor for each of its elevators.
+     *
+     * @return the Scheduler
+     */
+    public Scheduler createScheduler() {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setStructure(structure);
+        for (int i = 1; i <= structure.getNumberOfElevators(); i++) {
+            scheduler.addElevatorMonitor(i);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Replays passengers' calls through a DispatchStrategy.
+     *
+     * @param dispatchStrategy the DispatchStrategy choosing the elevator of each call
+     * @param passengers the passengers calling the elevators, in the order of their calls
+     * @return the wait times of the passengers and the dispatch time of their calls
+     */
+    public ReplayResult replay(DispatchStrategy dispatchStrategy, List<Passenger> passengers) {
+        Scheduler scheduler = createScheduler();
+        scheduler.setDispatchStrategy(dispatchStrategy);
+        return replay(scheduler, passengers, null);
+    }
+
+    /**
+     * Replays passengers' calls through a Scheduler created by createScheduler, whose DispatchMode
+     * may be switched by its TrafficClassifier, with idle elevators parked by a ParkingEngine.
+     *
+     * @param scheduler the Scheduler choosing the elevator of each call
+     * @param passengers the passengers calling the elevators, in the order of their calls
+     * @param parkingEngine the ParkingEngine parking idle elevators, or null to leave them at their last floor
+     * @return the wait times of the passengers and the dispatch time of their calls
+     * @throws IllegalStateException if a call is not assigned an elevator, or the passengers are not all delivered within a day
+     */
+    public ReplayResult replay(Scheduler scheduler, List<Passenger> passengers, ParkingEngine parkingEngine) {
+        ArrivalTimeEstimator estimator = new ArrivalTimeEstimator(structure.getElevatorTime(), structure.getDoorsTime());
+        List<SimulatedElevator> elevators = new ArrayList<>();
+        for (int i = 1; i <= structure.getNumberOfElevators(); i++) {
+            SimulatedElevator elevator = new SimulatedElevator(i, estimator);
+            if (elevator.floor != 1) {
+                // the elevators of an upper Zone wait at its lobby
+                elevator.report(scheduler, MovementState.IDLE, Doors.State.CLOSED);
+            }
+            elevators.add(elevator);
+        }
+
+        Map<PlannedStop, Long> callTimes = new IdentityHashMap<>();
+        Map<PlannedStop, Long> boardingTimes = new IdentityHashMap<>();
+        // the leg whose passenger leaves at each stop
+        Map<PlannedStop, Leg> legEnds = new IdentityHashMap<>();
+        List<PlannedStop> servedStops = new ArrayList<>();
+        List<Leg> batch = new ArrayList<>();
+        double totalBatchLatency = 0;
+        double totalJourneyTime = 0;
+        long totalDispatchTime = 0; // nanoseconds
+        int dispatchedLegs = 0;
+        int deliveredPassengers = 0;
+        long lastArrivalTime = 0;
+        int nextPassenger = 0;
+        long time = 0;
+        while (deliveredPassengers < passengers.size()) {
+            while (nextPassenger < passengers.size() && passengers.get(nextPassenger).callTime() <= time) {
+                Passenger passenger = passengers.get(nextPassenger++);
+                batch.add(new Leg(passenger, planLeg(scheduler, passenger, passenger.request().getFloorNumber()), passenger.callTime()));
+                if (parkingEngine != null) {
+                    parkingEngine.recordRequest(passenger.request().getFloorNumber(), time);
+                }
+                scheduler.observeRequest(passenger.request());
+            }
+            // the TrafficClassifier may have switched the DispatchMode
+            boolean batched = scheduler.getDispatchMode() == DispatchMode.BATCHED;
+            if (!batch.isEmpty() && (!batched || time >= batch.get(0).callTime() + scheduler.getBatchWindow())) {
+                List<ElevatorRequest> requests = new ArrayList<>();
+                for (Leg leg : batch) {
+                    requests.add(leg.request());
+                }
+                int[] chosenElevators;
+                long dispatchStart = getProcessorTime();
+                if (batched) {
+                    chosenElevators = scheduler.chooseElevators(requests);
+                    totalDispatchTime += getProcessorTime() - dispatchStart;
+                } else {
+                    // greedy strategies assign each call as it arrives
+                    chosenElevators = new int[requests.size()];
+                    for (int i = 0; i < requests.size(); i++) {
+                        long start = getProcessorTime();
+                        chosenElevators[i] = scheduler.chooseElevator(requests.get(i));
+                        totalDispatchTime += getProcessorTime() - start;
+                        if (chosenElevators[i] == 0) {
+                            throw new IllegalStateException("No elevator was chosen for " + requests.get(i));
+                        }
+                        scheduler.getPlannedStops(chosenElevators[i]).addRequest(requests.get(i));
+                    }
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    int chosenElevator = chosenElevators[i];
+                    if (chosenElevator == 0) {
+                        throw new IllegalStateException("No elevator was chosen for " + requests.get(i));
+                    }
+                    if (batched) {
+                        scheduler.getPlannedStops(chosenElevator).addRequest(requests.get(i));
+                    }
+                    Leg leg = batch.get(i);
+                    List<PlannedStop> stops = PlannedStops.stopsOf(requests.get(i));
+                    if (leg.isFirstLeg()) {
+                        callTimes.put(stops.get(0), leg.callTime());
+                        totalBatchLatency += time - leg.callTime();
+                    }
+                    legEnds.put(stops.get(stops.size() - 1), leg);
+                    elevators.get(chosenElevator - 1).stops.addAll(stops);
+                }
+                dispatchedLegs += batch.size();
+                batch.clear();
+            }
+            for (SimulatedElevator elevator : elevators) {
+                elevator.step(time, scheduler, boardingTimes, servedStops);
+            }
+            for (PlannedStop stop : servedStops) {
+                Leg leg = legEnds.remove(stop);
+                if (leg == null) {
+                    continue;
+                }
+                Passenger passenger = leg.passenger();
+                int desiredFloor = passenger.request().getDesiredFloor();
+                if (desiredFloor < 0 || stop.getFloorNumber() == desiredFloor) {
+                    deliveredPassengers++;
+                    totalJourneyTime += time - passenger.callTime();
+                    lastArrivalTime = time;
+                } else {
+                    // the passenger calls an elevator of the next Zone at the transfer floor
+                    batch.add(new Leg(passenger, planLeg(scheduler, passenger, stop.getFloorNumber()), time));
+                }
+            }
+            servedStops.clear();
+            if (parkingEngine != null && scheduler.parksIdleElevators()) {
+                park(parkingEngine, scheduler, elevators, time);
+            }
+            time += timeStep;
+            if (time >= MAXIMUM_TIME) {
+                throw new IllegalStateException("Passengers were not all delivered within a day");
+            }
+        }
+
+        double totalWaitTime = 0;
+        long[] waitTimes = new long[callTimes.size()];
+        int i = 0;
+        for (Map.Entry<PlannedStop, Long> call : callTimes.entrySet()) {
+            waitTimes[i] = boardingTimes.get(call.getKey()) - call.getValue();
+            totalWaitTime += waitTimes[i++];
+        }
+        Arrays.sort(waitTimes);
+        long totalRoundTripTime = 0;
+        int roundTrips = 0;
+        for (SimulatedElevator elevator : elevators) {
+            totalRoundTripTime += elevator.totalRoundTripTime;
+            roundTrips += elevator.roundTrips;
+        }
+        return new ReplayResult(totalWaitTime / waitTimes.length, waitTimes[(int) Math.ceil(waitTimes.length * 0.95) - 1],
+                totalBatchLatency / passengers.size(), totalDispatchTime / 1e3 / dispatchedLegs,
+                totalJourneyTime / passengers.size(), roundTrips == 0 ? 0 : (double) totalRoundTripTime / roundTrips,
+                deliveredPassengers * 300000.0 / (lastArrivalTime - passengers.get(0).callTime()));
+    }
+
+    /**
+     * Returns the ElevatorRequest of a passenger's leg from a floor: to their desired floor,
+     * or to the floor where they transfer to the next Zone.
+     *
+     * @param scheduler the Scheduler knowing the Zones of the building
+     * @param passenger the passenger making the trip
+     * @param floorNumber the floor where the leg starts
+     * @return the ElevatorRequest of the leg
+     */
+    private ElevatorRequest planLeg(Scheduler scheduler, Passenger passenger, int floorNumber) {
+        ElevatorRequest request = passenger.request();
+        if (floorNumber != request.getFloorNumber()) {
+            request = createRequest(request, floorNumber, request.getDesiredFloor());
+        }
+        int transferFloor = scheduler.getTransferFloor(request);
+        return transferFloor == request.getDesiredFloor() ? request : createRequest(request, floorNumber, transferFloor);
+    }
+
+    /**
+     * Creates an ElevatorRequest between two floors, made at the time of another request.
+     *
+     * @param request the ElevatorRequest of the passenger's trip
+     * @param floorNumber the floor where the passenger calls the elevator
+     * @param desiredFloor the floor the passenger goes to
+     * @return the ElevatorRequest
+     */
+    private static ElevatorRequest createRequest(ElevatorRequest request, int floorNumber, int desiredFloor) {
+        Direction direction = desiredFloor > floorNumber ? Direction.UP : Direction.DOWN;
+        return new ElevatorRequest(request.getTime(), floorNumber, direction, desiredFloor, request.getOrigin());
+    }
+
+    /**
+     * Returns the processor time used by the current thread, or the elapsed time
+     * if the Java virtual machine does not measure the processor time of threads.
+     *
+     * @return the time in nanoseconds
+     */
+    private long getProcessorTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Sends the idle elevators to the floors chosen by a ParkingEngine, each among the floors its Zone serves.
+     *
+     * @param parkingEngine the ParkingEngine choosing the floors
+     * @param scheduler the Scheduler planning the elevators' stops
+     * @param elevators the simulated elevators
+     * @param time the current time in milliseconds
+     */
+    private void park(ParkingEngine parkingEngine, Scheduler scheduler, List<SimulatedElevator> elevators, long time) {
+        Map<Integer, Integer> idleElevatorFloors = new LinkedHashMap<>();
+        for (SimulatedElevator elevator : elevators) {
+            if (elevator.stops.isEmpty() && time >= elevator.busyUntil) {
+                idleElevatorFloors.put(elevator.elevatorNumber, elevator.floor);
+            }
+        }
+        if (idleElevatorFloors.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Integer, Integer> parkingFloor : parkingEngine.chooseParkingFloors(idleElevatorFloors, structure::getZone, time).entrySet()) {
+            int elevatorNumber = parkingFloor.getKey();
+            elevators.get(elevatorNumber - 1).stops.add(new PlannedStop(parkingFloor.getValue(), Direction.NONE, null));
+            scheduler.getPlannedStops(elevatorNumber).addParkingStop(parkingFloor.getValue());
+        }
+    }
+
+    /**
+     * Replays the ElevatorRequests of an input file through every registered DispatchStrategy
+     * and prints the wait times and dispatch time of each. The arguments are the name of the
+     * input file and the interval between its calls in milliseconds, or nothing for the default
+     * input file with a call every 3 seconds.
+     *
+     * @param args the name of the input file and the interval between calls
+     */
+    public static void main(String[] args) {
+        String inputFilename = args.length > 0 ? args[0] : InputFileReader.INPUTS_FILENAME;
+        long callInterval = args.length > 1 ? Long.parseLong(args[1]) : 3000;
+        List<Passenger> passengers = new ArrayList<>();
+        for (SystemEvent event : new InputFileReader().readInputFile(inputFilename)) {
+            if (event instanceof ElevatorRequest elevatorRequest) {
+                passengers.add(new Passenger(passengers.size() * callInterval, elevatorRequest));
+            }
+        }
+
+        DispatchReplay dispatchReplay = new DispatchReplay(new Structure(20, 4, 1000, 1000));
+        for (DispatchStrategy dispatchStrategy : ServiceLoader.load(DispatchStrategy.class)) {
+            ReplayResult result = dispatchReplay.replay(dispatchStrategy, passengers);
+            System.out.printf("%-15s average wait %6.2f s, 95th percentile %6.2f s, dispatch %8.2f us per call%n",
+                    dispatchStrategy.getName(), result.averageWaitTime() / 1000, result.percentile95WaitTime() / 1000,
+                    result.averageDispatchTime());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * DispatchStage scores inserting an ElevatorRequest into the planned stops of each candidate
+ * elevator in parallel on a ForkJoinPool, and reduces the scores to the elevator with the
+ * lowest cost.
+ *
+ * The candidates are split in halves until a part has at most the threshold number of
+ * elevators, which is scored sequentially. The candidates' stops are only read: the request
+ * is inserted into a lightweight copy of each candidate's stops, so that the parts share no
+ * mutable state. Ties are broken in favour of the earlier candidate, so the chosen elevator
+ * is the same as when the candidates are scored in order.
+ */
+public class DispatchStage {
+
+    public static final int DEFAULT_THRESHOLD = 4;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Score is the lowest cost found among some candidates.
+     *
+     * @param index the index of the candidate with the lowest cost, or -1 if there is none
+     * @param cost the cost of the candidate in milliseconds
+     */
+    private record Score(int index, double cost) {
+    }
+
+    /**
+     * ScoreTask scores the candidates in a range, splitting the range while it is larger than the threshold.
+     */
+    private class ScoreTask extends RecursiveTask<Score> {
+
+        private final ArrivalTimeEstimator arrivalTimeEstimator;
+        private final List<ElevatorEstimate> elevators;
+        private final List<List<PlannedStop>> stops;
+        private final ElevatorRequest elevatorRequest;
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructor for ScoreTask.
+         *
+         * @param arrivalTimeEstimator estimates the cost of each candidate
+         * @param elevators the candidates
+         * @param stops the planned stops of each candidate
+         * @param elevatorRequest the request to insert
+         * @param start the index of the first candidate of the range
+         * @param end the index after the last candidate of the range
+         */
+        ScoreTask(ArrivalTimeEstimator arrivalTimeEstimator, List<ElevatorEstimate> elevators, List<List<PlannedStop>> stops,
+                  ElevatorRequest elevatorRequest, int start, int end) {
+            this.arrivalTimeEstimator = arrivalTimeEstimator;
+            this.elevators = elevators;
+            this.stops = stops;
+            this.elevatorRequest = elevatorRequest;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Scores the range, in parallel if it is larger than the threshold.
+         *
+         * @return the lowest cost in the range
+         */
+        @Override
+        protected Score compute() {
+            if (end - start <= threshold) {
+                return scoreSequentially(arrivalTimeEstimator, elevators, stops, elevatorRequest, start, end);
+            }
+            int middle = (start + end) >>> 1;
+            ScoreTask left = new ScoreTask(arrivalTimeEstimator, elevators, stops, elevatorRequest, start, middle);
+            ScoreTask right = new ScoreTask(arrivalTimeEstimator, elevators, stops, elevatorRequest, middle, end);
+            left.fork();
+            Score rightScore = right.compute();
+            Score leftScore = left.join();
+            return rightScore.index() != -1 && (leftScore.index() == -1 || rightScore.cost() < leftScore.cost()) ? rightScore : leftScore;
+        }
+    }
+
+    /**
+     * Constructor for DispatchStage.
+     *
+     * @param pool the pool scoring the candidates
+     * @param threshold the largest number of candidates scored by a single task
+     */
+    public DispatchStage(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Error: Invalid threshold " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Constructor for DispatchStage with the default threshold.
+     *
+     * @param pool the pool scoring the candidates
+     */
+    public DispatchStage(ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Returns the candidate with the lowest estimated cost of inserting the ElevatorRequest into its planned stops.
+     *
+     * @param arrivalTimeEstimator estimates the cost of each candidate
+     * @param elevators the candidates
+     * @param stops the planned stops of each candidate
+     * @param elevatorRequest the request to insert
+     * @return the index of the chosen candidate, or -1 if no candidate has a cost
+     */
+    int findLowestCost(ArrivalTimeEstimator arrivalTimeEstimator, List<ElevatorEstimate> elevators,
+                       List<List<PlannedStop>> stops, ElevatorRequest elevatorRequest) {
+        if (elevators.size() <= threshold) {
+            return scoreSequentially(arrivalTimeEstimator, elevators, stops, elevatorRequest, 0, elevators.size()).index();
+        }
+        return pool.invoke(new ScoreTask(arrivalTimeEstimator, elevators, stops, elevatorRequest, 0, elevators.size())).index();
+    }
+
+    /**
+     * Scores candidates in order.
+     *
+     * @param arrivalTimeEstimator estimates the cost of each candidate
+     * @param elevators the candidates
+     * @param stops the planned stops of each candidate
+     * @param elevatorRequest the request to insert
+     * @param start the index of the first candidate
+     * @param end the index after the last candidate
+     * @return the lowest cost among the candidates
+     */
+    private Score scoreSequentially(ArrivalTimeEstimator arrivalTimeEstimator, List<ElevatorEstimate> elevators,
+                                    List<List<PlannedStop>> stops, ElevatorRequest elevatorRequest, int start, int end) {
+        int chosenIndex = -1;
+        double lowestCost = Double.MAX_VALUE;
+        for (int i = start; i < end; i++) {
+            ElevatorEstimate elevator = elevators.get(i);
+            double cost = arrivalTimeEstimator.estimateCost(elevator.floor(), elevator.direction(), stops.get(i), elevatorRequest);
+            if (cost < lowestCost) {
+                lowestCost = cost;
+                chosenIndex = i;
+            }
+        }
+        return new Score(chosenIndex, lowestCost);
+    }
+}
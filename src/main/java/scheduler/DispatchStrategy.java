@@ -0,0 +1,50 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+
+import java.util.ServiceLoader;
+
+/**
+ * DispatchStrategy chooses the elevator that serves an ElevatorRequest from a read-only view of
+ * the elevators. Strategies are found with a ServiceLoader, so other implementations can be
+ * registered in META-INF/services/scheduler.DispatchStrategy and selected by name at startup.
+ */
+public interface DispatchStrategy {
+
+    /**
+     * Returns the name by which the strategy is selected.
+     *
+     * @return the name of the strategy
+     */
+    String getName();
+
+    /**
+     * Returns the number of the elevator that is best suited to serve the ElevatorRequest.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @return a number corresponding to an elevator, or 0 if no elevator can serve the request
+     */
+    int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators);
+
+    /**
+     * Returns the registered DispatchStrategy with the specified name. If none is registered with
+     * that name, it is taken as the name of a class with a constructor without parameters.
+     *
+     * @param name the name of a strategy, or the fully qualified name of its class
+     * @return a new instance of the strategy
+     * @throws IllegalArgumentException if there is no such strategy
+     */
+    static DispatchStrategy forName(String name) {
+        for (DispatchStrategy strategy : ServiceLoader.load(DispatchStrategy.class)) {
+            if (strategy.getName().equalsIgnoreCase(name)) {
+                return strategy;
+            }
+        }
+        try {
+            return Class.forName(name).asSubclass(DispatchStrategy.class).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("No DispatchStrategy named " + name, e);
+        }
+    }
+}
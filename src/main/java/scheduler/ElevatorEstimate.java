@@ -0,0 +1,16 @@
+package scheduler;
+
+import systemwide.Direction;
+
+import java.util.List;
+
+/**
+ * ElevatorEstimate is the status of an elevator used to estimate the cost of assigning it requests.
+ *
+ * @param elevatorNumber the number of the elevator
+ * @param floor the current floor of the elevator
+ * @param direction the direction the elevator is expected to continue in
+ * @param stops a copy of the elevator's planned stops
+ */
+record ElevatorEstimate(int elevatorNumber, int floor, Direction direction, List<PlannedStop> stops) {
+}
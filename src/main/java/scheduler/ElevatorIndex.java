@@ -0,0 +1,201 @@
+package scheduler;
+
+import systemwide.Direction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ElevatorIndex keeps the elevators that can be assigned requests ordered by their
+ * service direction and current floor, so that the elevators nearest to a request can be
+ * found without visiting every elevator.
+ *
+ * Idle elevators are indexed under Direction.NONE. Stuck elevators are not indexed.
+ * An elevator can absorb a request on its path if it is idle, or if it serves the request's
+ * direction and has not yet passed the request's floor.
+ *
+ * Updating an elevator and finding the k nearest elevators take O(log n + k) time
+ * for n elevators.
+ */
+public class ElevatorIndex {
+
+    /**
+     * Entry is the position of an elevator in the index.
+     *
+     * @param direction the direction the elevator serves, Direction.NONE if it is idle
+     * @param floor the current floor of the elevator
+     */
+    private record Entry(Direction direction, int floor) {
+    }
+
+    private final Map<Direction, TreeMap<Integer, Set<Integer>>> elevatorsByFloor;
+    private final Map<Integer, Entry> entries;
+
+    /**
+     * Constructor for ElevatorIndex.
+     */
+    public ElevatorIndex() {
+        elevatorsByFloor = new HashMap<>();
+        for (Direction direction : Direction.values()) {
+            elevatorsByFloor.put(direction, new TreeMap<>());
+        }
+        entries = new HashMap<>();
+    }
+
+    /**
+     * Updates the position of an elevator in the index.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param floor the current floor of the elevator
+     * @param direction the direction the elevator serves
+     * @param idle whether the elevator has no requests
+     * @param stuck whether the elevator is stuck and cannot be assigned requests
+     */
+    public synchronized void update(int elevatorNumber, int floor, Direction direction, boolean idle, boolean stuck) {
+        if (stuck) {
+            remove(elevatorNumber);
+            return;
+        }
+        if (idle || direction == null) {
+            direction = Direction.NONE;
+        }
+        Entry entry = new Entry(direction, floor);
+        Entry previousEntry = entries.put(elevatorNumber, entry);
+        if (entry.equals(previousEntry)) {
+            return;
+        }
+        if (previousEntry != null) {
+            removeFromFloor(previousEntry, elevatorNumber);
+        }
+        elevatorsByFloor.get(direction).computeIfAbsent(floor, f -> new TreeSet<>()).add(elevatorNumber);
+    }
+
+    /**
+     * Removes an elevator from the index.
+     *
+     * @param elevatorNumber the number of the elevator
+     */
+    public synchronized void remove(int elevatorNumber) {
+        Entry entry = entries.remove(elevatorNumber);
+        if (entry != null) {
+            removeFromFloor(entry, elevatorNumber);
+        }
+    }
+
+    /**
+     * Removes an elevator from the set of elevators at its floor.
+     *
+     * @param entry the position of the elevator
+     * @param elevatorNumber the number of the elevator
+     */
+    private void removeFromFloor(Entry entry, int elevatorNumber) {
+        TreeMap<Integer, Set<Integer>> floors = elevatorsByFloor.get(entry.direction());
+        Set<Integer> elevators = floors.get(entry.floor());
+        elevators.remove(elevatorNumber);
+        if (elevators.isEmpty()) {
+            floors.remove(entry.floor());
+        }
+    }
+
+    /**
+     * Returns the number of elevators in the index.
+     *
+     * @return the number of elevators that can be assigned requests
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the elevators nearest to a request that can absorb it on their path: idle elevators,
+     * and elevators serving the request's direction that have not passed the request's floor.
+     *
+     * @param floor the floor of the request
+     * @param direction the direction of the request
+     * @param limit the maximum number of elevators to return
+     * @return the numbers of the elevators, nearest first
+     */
+    public synchronized List<Integer> findElevatorsOnPath(int floor, Direction direction, int limit) {
+        List<Iterator<Map.Entry<Integer, Set<Integer>>>> candidates = new ArrayList<>();
+        if (direction == Direction.UP) {
+            candidates.add(elevatorsByFloor.get(Direction.UP).headMap(floor, false).descendingMap().entrySet().iterator());
+        } else if (direction == Direction.DOWN) {
+            candidates.add(elevatorsByFloor.get(Direction.DOWN).tailMap(floor, false).entrySet().iterator());
+        }
+        addNearestFloors(candidates, elevatorsByFloor.get(Direction.NONE), floor);
+        return mergeNearest(candidates, floor, limit);
+    }
+
+    /**
+     * Returns the elevators nearest to a floor, whatever direction they serve.
+     *
+     * @param floor a floor
+     * @param limit the maximum number of elevators to return
+     * @return the numbers of the elevators, nearest first
+     */
+    public synchronized List<Integer> findNearestElevators(int floor, int limit) {
+        List<Iterator<Map.Entry<Integer, Set<Integer>>>> candidates = new ArrayList<>();
+        for (TreeMap<Integer, Set<Integer>> floors : elevatorsByFloor.values()) {
+            addNearestFloors(candidates, floors, floor);
+        }
+        return mergeNearest(candidates, floor, limit);
+    }
+
+    /**
+     * Adds iterators over the floors of a map moving away from a floor, downwards and upwards.
+     *
+     * @param candidates the iterators to add to
+     * @param floors elevators by floor
+     * @param floor the floor to move away from
+     */
+    private void addNearestFloors(List<Iterator<Map.Entry<Integer, Set<Integer>>>> candidates, NavigableMap<Integer, Set<Integer>> floors, int floor) {
+        candidates.add(floors.headMap(floor, true).descendingMap().entrySet().iterator());
+        candidates.add(floors.tailMap(floor, false).entrySet().iterator());
+    }
+
+    /**
+     * Merges iterators over floors, each moving away from a floor, into the elevators nearest the floor.
+     *
+     * @param candidates iterators over elevators by floor, each ordered by distance from the floor
+     * @param floor the floor
+     * @param limit the maximum number of elevators to return
+     * @return the numbers of the elevators, nearest first
+     */
+    private List<Integer> mergeNearest(List<Iterator<Map.Entry<Integer, Set<Integer>>>> candidates, int floor, int limit) {
+        List<Map.Entry<Integer, Set<Integer>>> heads = new ArrayList<>(candidates.size());
+        for (Iterator<Map.Entry<Integer, Set<Integer>>> iterator : candidates) {
+            heads.add(iterator.hasNext() ? iterator.next() : null);
+        }
+
+        List<Integer> elevators = new ArrayList<>(Math.min(limit, entries.size()));
+        while (elevators.size() < limit) {
+            int nearest = -1;
+            for (int i = 0; i < heads.size(); i++) {
+                Map.Entry<Integer, Set<Integer>> head = heads.get(i);
+                if (head != null && (nearest == -1
+                        || Math.abs(head.getKey() - floor) < Math.abs(heads.get(nearest).getKey() - floor))) {
+                    nearest = i;
+                }
+            }
+            if (nearest == -1) {
+                break;
+            }
+            for (int elevatorNumber : heads.get(nearest).getValue()) {
+                if (elevators.size() == limit) {
+                    break;
+                }
+                elevators.add(elevatorNumber);
+            }
+            Iterator<Map.Entry<Integer, Set<Integer>>> iterator = candidates.get(nearest);
+            heads.set(nearest, iterator.hasNext() ? iterator.next() : null);
+        }
+        return elevators;
+    }
+}
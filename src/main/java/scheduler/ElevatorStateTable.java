@@ -0,0 +1,93 @@
+package scheduler;
+
+import systemwide.Direction;
+import systemwide.Zone;
+
+import java.util.List;
+
+/**
+ * ElevatorStateTable is a read-only view of the elevators known to the Scheduler, given to a
+ * DispatchStrategy with each ElevatorRequest. Every method returns a snapshot or a copy, so a
+ * strategy cannot change the state of the Scheduler.
+ */
+public interface ElevatorStateTable {
+
+    /**
+     * Returns the status of every elevator, in the order the elevators were added.
+     *
+     * @return a snapshot of the status of each elevator
+     */
+    List<ElevatorStatus> getElevators();
+
+    /**
+     * Returns the status of an elevator.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @return a snapshot of the status of the elevator, or null if there is no such elevator
+     */
+    default ElevatorStatus getElevator(int elevatorNumber) {
+        for (ElevatorStatus status : getElevators()) {
+            if (status.elevatorNumber() == elevatorNumber) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the stops of the requests assigned to an elevator, in the order they were assigned.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @return an unmodifiable copy of the elevator's planned stops
+     */
+    List<PlannedStop> getPlannedStops(int elevatorNumber);
+
+    /**
+     * Returns the estimator of the time elevators take to serve their stops.
+     *
+     * @return the Scheduler's ArrivalTimeEstimator
+     */
+    ArrivalTimeEstimator getArrivalTimeEstimator();
+
+    /**
+     * Returns the number of floors of the building.
+     *
+     * @return the number of floors, or 0 before the Scheduler receives the Structure
+     */
+    int getNumberOfFloors();
+
+    /**
+     * Returns the Zones of the building, each served by a group of elevators.
+     *
+     * @return an unmodifiable list of the Zones, empty if every elevator serves every floor
+     */
+    List<Zone> getZones();
+
+    /**
+     * Returns the Zone of an elevator.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @return the Zone of the elevator, or null if the elevator serves every floor
+     */
+    Zone getZone(int elevatorNumber);
+
+    /**
+     * Returns the nearest elevators that can absorb a request on their path: idle elevators and
+     * elevators serving the request's direction that have not yet passed its floor.
+     *
+     * @param floorNumber the floor of the request
+     * @param direction the direction of the request
+     * @param limit the maximum number of elevators returned
+     * @return the numbers of the elevators, nearest first
+     */
+    List<Integer> findElevatorsOnPath(int floorNumber, Direction direction, int limit);
+
+    /**
+     * Returns the nearest elevators that are not stuck, whatever direction they serve.
+     *
+     * @param floorNumber the floor of the request
+     * @param limit the maximum number of elevators returned
+     * @return the numbers of the elevators, nearest first
+     */
+    List<Integer> findNearestElevators(int floorNumber, int limit);
+}
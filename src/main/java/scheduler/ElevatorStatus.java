@@ -0,0 +1,42 @@
+package scheduler;
+
+import elevatorsystem.MovementState;
+import requests.ElevatorMonitor;
+import systemwide.Direction;
+
+/**
+ * ElevatorStatus is a snapshot of the ElevatorMonitor of an elevator, read by a DispatchStrategy.
+ *
+ * @param elevatorNumber the number of the elevator
+ * @param currentFloor the current floor of the elevator
+ * @param direction the direction the elevator is serving
+ * @param movementDirection the direction the elevator's motor is moving
+ * @param state the MovementState of the elevator's motor
+ * @param hasNoRequests whether the elevator has no requests to serve
+ * @param queueTime the estimated time for the elevator to fulfill all of its requests, in seconds
+ */
+public record ElevatorStatus(int elevatorNumber, int currentFloor, Direction direction, Direction movementDirection,
+                             MovementState state, boolean hasNoRequests, double queueTime) {
+
+    /**
+     * Reads a consistent status from an ElevatorMonitor, while the receiving thread may be updating it.
+     *
+     * @param monitor the ElevatorMonitor of an elevator
+     * @return the status of the elevator
+     */
+    public static ElevatorStatus of(ElevatorMonitor monitor) {
+        synchronized (monitor) {
+            return new ElevatorStatus(monitor.getElevatorNumber(), monitor.getCurrentFloor(), monitor.getDirection(),
+                    monitor.getMovementDirection(), monitor.getState(), monitor.hasNoRequests(), monitor.getQueueTime());
+        }
+    }
+
+    /**
+     * Determines whether the elevator is stuck and cannot be assigned requests.
+     *
+     * @return true if the elevator is stuck, false otherwise
+     */
+    public boolean isStuck() {
+        return state == MovementState.STUCK;
+    }
+}
@@ -0,0 +1,215 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+import systemwide.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/**
+ * EstimatedTimeStrategy chooses the elevator with the lowest estimated cost of serving a request:
+ * the time until it arrives at the request's floor, given its planned stops, plus the delay the
+ * request adds to its passengers. With a DispatchStage, the elevators are scored in parallel.
+ *
+ * Elevators far from a request are rarely the cheapest, so only the candidates nearest to it
+ * are scored: the nearest elevators that can absorb it on their path and the nearest elevators,
+ * up to the candidate limit of each, found in the Scheduler's ElevatorIndex. A fleet no larger
+ * than the limit is scored whole, as is every fleet without a limit.
+ */
+public class EstimatedTimeStrategy implements DispatchStrategy {
+
+    public static final int DEFAULT_CANDIDATE_LIMIT = 16;
+
+    private DispatchStage dispatchStage;
+    private volatile int candidateLimit = DEFAULT_CANDIDATE_LIMIT;
+
+    /**
+     * Returns the name by which the strategy is selected.
+     *
+     * @return the name of the strategy
+     */
+    @Override
+    public String getName() {
+        return "estimated-time";
+    }
+
+    /**
+     * Sets the DispatchStage that scores elevators in parallel.
+     *
+     * @param dispatchStage the DispatchStage, or null to score elevators in order on the calling thread
+     */
+    public void setDispatchStage(DispatchStage dispatchStage) {
+        this.dispatchStage = dispatchStage;
+    }
+
+    /**
+     * Sets the number of the nearest elevators, and of the nearest elevators on the request's path,
+     * that are scored for each request.
+     *
+     * @param candidateLimit the number of elevators found in the ElevatorIndex, or 0 to score every elevator
+     */
+    public void setCandidateLimit(int candidateLimit) {
+        if (candidateLimit < 0) {
+            throw new IllegalArgumentException("Error: Invalid candidate limit " + candidateLimit);
+        }
+        this.candidateLimit = candidateLimit;
+    }
+
+    /**
+     * Returns the elevator with the lowest estimated cost of serving the ElevatorRequest.
+     * Stuck elevators are not chosen.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @return a number corresponding to an elevator, or 0 if every elevator is stuck
+     */
+    @Override
+    public int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators) {
+        return chooseElevator(elevatorRequest, elevators, elevatorNumber -> true);
+    }
+
+    /**
+     * Returns the elevator with the lowest estimated cost of serving the ElevatorRequest among
+     * the candidates nearest to the request's floor, or among every candidate if there is no
+     * candidate limit. Stuck elevators are not chosen.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @param candidates tests whether an elevator, by number, may be chosen
+     * @return a number corresponding to an elevator, or 0 if every candidate is stuck
+     */
+    int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators, IntPredicate candidates) {
+        List<ElevatorStatus> statuses = candidateLimit > 0
+                ? findNearestCandidates(elevatorRequest, elevators, candidates)
+                : new ArrayList<>(elevators.getElevators());
+        statuses.removeIf(status -> !candidates.test(status.elevatorNumber()));
+        return chooseElevator(elevatorRequest, statuses, elevators);
+    }
+
+    /**
+     * Finds the candidates nearest to the request's floor in the ElevatorIndex: up to the candidate
+     * limit of the nearest elevators that can absorb the request on their path, and of the nearest
+     * elevators. The search widens until it finds a candidate or runs out of elevators.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @param candidates tests whether an elevator, by number, may be chosen
+     * @return the status of the candidates found, in order of elevator number
+     */
+    private List<ElevatorStatus> findNearestCandidates(ElevatorRequest elevatorRequest, ElevatorStateTable elevators,
+                                                       IntPredicate candidates) {
+        int floorNumber = elevatorRequest.getFloorNumber();
+        Set<Integer> elevatorNumbers = new TreeSet<>();
+        for (int limit = candidateLimit; ; limit *= 2) {
+            List<Integer> nearestElevators = elevators.findNearestElevators(floorNumber, limit);
+            for (int elevatorNumber : elevators.findElevatorsOnPath(floorNumber, elevatorRequest.getDirection(), limit)) {
+                addCandidate(elevatorNumbers, elevatorNumber, candidates);
+            }
+            for (int elevatorNumber : nearestElevators) {
+                addCandidate(elevatorNumbers, elevatorNumber, candidates);
+            }
+            if (!elevatorNumbers.isEmpty() || nearestElevators.size() < limit) {
+                break;
+            }
+        }
+        // in order of elevator number, so that ties are broken as when every elevator is scored
+        List<ElevatorStatus> statuses = new ArrayList<>(elevatorNumbers.size());
+        for (int elevatorNumber : elevatorNumbers) {
+            ElevatorStatus status = elevators.getElevator(elevatorNumber);
+            if (status != null) {
+                statuses.add(status);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Adds an elevator to the candidates found if it may be chosen.
+     *
+     * @param elevatorNumbers the numbers of the candidates found
+     * @param elevatorNumber the number of an elevator
+     * @param candidates tests whether an elevator, by number, may be chosen
+     */
+    private void addCandidate(Set<Integer> elevatorNumbers, int elevatorNumber, IntPredicate candidates) {
+        if (candidates.test(elevatorNumber)) {
+            elevatorNumbers.add(elevatorNumber);
+        }
+    }
+
+    /**
+     * Returns the elevator with the lowest estimated cost of serving the ElevatorRequest among
+     * the specified elevators. Stuck elevators are not chosen.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param candidates the status of the elevators that may be chosen
+     * @param elevators a read-only view of the elevators
+     * @return a number corresponding to an elevator, or 0 if every candidate is stuck
+     */
+    int chooseElevator(ElevatorRequest elevatorRequest, List<ElevatorStatus> candidates, ElevatorStateTable elevators) {
+        List<ElevatorEstimate> estimates = readAvailableElevators(candidates, elevators);
+        List<List<PlannedStop>> stops = new ArrayList<>(estimates.size());
+        for (ElevatorEstimate estimate : estimates) {
+            stops.add(estimate.stops());
+        }
+        int chosenIndex = findLowestCost(elevators.getArrivalTimeEstimator(), estimates, stops, elevatorRequest);
+        return chosenIndex == -1 ? 0 : estimates.get(chosenIndex).elevatorNumber();
+    }
+
+    /**
+     * Reads the status and planned stops of every elevator that is not stuck. An elevator is
+     * assumed to continue in the direction it is moving in, or else the direction it is serving.
+     *
+     * @param candidates the status of the elevators
+     * @param elevators a read-only view of the elevators
+     * @return the ElevatorEstimates of the elevators that can be assigned requests
+     */
+    static List<ElevatorEstimate> readAvailableElevators(List<ElevatorStatus> candidates, ElevatorStateTable elevators) {
+        List<ElevatorEstimate> estimates = new ArrayList<>(candidates.size());
+        for (ElevatorStatus status : candidates) {
+            if (status.isStuck()) {
+                continue;
+            }
+            Direction direction = status.movementDirection();
+            if (direction == null || direction == Direction.NONE) {
+                direction = status.direction();
+            }
+            if (direction == null) {
+                direction = Direction.NONE;
+            }
+            List<PlannedStop> stops = elevators.getPlannedStops(status.elevatorNumber());
+            estimates.add(new ElevatorEstimate(status.elevatorNumber(), status.currentFloor(), direction, stops));
+        }
+        return estimates;
+    }
+
+    /**
+     * Returns the elevator with the lowest estimated cost of adding an ElevatorRequest to its stops.
+     * With a DispatchStage, the elevators are scored in parallel.
+     *
+     * @param estimator the estimator of the elevators' arrival times
+     * @param elevators the elevators that can be assigned requests
+     * @param stops the stops of each elevator
+     * @param elevatorRequest an ElevatorRequest
+     * @return the index in elevators of the chosen elevator, or -1 if there is none
+     */
+    int findLowestCost(ArrivalTimeEstimator estimator, List<ElevatorEstimate> elevators, List<List<PlannedStop>> stops,
+                       ElevatorRequest elevatorRequest) {
+        if (dispatchStage != null) {
+            return dispatchStage.findLowestCost(estimator, elevators, stops, elevatorRequest);
+        }
+        int chosenIndex = -1;
+        double lowestCost = Double.MAX_VALUE;
+        for (int j = 0; j < elevators.size(); j++) {
+            ElevatorEstimate elevator = elevators.get(j);
+            double cost = estimator.estimateCost(elevator.floor(), elevator.direction(), stops.get(j), elevatorRequest);
+            if (cost < lowestCost) {
+                lowestCost = cost;
+                chosenIndex = j;
+            }
+        }
+        return chosenIndex;
+    }
+}
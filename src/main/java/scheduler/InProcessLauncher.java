@@ -0,0 +1,108 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import client_server_host.Port;
+import client_server_host.TransportFactory;
+import elevatorsystem.ElevatorSubsystem;
+import floorsystem.FloorSubsystem;
+import systemwide.Structure;
+
+import java.net.InetAddress;
+
+/**
+ * InProcessLauncher starts the Scheduler, ElevatorSubsystem and FloorSubsystem in one JVM.
+ * The systems exchange events by reference through InMemoryTransports, so a simulation
+ * pays for neither encoding nor kernel round trips.
+ */
+public class InProcessLauncher {
+
+    private final Structure structure;
+    private final Scheduler scheduler;
+    private final ElevatorSubsystem elevatorSubsystem;
+    private final FloorSubsystem floorSubsystem;
+
+    /**
+     * Constructor for InProcessLauncher.
+     *
+     * @param structure contains the information to initialize the systems
+     */
+    public InProcessLauncher(Structure structure) {
+        this(structure, new InMemoryTransportFactory());
+    }
+
+    /**
+     * Constructor for InProcessLauncher.
+     *
+     * @param structure contains the information to initialize the systems
+     * @param transportFactory the factory opening the Transports of every system
+     */
+    public InProcessLauncher(Structure structure, TransportFactory transportFactory) {
+        this.structure = structure;
+        scheduler = new Scheduler(transportFactory);
+        elevatorSubsystem = new ElevatorSubsystem(transportFactory);
+        floorSubsystem = new FloorSubsystem(transportFactory);
+        for (int i = 1; i <= structure.getNumberOfElevators(); i++) {
+            scheduler.addElevatorMonitor(i);
+        }
+    }
+
+    /**
+     * Initializes the subsystems with the Structure and starts the threads of every system.
+     */
+    public void start() {
+        InetAddress localHost = InetAddress.getLoopbackAddress();
+
+        scheduler.enableSystem(structure, localHost, Port.SERVER.getNumber());
+        elevatorSubsystem.initializeElevators(elevatorSubsystem.receiveStructure());
+        new Thread(elevatorSubsystem, elevatorSubsystem.getClass().getSimpleName()).start();
+        elevatorSubsystem.initializeElevatorThreads();
+
+        scheduler.enableSystem(structure, localHost, Port.CLIENT.getNumber());
+        floorSubsystem.initializeFloors(floorSubsystem.receiveStructure());
+        new Thread(floorSubsystem, floorSubsystem.getClass().getSimpleName()).start();
+
+        new Thread(scheduler, scheduler.getClass().getSimpleName()).start();
+    }
+
+    /**
+     * Indicates whether any of the systems is still running.
+     *
+     * @return true if a system is active, false once every system has terminated
+     */
+    public boolean isRunning() {
+        return scheduler.getSystemStatus().activated() ||
+                elevatorSubsystem.getSystemStatus().activated() ||
+                floorSubsystem.getSystemStatus().activated();
+    }
+
+    /**
+     * Gets the Scheduler started by the launcher.
+     *
+     * @return the Scheduler
+     */
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Gets the ElevatorSubsystem started by the launcher.
+     *
+     * @return the ElevatorSubsystem
+     */
+    public ElevatorSubsystem getElevatorSubsystem() {
+        return elevatorSubsystem;
+    }
+
+    /**
+     * Gets the FloorSubsystem started by the launcher.
+     *
+     * @return the FloorSubsystem
+     */
+    public FloorSubsystem getFloorSubsystem() {
+        return floorSubsystem;
+    }
+
+    public static void main(String[] args) {
+        new InProcessLauncher(new Structure(20, 4, 1000, 1000)).start();
+    }
+}
@@ -0,0 +1,74 @@
+package scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * KeyedSerialExecutor runs the tasks given the same key one at a time, in the order they
+ * were given, while tasks of different keys run concurrently on an underlying Executor.
+ * The tasks of a key are run by a single task of the underlying Executor until none are
+ * left, so tasks given before the Executor is shut down are all run.
+ */
+public class KeyedSerialExecutor {
+
+    private final Executor executor;
+    // the tasks waiting behind the running task of each key; a key is present while its tasks run
+    private final Map<Object, Queue<Runnable>> queues;
+
+    /**
+     * Constructor for KeyedSerialExecutor.
+     *
+     * @param executor the Executor running the tasks
+     */
+    public KeyedSerialExecutor(Executor executor) {
+        this.executor = executor;
+        queues = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Runs a task after the tasks given before it with the same key.
+     *
+     * @param key the key of the task, such as the sender of a message or an elevator number
+     * @param task the task to run
+     */
+    public void execute(Object key, Runnable task) {
+        boolean[] idle = new boolean[1];
+        queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                idle[0] = true;
+                queue = new ArrayDeque<>();
+            }
+            queue.add(task);
+            return queue;
+        });
+        if (idle[0]) {
+            executor.execute(() -> runTasks(key));
+        }
+    }
+
+    /**
+     * Runs the tasks of a key in order until none are left, then removes the key.
+     *
+     * @param key the key whose tasks are run
+     */
+    private void runTasks(Object key) {
+        while (true) {
+            Runnable[] next = new Runnable[1];
+            queues.computeIfPresent(key, (k, queue) -> {
+                next[0] = queue.poll();
+                return next[0] == null ? null : queue;
+            });
+            if (next[0] == null) {
+                return;
+            }
+            try {
+                next[0].run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package scheduler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * MessageExecutors creates the executors that the Scheduler can hand received messages to.
+ */
+public final class MessageExecutors {
+
+    /**
+     * Private constructor; MessageExecutors only provides static methods.
+     */
+    private MessageExecutors() {
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread when the JDK provides
+     * them (JDK 21 and later). On earlier JDKs, tasks run on a cached pool of daemon threads,
+     * which also grows with the number of messages in progress.
+     *
+     * @return an executor running each message on its own thread
+     */
+    public static ExecutorService newThreadPerMessageExecutor() {
+        try {
+            // looked up reflectively so that the project still builds and runs on JDK 17
+            Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "Scheduler Worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+
+import java.util.List;
+
+/**
+ * NearestCarStrategy chooses the nearest elevator that can absorb the request on its path,
+ * found in the Scheduler's ElevatorIndex without scanning every elevator.
+ */
+public class NearestCarStrategy implements DispatchStrategy {
+
+    /**
+     * Returns the name by which the strategy is selected.
+     *
+     * @return the name of the strategy
+     */
+    @Override
+    public String getName() {
+        return "nearest";
+    }
+
+    /**
+     * Returns the nearest elevator that can absorb the ElevatorRequest on its path: an idle
+     * elevator or one serving the request's direction that has not passed its floor.
+     * If there is none, the nearest elevator that is not stuck is chosen.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @return a number corresponding to an elevator, or 0 if every elevator is stuck
+     */
+    @Override
+    public int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators) {
+        int floorNumber = elevatorRequest.getFloorNumber();
+        List<Integer> elevatorNumbers = elevators.findElevatorsOnPath(floorNumber, elevatorRequest.getDirection(), 1);
+        if (elevatorNumbers.isEmpty()) {
+            elevatorNumbers = elevators.findNearestElevators(floorNumber, 1);
+        }
+        return elevatorNumbers.isEmpty() ? 0 : elevatorNumbers.get(0);
+    }
+}
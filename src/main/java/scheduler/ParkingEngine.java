@@ -0,0 +1,167 @@
+package scheduler;
+
+import systemwide.Zone;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * ParkingEngine chooses the floors that idle elevators wait at, so that they are close to the
+ * floors where requests are expected. It learns the rate of requests at each floor with a
+ * DemandHistogram.
+ *
+ * Idle elevators are shared among the floors whose rate is at least the minimum rate by the
+ * highest averages method: each elevator in turn goes to the floor with the highest rate per
+ * elevator already given to it, so a floor with most of the demand, like the lobby at up-peak,
+ * can have several elevators. The elevators are then matched to these floors by minimum-cost
+ * assignment, where the cost is the number of floors travelled. In a building with Zones, the
+ * idle elevators of each Zone share the floors the Zone serves.
+ */
+public class ParkingEngine {
+
+    public static final long DEFAULT_HALF_LIFE = 300000; // milliseconds
+    public static final double DEFAULT_MINIMUM_RATE = 0.5; // requests per minute
+
+    private final DemandHistogram demand;
+    private final double minimumRate;
+
+    /**
+     * Constructor for ParkingEngine.
+     *
+     * @param numberOfFloors the number of floors, numbered from 1
+     * @param halfLife the time for a request's weight to halve in milliseconds
+     * @param minimumRate the lowest rate of requests per minute for which elevators wait at a floor
+     */
+    public ParkingEngine(int numberOfFloors, long halfLife, double minimumRate) {
+        demand = new DemandHistogram(numberOfFloors, halfLife);
+        this.minimumRate = minimumRate;
+    }
+
+    /**
+     * Constructor for ParkingEngine with the default half-life and minimum rate.
+     *
+     * @param numberOfFloors the number of floors, numbered from 1
+     */
+    public ParkingEngine(int numberOfFloors) {
+        this(numberOfFloors, DEFAULT_HALF_LIFE, DEFAULT_MINIMUM_RATE);
+    }
+
+    /**
+     * Returns the histogram of requests per floor.
+     *
+     * @return the DemandHistogram of the engine
+     */
+    public DemandHistogram getDemand() {
+        return demand;
+    }
+
+    /**
+     * Records a request made at a floor.
+     *
+     * @param floorNumber the floor of the request
+     * @param time the time of the request in milliseconds
+     */
+    public void recordRequest(int floorNumber, long time) {
+        demand.recordRequest(floorNumber, time);
+    }
+
+    /**
+     * Chooses the floors that idle elevators should move to.
+     *
+     * @param idleElevatorFloors the current floor of each idle elevator, by elevator number
+     * @param time the current time in milliseconds
+     * @return the floor each elevator should move to, by elevator number; elevators that stay are omitted
+     */
+    public Map<Integer, Integer> chooseParkingFloors(Map<Integer, Integer> idleElevatorFloors, long time) {
+        return chooseParkingFloors(idleElevatorFloors, elevatorNumber -> null, time);
+    }
+
+    /**
+     * Chooses the floors that idle elevators should move to, each among the floors its Zone serves.
+     *
+     * @param idleElevatorFloors the current floor of each idle elevator, by elevator number
+     * @param zones the Zone of each elevator by elevator number, or null for an elevator serving every floor
+     * @param time the current time in milliseconds
+     * @return the floor each elevator should move to, by elevator number; elevators that stay are omitted
+     */
+    public Map<Integer, Integer> chooseParkingFloors(Map<Integer, Integer> idleElevatorFloors, IntFunction<Zone> zones, long time) {
+        Map<Zone, Map<Integer, Integer>> elevatorsByZone = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> elevator : idleElevatorFloors.entrySet()) {
+            elevatorsByZone.computeIfAbsent(zones.apply(elevator.getKey()), zone -> new LinkedHashMap<>())
+                    .put(elevator.getKey(), elevator.getValue());
+        }
+        double[] rates = demand.getRates(time);
+        Map<Integer, Integer> parkingFloors = new LinkedHashMap<>();
+        for (Map.Entry<Zone, Map<Integer, Integer>> zoneElevators : elevatorsByZone.entrySet()) {
+            parkingFloors.putAll(assignParkingFloors(zoneElevators.getValue(), rates, zoneElevators.getKey()));
+        }
+        return parkingFloors;
+    }
+
+    /**
+     * Chooses the floors that the idle elevators of one Zone should move to.
+     *
+     * @param idleElevatorFloors the current floor of each idle elevator of the Zone, by elevator number
+     * @param rates the rate of requests at each floor, indexed by floor number
+     * @param zone the Zone of the elevators, or null if they serve every floor
+     * @return the floor each elevator should move to, by elevator number; elevators that stay are omitted
+     */
+    private Map<Integer, Integer> assignParkingFloors(Map<Integer, Integer> idleElevatorFloors, double[] rates, Zone zone) {
+        Map<Integer, Integer> parkingFloors = new LinkedHashMap<>();
+        List<Integer> floors = allocateFloors(rates, idleElevatorFloors.size(), zone);
+        if (floors.isEmpty()) {
+            return parkingFloors;
+        }
+
+        List<Integer> elevatorNumbers = new ArrayList<>(idleElevatorFloors.keySet());
+        double[][] costs = new double[elevatorNumbers.size()][floors.size()];
+        for (int i = 0; i < elevatorNumbers.size(); i++) {
+            int elevatorFloor = idleElevatorFloors.get(elevatorNumbers.get(i));
+            for (int j = 0; j < floors.size(); j++) {
+                costs[i][j] = Math.abs(floors.get(j) - elevatorFloor);
+            }
+        }
+        int[] assignment = AssignmentSolver.solve(costs);
+        for (int i = 0; i < elevatorNumbers.size(); i++) {
+            int elevatorNumber = elevatorNumbers.get(i);
+            if (assignment[i] != -1 && floors.get(assignment[i]) != (int) idleElevatorFloors.get(elevatorNumber)) {
+                parkingFloors.put(elevatorNumber, floors.get(assignment[i]));
+            }
+        }
+        return parkingFloors;
+    }
+
+    /**
+     * Shares elevators among the floors whose rate is at least the minimum rate, by the highest averages method.
+     *
+     * @param rates the rate of requests at each floor, indexed by floor number
+     * @param numberOfElevators the number of elevators to share
+     * @param zone the Zone whose floors are shared, or null to share every floor
+     * @return the floor given each elevator; a floor appears once per elevator given to it
+     */
+    private List<Integer> allocateFloors(double[] rates, int numberOfElevators, Zone zone) {
+        int[] elevatorsPerFloor = new int[rates.length];
+        List<Integer> floors = new ArrayList<>(numberOfElevators);
+        while (floors.size() < numberOfElevators) {
+            int bestFloor = -1;
+            for (int floor = 1; floor < rates.length; floor++) {
+                if (zone != null && !zone.servesFloor(floor)) {
+                    continue;
+                }
+                if (rates[floor] >= minimumRate && (bestFloor == -1
+                        || rates[floor] / (elevatorsPerFloor[floor] + 1) > rates[bestFloor] / (elevatorsPerFloor[bestFloor] + 1))) {
+                    bestFloor = floor;
+                }
+            }
+            if (bestFloor == -1) {
+                break;
+            }
+            elevatorsPerFloor[bestFloor]++;
+            floors.add(bestFloor);
+        }
+        return floors;
+    }
+}
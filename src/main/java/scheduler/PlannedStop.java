@@ -0,0 +1,65 @@
+package scheduler;
+
+import systemwide.Direction;
+
+/**
+ * PlannedStop is a floor that an elevator is expected to stop at: either a hall call,
+ * where a passenger waits to travel in a direction, or a car call, where a passenger leaves.
+ * A car call is only served after the hall call where its passenger boards.
+ */
+public class PlannedStop {
+
+    private final int floorNumber;
+    private final Direction direction;
+    private final PlannedStop boardingStop;
+
+    /**
+     * Constructor for PlannedStop.
+     *
+     * @param floorNumber the floor of the stop
+     * @param direction the direction of a hall call, or Direction.NONE for a car call
+     * @param boardingStop the stop that must be served first, or null
+     */
+    public PlannedStop(int floorNumber, Direction direction, PlannedStop boardingStop) {
+        this.floorNumber = floorNumber;
+        this.direction = direction;
+        this.boardingStop = boardingStop;
+    }
+
+    /**
+     * Returns the floor of the stop.
+     *
+     * @return the floor number of the stop
+     */
+    public int getFloorNumber() {
+        return floorNumber;
+    }
+
+    /**
+     * Returns the direction the passengers boarding at the stop travel in.
+     *
+     * @return the direction of a hall call, or Direction.NONE for a car call
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the stop where the passenger leaving at this stop boards.
+     *
+     * @return the stop that must be served before this one, or null
+     */
+    public PlannedStop getBoardingStop() {
+        return boardingStop;
+    }
+
+    /**
+     * Returns a String describing the stop.
+     *
+     * @return the floor and direction of the stop
+     */
+    @Override
+    public String toString() {
+        return floorNumber + " " + direction.getName();
+    }
+}
@@ -0,0 +1,117 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+import systemwide.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PlannedStops holds the stops of the requests that the Scheduler has assigned to an elevator
+ * and that the elevator has yet to serve. A stop is served when the elevator opens its doors
+ * at the stop's floor after the stop's boarding stop, if any, was served.
+ * Its methods are synchronized, as requests may be assigned while monitors are received.
+ */
+public class PlannedStops {
+
+    private final List<PlannedStop> stops;
+
+    /**
+     * Constructor for PlannedStops.
+     */
+    public PlannedStops() {
+        stops = new ArrayList<>();
+    }
+
+    /**
+     * Creates the stops of an ElevatorRequest: a hall call at its floor and, if the request
+     * has a desired floor, a car call there that is served after the hall call.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @return the stops of the request, hall call first
+     */
+    public static List<PlannedStop> stopsOf(ElevatorRequest elevatorRequest) {
+        PlannedStop hallCall = new PlannedStop(elevatorRequest.getFloorNumber(), elevatorRequest.getDirection(), null);
+        if (elevatorRequest.getDesiredFloor() < 0) {
+            return List.of(hallCall);
+        }
+        return List.of(hallCall, new PlannedStop(elevatorRequest.getDesiredFloor(), Direction.NONE, hallCall));
+    }
+
+    /**
+     * Adds the stops of an ElevatorRequest assigned to the elevator.
+     *
+     * @param elevatorRequest an ElevatorRequest assigned to the elevator
+     */
+    public synchronized void addRequest(ElevatorRequest elevatorRequest) {
+        stops.addAll(stopsOf(elevatorRequest));
+    }
+
+    /**
+     * Adds a stop at a floor where the elevator waits for requests, which no passenger boards or leaves at.
+     *
+     * @param floorNumber the floor the elevator parks at
+     */
+    public synchronized void addParkingStop(int floorNumber) {
+        stops.add(new PlannedStop(floorNumber, Direction.NONE, null));
+    }
+
+    /**
+     * Removes the stops served by the elevator opening its doors at a floor,
+     * including car calls whose passengers board at the same floor.
+     *
+     * @param floorNumber the floor at which the elevator opened its doors
+     * @return the number of stops served
+     */
+    public synchronized int serveFloor(int floorNumber) {
+        int servedStops = 0;
+        boolean served = true;
+        while (served) {
+            served = false;
+            for (int i = 0; i < stops.size(); i++) {
+                PlannedStop stop = stops.get(i);
+                if (stop.getFloorNumber() == floorNumber && !stops.contains(stop.getBoardingStop())) {
+                    stops.remove(i);
+                    servedStops++;
+                    served = true;
+                    break;
+                }
+            }
+        }
+        return servedStops;
+    }
+
+    /**
+     * Removes every stop, as the elevator has no more requests.
+     */
+    public synchronized void clear() {
+        stops.clear();
+    }
+
+    /**
+     * Returns a copy of the stops in the order they were assigned.
+     *
+     * @return the stops the elevator has yet to serve
+     */
+    public synchronized List<PlannedStop> getStops() {
+        return new ArrayList<>(stops);
+    }
+
+    /**
+     * Returns the number of stops the elevator has yet to serve.
+     *
+     * @return the number of stops
+     */
+    public synchronized int size() {
+        return stops.size();
+    }
+
+    /**
+     * Determines whether the elevator has no stops to serve.
+     *
+     * @return true if there are no stops, false otherwise
+     */
+    public synchronized boolean isEmpty() {
+        return stops.isEmpty();
+    }
+}
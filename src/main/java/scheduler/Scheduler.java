@@ -3,52 +3,170 @@ package scheduler;
 import client_server_host.IntermediateHost;
 import client_server_host.Port;
 import client_server_host.RequestMessage;
+import client_server_host.TransportFactory;
+import client_server_host.TransportSelector;
+import elevatorsystem.Doors;
 import elevatorsystem.MovementState;
 import requests.ElevatorMonitor;
 import requests.ElevatorRequest;
 import requests.SystemEvent;
 import systemwide.Direction;
+import systemwide.ElevatorRegistration;
 import systemwide.Origin;
 import systemwide.Structure;
 import systemwide.SystemStatus;
+import systemwide.Zone;
 
-import java.net.DatagramPacket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Scheduler handles the requests from all system components.
+ * A single Scheduler receives from both the FloorSubsystem and the ElevatorSubsystem
+ * by multiplexing its two IntermediateHosts through a TransportSelector on one thread.
+ * If a message executor is set, each received message is assigned, queued and published on
+ * the executor, so a slow dispatch decision or view update does not delay other messages.
+ * The messages of each sender are still processed in the order they arrive, and the view
+ * updates of each elevator are shown in order.
+ * ElevatorMonitors are still applied on the receiving thread, in the order they arrive,
+ * and each monitor is locked while it is read or updated.
+ * The Scheduler also keeps the stops of the requests assigned to each elevator, so that
+ * in DispatchMode.ESTIMATED_TIME it can estimate when each elevator would serve a new request.
+ * Each DispatchMode chooses elevators with a built-in DispatchStrategy, which reads the elevators
+ * through a read-only ElevatorStateTable; another DispatchStrategy may be set in its place.
+ * In DispatchMode.BATCHED, ElevatorRequests wait for the batch window to close and are then
+ * assigned together; the time they wait is recorded as the batch latency.
+ * If the Structure defines Zones, each request is served by an elevator of a Zone serving both
+ * of its floors. A trip between Zones is dispatched one leg at a time: the next leg is requested
+ * when the elevator of the previous leg opens its doors at the floor where the passenger transfers.
  *
  * @author Liam Tripp, Julian, Ryan Dash
  */
 public class Scheduler implements Runnable {
 
-    private static ArrayList<ElevatorMonitor> elevatorMonitorList;
-    private final IntermediateHost intermediateHost;
-    private static Presenter presenter;
+    private final ArrayList<ElevatorMonitor> elevatorMonitorList;
+    private final Map<Integer, PlannedStops> plannedStops;
+    private final ElevatorIndex elevatorIndex;
+    // receives from the FloorSubsystem and publishes to the ElevatorSubsystem
+    private final IntermediateHost floorToElevatorHost;
+    // receives from the ElevatorSubsystem and publishes to the FloorSubsystem
+    private final IntermediateHost elevatorToFloorHost;
+    private final TransportSelector selector;
+    private Presenter presenter;
     private final SystemStatus systemStatus;
-    private static int schedulerThreadsTerminated;
-    private final Timer timer;
-    private TimerTask timerTask;
     private long startTime = -1;
+    private volatile long lastActivityTime;
+    private ExecutorService messageExecutor;
+    // runs the tasks of each sender, and the view updates of each elevator, in order on the messageExecutor
+    private KeyedSerialExecutor orderedExecutor;
+    private final ElevatorStateTable elevatorStateTable;
+    private final Map<DispatchMode, DispatchStrategy> dispatchStrategies;
+    private final EstimatedTimeStrategy estimatedTimeStrategy;
+    private volatile DispatchStrategy dispatchStrategy;
+    private ParkingEngine parkingEngine;
+    private TrafficClassifier trafficClassifier;
+    private final Map<TrafficPattern, DispatchMode> patternDispatchModes;
+    private final Set<TrafficPattern> parkingPatterns;
+    private final Set<Integer> parkingElevators;
     private int delayToEndSystem = 7000; // milliseconds
+    private volatile DispatchMode dispatchMode = DispatchMode.TIERED;
+    private ArrivalTimeEstimator arrivalTimeEstimator = new ArrivalTimeEstimator(1000, 1000);
+    private int numberOfFloors;
+    private volatile Structure structure;
+    // the leg that follows each dispatched leg of a trip between Zones, until the leg is assigned
+    private final Map<ElevatorRequest, ElevatorRequest> nextLegs;
+    // the legs waiting for each elevator to reach the floor where their passengers transfer
+    private final Map<Integer, List<ElevatorRequest>> transferLegs;
+    private long batchWindow = 200; // milliseconds
+    // cost of an assignment that the AssignmentSolver must never choose
+    private static final double UNAVAILABLE_COST = 1e15;
+    // requests waiting for the batch window to close, guarded by their own lock
+    private final List<ElevatorRequest> pendingRequests;
+    private final List<Long> pendingRequestTimes;
+    private long batchDeadline;
+    private long batchedRequests;
+    private long totalBatchLatency; // nanoseconds
+    private long maximumBatchLatency; // nanoseconds
+
+    /**
+     * Constructor for Scheduler using the default Scheduler ports.
+     */
+    public Scheduler() {
+        this(Port.CLIENT_TO_SERVER.getNumber(), Port.SERVER_TO_CLIENT.getNumber());
+    }
+
+    /**
+     * Constructor for Scheduler using the default Scheduler ports.
+     *
+     * @param transportFactory the factory opening the Scheduler's Transports
+     */
+    public Scheduler(TransportFactory transportFactory) {
+        this(Port.CLIENT_TO_SERVER.getNumber(), Port.SERVER_TO_CLIENT.getNumber(), transportFactory);
+    }
+
+    /**
+     * Constructor for Scheduler using the transport selected by TransportFactory.getDefault().
+     *
+     * @param clientToServerPort the port receiving events from the FloorSubsystem
+     * @param serverToClientPort the port receiving events from the ElevatorSubsystem
+     */
+    public Scheduler(int clientToServerPort, int serverToClientPort) {
+        this(clientToServerPort, serverToClientPort, TransportFactory.getDefault());
+    }
 
     /**
      * Constructor for Scheduler.
      *
-     * @param portNumber the port number associated with the class's DatagramSocket
+     * @param clientToServerPort the port receiving events from the FloorSubsystem
+     * @param serverToClientPort the port receiving events from the ElevatorSubsystem
+     * @param transportFactory the factory opening the Scheduler's Transports
      */
-    public Scheduler(int portNumber) {
+    public Scheduler(int clientToServerPort, int serverToClientPort, TransportFactory transportFactory) {
         elevatorMonitorList = new ArrayList<>();
-        intermediateHost = new IntermediateHost(portNumber);
+        plannedStops = new HashMap<>();
+        elevatorIndex = new ElevatorIndex();
+        elevatorStateTable = new SchedulerStateTable();
+        estimatedTimeStrategy = new EstimatedTimeStrategy();
+        dispatchStrategies = new EnumMap<>(DispatchMode.class);
+        dispatchStrategies.put(DispatchMode.TIERED, new TieredStrategy());
+        dispatchStrategies.put(DispatchMode.NEAREST, new NearestCarStrategy());
+        dispatchStrategies.put(DispatchMode.ESTIMATED_TIME, estimatedTimeStrategy);
+        dispatchStrategies.put(DispatchMode.BATCHED, estimatedTimeStrategy);
+        dispatchStrategies.put(DispatchMode.ZONED, new ZoningStrategy(ZoningStrategy.DEFAULT_NUMBER_OF_ZONES, estimatedTimeStrategy));
+        parkingElevators = ConcurrentHashMap.newKeySet();
+        patternDispatchModes = new EnumMap<>(TrafficPattern.class);
+        for (TrafficPattern pattern : TrafficPattern.values()) {
+            patternDispatchModes.put(pattern, DispatchMode.ESTIMATED_TIME);
+        }
+        // parked elevators meet the lobby traffic of peaks, but delay the calls of other patterns
+        parkingPatterns = EnumSet.of(TrafficPattern.UP_PEAK, TrafficPattern.DOWN_PEAK);
+        pendingRequests = new ArrayList<>();
+        pendingRequestTimes = new ArrayList<>();
+        nextLegs = Collections.synchronizedMap(new IdentityHashMap<>());
+        transferLegs = new ConcurrentHashMap<>();
+        floorToElevatorHost = new IntermediateHost(clientToServerPort, transportFactory);
+        elevatorToFloorHost = new IntermediateHost(serverToClientPort, transportFactory);
+        selector = transportFactory.openSelector();
+        floorToElevatorHost.register(selector);
+        elevatorToFloorHost.register(selector);
         presenter = null;
         systemStatus = new SystemStatus(false);
-        schedulerThreadsTerminated = 0;
-        timer = new Timer();
     }
 
     /**
@@ -58,6 +176,211 @@ public class Scheduler implements Runnable {
      */
     public void addElevatorMonitor(int elevatorNumber) {
         elevatorMonitorList.add(new ElevatorMonitor(elevatorNumber));
+        plannedStops.put(elevatorNumber, new PlannedStops());
+        elevatorIndex.update(elevatorNumber, 1, Direction.NONE, true, false);
+    }
+
+    /**
+     * Sets how the Scheduler chooses the elevator that serves an ElevatorRequest.
+     *
+     * @param dispatchMode the Scheduler's DispatchMode
+     */
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        this.dispatchMode = dispatchMode;
+    }
+
+    /**
+     * Returns how the Scheduler chooses the elevator that serves an ElevatorRequest.
+     *
+     * @return the Scheduler's DispatchMode
+     */
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    /**
+     * Sets the DispatchStrategy that chooses the elevator serving each ElevatorRequest, in place
+     * of the built-in strategy of the DispatchMode. In DispatchMode.BATCHED, requests are still
+     * collected for the batch window and assigned together.
+     *
+     * @param dispatchStrategy the Scheduler's DispatchStrategy, or null to use the strategy of the DispatchMode
+     */
+    public void setDispatchStrategy(DispatchStrategy dispatchStrategy) {
+        this.dispatchStrategy = dispatchStrategy;
+    }
+
+    /**
+     * Returns the DispatchStrategy that chooses the elevator serving each ElevatorRequest.
+     *
+     * @return the DispatchStrategy that was set, or else the built-in strategy of the DispatchMode
+     */
+    public DispatchStrategy getDispatchStrategy() {
+        DispatchStrategy strategy = dispatchStrategy;
+        return strategy != null ? strategy : dispatchStrategies.get(dispatchMode);
+    }
+
+    /**
+     * Returns the read-only view of the elevators given to the DispatchStrategy.
+     *
+     * @return the Scheduler's ElevatorStateTable
+     */
+    public ElevatorStateTable getElevatorStateTable() {
+        return elevatorStateTable;
+    }
+
+    /**
+     * Sets the TrafficClassifier that detects the pattern of the ElevatorRequests received.
+     * With one, the Scheduler switches to the DispatchMode of each TrafficPattern it detects,
+     * and its ParkingEngine only parks elevators during the patterns set to park.
+     *
+     * @param trafficClassifier the TrafficClassifier choosing the DispatchMode, or null to keep the DispatchMode
+     */
+    public void setTrafficClassifier(TrafficClassifier trafficClassifier) {
+        this.trafficClassifier = trafficClassifier;
+        if (trafficClassifier != null) {
+            dispatchMode = patternDispatchModes.get(trafficClassifier.getPattern());
+        }
+    }
+
+    /**
+     * Sets the DispatchMode used while a TrafficPattern is detected.
+     *
+     * @param pattern a TrafficPattern
+     * @param dispatchMode the DispatchMode used for the pattern
+     */
+    public void setDispatchMode(TrafficPattern pattern, DispatchMode dispatchMode) {
+        patternDispatchModes.put(pattern, dispatchMode);
+    }
+
+    /**
+     * Sets whether idle elevators are parked while a TrafficPattern is detected.
+     *
+     * @param pattern a TrafficPattern
+     * @param parking true to park idle elevators during the pattern, false to leave them at their last floor
+     */
+    public void setParking(TrafficPattern pattern, boolean parking) {
+        if (parking) {
+            parkingPatterns.add(pattern);
+        } else {
+            parkingPatterns.remove(pattern);
+        }
+    }
+
+    /**
+     * Determines whether idle elevators are parked under the current TrafficPattern.
+     * Without a TrafficClassifier, they are always parked.
+     *
+     * @return true if the ParkingEngine parks idle elevators, false otherwise
+     */
+    boolean parksIdleElevators() {
+        return trafficClassifier == null || parkingPatterns.contains(trafficClassifier.getPattern());
+    }
+
+    /**
+     * Returns the pattern of the ElevatorRequests received.
+     *
+     * @return the detected TrafficPattern, or null without a TrafficClassifier
+     */
+    public TrafficPattern getTrafficPattern() {
+        return trafficClassifier == null ? null : trafficClassifier.getPattern();
+    }
+
+    /**
+     * Sets how long ElevatorRequests are collected before they are assigned together
+     * in DispatchMode.BATCHED.
+     *
+     * @param batchWindow the batch window in milliseconds
+     */
+    public void setBatchWindow(long batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    /**
+     * Returns how long ElevatorRequests are collected before they are assigned together
+     * in DispatchMode.BATCHED.
+     *
+     * @return the batch window in milliseconds
+     */
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    /**
+     * Returns the number of ElevatorRequests assigned in batches.
+     *
+     * @return the number of batched requests
+     */
+    public synchronized long getBatchedRequests() {
+        return batchedRequests;
+    }
+
+    /**
+     * Returns the average time a batched ElevatorRequest waited to be assigned.
+     *
+     * @return the mean batch latency in milliseconds
+     */
+    public synchronized double getMeanBatchLatency() {
+        return batchedRequests == 0 ? 0 : totalBatchLatency / 1e6 / batchedRequests;
+    }
+
+    /**
+     * Returns the longest time a batched ElevatorRequest waited to be assigned.
+     *
+     * @return the maximum batch latency in milliseconds
+     */
+    public synchronized double getMaximumBatchLatency() {
+        return maximumBatchLatency / 1e6;
+    }
+
+    /**
+     * Returns the stops of the requests assigned to an elevator that it has yet to serve.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @return the PlannedStops of the elevator
+     */
+    public PlannedStops getPlannedStops(int elevatorNumber) {
+        return plannedStops.get(elevatorNumber);
+    }
+
+    /**
+     * Returns the index of the elevators by service direction and floor.
+     *
+     * @return the ElevatorIndex of the Scheduler
+     */
+    public ElevatorIndex getElevatorIndex() {
+        return elevatorIndex;
+    }
+
+    /**
+     * Sets the executor that received messages are handed to. Without one,
+     * messages are processed on the Scheduler's thread. The messages of one sender
+     * are processed one at a time, in order. The executor is shut down when the Scheduler terminates.
+     *
+     * @param messageExecutor the executor processing received messages, or null
+     */
+    public void setMessageExecutor(ExecutorService messageExecutor) {
+        this.messageExecutor = messageExecutor;
+        orderedExecutor = messageExecutor == null ? null : new KeyedSerialExecutor(messageExecutor);
+    }
+
+    /**
+     * Sets the DispatchStage that scores elevators in parallel when requests are assigned by
+     * estimated time. Without one, elevators are scored on the calling thread.
+     *
+     * @param dispatchStage the DispatchStage scoring elevators, or null
+     */
+    public void setDispatchStage(DispatchStage dispatchStage) {
+        estimatedTimeStrategy.setDispatchStage(dispatchStage);
+    }
+
+    /**
+     * Sets the ParkingEngine that learns where requests are made and sends idle elevators
+     * to wait there. Without one, idle elevators stay at their last floor.
+     *
+     * @param parkingEngine the ParkingEngine parking idle elevators, or null
+     */
+    public void setParkingEngine(ParkingEngine parkingEngine) {
+        this.parkingEngine = parkingEngine;
     }
 
     /**
@@ -67,15 +390,15 @@ public class Scheduler implements Runnable {
      * @param presenter a Presenter
      */
     public void setPresenter(Presenter presenter) {
-        Scheduler.presenter = presenter;
+        this.presenter = presenter;
     }
 
     /**
-     * Get the current static instance of elevatorMonitorList containing a list of elevator monitors.
+     * Get the Scheduler's list of elevator monitors.
      *
      * @return a list of elevator monitors
      */
-    public static ArrayList<ElevatorMonitor> getElevatorMonitorList() {
+    public ArrayList<ElevatorMonitor> getElevatorMonitorList() {
         return elevatorMonitorList;
     }
 
@@ -88,79 +411,460 @@ public class Scheduler implements Runnable {
         return systemStatus;
     }
 
-    public IntermediateHost getIntermediateHost() {
-        return intermediateHost;
+    /**
+     * Gets the IntermediateHost that publishes events to the ElevatorSubsystem.
+     *
+     * @return the IntermediateHost receiving from the FloorSubsystem
+     */
+    public IntermediateHost getFloorToElevatorHost() {
+        return floorToElevatorHost;
     }
 
     /**
-     * Takes a DatagramPacket from the IntermediateHost and processes it.
-     * If it's data (i.e. contains a SystemEvent), it is processed by Scheduler.
-     * Otherwise, it's a request for data.
-     */
-    private void receiveAndProcessPacket() {
-        DatagramPacket receivePacket = intermediateHost.receivePacket();
-        Object object = intermediateHost.convertToObject(receivePacket);
-
-        // respond to Data Request
-        if (object instanceof String) {
-            Object dataObject;
-
-            // queue is not empty, return data
-            // otherwise, send dummy message notifying empty status
-            if (!intermediateHost.queueIsEmpty()) {
-                if (this.startTime == -1) {
-                    this.startTime = System.nanoTime();
-                    System.out.print("time started with string");
-                }
+     * Gets the IntermediateHost that publishes events to the FloorSubsystem.
+     *
+     * @return the IntermediateHost receiving from the ElevatorSubsystem
+     */
+    public IntermediateHost getElevatorToFloorHost() {
+        return elevatorToFloorHost;
+    }
 
-                dataObject = intermediateHost.getPacketFromQueue();
+    /**
+     * Returns the IntermediateHost that publishes events to the specified system.
+     *
+     * @param destination the system an event is sent to
+     * @return the IntermediateHost publishing to the destination
+     */
+    private IntermediateHost getHostTo(Origin destination) {
+        return destination == Origin.ELEVATOR_SYSTEM ? floorToElevatorHost : elevatorToFloorHost;
+    }
 
-                if (dataObject instanceof ElevatorRequest elevatorRequest) {
-                    int chosenElevator = chooseElevator(elevatorRequest);
-                    elevatorRequest.setElevatorNumber(chosenElevator);
+    /**
+     * Receives and processes every message available on the IntermediateHost.
+     * If it's data (i.e. contains a SystemEvent), it is processed by Scheduler.
+     * Otherwise, it's a subscription for the events that the IntermediateHost queues.
+     * An ElevatorRegistration also routes the events of its elevators to its sender.
+     *
+     * @param intermediateHost an IntermediateHost selected for reading
+     */
+    private void receiveAndProcessPackets(IntermediateHost intermediateHost) {
+        Object object;
+        while ((object = intermediateHost.pollObject()) != null) {
+            InetSocketAddress sender = intermediateHost.getLastSender();
 
-                    String messageToPrint = LocalTime.now() + "\n";
-                    messageToPrint += "Scheduler assigned to Elevator #" + chosenElevator + " the " +
-                            elevatorRequest.getClass().getSimpleName() + ": " + elevatorRequest + ".\n";
-                    System.out.println(messageToPrint);
+            if (object instanceof String string) {
+                // register the subscriber and send any events queued before it subscribed
+                if (RequestMessage.fromMessage(string) == RequestMessage.SUBSCRIBE) {
+                    intermediateHost.addSubscriber(sender);
+                    intermediateHost.publishQueuedEvents();
+                }
+            } else if (object instanceof ElevatorRegistration registration) {
+                for (int elevatorNumber : registration.getElevatorNumbers()) {
+                    intermediateHost.addRoute(elevatorNumber, sender);
                 }
+                intermediateHost.addSubscriber(sender);
+                intermediateHost.publishQueuedEvents();
+            } else if (object instanceof SystemEvent systemEvent) {
+                startTimer();
+                intermediateHost.acknowledgeDataReception(sender);
+                processEvents(List.of(systemEvent), sender);
                 //Resets the inactivity timer when there's activity.
                 resetTimer();
-            } else {
-                dataObject = RequestMessage.EMPTYQUEUE.getMessage();
+            } else if (object instanceof List<?> batch) {
+                // a batch is acknowledged once and its events are published together
+                startTimer();
+                intermediateHost.acknowledgeDataReception(sender);
+                processEvents(batch, sender);
+                resetTimer();
             }
-            // send the object right away
-            intermediateHost.sendObject(dataObject, receivePacket.getAddress(), receivePacket.getPort());
+        }
+    }
 
-        } else if (object instanceof SystemEvent systemEvent) {
-            if (this.startTime == -1) {
-                this.startTime = System.nanoTime();
-                System.out.print("time started with string");
+    /**
+     * Processes the events of a received message. Without a message executor, every event
+     * is processed on the calling thread. Otherwise, ElevatorMonitors are applied on the
+     * calling thread and the other events are handed to the executor together, after the
+     * events received before them from the same sender.
+     *
+     * @param events the SystemEvents of a received message
+     * @param sender the address of the sender of the message
+     */
+    private void processEvents(List<?> events, InetSocketAddress sender) {
+        if (messageExecutor == null) {
+            forwardEvents(events);
+            return;
+        }
+        List<SystemEvent> forwardedEvents = new ArrayList<>(events.size());
+        for (Object event : events) {
+            if (event instanceof ElevatorMonitor elevatorMonitor) {
+                updateElevatorMonitor(elevatorMonitor);
+            } else {
+                forwardedEvents.add((SystemEvent) event);
             }
+        }
+        if (!forwardedEvents.isEmpty()) {
+            orderedExecutor.execute(sender, () -> {
+                forwardEvents(forwardedEvents);
+                resetTimer();
+            });
+        }
+    }
 
-            intermediateHost.acknowledgeDataReception(receivePacket);
-            processData(systemEvent);
-            //Resets the inactivity timer when there's activity.
-            resetTimer();
+    /**
+     * Processes events, then publishes the events queued for both subsystems.
+     *
+     * @param events the SystemEvents to process
+     */
+    private void forwardEvents(List<?> events) {
+        for (Object event : events) {
+            handleEvent((SystemEvent) event);
+        }
+        floorToElevatorHost.publishQueuedEvents();
+        elevatorToFloorHost.publishQueuedEvents();
+    }
+
+    /**
+     * Starts the performance measurement when the first event is received.
+     */
+    private void startTimer() {
+        if (this.startTime == -1) {
+            this.startTime = System.nanoTime();
+            System.out.print("time started with string");
         }
     }
 
     /**
      * Process data that Scheduler's DatagramSocket has received.
-     * Create a new packet and manipulate it according to the packet's Origin.
+     * ElevatorMonitors update the Scheduler's list of monitors. Other events are
+     * assigned an elevator if necessary and pushed to the subscribers of the IntermediateHost
+     * publishing to the system opposite to the event's origin.
      *
      * @param event a systemEvent to be processed
      */
     public void processData(SystemEvent event) {
+        handleEvent(event);
+        if (!(event instanceof ElevatorMonitor)) {
+            getHostTo(event.getOrigin()).publishQueuedEvents();
+        }
+    }
 
+    /**
+     * Processes an event without publishing it. ElevatorMonitors update the Scheduler's
+     * list of monitors. Other events are assigned an elevator if necessary and queued.
+     *
+     * @param event a systemEvent to be processed
+     */
+    private void handleEvent(SystemEvent event) {
         if (event instanceof ElevatorMonitor elevatorMonitor) {
-            elevatorMonitorList.get(elevatorMonitor.getElevatorNumber() - 1).updateMonitor(elevatorMonitor);
-            if (presenter != null) {
-                presenter.updateElevatorView(elevatorMonitor);
-            }
+            updateElevatorMonitor(elevatorMonitor);
         } else {
             event.setOrigin(Origin.changeOrigin(event.getOrigin()));
-            intermediateHost.addEventToQueue(event);
+            if (event instanceof ElevatorRequest elevatorRequest) {
+                observeRequest(elevatorRequest);
+                dispatchRequest(elevatorRequest);
+                return;
+            }
+            getHostTo(event.getOrigin()).addEventToQueue(event);
+        }
+    }
+
+    /**
+     * Assigns an ElevatorRequest to an elevator and queues it, or adds it to the current batch
+     * in DispatchMode.BATCHED. A trip between Zones is replaced by its first leg.
+     *
+     * @param elevatorRequest an ElevatorRequest made at a floor
+     */
+    private void dispatchRequest(ElevatorRequest elevatorRequest) {
+        ElevatorRequest leg = planFirstLeg(elevatorRequest);
+        if (dispatchMode == DispatchMode.BATCHED) {
+            addPendingRequest(leg);
+            return;
+        }
+        assignElevator(leg, chooseElevator(leg));
+        getHostTo(leg.getOrigin()).addEventToQueue(leg);
+    }
+
+    /**
+     * Returns the first leg of an ElevatorRequest, to the floor where the passenger transfers
+     * to another Zone, and keeps the rest of the trip as the leg that follows it.
+     *
+     * @param elevatorRequest an ElevatorRequest made at a floor
+     * @return the first leg, or the request itself if one Zone serves the whole trip
+     */
+    private ElevatorRequest planFirstLeg(ElevatorRequest elevatorRequest) {
+        int floorNumber = elevatorRequest.getFloorNumber();
+        int desiredFloor = elevatorRequest.getDesiredFloor();
+        int transferFloor = getTransferFloor(elevatorRequest);
+        if (transferFloor == desiredFloor) {
+            return elevatorRequest;
+        }
+        ElevatorRequest firstLeg = new ElevatorRequest(elevatorRequest.getTime(), floorNumber,
+                transferFloor > floorNumber ? Direction.UP : Direction.DOWN, transferFloor, elevatorRequest.getOrigin());
+        ElevatorRequest nextLeg = new ElevatorRequest(elevatorRequest.getTime(), transferFloor,
+                desiredFloor > transferFloor ? Direction.UP : Direction.DOWN, desiredFloor, elevatorRequest.getOrigin());
+        nextLegs.put(firstLeg, nextLeg);
+        return firstLeg;
+    }
+
+    /**
+     * Returns the floor where the passenger of an ElevatorRequest leaves the elevator serving it:
+     * the desired floor, or the floor where the passenger transfers to another Zone.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @return the floor the elevator serving the request takes the passenger to
+     */
+    int getTransferFloor(ElevatorRequest elevatorRequest) {
+        Structure currentStructure = structure;
+        int desiredFloor = elevatorRequest.getDesiredFloor();
+        if (currentStructure == null || desiredFloor < 0) {
+            return desiredFloor;
+        }
+        return currentStructure.getTransferFloor(elevatorRequest.getFloorNumber(), desiredFloor);
+    }
+
+    /**
+     * Dispatches the legs waiting for an elevator that opened its doors at a floor, and publishes them.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param floorNumber the floor where the elevator opened its doors
+     */
+    private void releaseTransferLegs(int elevatorNumber, int floorNumber) {
+        List<ElevatorRequest> legs = transferLegs.get(elevatorNumber);
+        if (legs == null) {
+            return;
+        }
+        List<ElevatorRequest> releasedLegs = new ArrayList<>();
+        synchronized (legs) {
+            legs.removeIf(leg -> leg.getFloorNumber() == floorNumber && releasedLegs.add(leg));
+        }
+        if (releasedLegs.isEmpty()) {
+            return;
+        }
+        for (ElevatorRequest leg : releasedLegs) {
+            dispatchRequest(leg);
+        }
+        floorToElevatorHost.publishQueuedEvents();
+        elevatorToFloorHost.publishQueuedEvents();
+    }
+
+    /**
+     * Records an ElevatorRequest in the ParkingEngine and the TrafficClassifier, and switches
+     * to the DispatchMode of the TrafficPattern it ends.
+     *
+     * @param elevatorRequest an ElevatorRequest made at a floor
+     */
+    void observeRequest(ElevatorRequest elevatorRequest) {
+        if (parkingEngine != null) {
+            parkingEngine.recordRequest(elevatorRequest.getFloorNumber(), System.nanoTime() / 1000000);
+        }
+        if (trafficClassifier == null) {
+            return;
+        }
+        DispatchMode patternDispatchMode = patternDispatchModes.get(trafficClassifier.recordRequest(elevatorRequest));
+        if (patternDispatchMode != dispatchMode) {
+            dispatchMode = patternDispatchMode;
+            System.out.println(LocalTime.now() + "\nScheduler detected " + trafficClassifier.getPattern()
+                    + " traffic and switched to " + patternDispatchMode + " dispatch.\n");
+        }
+    }
+
+    /**
+     * Assigns an ElevatorRequest to an elevator and adds the request to the elevator's planned stops.
+     * The leg that follows the request waits for the elevator to reach the transfer floor; if no
+     * elevator can serve the request, the rest of the trip is dropped with it.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param chosenElevator the number of the elevator serving the request
+     */
+    private void assignElevator(ElevatorRequest elevatorRequest, int chosenElevator) {
+        elevatorRequest.setElevatorNumber(chosenElevator);
+        ElevatorRequest nextLeg = nextLegs.remove(elevatorRequest);
+        if (chosenElevator != 0) {
+            plannedStops.get(chosenElevator).addRequest(elevatorRequest);
+            if (nextLeg != null) {
+                List<ElevatorRequest> legs = transferLegs.computeIfAbsent(chosenElevator, number -> new ArrayList<>());
+                synchronized (legs) {
+                    legs.add(nextLeg);
+                }
+            }
+        }
+
+        String messageToPrint = LocalTime.now() + "\n";
+        messageToPrint += "Scheduler assigned to Elevator #" + chosenElevator + " the " +
+                elevatorRequest.getClass().getSimpleName() + ": " + elevatorRequest + ".\n";
+        System.out.println(messageToPrint);
+    }
+
+    /**
+     * Adds an ElevatorRequest to the current batch, opening a batch window if there is none.
+     *
+     * @param elevatorRequest an ElevatorRequest to assign when the batch window closes
+     */
+    private void addPendingRequest(ElevatorRequest elevatorRequest) {
+        long now = System.nanoTime();
+        synchronized (pendingRequests) {
+            if (pendingRequests.isEmpty()) {
+                batchDeadline = now + batchWindow * 1000000;
+            }
+            pendingRequests.add(elevatorRequest);
+            pendingRequestTimes.add(now);
+        }
+    }
+
+    /**
+     * Returns the time left before the current batch window closes.
+     *
+     * @return the remaining time in milliseconds, 0 if the window has closed, or Long.MAX_VALUE if there is no batch
+     */
+    private long remainingBatchTime() {
+        synchronized (pendingRequests) {
+            if (pendingRequests.isEmpty()) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, (batchDeadline - System.nanoTime() + 999999) / 1000000);
+        }
+    }
+
+    /**
+     * Assigns the ElevatorRequests of the current batch together and publishes them, if the
+     * batch window has closed or if forced.
+     *
+     * @param force whether to assign the batch before its window closes
+     */
+    private void assignPendingRequests(boolean force) {
+        List<ElevatorRequest> batch;
+        List<Long> batchTimes;
+        synchronized (pendingRequests) {
+            if (pendingRequests.isEmpty() || (!force && System.nanoTime() < batchDeadline)) {
+                return;
+            }
+            batch = new ArrayList<>(pendingRequests);
+            batchTimes = new ArrayList<>(pendingRequestTimes);
+            pendingRequests.clear();
+            pendingRequestTimes.clear();
+        }
+        int[] chosenElevators = chooseElevators(batch);
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            ElevatorRequest elevatorRequest = batch.get(i);
+            assignElevator(elevatorRequest, chosenElevators[i]);
+            getHostTo(elevatorRequest.getOrigin()).addEventToQueue(elevatorRequest);
+            recordBatchLatency(now - batchTimes.get(i));
+        }
+        floorToElevatorHost.publishQueuedEvents();
+        elevatorToFloorHost.publishQueuedEvents();
+    }
+
+    /**
+     * Records the time a batched ElevatorRequest waited to be assigned.
+     *
+     * @param latency the time the request waited in nanoseconds
+     */
+    private synchronized void recordBatchLatency(long latency) {
+        batchedRequests++;
+        totalBatchLatency += latency;
+        maximumBatchLatency = Math.max(maximumBatchLatency, latency);
+    }
+
+    /**
+     * Applies an ElevatorMonitor to the Scheduler's monitor of the same elevator and shows
+     * the updated monitor. With a message executor, the view is updated on the executor
+     * with a copy of the monitor, so that the view does not hold the monitor's lock; the
+     * copies of each elevator are shown one at a time, in order.
+     *
+     * An elevator opening its doors serves its planned stops at its floor, and dispatches the
+     * legs of the passengers transferring there.
+     * The elevator's position in the ElevatorIndex is updated. With a ParkingEngine, an elevator
+     * becoming idle lets the idle elevators be parked.
+     *
+     * @param elevatorMonitor an ElevatorMonitor received from the ElevatorSubsystem, possibly a delta
+     */
+    void updateElevatorMonitor(ElevatorMonitor elevatorMonitor) {
+        ElevatorMonitor monitor = elevatorMonitorList.get(elevatorMonitor.getElevatorNumber() - 1);
+        boolean doorsOpen;
+        boolean hasNoRequests;
+        int currentFloor;
+        Direction direction;
+        MovementState state;
+        synchronized (monitor) {
+            monitor.updateMonitor(elevatorMonitor);
+            doorsOpen = monitor.getDoorsState() == Doors.State.OPEN;
+            hasNoRequests = monitor.hasNoRequests();
+            currentFloor = monitor.getCurrentFloor();
+            direction = monitor.getDirection();
+            state = monitor.getState();
+        }
+        elevatorIndex.update(monitor.getElevatorNumber(), currentFloor, direction, hasNoRequests, state == MovementState.STUCK);
+        PlannedStops stops = plannedStops.get(monitor.getElevatorNumber());
+        if (hasNoRequests) {
+            if (!parkingElevators.contains(monitor.getElevatorNumber())) {
+                stops.clear();
+            }
+        } else if (doorsOpen) {
+            stops.serveFloor(currentFloor);
+        }
+        if (doorsOpen) {
+            releaseTransferLegs(monitor.getElevatorNumber(), currentFloor);
+        }
+        if (!hasNoRequests) {
+            // the elevator has received any parking request sent to it
+            parkingElevators.remove(monitor.getElevatorNumber());
+        } else if (parkingEngine != null && state != MovementState.STUCK && parksIdleElevators()) {
+            parkIdleElevators();
+        }
+        if (presenter == null) {
+            return;
+        }
+        if (messageExecutor == null) {
+            presenter.updateElevatorView(monitor);
+        } else {
+            ElevatorMonitor copy = new ElevatorMonitor(monitor.getElevatorNumber());
+            synchronized (monitor) {
+                copy.updateMonitor(monitor);
+            }
+            orderedExecutor.execute(monitor.getElevatorNumber(), () -> presenter.updateElevatorView(copy));
+        }
+    }
+
+    /**
+     * Sends idle elevators to the floors chosen by the ParkingEngine, each among the floors its
+     * Zone serves. An elevator that was sent a parking request is not idle until it reports that
+     * it received the request.
+     */
+    private void parkIdleElevators() {
+        Map<Integer, Integer> idleElevatorFloors = new LinkedHashMap<>();
+        for (ElevatorMonitor monitor : elevatorMonitorList) {
+            int elevatorNumber = monitor.getElevatorNumber();
+            synchronized (monitor) {
+                if (!monitor.hasNoRequests() || monitor.getState() == MovementState.STUCK) {
+                    continue;
+                }
+                idleElevatorFloors.put(elevatorNumber, monitor.getCurrentFloor());
+            }
+            if (parkingElevators.contains(elevatorNumber) || !plannedStops.get(elevatorNumber).isEmpty()) {
+                idleElevatorFloors.remove(elevatorNumber);
+            }
+        }
+        if (idleElevatorFloors.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> parkingFloors = parkingEngine.chooseParkingFloors(idleElevatorFloors, elevatorStateTable::getZone,
+                System.nanoTime() / 1000000);
+        for (Map.Entry<Integer, Integer> parkingFloor : parkingFloors.entrySet()) {
+            int elevatorNumber = parkingFloor.getKey();
+            int floorNumber = parkingFloor.getValue();
+            Direction direction = floorNumber > idleElevatorFloors.get(elevatorNumber) ? Direction.UP : Direction.DOWN;
+            // a request to the floor it is made at, so that the elevator stops there once
+            ElevatorRequest parkingRequest = new ElevatorRequest(LocalTime.now(), floorNumber, direction, floorNumber, Origin.ELEVATOR_SYSTEM);
+            parkingRequest.setElevatorNumber(elevatorNumber);
+            parkingElevators.add(elevatorNumber);
+            plannedStops.get(elevatorNumber).addParkingStop(floorNumber);
+            floorToElevatorHost.addEventToQueue(parkingRequest);
+            System.out.println(LocalTime.now() + "\nScheduler parked Elevator #" + elevatorNumber + " at Floor " + floorNumber + ".\n");
+        }
+        if (!parkingFloors.isEmpty()) {
+            floorToElevatorHost.publishQueuedEvents();
         }
     }
 
@@ -173,107 +877,215 @@ public class Scheduler implements Runnable {
      */
     public void enableSystem(Structure structure, InetAddress inetAddress, int portNumber) {
         systemStatus.setSystemActivated(true);
+        IntermediateHost intermediateHost = portNumber == Port.CLIENT.getNumber() ? elevatorToFloorHost : floorToElevatorHost;
         intermediateHost.sendObject(structure, inetAddress, portNumber);
+        setStructure(structure);
+    }
+
+    /**
+     * Sets the number of floors, the Zones, and the elevator and doors times the Scheduler plans with.
+     *
+     * @param structure contains the information of the building
+     */
+    public void setStructure(Structure structure) {
+        this.structure = structure;
         delayToEndSystem = (structure.getDoorsTime() + structure.getElevatorTime()) * 3;
+        arrivalTimeEstimator = new ArrivalTimeEstimator(structure.getElevatorTime(), structure.getDoorsTime());
+        numberOfFloors = structure.getNumberOfFloors();
     }
 
     /**
      * Returns an elevator number corresponding to an elevator that is
-     * best suited to perform the given ElevatorRequest based on
-     * expected time to fulfill the request and direction of elevator.
+     * best suited to perform the given ElevatorRequest, as chosen by the Scheduler's DispatchStrategy.
+     * In DispatchMode.BATCHED, a single request is assigned by its estimated time. An elevator
+     * whose Zone does not serve the request is replaced by the choice of the ZoningStrategy.
      *
      * @param elevatorRequest an ElevatorRequest
-     * @return a number corresponding to an elevator
+     * @return a number corresponding to an elevator, or 0 if no elevator can serve the request
      */
     public int chooseElevator(ElevatorRequest elevatorRequest) {
+        int chosenElevator = getDispatchStrategy().chooseElevator(elevatorRequest, elevatorStateTable);
+        if (chosenElevator != 0 && !servesRequest(chosenElevator, elevatorRequest)) {
+            chosenElevator = dispatchStrategies.get(DispatchMode.ZONED).chooseElevator(elevatorRequest, elevatorStateTable);
+        }
+        return chosenElevator;
+    }
 
-        double elevatorBestExpectedTime = 0.0;
-        // Best elevator is an elevator traveling in path that collides with request floor
-        double elevatorOkExpectedTime = 0.0;
-        // Ok elevator is an elevator that is traveling in the other direction
-        double elevatorWorstExpectedTime = 0.0;
-        // Worst elevator is an elevator that is traveling in the same direction but missed the request
-        int chosenBestElevator = 0;
-        int chosenOkElevator = 0;
-        int chosenWorstElevator = 0;
-        for (ElevatorMonitor monitor : elevatorMonitorList) {
+    /**
+     * Determines whether the Zone of an elevator serves both floors of an ElevatorRequest.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @param elevatorRequest an ElevatorRequest
+     * @return true if the elevator can serve the request, false otherwise
+     */
+    private boolean servesRequest(int elevatorNumber, ElevatorRequest elevatorRequest) {
+        return ZoningStrategy.servesRequest(elevatorStateTable.getZone(elevatorNumber), elevatorRequest);
+    }
 
-            MovementState state = monitor.getState();
-            Direction requestDirection = elevatorRequest.getDirection();
-            double tempExpectedTime = monitor.getQueueTime();
-            int currentFloor = monitor.getCurrentFloor();
-            int desiredFloor = elevatorRequest.getDesiredFloor();
-            int elevatorNumber = monitor.getElevatorNumber();
-            Direction currentDirection = monitor.getDirection();
+    /**
+     * Reads the status and planned stops of every elevator that is not stuck.
+     *
+     * @return the ElevatorEstimates of the elevators that can be assigned requests
+     */
+    private List<ElevatorEstimate> readAvailableElevators() {
+        return EstimatedTimeStrategy.readAvailableElevators(elevatorStateTable.getElevators(), elevatorStateTable);
+    }
 
-            if (currentDirection == Direction.UP) {
-                currentFloor += 1;
-            } else if (currentDirection == Direction.DOWN) {
-                currentFloor -= 1;
+    /**
+     * Chooses the elevators serving several ElevatorRequests together, by minimum-cost assignment.
+     * The assignment is compared with assigning the requests one at a time in order, and the plan
+     * with the lower total estimated cost is returned. A request assigned to an elevator whose Zone
+     * does not serve it is chosen an elevator on its own. The planned stops of the Scheduler are not changed.
+     *
+     * @param elevatorRequests the ElevatorRequests to assign
+     * @return the number of the elevator chosen for each request, or 0 if every elevator is stuck
+     */
+    public int[] chooseElevators(List<ElevatorRequest> elevatorRequests) {
+        List<ElevatorEstimate> elevators = readAvailableElevators();
+        if (elevators.isEmpty()) {
+            return new int[elevatorRequests.size()];
+        }
+        int[] assignedElevators = assignElevators(elevators, elevatorRequests);
+        int[] greedyElevators = assignElevatorsInOrder(elevators, elevatorRequests);
+        if (estimatePlanCost(elevators, elevatorRequests, greedyElevators) < estimatePlanCost(elevators, elevatorRequests, assignedElevators)) {
+            assignedElevators = greedyElevators;
+        }
+        int[] chosenElevators = new int[elevatorRequests.size()];
+        for (int i = 0; i < chosenElevators.length; i++) {
+            chosenElevators[i] = elevators.get(assignedElevators[i]).elevatorNumber();
+            if (!servesRequest(chosenElevators[i], elevatorRequests.get(i))) {
+                chosenElevators[i] = chooseElevator(elevatorRequests.get(i));
             }
+        }
+        return chosenElevators;
+    }
 
-            if (monitor.hasNoRequests()) {
-                return elevatorNumber;
-
-            } else if (state == MovementState.STUCK) {
-                // do nothing
-            } else if (currentDirection == requestDirection) {
-                if (elevatorBestExpectedTime == 0 || elevatorBestExpectedTime > tempExpectedTime) {
-                    if (requestDirection == Direction.DOWN && currentFloor > desiredFloor) {
-                        //check if request is in path current floor > directed floor going down
-                        elevatorBestExpectedTime = tempExpectedTime;
-                        chosenBestElevator = elevatorNumber;
-
-                    } else if (requestDirection == Direction.UP && currentFloor < desiredFloor) {
-                        //check if request is in path current floor < directed floor going up
-                        elevatorBestExpectedTime = tempExpectedTime;
-                        chosenBestElevator = elevatorNumber;
-
-                    } else if (elevatorOkExpectedTime == 0 || elevatorOkExpectedTime > tempExpectedTime) {
-                        //if request is in the correct direction but not in path of elevator
-                        elevatorWorstExpectedTime = tempExpectedTime;
-                        chosenWorstElevator = elevatorNumber;
-                    }
+    /**
+     * Assigns ElevatorRequests to elevators in rounds: each round solves a minimum-cost assignment
+     * of the remaining requests to distinct elevators over the matrix of estimated costs, then adds
+     * the assigned requests to copies of the elevators' stops, so that the next round's costs include
+     * them. A request may instead be deferred to the next round at the cost of its cheapest elevator
+     * plus one extra stop, so that several requests can be given to the same elevator. A request is
+     * never assigned to an elevator whose Zone does not serve it, unless no elevator serves it.
+     *
+     * @param elevators the elevators that can be assigned requests
+     * @param elevatorRequests the ElevatorRequests to assign
+     * @return the index in elevators of the elevator assigned to each request
+     */
+    private int[] assignElevators(List<ElevatorEstimate> elevators, List<ElevatorRequest> elevatorRequests) {
+        int[] assignedElevators = new int[elevatorRequests.size()];
+        List<List<PlannedStop>> stops = copyStops(elevators);
+        List<Integer> remainingRequests = new ArrayList<>();
+        for (int i = 0; i < elevatorRequests.size(); i++) {
+            remainingRequests.add(i);
+        }
+        while (!remainingRequests.isEmpty()) {
+            int numberOfRequests = remainingRequests.size();
+            int numberOfElevators = elevators.size();
+            double[][] costs = new double[numberOfRequests][numberOfElevators + numberOfRequests];
+            for (int i = 0; i < numberOfRequests; i++) {
+                ElevatorRequest elevatorRequest = elevatorRequests.get(remainingRequests.get(i));
+                double lowestCost = Double.MAX_VALUE;
+                for (int j = 0; j < numberOfElevators; j++) {
+                    ElevatorEstimate elevator = elevators.get(j);
+                    costs[i][j] = servesRequest(elevator.elevatorNumber(), elevatorRequest)
+                            ? arrivalTimeEstimator.estimateCost(elevator.floor(), elevator.direction(), stops.get(j), elevatorRequest)
+                            : UNAVAILABLE_COST;
+                    lowestCost = Math.min(lowestCost, costs[i][j]);
                 }
-            } else {
-                if (elevatorWorstExpectedTime == 0 || elevatorWorstExpectedTime > tempExpectedTime) {
-                    //if the elevator traveling in the wrong direction
-                    elevatorOkExpectedTime = tempExpectedTime;
-                    chosenOkElevator = elevatorNumber;
+                for (int j = 0; j < numberOfRequests; j++) {
+                    costs[i][numberOfElevators + j] = i == j ? lowestCost + arrivalTimeEstimator.getStopTime() : UNAVAILABLE_COST;
+                }
+            }
+            int[] assignment = AssignmentSolver.solve(costs);
+            List<Integer> deferredRequests = new ArrayList<>();
+            for (int i = 0; i < numberOfRequests; i++) {
+                int request = remainingRequests.get(i);
+                if (assignment[i] >= numberOfElevators) {
+                    deferredRequests.add(request);
+                } else {
+                    assignedElevators[request] = assignment[i];
+                    stops.get(assignment[i]).addAll(PlannedStops.stopsOf(elevatorRequests.get(request)));
                 }
             }
+            remainingRequests = deferredRequests;
         }
-        if (chosenBestElevator == 0) {
-            if (chosenOkElevator == 0) {
-                chosenBestElevator = chosenWorstElevator;
-            } else {
-                chosenBestElevator = chosenOkElevator;
+        return assignedElevators;
+    }
+
+    /**
+     * Assigns ElevatorRequests one at a time, in order, to the elevator with the lowest estimated cost.
+     *
+     * @param elevators the elevators that can be assigned requests
+     * @param elevatorRequests the ElevatorRequests to assign
+     * @return the index in elevators of the elevator assigned to each request
+     */
+    private int[] assignElevatorsInOrder(List<ElevatorEstimate> elevators, List<ElevatorRequest> elevatorRequests) {
+        int[] assignedElevators = new int[elevatorRequests.size()];
+        List<List<PlannedStop>> stops = copyStops(elevators);
+        for (int i = 0; i < elevatorRequests.size(); i++) {
+            assignedElevators[i] = Math.max(0, estimatedTimeStrategy.findLowestCost(arrivalTimeEstimator, elevators, stops, elevatorRequests.get(i)));
+            stops.get(assignedElevators[i]).addAll(PlannedStops.stopsOf(elevatorRequests.get(i)));
+        }
+        return assignedElevators;
+    }
+
+    /**
+     * Estimates the total cost of a plan assigning ElevatorRequests to elevators.
+     *
+     * @param elevators the elevators that can be assigned requests
+     * @param elevatorRequests the ElevatorRequests to assign
+     * @param assignedElevators the index in elevators of the elevator assigned to each request
+     * @return the sum over the elevators of the cost of their assigned requests in milliseconds
+     */
+    private double estimatePlanCost(List<ElevatorEstimate> elevators, List<ElevatorRequest> elevatorRequests, int[] assignedElevators) {
+        double cost = 0;
+        for (int j = 0; j < elevators.size(); j++) {
+            List<ElevatorRequest> requests = new ArrayList<>();
+            for (int i = 0; i < assignedElevators.length; i++) {
+                if (assignedElevators[i] == j) {
+                    requests.add(elevatorRequests.get(i));
+                }
             }
+            ElevatorEstimate elevator = elevators.get(j);
+            cost += arrivalTimeEstimator.estimateCost(elevator.floor(), elevator.direction(), elevator.stops(), requests);
         }
-        return chosenBestElevator;
+        return cost;
+    }
+
+    /**
+     * Copies the planned stops of elevators, so that requests can be added to them.
+     *
+     * @param elevators the elevators whose stops are copied
+     * @return a copy of each elevator's stops
+     */
+    private List<List<PlannedStop>> copyStops(List<ElevatorEstimate> elevators) {
+        List<List<PlannedStop>> stops = new ArrayList<>(elevators.size());
+        for (ElevatorEstimate elevator : elevators) {
+            stops.add(new ArrayList<>(elevator.stops()));
+        }
+        return stops;
     }
 
     /**
      * Resets the inactivity timer to show that the scheduler did work
      */
     public void resetTimer() {
-        if (timerTask == null || timerTask.cancel()) {
-            timerTask = new TimerTask() {
-                @Override
-                public void run() {
-                    long timeElapsed = (System.nanoTime() - startTime) / 1000000 - delayToEndSystem;
-                    System.out.println(Thread.currentThread().getName() + " took " + timeElapsed + " milliseconds to complete.");
-                    systemStatus.setSystemActivated(false);
-                    schedulerThreadsTerminated++;
-                    timer.cancel();
-                }
-            };
-            timer.schedule(timerTask, delayToEndSystem);
-        }
+        lastActivityTime = System.nanoTime();
     }
 
     /**
-     * Simple message requesting and sending between subsystems.
+     * Returns the time left before the Scheduler ends the system due to inactivity.
+     *
+     * @return the remaining time in milliseconds, or a non-positive number if the time has elapsed
+     */
+    private long remainingInactivityTime() {
+        return delayToEndSystem - (System.nanoTime() - lastActivityTime) / 1000000;
+    }
+
+    /**
+     * Receives events from each subsystem and pushes them to the other, waiting on both
+     * IntermediateHosts with one TransportSelector until the system has been inactive for delayToEndSystem.
      * Scheduler
      * Sends: ApproachEvent, ElevatorRequest
      * Receives: ApproachEvent, ElevatorRequest, ElevatorMonitor
@@ -283,18 +1095,41 @@ public class Scheduler implements Runnable {
 
         //Starts the inactivity timer and performance measurement
         resetTimer();
-        /*
-            Use schedulerThreadsTerminated instead of systemStatus.activated()
-            because sometimes, one scheduler's socket gets closed too early, 
-            causing a SocketException. Must wait for both to be closed.
-         */
-        while (schedulerThreadsTerminated < 2) {
-            receiveAndProcessPacket();
+        long remainingTime;
+        while ((remainingTime = remainingInactivityTime()) > 0) {
+            // wake up when the batch window closes; a timeout of 0 would wait indefinitely
+            long timeout = Math.max(1, Math.min(remainingTime, remainingBatchTime()));
+            for (Object attachment : selector.select(timeout)) {
+                receiveAndProcessPackets((IntermediateHost) attachment);
+            }
+            assignPendingRequests(false);
         }
+        assignPendingRequests(true);
+        if (messageExecutor != null) {
+            messageExecutor.shutdown();
+            try {
+                messageExecutor.awaitTermination(delayToEndSystem, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long timeElapsed = (System.nanoTime() - startTime) / 1000000 - delayToEndSystem;
+        System.out.println(Thread.currentThread().getName() + " took " + timeElapsed + " milliseconds to complete.");
+
         System.out.println(Thread.currentThread().getName() + " terminated");
-        intermediateHost.terminateSystem();
+        selector.close();
+        floorToElevatorHost.terminateSystem();
+        elevatorToFloorHost.terminateSystem();
+        systemStatus.setSystemActivated(false);
     }
 
+    /**
+     * Starts the Scheduler and its GUI, then sends the Structure to the FloorSubsystem and to
+     * the ElevatorSubsystems. The arguments are the port numbers of the ElevatorSubsystems,
+     * or nothing for a single ElevatorSubsystem on the default port.
+     *
+     * @param args the port numbers of the ElevatorSubsystems
+     */
     public static void main(String[] args) {
         Structure structure = new Structure(20, 4, 1000, 1000);
 
@@ -303,23 +1138,156 @@ public class Scheduler implements Runnable {
         presenter.addView(elevatorViewContainer);
         presenter.startGUI();
 
-        Scheduler schedulerClient = new Scheduler(Port.CLIENT_TO_SERVER.getNumber());
-        Scheduler schedulerServer = new Scheduler(Port.SERVER_TO_CLIENT.getNumber());
-
-        schedulerClient.setPresenter(presenter);
+        Scheduler scheduler = new Scheduler();
+        scheduler.setPresenter(presenter);
+        if (Boolean.getBoolean("elevator.scheduler.threadPerMessage")) {
+            scheduler.setMessageExecutor(MessageExecutors.newThreadPerMessageExecutor());
+        }
+        scheduler.setDispatchMode(DispatchMode.valueOf(System.getProperty("elevator.scheduler.dispatch", DispatchMode.TIERED.name())));
+        scheduler.setBatchWindow(Long.getLong("elevator.scheduler.batchWindow", 200));
+        if (Boolean.getBoolean("elevator.scheduler.adaptiveDispatch")) {
+            scheduler.setTrafficClassifier(new TrafficClassifier());
+        }
+        if (Boolean.getBoolean("elevator.scheduler.parking")) {
+            scheduler.setParkingEngine(new ParkingEngine(structure.getNumberOfFloors()));
+        }
+        if (Boolean.getBoolean("elevator.scheduler.parallelDispatch")) {
+            scheduler.setDispatchStage(new DispatchStage(ForkJoinPool.commonPool()));
+        }
+        String strategyName = System.getProperty("elevator.scheduler.strategy");
+        if (strategyName != null) {
+            scheduler.setDispatchStrategy(DispatchStrategy.forName(strategyName));
+        }
 
         for (int i = 1; i <= structure.getNumberOfElevators(); i++) {
-            schedulerClient.addElevatorMonitor(i);
+            scheduler.addElevatorMonitor(i);
         }
 
         try {
-            schedulerClient.enableSystem(structure, InetAddress.getLocalHost(), Port.SERVER.getNumber());
-            schedulerServer.enableSystem(structure, InetAddress.getLocalHost(), Port.CLIENT.getNumber());
+            if (args.length == 0) {
+                scheduler.enableSystem(structure, InetAddress.getLocalHost(), Port.SERVER.getNumber());
+            }
+            for (String elevatorSubsystemPort : args) {
+                scheduler.enableSystem(structure, InetAddress.getLocalHost(), Integer.parseInt(elevatorSubsystemPort));
+            }
+            scheduler.enableSystem(structure, InetAddress.getLocalHost(), Port.CLIENT.getNumber());
         } catch (UnknownHostException e) {
             e.printStackTrace();
         }
 
-        new Thread(schedulerClient, "Scheduler: FloorToElevator").start();
-        new Thread(schedulerServer, "Scheduler: ElevatorToFloor").start();
+        new Thread(scheduler, scheduler.getClass().getSimpleName()).start();
+    }
+
+    /**
+     * SchedulerStateTable is the read-only view of the Scheduler's elevators given to its DispatchStrategy.
+     */
+    private class SchedulerStateTable implements ElevatorStateTable {
+
+        /**
+         * Returns the status of every elevator, in the order the elevators were added.
+         *
+         * @return a snapshot of the status of each elevator
+         */
+        @Override
+        public List<ElevatorStatus> getElevators() {
+            List<ElevatorStatus> statuses = new ArrayList<>(elevatorMonitorList.size());
+            for (ElevatorMonitor monitor : elevatorMonitorList) {
+                statuses.add(ElevatorStatus.of(monitor));
+            }
+            return Collections.unmodifiableList(statuses);
+        }
+
+        /**
+         * Returns the status of an elevator.
+         *
+         * @param elevatorNumber the number of an elevator
+         * @return a snapshot of the status of the elevator, or null if there is no such elevator
+         */
+        @Override
+        public ElevatorStatus getElevator(int elevatorNumber) {
+            if (elevatorNumber < 1 || elevatorNumber > elevatorMonitorList.size()) {
+                return null;
+            }
+            return ElevatorStatus.of(elevatorMonitorList.get(elevatorNumber - 1));
+        }
+
+        /**
+         * Returns the stops of the requests assigned to an elevator, in the order they were assigned.
+         *
+         * @param elevatorNumber the number of an elevator
+         * @return an unmodifiable copy of the elevator's planned stops
+         */
+        @Override
+        public List<PlannedStop> getPlannedStops(int elevatorNumber) {
+            return Collections.unmodifiableList(plannedStops.get(elevatorNumber).getStops());
+        }
+
+        /**
+         * Returns the estimator of the time elevators take to serve their stops.
+         *
+         * @return the Scheduler's ArrivalTimeEstimator
+         */
+        @Override
+        public ArrivalTimeEstimator getArrivalTimeEstimator() {
+            return arrivalTimeEstimator;
+        }
+
+        /**
+         * Returns the number of floors of the building.
+         *
+         * @return the number of floors, or 0 before the Scheduler receives the Structure
+         */
+        @Override
+        public int getNumberOfFloors() {
+            return numberOfFloors;
+        }
+
+        /**
+         * Returns the Zones of the building, each served by a group of elevators.
+         *
+         * @return an unmodifiable list of the Zones, empty if every elevator serves every floor
+         */
+        @Override
+        public List<Zone> getZones() {
+            Structure currentStructure = structure;
+            return currentStructure == null ? List.of() : currentStructure.getZones();
+        }
+
+        /**
+         * Returns the Zone of an elevator.
+         *
+         * @param elevatorNumber the number of an elevator
+         * @return the Zone of the elevator, or null if the elevator serves every floor
+         */
+        @Override
+        public Zone getZone(int elevatorNumber) {
+            Structure currentStructure = structure;
+            return currentStructure == null ? null : currentStructure.getZone(elevatorNumber);
+        }
+
+        /**
+         * Returns the nearest elevators that can absorb a request on their path, found in the ElevatorIndex.
+         *
+         * @param floorNumber the floor of the request
+         * @param direction the direction of the request
+         * @param limit the maximum number of elevators returned
+         * @return the numbers of the elevators, nearest first
+         */
+        @Override
+        public List<Integer> findElevatorsOnPath(int floorNumber, Direction direction, int limit) {
+            return elevatorIndex.findElevatorsOnPath(floorNumber, direction, limit);
+        }
+
+        /**
+         * Returns the nearest elevators that are not stuck, found in the ElevatorIndex.
+         *
+         * @param floorNumber the floor of the request
+         * @param limit the maximum number of elevators returned
+         * @return the numbers of the elevators, nearest first
+         */
+        @Override
+        public List<Integer> findNearestElevators(int floorNumber, int limit) {
+            return elevatorIndex.findNearestElevators(floorNumber, limit);
+        }
     }
 }
@@ -0,0 +1,100 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+import systemwide.Direction;
+
+/**
+ * TieredStrategy chooses an idle elevator if there is one, or else the elevator in the best
+ * tier with the lowest queue time: elevators travelling in the request's direction with the
+ * request in their path, then elevators travelling in the other direction, then elevators
+ * that have missed the request.
+ */
+public class TieredStrategy implements DispatchStrategy {
+
+    /**
+     * Returns the name by which the strategy is selected.
+     *
+     * @return the name of the strategy
+     */
+    @Override
+    public String getName() {
+        return "tiered";
+    }
+
+    /**
+     * Returns an elevator number corresponding to an elevator that is
+     * best suited to perform the given ElevatorRequest based on
+     * expected time to fulfill the request and direction of elevator.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @return a number corresponding to an elevator
+     */
+    @Override
+    public int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators) {
+
+        double elevatorBestExpectedTime = 0.0;
+        // Best elevator is an elevator traveling in path that collides with request floor
+        double elevatorOkExpectedTime = 0.0;
+        // Ok elevator is an elevator that is traveling in the other direction
+        double elevatorWorstExpectedTime = 0.0;
+        // Worst elevator is an elevator that is traveling in the same direction but missed the request
+        int chosenBestElevator = 0;
+        int chosenOkElevator = 0;
+        int chosenWorstElevator = 0;
+        for (ElevatorStatus status : elevators.getElevators()) {
+
+            double tempExpectedTime = status.queueTime();
+            int currentFloor = status.currentFloor();
+            Direction currentDirection = status.direction();
+            Direction requestDirection = elevatorRequest.getDirection();
+            int desiredFloor = elevatorRequest.getDesiredFloor();
+            int elevatorNumber = status.elevatorNumber();
+
+            if (currentDirection == Direction.UP) {
+                currentFloor += 1;
+            } else if (currentDirection == Direction.DOWN) {
+                currentFloor -= 1;
+            }
+
+            if (status.hasNoRequests()) {
+                return elevatorNumber;
+
+            } else if (status.isStuck()) {
+                // do nothing
+            } else if (currentDirection == requestDirection) {
+                if (elevatorBestExpectedTime == 0 || elevatorBestExpectedTime > tempExpectedTime) {
+                    if (requestDirection == Direction.DOWN && currentFloor > desiredFloor) {
+                        //check if request is in path current floor > directed floor going down
+                        elevatorBestExpectedTime = tempExpectedTime;
+                        chosenBestElevator = elevatorNumber;
+
+                    } else if (requestDirection == Direction.UP && currentFloor < desiredFloor) {
+                        //check if request is in path current floor < directed floor going up
+                        elevatorBestExpectedTime = tempExpectedTime;
+                        chosenBestElevator = elevatorNumber;
+
+                    } else if (elevatorOkExpectedTime == 0 || elevatorOkExpectedTime > tempExpectedTime) {
+                        //if request is in the correct direction but not in path of elevator
+                        elevatorWorstExpectedTime = tempExpectedTime;
+                        chosenWorstElevator = elevatorNumber;
+                    }
+                }
+            } else {
+                if (elevatorWorstExpectedTime == 0 || elevatorWorstExpectedTime > tempExpectedTime) {
+                    //if the elevator traveling in the wrong direction
+                    elevatorOkExpectedTime = tempExpectedTime;
+                    chosenOkElevator = elevatorNumber;
+                }
+            }
+        }
+        if (chosenBestElevator == 0) {
+            if (chosenOkElevator == 0) {
+                chosenBestElevator = chosenWorstElevator;
+            } else {
+                chosenBestElevator = chosenOkElevator;
+            }
+        }
+        return chosenBestElevator;
+    }
+}
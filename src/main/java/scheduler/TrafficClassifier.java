@@ -0,0 +1,133 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+import systemwide.Direction;
+
+/**
+ * TrafficClassifier detects the TrafficPattern of the last requests made in the building.
+ *
+ * Each request is incoming if it goes up from the lobby, outgoing if it goes down to the lobby,
+ * and inter-floor otherwise. The kinds of the requests in the window are kept in a ring, with a
+ * count of each kind, so that recording a request and classifying the window take O(1) time:
+ * the new request's kind is counted and the kind of the request leaving the window is discounted.
+ *
+ * The window is up-peak when at least PEAK_SHARE of its requests are incoming, down-peak when
+ * at least PEAK_SHARE are outgoing, and lunch when at least LUNCH_SHARE are incoming and LUNCH_SHARE
+ * are outgoing. Otherwise, and until the window holds the minimum number of requests, it is inter-floor.
+ */
+public class TrafficClassifier {
+
+    public static final int DEFAULT_WINDOW_SIZE = 40;
+    public static final int DEFAULT_MINIMUM_REQUESTS = 10;
+    public static final int LOBBY_FLOOR = 1;
+    public static final double PEAK_SHARE = 0.5;
+    public static final double LUNCH_SHARE = 0.25;
+
+    private static final byte INCOMING = 0;
+    private static final byte OUTGOING = 1;
+    private static final byte INTER_FLOOR = 2;
+
+    private final byte[] window;
+    private final int[] counts;
+    private final int minimumRequests;
+    private int size;
+    private int next;
+    private TrafficPattern pattern;
+
+    /**
+     * Constructor for TrafficClassifier.
+     *
+     * @param windowSize the number of most recent requests that are classified
+     * @param minimumRequests the number of requests needed to detect a pattern other than inter-floor
+     */
+    public TrafficClassifier(int windowSize, int minimumRequests) {
+        if (windowSize < 1 || minimumRequests < 1 || minimumRequests > windowSize) {
+            throw new IllegalArgumentException("Error: Invalid window of " + windowSize + " requests with minimum " + minimumRequests);
+        }
+        window = new byte[windowSize];
+        counts = new int[3];
+        this.minimumRequests = minimumRequests;
+        pattern = TrafficPattern.INTER_FLOOR;
+    }
+
+    /**
+     * Constructor for TrafficClassifier with the default window size and minimum number of requests.
+     */
+    public TrafficClassifier() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_REQUESTS);
+    }
+
+    /**
+     * Records a request and classifies the window of requests it ends.
+     *
+     * @param elevatorRequest the request made
+     * @return the TrafficPattern of the window
+     */
+    public synchronized TrafficPattern recordRequest(ElevatorRequest elevatorRequest) {
+        byte kind = kindOf(elevatorRequest);
+        if (size == window.length) {
+            counts[window[next]]--;
+        } else {
+            size++;
+        }
+        window[next] = kind;
+        counts[kind]++;
+        next = (next + 1) % window.length;
+        pattern = classify();
+        return pattern;
+    }
+
+    /**
+     * Returns the TrafficPattern of the last requests recorded.
+     *
+     * @return the current TrafficPattern
+     */
+    public synchronized TrafficPattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the number of requests in the window.
+     *
+     * @return the number of requests classified
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Determines whether a request goes up from the lobby, down to the lobby, or between other floors.
+     *
+     * @param elevatorRequest a request
+     * @return the kind of the request
+     */
+    private byte kindOf(ElevatorRequest elevatorRequest) {
+        if (elevatorRequest.getFloorNumber() == LOBBY_FLOOR && elevatorRequest.getDirection() == Direction.UP) {
+            return INCOMING;
+        } else if (elevatorRequest.getDesiredFloor() == LOBBY_FLOOR) {
+            return OUTGOING;
+        }
+        return INTER_FLOOR;
+    }
+
+    /**
+     * Classifies the requests in the window from the count of each kind.
+     *
+     * @return the TrafficPattern of the window
+     */
+    private TrafficPattern classify() {
+        if (size < minimumRequests) {
+            return TrafficPattern.INTER_FLOOR;
+        }
+        double incomingShare = (double) counts[INCOMING] / size;
+        double outgoingShare = (double) counts[OUTGOING] / size;
+        if (incomingShare >= LUNCH_SHARE && outgoingShare >= LUNCH_SHARE) {
+            return TrafficPattern.LUNCH;
+        } else if (incomingShare >= PEAK_SHARE) {
+            return TrafficPattern.UP_PEAK;
+        } else if (outgoingShare >= PEAK_SHARE) {
+            return TrafficPattern.DOWN_PEAK;
+        }
+        return TrafficPattern.INTER_FLOOR;
+    }
+}
@@ -0,0 +1,15 @@
+package scheduler;
+
+/**
+ * TrafficPattern is the pattern of the requests recently made in the building, as detected by a TrafficClassifier.
+ */
+public enum TrafficPattern {
+    // most passengers go up from the lobby, as when people arrive in the morning
+    UP_PEAK,
+    // most passengers go down to the lobby, as when people leave in the evening
+    DOWN_PEAK,
+    // many passengers both leave from and return to the lobby
+    LUNCH,
+    // passengers travel between any floors
+    INTER_FLOOR
+}
@@ -0,0 +1,123 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+import systemwide.Zone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ZoningStrategy serves each request with the elevators of a zone, choosing the elevator with
+ * the lowest estimated cost within the zone. If the Structure defines Zones, only elevators
+ * whose Zone serves both floors of the request are chosen, among the nearest. Otherwise, the floors above the
+ * lobby are divided into contiguous zones of equal size, and the elevators into groups of
+ * consecutive elevators, one group per zone; a request is served by the group of the zone it
+ * travels to or from, whichever is not the lobby, or by any elevator if the group is stuck.
+ */
+public class ZoningStrategy implements DispatchStrategy {
+
+    public static final int DEFAULT_NUMBER_OF_ZONES = 2;
+    static final int LOBBY_FLOOR = 1;
+
+    private final int numberOfZones;
+    private final EstimatedTimeStrategy estimatedTimeStrategy;
+
+    /**
+     * Constructor for ZoningStrategy with the default number of zones.
+     */
+    public ZoningStrategy() {
+        this(DEFAULT_NUMBER_OF_ZONES);
+    }
+
+    /**
+     * Constructor for ZoningStrategy.
+     *
+     * @param numberOfZones the number of zones the floors above the lobby are divided into
+     */
+    public ZoningStrategy(int numberOfZones) {
+        this(numberOfZones, new EstimatedTimeStrategy());
+    }
+
+    /**
+     * Constructor for ZoningStrategy choosing elevators within a zone with an EstimatedTimeStrategy.
+     *
+     * @param numberOfZones the number of zones the floors above the lobby are divided into
+     * @param estimatedTimeStrategy the strategy choosing an elevator among the elevators of a zone
+     */
+    ZoningStrategy(int numberOfZones, EstimatedTimeStrategy estimatedTimeStrategy) {
+        if (numberOfZones < 1) {
+            throw new IllegalArgumentException("A building must have at least one zone");
+        }
+        this.numberOfZones = numberOfZones;
+        this.estimatedTimeStrategy = estimatedTimeStrategy;
+    }
+
+    /**
+     * Returns the name by which the strategy is selected.
+     *
+     * @return the name of the strategy
+     */
+    @Override
+    public String getName() {
+        return "zoning";
+    }
+
+    /**
+     * Returns the elevator of the request's zone with the lowest estimated cost of serving it.
+     * Without Zones, every elevator is in the same zone until the number of floors is known.
+     *
+     * @param elevatorRequest an ElevatorRequest
+     * @param elevators a read-only view of the elevators
+     * @return a number corresponding to an elevator, or 0 if every elevator that can serve the request is stuck
+     */
+    @Override
+    public int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators) {
+        if (!elevators.getZones().isEmpty()) {
+            return estimatedTimeStrategy.chooseElevator(elevatorRequest, elevators,
+                    elevatorNumber -> servesRequest(elevators.getZone(elevatorNumber), elevatorRequest));
+        }
+        List<ElevatorStatus> statuses = elevators.getElevators();
+        int zones = Math.min(numberOfZones, statuses.size());
+        int numberOfFloors = elevators.getNumberOfFloors();
+        if (zones <= 1 || numberOfFloors <= LOBBY_FLOOR) {
+            return estimatedTimeStrategy.chooseElevator(elevatorRequest, statuses, elevators);
+        }
+
+        int floorNumber = elevatorRequest.getFloorNumber() == LOBBY_FLOOR ? elevatorRequest.getDesiredFloor() : elevatorRequest.getFloorNumber();
+        int zone = getZone(floorNumber, numberOfFloors, zones);
+        List<ElevatorStatus> zoneElevators = new ArrayList<>();
+        for (int i = 0; i < statuses.size(); i++) {
+            if ((long) i * zones / statuses.size() == zone) {
+                zoneElevators.add(statuses.get(i));
+            }
+        }
+        int chosenElevator = estimatedTimeStrategy.chooseElevator(elevatorRequest, zoneElevators, elevators);
+        return chosenElevator != 0 ? chosenElevator : estimatedTimeStrategy.chooseElevator(elevatorRequest, statuses, elevators);
+    }
+
+    /**
+     * Returns the zone of a floor. The lobby and the floors outside the building belong to the nearest zone.
+     *
+     * @param floorNumber a floor of the building
+     * @param numberOfFloors the number of floors of the building
+     * @param numberOfZones the number of zones the floors above the lobby are divided into
+     * @return the zone of the floor, from 0 for the lowest zone
+     */
+    static int getZone(int floorNumber, int numberOfFloors, int numberOfZones) {
+        int upperFloors = numberOfFloors - LOBBY_FLOOR;
+        int upperFloor = Math.min(Math.max(floorNumber - LOBBY_FLOOR - 1, 0), upperFloors - 1);
+        return (int) ((long) upperFloor * numberOfZones / upperFloors);
+    }
+
+    /**
+     * Determines whether the elevators of a Zone serve both floors of an ElevatorRequest.
+     *
+     * @param zone the Zone of an elevator, or null if the elevator serves every floor
+     * @param elevatorRequest an ElevatorRequest
+     * @return true if the Zone serves the request's floor and desired floor, false otherwise
+     */
+    static boolean servesRequest(Zone zone, ElevatorRequest elevatorRequest) {
+        int desiredFloor = elevatorRequest.getDesiredFloor();
+        return zone == null || (zone.servesFloor(elevatorRequest.getFloorNumber()) && (desiredFloor < 0 || zone.servesFloor(desiredFloor)));
+    }
+}
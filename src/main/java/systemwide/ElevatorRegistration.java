@@ -0,0 +1,42 @@
+package systemwide;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * ElevatorRegistration is sent by an ElevatorSubsystem to the Scheduler to subscribe to
+ * the Scheduler's events and to claim the elevators it runs. The Scheduler routes the
+ * events of each elevator to the ElevatorSubsystem that registered it.
+ */
+public class ElevatorRegistration implements Serializable {
+
+    private final List<Integer> elevatorNumbers;
+
+    /**
+     * Constructor for ElevatorRegistration.
+     *
+     * @param elevatorNumbers the numbers of the elevators run by the ElevatorSubsystem
+     */
+    public ElevatorRegistration(List<Integer> elevatorNumbers) {
+        this.elevatorNumbers = List.copyOf(elevatorNumbers);
+    }
+
+    /**
+     * Returns the numbers of the elevators run by the ElevatorSubsystem.
+     *
+     * @return the registered elevator numbers
+     */
+    public List<Integer> getElevatorNumbers() {
+        return elevatorNumbers;
+    }
+
+    /**
+     * Returns a String representation of the ElevatorRegistration.
+     *
+     * @return a String listing the registered elevator numbers
+     */
+    @Override
+    public String toString() {
+        return "ElevatorRegistration " + elevatorNumbers;
+    }
+}
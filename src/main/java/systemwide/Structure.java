@@ -1,9 +1,16 @@
 package systemwide;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 
 /**
  * Structure contains information to initialize the simulation.
+ * A tall structure may divide its floors into Zones, each served by a group of elevators;
+ * without Zones, every elevator serves every floor.
  *
  * @author Liam Tripp, Julian, Ryan Dash
  */
@@ -13,6 +20,7 @@ public class Structure implements Serializable {
     private int numberOfElevators;
     private int elevatorTime;
     private int doorsTime;
+    private final List<Zone> zones;
 
     /**
      * Constructor for Structure.
@@ -27,6 +35,7 @@ public class Structure implements Serializable {
         this.numberOfElevators = numberOfElevators;
         this.elevatorTime = elevatorTime;
         this.doorsTime = doorsTime;
+        zones = new ArrayList<>();
     }
 
     /**
@@ -100,4 +109,88 @@ public class Structure implements Serializable {
     public void setDoorsTime(int time) {
         doorsTime = time;
     }
+
+    /**
+     * Adds a Zone of floors served by a group of elevators.
+     *
+     * @param zone the Zone to add
+     */
+    public void addZone(Zone zone) {
+        zones.add(zone);
+    }
+
+    /**
+     * Returns the Zones of the structure.
+     *
+     * @return an unmodifiable list of the Zones, empty if every elevator serves every floor
+     */
+    public List<Zone> getZones() {
+        return Collections.unmodifiableList(zones);
+    }
+
+    /**
+     * Returns the Zone of an elevator.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @return the Zone of the elevator, or null if the elevator serves every floor
+     */
+    public Zone getZone(int elevatorNumber) {
+        for (Zone zone : zones) {
+            if (zone.hasElevator(elevatorNumber)) {
+                return zone;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the floor where a passenger travelling between two floors leaves the first
+     * elevator. If no Zone serves both floors, the passenger transfers at a lobby shared
+     * with the next Zone on the route with the fewest transfers.
+     *
+     * @param floorNumber the floor the passenger travels from
+     * @param desiredFloor the floor the passenger travels to
+     * @return the first transfer floor, or desiredFloor if no transfer is needed or no route exists
+     */
+    public int getTransferFloor(int floorNumber, int desiredFloor) {
+        int[] firstTransfers = new int[zones.size()];
+        boolean[] visited = new boolean[zones.size()];
+        Deque<Integer> zonesToVisit = new ArrayDeque<>();
+        for (int i = 0; i < zones.size(); i++) {
+            if (zones.get(i).servesFloor(floorNumber)) {
+                if (zones.get(i).servesFloor(desiredFloor)) {
+                    return desiredFloor;
+                }
+                firstTransfers[i] = -1;
+                visited[i] = true;
+                zonesToVisit.add(i);
+            }
+        }
+        // breadth-first search through the lobbies shared by zones
+        while (!zonesToVisit.isEmpty()) {
+            int i = zonesToVisit.poll();
+            Zone zone = zones.get(i);
+            for (int j = 0; j < zones.size(); j++) {
+                if (visited[j]) {
+                    continue;
+                }
+                Zone nextZone = zones.get(j);
+                int sharedFloor;
+                if (zone.servesFloor(nextZone.getLobbyFloor())) {
+                    sharedFloor = nextZone.getLobbyFloor();
+                } else if (nextZone.servesFloor(zone.getLobbyFloor())) {
+                    sharedFloor = zone.getLobbyFloor();
+                } else {
+                    continue;
+                }
+                firstTransfers[j] = firstTransfers[i] == -1 ? sharedFloor : firstTransfers[i];
+                if (nextZone.servesFloor(desiredFloor)) {
+                    return firstTransfers[j];
+                }
+                visited[j] = true;
+                zonesToVisit.add(j);
+            }
+        }
+        return desiredFloor;
+    }
 }
@@ -0,0 +1,135 @@
+package systemwide;
+
+import java.io.Serializable;
+
+/**
+ * Zone is a group of consecutive elevators that serve a lobby floor and a range of floors.
+ * A local zone serves the floors just above (or below) its lobby. An express zone, such as
+ * a shuttle to a sky lobby, runs non-stop from its lobby to floors that are not adjacent to it.
+ */
+public class Zone implements Serializable {
+
+    private final int lobbyFloor;
+    private final int lowestFloor;
+    private final int highestFloor;
+    private final int firstElevator;
+    private final int lastElevator;
+
+    /**
+     * Constructor for Zone.
+     *
+     * @param lobbyFloor the floor where passengers enter and leave the zone
+     * @param lowestFloor the lowest floor of the range served by the zone
+     * @param highestFloor the highest floor of the range served by the zone
+     * @param firstElevator the number of the first elevator of the zone
+     * @param lastElevator the number of the last elevator of the zone
+     */
+    public Zone(int lobbyFloor, int lowestFloor, int highestFloor, int firstElevator, int lastElevator) {
+        if (lowestFloor > highestFloor || firstElevator > lastElevator) {
+            throw new IllegalArgumentException("A zone must have at least one floor and one elevator.");
+        }
+        this.lobbyFloor = lobbyFloor;
+        this.lowestFloor = lowestFloor;
+        this.highestFloor = highestFloor;
+        this.firstElevator = firstElevator;
+        this.lastElevator = lastElevator;
+    }
+
+    /**
+     * Creates an express zone whose elevators shuttle non-stop between a lobby and a sky lobby.
+     *
+     * @param lobbyFloor the floor the shuttles leave from
+     * @param skyLobbyFloor the only other floor the shuttles serve
+     * @param firstElevator the number of the first shuttle
+     * @param lastElevator the number of the last shuttle
+     * @return the express zone
+     */
+    public static Zone shuttle(int lobbyFloor, int skyLobbyFloor, int firstElevator, int lastElevator) {
+        return new Zone(lobbyFloor, skyLobbyFloor, skyLobbyFloor, firstElevator, lastElevator);
+    }
+
+    /**
+     * Returns the floor where passengers enter and leave the zone.
+     *
+     * @return the lobby floor of the zone
+     */
+    public int getLobbyFloor() {
+        return lobbyFloor;
+    }
+
+    /**
+     * Returns the lowest floor of the range served by the zone.
+     *
+     * @return the lowest floor
+     */
+    public int getLowestFloor() {
+        return lowestFloor;
+    }
+
+    /**
+     * Returns the highest floor of the range served by the zone.
+     *
+     * @return the highest floor
+     */
+    public int getHighestFloor() {
+        return highestFloor;
+    }
+
+    /**
+     * Returns the number of the first elevator of the zone.
+     *
+     * @return the first elevator number
+     */
+    public int getFirstElevator() {
+        return firstElevator;
+    }
+
+    /**
+     * Returns the number of the last elevator of the zone.
+     *
+     * @return the last elevator number
+     */
+    public int getLastElevator() {
+        return lastElevator;
+    }
+
+    /**
+     * Determines whether the zone's elevators stop at a floor.
+     *
+     * @param floorNumber a floor of the structure
+     * @return true if the floor is the lobby or in the zone's range, false otherwise
+     */
+    public boolean servesFloor(int floorNumber) {
+        return floorNumber == lobbyFloor || (floorNumber >= lowestFloor && floorNumber <= highestFloor);
+    }
+
+    /**
+     * Determines whether an elevator belongs to the zone.
+     *
+     * @param elevatorNumber the number of an elevator
+     * @return true if the elevator is one of the zone's elevators, false otherwise
+     */
+    public boolean hasElevator(int elevatorNumber) {
+        return elevatorNumber >= firstElevator && elevatorNumber <= lastElevator;
+    }
+
+    /**
+     * Determines whether the zone's elevators run non-stop past floors between the lobby and the range.
+     *
+     * @return true if the range is not adjacent to the lobby, false otherwise
+     */
+    public boolean isExpress() {
+        return lobbyFloor < lowestFloor - 1 || lobbyFloor > highestFloor + 1;
+    }
+
+    /**
+     * Returns a String representation of the Zone.
+     *
+     * @return a String with the zone's floors and elevators
+     */
+    @Override
+    public String toString() {
+        return "Zone[lobby " + lobbyFloor + ", floors " + lowestFloor + "-" + highestFloor
+                + ", elevators " + firstElevator + "-" + lastElevator + "]";
+    }
+}
@@ -0,0 +1,114 @@
+package client_server_host;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BoundedEventQueueTest ensures that BoundedEventQueue keeps elements in order across the end
+ * of its array, applies its QueueFullPolicy when full and loses nothing with many producers.
+ */
+public class BoundedEventQueueTest {
+
+    @Test
+    void testElementsAreRemovedInOrderAcrossWraparound() {
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(5, QueueFullPolicy.REJECT);
+        assertEquals(8, queue.capacity());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(i + 1000));
+            assertEquals(2, queue.size());
+            assertEquals("BoundedEventQueue[2/8, REJECT]", queue.toString());
+            assertEquals(i, queue.peek());
+            assertEquals(i, queue.poll());
+            assertEquals(i + 1000, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    void testRejectPolicyRefusesElementsWhenFull() {
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(4, QueueFullPolicy.REJECT);
+        for (int i = 0; i < 4; i++) {
+            queue.add(i);
+        }
+        assertFalse(queue.offer(4));
+        assertThrows(IllegalStateException.class, () -> queue.add(4));
+        assertEquals(1, queue.getRejectedElements());
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.poll());
+    }
+
+    @Test
+    void testDropOldestPolicyKeepsNewestElements() {
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(4, QueueFullPolicy.DROP_OLDEST);
+        for (int i = 0; i < 10; i++) {
+            queue.add(i);
+        }
+        assertEquals(6, queue.getDroppedElements());
+        for (int i = 6; i < 10; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testBlockPolicyWaitsForConsumer() throws InterruptedException {
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(2, QueueFullPolicy.BLOCK);
+        queue.add(0);
+        queue.add(1);
+        Thread producer = new Thread(() -> queue.add(2));
+        producer.start();
+        producer.join(50);
+        assertTrue(producer.isAlive());
+
+        assertEquals(0, queue.poll());
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.poll());
+    }
+
+    @Test
+    void testConcurrentProducersLoseNoElements() throws InterruptedException {
+        int producers = 4;
+        int elementsPerProducer = 20000;
+        BoundedEventQueue<Integer> queue = new BoundedEventQueue<>(64, QueueFullPolicy.BLOCK);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < elementsPerProducer; i++) {
+                    queue.add(producer * elementsPerProducer + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // each producer's elements must arrive in the order they were added
+        int[] nextElement = new int[producers];
+        int received = 0;
+        while (received < producers * elementsPerProducer) {
+            Integer element = queue.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = element / elementsPerProducer;
+            assertEquals(nextElement[producer], element % elementsPerProducer);
+            nextElement[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
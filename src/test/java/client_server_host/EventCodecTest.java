@@ -0,0 +1,253 @@
+package client_server_host;
+
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.*;
+import systemwide.Direction;
+import systemwide.ElevatorRegistration;
+import systemwide.Origin;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EventCodecTest ensures that every SystemEvent subclass and Structure survive
+ * a round trip through EventCodec and are encoded compactly.
+ */
+public class EventCodecTest {
+
+    private static final int MAX_EVENT_SIZE = 64;
+    private LocalTime timeNow;
+
+    @BeforeEach
+    void setUp() {
+        timeNow = LocalTime.now();
+    }
+
+    /**
+     * Encodes and decodes the provided object, checking the encoded size.
+     *
+     * @param object the object to encode
+     * @return the decoded object
+     */
+    private Object roundTrip(Object object) {
+        byte[] bytes = EventCodec.encode(object);
+        assertEquals(EventCodec.encodedSize(object), bytes.length);
+        assertTrue(bytes.length <= MAX_EVENT_SIZE);
+        return EventCodec.decode(ByteBuffer.wrap(bytes));
+    }
+
+    @Test
+    void testSystemEventRoundTrip() {
+        SystemEvent event = new SystemEvent(timeNow, Origin.FLOOR_SYSTEM);
+        event.setElevatorNumber(3);
+
+        SystemEvent decoded = (SystemEvent) roundTrip(event);
+        assertEquals(SystemEvent.class, decoded.getClass());
+        assertEquals(timeNow, decoded.getTime());
+        assertEquals(Origin.FLOOR_SYSTEM, decoded.getOrigin());
+        assertEquals(3, decoded.getElevatorNumber());
+    }
+
+    @Test
+    void testServiceRequestRoundTrip() {
+        ServiceRequest request = new ServiceRequest(timeNow, 7, Direction.DOWN, Origin.SCHEDULER);
+        request.setElevatorNumber(2);
+
+        ServiceRequest decoded = (ServiceRequest) roundTrip(request);
+        assertEquals(ServiceRequest.class, decoded.getClass());
+        assertEquals(timeNow, decoded.getTime());
+        assertEquals(Origin.SCHEDULER, decoded.getOrigin());
+        assertEquals(2, decoded.getElevatorNumber());
+        assertEquals(7, decoded.getFloorNumber());
+        assertEquals(Direction.DOWN, decoded.getDirection());
+    }
+
+    @Test
+    void testElevatorRequestRoundTrip() {
+        ElevatorRequest request = new ElevatorRequest(timeNow, 2, Direction.UP, 4, Origin.FLOOR_SYSTEM);
+        request.setElevatorNumber(1);
+
+        ElevatorRequest decoded = (ElevatorRequest) roundTrip(request);
+        assertEquals(timeNow, decoded.getTime());
+        assertEquals(Origin.FLOOR_SYSTEM, decoded.getOrigin());
+        assertEquals(1, decoded.getElevatorNumber());
+        assertEquals(2, decoded.getFloorNumber());
+        assertEquals(Direction.UP, decoded.getDirection());
+        assertEquals(4, decoded.getDesiredFloor());
+    }
+
+    @Test
+    void testApproachEventRoundTrip() {
+        ElevatorRequest request = new ElevatorRequest(timeNow, 2, Direction.UP, 4, Origin.FLOOR_SYSTEM);
+        ApproachEvent approachEvent = new ApproachEvent(request, 3, 5);
+        approachEvent.allowElevatorStop();
+
+        ApproachEvent decoded = (ApproachEvent) roundTrip(approachEvent);
+        assertEquals(timeNow, decoded.getTime());
+        assertEquals(Origin.FLOOR_SYSTEM, decoded.getOrigin());
+        assertEquals(5, decoded.getElevatorNumber());
+        assertEquals(3, decoded.getFloorNumber());
+        assertEquals(Direction.UP, decoded.getDirection());
+        assertEquals(4, decoded.getFloorToVisit());
+        assertTrue(decoded.elevatorMayStop());
+    }
+
+    @Test
+    void testElevatorMonitorRoundTrip() {
+        ElevatorMonitor monitor = new ElevatorMonitor(4, 9, Direction.DOWN, MovementState.ACTIVE, Direction.DOWN, Doors.State.CLOSED, Fault.DOOR_STUCK, false, 12.5);
+        monitor.setTime(timeNow);
+
+        ElevatorMonitor decoded = (ElevatorMonitor) roundTrip(monitor);
+        assertEquals(timeNow, decoded.getTime());
+        assertEquals(Origin.ELEVATOR_SYSTEM, decoded.getOrigin());
+        assertEquals(4, decoded.getElevatorNumber());
+        assertEquals(9, decoded.getCurrentFloor());
+        assertEquals(Direction.DOWN, decoded.getDirection());
+        assertEquals(MovementState.ACTIVE, decoded.getState());
+        assertEquals(Direction.DOWN, decoded.getMovementDirection());
+        assertEquals(Doors.State.CLOSED, decoded.getDoorsState());
+        assertEquals(Fault.DOOR_STUCK, decoded.getFault());
+        assertFalse(decoded.hasNoRequests());
+        assertEquals(12.5, decoded.getQueueTime());
+        assertNull(decoded.getCurrentRequest());
+    }
+
+    @Test
+    void testElevatorMonitorWithCurrentRequestRoundTrip() {
+        ElevatorMonitor monitor = new ElevatorMonitor(1, 3, Direction.UP, MovementState.IDLE, Direction.NONE, Doors.State.OPEN, Fault.NONE, false, 2.0);
+        monitor.setCurrentRequest(new ServiceRequest(timeNow, 6, Direction.UP, Origin.ELEVATOR_SYSTEM));
+
+        ElevatorMonitor decoded = (ElevatorMonitor) roundTrip(monitor);
+        ServiceRequest currentRequest = decoded.getCurrentRequest();
+        assertNotNull(currentRequest);
+        assertEquals(timeNow, currentRequest.getTime());
+        assertEquals(6, currentRequest.getFloorNumber());
+        assertEquals(Direction.UP, currentRequest.getDirection());
+    }
+
+    @Test
+    void testElevatorMonitorDeltaRoundTrip() {
+        ElevatorMonitor previous = new ElevatorMonitor(2, 4, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, 12.5);
+        ElevatorMonitor current = new ElevatorMonitor(2, 5, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, 10.0);
+        ElevatorMonitor delta = current.deltaFrom(previous);
+        assertFalse(delta.isKeyframe());
+        assertEquals(ElevatorMonitor.CURRENT_FLOOR | ElevatorMonitor.QUEUE_TIME, delta.getChangedFields());
+
+        ElevatorMonitor decoded = (ElevatorMonitor) roundTrip(delta);
+        assertEquals(19, EventCodec.encodedSize(delta));
+        assertEquals(33, EventCodec.encodedSize(current));
+        assertEquals(delta.getChangedFields(), decoded.getChangedFields());
+        assertEquals(2, decoded.getElevatorNumber());
+        assertEquals(5, decoded.getCurrentFloor());
+        assertEquals(10.0, decoded.getQueueTime());
+    }
+
+    @Test
+    void testDeltaOnlyUpdatesChangedFields() {
+        ElevatorMonitor previous = new ElevatorMonitor(1, 3, Direction.DOWN, MovementState.IDLE, Direction.NONE, Doors.State.OPEN, Fault.NONE, true, 0.0);
+        ElevatorMonitor current = new ElevatorMonitor(1, 3, Direction.DOWN, MovementState.IDLE, Direction.NONE, Doors.State.CLOSED, Fault.NONE, true, 0.0);
+        ElevatorMonitor schedulerMonitor = new ElevatorMonitor(1);
+        schedulerMonitor.updateMonitor(previous);
+
+        ElevatorMonitor decoded = (ElevatorMonitor) roundTrip(current.deltaFrom(previous));
+        assertEquals(8, EventCodec.encodedSize(decoded));
+        schedulerMonitor.updateMonitor(decoded);
+        assertEquals(Doors.State.CLOSED, schedulerMonitor.getDoorsState());
+        assertEquals(3, schedulerMonitor.getCurrentFloor());
+        assertEquals(Direction.DOWN, schedulerMonitor.getDirection());
+        assertEquals(MovementState.IDLE, schedulerMonitor.getState());
+        assertTrue(schedulerMonitor.isKeyframe());
+    }
+
+    @Test
+    void testStructureRoundTrip() {
+        Structure decoded = (Structure) roundTrip(new Structure(22, 4, 1000, 500));
+        assertEquals(22, decoded.getNumberOfFloors());
+        assertEquals(4, decoded.getNumberOfElevators());
+        assertEquals(1000, decoded.getElevatorTime());
+        assertEquals(500, decoded.getDoorsTime());
+        assertTrue(decoded.getZones().isEmpty());
+    }
+
+    @Test
+    void testZonedStructureRoundTrip() {
+        Structure structure = new Structure(100, 12, 1000, 1000);
+        structure.addZone(Zone.shuttle(1, 51, 1, 4));
+        structure.addZone(new Zone(51, 52, 100, 5, 12));
+        assertEquals(59, EventCodec.encodedSize(structure));
+
+        Structure decoded = (Structure) roundTrip(structure);
+        assertEquals(2, decoded.getZones().size());
+        Zone shuttle = decoded.getZone(3);
+        assertTrue(shuttle.isExpress());
+        assertTrue(shuttle.servesFloor(51));
+        assertFalse(shuttle.servesFloor(50));
+        Zone skyZone = decoded.getZone(12);
+        assertEquals(51, skyZone.getLobbyFloor());
+        assertEquals(52, skyZone.getLowestFloor());
+        assertEquals(100, skyZone.getHighestFloor());
+        assertEquals(5, skyZone.getFirstElevator());
+    }
+
+    @Test
+    void testElevatorRegistrationRoundTrip() {
+        ElevatorRegistration registration = new ElevatorRegistration(List.of(3, 4, 5));
+        assertEquals(15, EventCodec.encodedSize(registration));
+
+        ElevatorRegistration decoded = (ElevatorRegistration) roundTrip(registration);
+        assertEquals(List.of(3, 4, 5), decoded.getElevatorNumbers());
+    }
+
+    @Test
+    void testBatchRoundTripPreservesOrder() {
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 1; i <= 10; i++) {
+            events.add(new ElevatorRequest(timeNow, i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM));
+            events.add(new ElevatorMonitor(i, i, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, i));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(MessageTransfer.MAX_BYTE_ARRAY_SIZE);
+
+        assertEquals(20, EventCodec.encodeBatch(events, buffer));
+        assertTrue(events.isEmpty());
+        buffer.flip();
+        List<?> decoded = (List<?>) EventCodec.decode(buffer);
+        assertEquals(20, decoded.size());
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(i, ((ElevatorRequest) decoded.get(2 * i - 2)).getFloorNumber());
+            assertEquals(i, ((ElevatorMonitor) decoded.get(2 * i - 1)).getElevatorNumber());
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void testBatchLeavesEventsThatDoNotFit() {
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(new ApproachEvent(timeNow, i, Direction.DOWN, 1, Origin.ELEVATOR_SYSTEM));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(MessageTransfer.MAX_BYTE_ARRAY_SIZE);
+
+        int count = EventCodec.encodeBatch(events, buffer);
+        assertEquals((MessageTransfer.MAX_BYTE_ARRAY_SIZE - EventCodec.BATCH_HEADER_SIZE) / 24, count);
+        assertEquals(100 - count, events.size());
+        assertEquals(count, ((ApproachEvent) events.peek()).getFloorNumber());
+    }
+
+    @Test
+    void testStringsAreNotMistakenForEvents() {
+        for (RequestMessage message : RequestMessage.values()) {
+            assertFalse(EventCodec.isTypeTag(message.getMessage().getBytes()[0]));
+        }
+    }
+}
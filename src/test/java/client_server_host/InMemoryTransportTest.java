@@ -0,0 +1,89 @@
+package client_server_host;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorRequest;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InMemoryTransportTest ensures that InMemoryTransports pass objects by reference
+ * and wake up the selectors they are registered with.
+ */
+public class InMemoryTransportTest {
+
+    private InMemoryTransportFactory factory;
+    private Transport transport1;
+    private Transport transport2;
+    private InetSocketAddress address1;
+    private ElevatorRequest elevatorRequest;
+
+    @BeforeEach
+    void setUp() {
+        factory = new InMemoryTransportFactory();
+        transport1 = factory.open(1);
+        transport2 = factory.open(2);
+        address1 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 1);
+        elevatorRequest = new ElevatorRequest(LocalTime.now(), 2, Direction.UP, 4, Origin.FLOOR_SYSTEM);
+    }
+
+    @Test
+    void testObjectsArePassedByReference() {
+        transport2.sendObject(elevatorRequest, address1);
+
+        assertSame(elevatorRequest, transport1.receiveObject(0));
+        assertEquals(2, ((InetSocketAddress) transport1.getLastSender()).getPort());
+    }
+
+    @Test
+    void testReceiveTimesOutWithoutObjects() {
+        assertNull(transport1.receiveObject(-1));
+        assertNull(transport1.receiveObject(10));
+    }
+
+    @Test
+    void testBatchIsReceivedInOrder() {
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 1; i <= 5; i++) {
+            events.add(new ElevatorRequest(LocalTime.now(), i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM));
+        }
+
+        assertEquals(5, transport2.sendBatch(events, List.of(address1)));
+        assertTrue(events.isEmpty());
+        List<?> batch = (List<?>) transport1.receiveObject(0);
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, ((ElevatorRequest) batch.get(i - 1)).getFloorNumber());
+        }
+    }
+
+    @Test
+    void testSelectorReportsTransportWithObjects() {
+        TransportSelector selector = factory.openSelector();
+        transport1.register(selector, "transport1");
+        transport2.register(selector, "transport2");
+
+        assertTrue(selector.select(10).isEmpty());
+        transport2.sendObject(RequestMessage.SUBSCRIBE.getMessage(), address1);
+        assertEquals(List.of("transport1"), selector.select(0));
+    }
+
+    @Test
+    void testClosedPortCanBeReopened() {
+        assertThrows(IllegalStateException.class, () -> factory.open(1));
+        transport1.close();
+        transport2.sendObject(elevatorRequest, address1);
+
+        Transport reopened = factory.open(1);
+        assertNull(reopened.receiveObject(-1));
+    }
+}
@@ -0,0 +1,197 @@
+package client_server_host;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ApproachEvent;
+import requests.ElevatorRequest;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IntermediateHostTest ensures that events are routed to the Server running their elevator
+ * and that events for elevators that are not registered stay queued.
+ */
+public class IntermediateHostTest {
+
+    private InMemoryTransportFactory factory;
+    private IntermediateHost intermediateHost;
+    private Transport server1;
+    private Transport server2;
+    private InetSocketAddress address1;
+    private InetSocketAddress address2;
+
+    @BeforeEach
+    void setUp() {
+        factory = new InMemoryTransportFactory();
+        intermediateHost = new IntermediateHost(Port.CLIENT_TO_SERVER.getNumber(), factory);
+        server1 = factory.open(101);
+        server2 = factory.open(102);
+        address1 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 101);
+        address2 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 102);
+    }
+
+    /**
+     * Returns an ElevatorRequest assigned to the specified elevator.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @return an ElevatorRequest for the elevator
+     */
+    private ElevatorRequest requestFor(int elevatorNumber) {
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 1, Direction.UP, 5, Origin.ELEVATOR_SYSTEM);
+        request.setElevatorNumber(elevatorNumber);
+        return request;
+    }
+
+    /**
+     * Returns the elevator numbers of the events in the next batch received by a Transport.
+     *
+     * @param transport the Transport receiving the batch
+     * @return the elevator numbers of the batch's events, or null if nothing was received
+     */
+    private List<Integer> receiveElevatorNumbers(Transport transport) {
+        List<?> batch = (List<?>) transport.receiveObject(-1);
+        return batch == null ? null : batch.stream().map(event -> ((SystemEvent) event).getElevatorNumber()).toList();
+    }
+
+    @Test
+    void testEventsArePublishedToEverySubscriberWithoutRoutes() {
+        intermediateHost.addSubscriber(address1);
+        intermediateHost.addSubscriber(address2);
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.addEventToQueue(requestFor(2));
+        intermediateHost.publishQueuedEvents();
+
+        assertEquals(List.of(1, 2), receiveElevatorNumbers(server1));
+        assertEquals(List.of(1, 2), receiveElevatorNumbers(server2));
+    }
+
+    @Test
+    void testEventsAreRoutedToTheServerOfTheirElevator() {
+        intermediateHost.addRoute(1, address1);
+        intermediateHost.addRoute(2, address2);
+        intermediateHost.addRoute(3, address1);
+        intermediateHost.addSubscriber(address1);
+        intermediateHost.addSubscriber(address2);
+        assertEquals(address2, intermediateHost.getRoute(2));
+
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.addEventToQueue(requestFor(2));
+        intermediateHost.addEventToQueue(new ApproachEvent(requestFor(3), 2, 3));
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.publishQueuedEvents();
+
+        assertEquals(List.of(1, 3, 1), receiveElevatorNumbers(server1));
+        assertEquals(List.of(2), receiveElevatorNumbers(server2));
+        assertTrue(intermediateHost.queueIsEmpty());
+    }
+
+    @Test
+    void testUnassignedRequestsAreNotPublishedToServers() {
+        intermediateHost.addRoute(1, address1);
+        intermediateHost.addRoute(2, address2);
+        intermediateHost.addSubscriber(address1);
+        intermediateHost.addSubscriber(address2);
+        intermediateHost.addEventToQueue(requestFor(0));
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.publishQueuedEvents();
+
+        assertEquals(List.of(1), receiveElevatorNumbers(server1));
+        assertNull(receiveElevatorNumbers(server2));
+        assertTrue(intermediateHost.queueIsEmpty());
+    }
+
+    @Test
+    void testEventsForUnregisteredElevatorsStayQueued() {
+        intermediateHost.addRoute(1, address1);
+        intermediateHost.addSubscriber(address1);
+        intermediateHost.addEventToQueue(requestFor(2));
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.publishQueuedEvents();
+
+        assertEquals(List.of(1), receiveElevatorNumbers(server1));
+        assertFalse(intermediateHost.queueIsEmpty());
+        assertEquals(1, intermediateHost.getQueueDepth());
+
+        intermediateHost.addRoute(2, address2);
+        intermediateHost.addSubscriber(address2);
+        intermediateHost.publishQueuedEvents();
+        assertEquals(List.of(2), receiveElevatorNumbers(server2));
+        assertNull(receiveElevatorNumbers(server1));
+        assertTrue(intermediateHost.queueIsEmpty());
+    }
+
+    @Test
+    void testQueueDepthAndDropOldestPolicy() {
+        intermediateHost = new IntermediateHost(Port.SERVER_TO_CLIENT.getNumber(), factory, 2, QueueFullPolicy.DROP_OLDEST);
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.addEventToQueue(requestFor(2));
+        assertEquals(2, intermediateHost.getQueueDepth());
+        intermediateHost.addEventToQueue(requestFor(3));
+        assertEquals(2, intermediateHost.getQueueDepth());
+        assertEquals(1, intermediateHost.getDroppedEvents());
+
+        intermediateHost.addSubscriber(address1);
+        intermediateHost.publishQueuedEvents();
+        assertEquals(0, intermediateHost.getQueueDepth());
+        assertEquals(List.of(2, 3), receiveElevatorNumbers(server1));
+    }
+
+    @Test
+    void testBlockPolicyPublishesWhenQueueIsFull() {
+        intermediateHost = new IntermediateHost(Port.SERVER_TO_CLIENT.getNumber(), factory, 2, QueueFullPolicy.BLOCK);
+        intermediateHost.addSubscriber(address1);
+        for (int i = 1; i <= 5; i++) {
+            intermediateHost.addEventToQueue(requestFor(i));
+        }
+        intermediateHost.publishQueuedEvents();
+
+        List<Integer> received = new ArrayList<>();
+        List<Integer> batch;
+        while ((batch = receiveElevatorNumbers(server1)) != null) {
+            received.addAll(batch);
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5), received);
+    }
+
+    @Test
+    void testBlockPolicyWaitsForASubscriberWhenQueueIsFull() throws InterruptedException {
+        intermediateHost = new IntermediateHost(Port.SERVER_TO_CLIENT.getNumber(), factory, 2, QueueFullPolicy.BLOCK);
+        intermediateHost.addEventToQueue(requestFor(1));
+        intermediateHost.addEventToQueue(requestFor(2));
+        intermediateHost.publishQueuedEvents();
+
+        CountDownLatch queued = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            intermediateHost.addEventToQueue(requestFor(3));
+            queued.countDown();
+        });
+        producer.start();
+        assertFalse(queued.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, intermediateHost.getQueueDepth());
+
+        intermediateHost.addSubscriber(address1);
+        intermediateHost.publishQueuedEvents();
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+        intermediateHost.publishQueuedEvents();
+        producer.join();
+
+        List<Integer> received = new ArrayList<>();
+        List<Integer> batch;
+        while ((batch = receiveElevatorNumbers(server1)) != null) {
+            received.addAll(batch);
+        }
+        assertEquals(List.of(1, 2, 3), received);
+        assertEquals(0, intermediateHost.getQueueDepth());
+    }
+}
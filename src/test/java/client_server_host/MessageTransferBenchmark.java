@@ -0,0 +1,70 @@
+package client_server_host;
+
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import requests.ElevatorMonitor;
+import requests.SystemEvent;
+import systemwide.Direction;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * MessageTransferBenchmark exchanges ElevatorMonitors between two MessageTransfers, one datagram
+ * and acknowledgement per event and then one per batch, and prints the rate of each. It is not
+ * part of the unit tests; run it with
+ * java -cp target/classes:target/test-classes client_server_host.MessageTransferBenchmark
+ */
+public class MessageTransferBenchmark {
+
+    private static final int NUMBER_OF_EVENTS = 5000;
+
+    /**
+     * Prints the rate at which events are exchanged singly and in batches.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        MessageTransfer receiver = new MessageTransfer(0);
+        MessageTransfer sender = new MessageTransfer(0);
+        InetSocketAddress destination = new InetSocketAddress(InetAddress.getLoopbackAddress(), receiver.getPortNumber());
+        InetSocketAddress senderAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), sender.getPortNumber());
+        List<InetSocketAddress> destinations = List.of(destination);
+        String acknowledgement = RequestMessage.ACKNOWLEDGE.getMessage();
+        ElevatorMonitor elevatorMonitor = new ElevatorMonitor(0, 1, Direction.UP, MovementState.IDLE, Direction.UP,
+                Doors.State.OPEN, Fault.NONE, true, 0);
+
+        // one datagram and one acknowledgement per event
+        long singleStart = System.nanoTime();
+        for (int i = 0; i < NUMBER_OF_EVENTS; i++) {
+            sender.sendObject(elevatorMonitor, destination);
+            receiver.receiveObject();
+            receiver.sendObject(acknowledgement, senderAddress);
+            sender.receiveObject();
+        }
+        long singleTime = System.nanoTime() - singleStart;
+
+        // one datagram and one acknowledgement per batch
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 0; i < NUMBER_OF_EVENTS; i++) {
+            events.add(elevatorMonitor);
+        }
+        long batchStart = System.nanoTime();
+        while (!events.isEmpty()) {
+            sender.sendBatch(events, destinations);
+            receiver.receiveObject();
+            receiver.sendObject(acknowledgement, senderAddress);
+            sender.receiveObject();
+        }
+        long batchTime = System.nanoTime() - batchStart;
+
+        System.out.printf("Single events: %.0f events/s, batched events: %.0f events/s%n",
+                NUMBER_OF_EVENTS * 1e9 / singleTime, NUMBER_OF_EVENTS * 1e9 / batchTime);
+        sender.closeSocket();
+        receiver.closeSocket();
+    }
+}
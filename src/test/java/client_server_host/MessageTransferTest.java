@@ -10,11 +10,16 @@ import systemwide.Direction;
 import systemwide.Origin;
 import systemwide.Structure;
 
+import java.lang.management.ManagementFactory;
 import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * MessageTransferTest ensures the encoding/decoding and send/receive methods
@@ -137,4 +142,117 @@ public class MessageTransferTest {
         assertTrue(object instanceof SystemEvent);
         assertTrue(object instanceof ElevatorRequest);
     }
+
+    @Test
+    void sendAndReceiveObjectBetweenTwoChannels() {
+        MessageTransfer messageTransfer2 = new MessageTransfer(0);
+        InetSocketAddress destination = new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+
+        messageTransfer2.sendObject(elevatorMonitor, destination);
+        Object object = msgTransfer.receiveObject();
+
+        assertTrue(object instanceof ElevatorMonitor);
+        assertEquals(messageTransfer2.getPortNumber(), ((InetSocketAddress) msgTransfer.getLastSender()).getPort());
+        messageTransfer2.closeSocket();
+    }
+
+    @Test
+    void requestMessagesAreDecodedWithoutNewStrings() {
+        MessageTransfer messageTransfer2 = new MessageTransfer(0);
+        InetSocketAddress destination = new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+
+        for (RequestMessage requestMessage : RequestMessage.values()) {
+            messageTransfer2.sendObject(requestMessage.getMessage(), destination);
+            assertSame(requestMessage.getMessage(), msgTransfer.receiveObject());
+        }
+        messageTransfer2.closeSocket();
+    }
+
+    @Test
+    void requestMessagesAreEncodedAsOpcodes() {
+        for (RequestMessage requestMessage : RequestMessage.values()) {
+            byte[] bytes = msgTransfer.encodeObject(requestMessage.getMessage());
+            assertArrayEquals(new byte[]{EventCodec.CONTROL, requestMessage.getOpcode()}, bytes);
+            assertSame(requestMessage.getMessage(), msgTransfer.decodeObject(bytes));
+        }
+        // messages sent as characters are still recognised
+        assertSame(RequestMessage.TERMINATE.getMessage(), msgTransfer.decodeObject("Terminate Threads".getBytes()));
+        assertEquals("Other message", msgTransfer.decodeObject(msgTransfer.encodeObject("Other message")));
+    }
+
+    @Test
+    void steadyStateExchangeDoesNotAllocate() {
+        MessageTransfer messageTransfer2 = new MessageTransfer(0);
+        InetSocketAddress destination = new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+        String message = RequestMessage.ACKNOWLEDGE.getMessage();
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // warm up so that one-time allocations (class loading, address caching) are done
+        for (int i = 0; i < 1000; i++) {
+            messageTransfer2.sendObject(message, destination);
+            msgTransfer.receiveObject();
+        }
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            messageTransfer2.sendObject(message, destination);
+            msgTransfer.receiveObject();
+        }
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(allocatedBytes < 1000, "Allocated " + allocatedBytes + " bytes for 1000 exchanges");
+        assertEquals(msgTransfer.getBufferPool().available(), messageTransfer2.getBufferPool().available());
+        messageTransfer2.closeSocket();
+    }
+
+    @Test
+    void batchingPacksManyEventsIntoEachDatagram() {
+        MessageTransfer messageTransfer2 = new MessageTransfer(0);
+        InetSocketAddress destination = new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+        List<InetSocketAddress> destinations = List.of(destination);
+        int numberOfEvents = 5000;
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 0; i < numberOfEvents; i++) {
+            events.add(elevatorMonitor);
+        }
+
+        // each datagram carries as many events as fit, and is received as one batch
+        int datagrams = 0;
+        int eventsReceived = 0;
+        int fullBatchSize = 0;
+        while (!events.isEmpty()) {
+            int eventsSent = messageTransfer2.sendBatch(events, destinations);
+            List<?> batch = (List<?>) msgTransfer.receiveObject();
+            assertEquals(eventsSent, batch.size());
+            assertTrue(batch.stream().allMatch(ElevatorMonitor.class::isInstance));
+            if (datagrams == 0) {
+                fullBatchSize = eventsSent;
+            } else if (!events.isEmpty()) {
+                assertEquals(fullBatchSize, eventsSent);
+            }
+            datagrams++;
+            eventsReceived += eventsSent;
+        }
+
+        assertEquals(numberOfEvents, eventsReceived);
+        assertTrue(fullBatchSize > 1);
+        assertEquals((numberOfEvents + fullBatchSize - 1) / fullBatchSize, datagrams);
+        messageTransfer2.closeSocket();
+    }
+
+    @Test
+    void largeMessagesAreFragmentedAndReassembled() {
+        MessageTransfer messageTransfer2 = new MessageTransfer(0);
+        InetSocketAddress destination = new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+        String largeMessage = "floor ".repeat(1000);
+
+        messageTransfer2.sendObject(largeMessage, destination);
+        messageTransfer2.sendObject(elevatorMonitor, destination);
+
+        assertEquals(largeMessage, msgTransfer.receiveObject());
+        assertTrue(msgTransfer.receiveObject() instanceof ElevatorMonitor);
+        assertEquals(0, msgTransfer.getReassemblyBuffer().size());
+        assertEquals(0, msgTransfer.getReassemblyBuffer().getDroppedFragments());
+        messageTransfer2.closeSocket();
+    }
 }
@@ -0,0 +1,91 @@
+package client_server_host;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReassemblyBufferTest ensures that fragments are reassembled in any order and that
+ * incomplete messages are evicted and counted once they time out.
+ */
+public class ReassemblyBufferTest {
+
+    private static final int MAX_FRAGMENT_SIZE = 100;
+    private MessageTransfer messageTransfer;
+    private InetSocketAddress sender;
+    private String message;
+
+    @BeforeEach
+    void setUp() {
+        messageTransfer = new MessageTransfer(0);
+        sender = new InetSocketAddress(InetAddress.getLoopbackAddress(), 1);
+        message = "0123456789".repeat(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        messageTransfer.closeSocket();
+    }
+
+    /**
+     * Splits the message into fragments of at most MAX_FRAGMENT_SIZE bytes.
+     *
+     * @return the fragments of the message
+     */
+    private List<ByteBuffer> fragmentMessage() {
+        return messageTransfer.fragment(messageTransfer.encodeLargeObject(message), MAX_FRAGMENT_SIZE);
+    }
+
+    @Test
+    void testFragmentsAreReassembledInAnyOrder() {
+        ReassemblyBuffer reassemblyBuffer = new ReassemblyBuffer(ReassemblyBuffer.DEFAULT_TIMEOUT);
+        List<ByteBuffer> fragments = fragmentMessage();
+        assertEquals(6, fragments.size());
+
+        ByteBuffer reassembled = null;
+        for (int i = fragments.size() - 1; i >= 0; i--) {
+            assertNull(reassembled);
+            assertTrue(fragments.get(i).remaining() <= MAX_FRAGMENT_SIZE);
+            reassembled = reassemblyBuffer.add(sender, fragments.get(i));
+        }
+        assertNotNull(reassembled);
+        assertEquals(message, messageTransfer.decodeObject(reassembled));
+        assertEquals(0, reassemblyBuffer.size());
+    }
+
+    @Test
+    void testDuplicateFragmentsAreDropped() {
+        ReassemblyBuffer reassemblyBuffer = new ReassemblyBuffer(ReassemblyBuffer.DEFAULT_TIMEOUT);
+        List<ByteBuffer> fragments = fragmentMessage();
+
+        assertNull(reassemblyBuffer.add(sender, fragments.get(0).duplicate()));
+        assertNull(reassemblyBuffer.add(sender, fragments.get(0)));
+        assertEquals(1, reassemblyBuffer.getDroppedFragments());
+    }
+
+    @Test
+    void testIncompleteMessagesAreEvicted() throws InterruptedException {
+        ReassemblyBuffer reassemblyBuffer = new ReassemblyBuffer(50);
+        List<ByteBuffer> fragments = fragmentMessage();
+        for (int i = 0; i < fragments.size() - 1; i++) {
+            reassemblyBuffer.add(sender, fragments.get(i));
+        }
+        assertEquals(1, reassemblyBuffer.size());
+
+        Thread.sleep(100);
+        reassemblyBuffer.evictExpiredMessages();
+        assertEquals(0, reassemblyBuffer.size());
+        assertEquals(fragments.size() - 1, reassemblyBuffer.getDroppedFragments());
+        assertEquals(1, reassemblyBuffer.getDroppedMessages());
+
+        // the last fragment arrives too late to complete the message
+        assertNull(reassemblyBuffer.add(sender, fragments.get(fragments.size() - 1)));
+    }
+}
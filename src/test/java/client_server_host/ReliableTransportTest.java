@@ -0,0 +1,259 @@
+package client_server_host;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorRequest;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReliableTransportTest ensures that ReliableTransports deliver messages in order
+ * over a lossy link and only retransmit messages that were lost, and that peers keep
+ * communicating after an outage or a restart.
+ */
+public class ReliableTransportTest {
+
+    private static final int MESSAGES = 200;
+    private static final int DROP_INTERVAL = 5;
+    private ReliableTransport sender;
+    private ReliableTransport receiver;
+    private volatile boolean running;
+    private volatile boolean linkDown;
+
+    @BeforeEach
+    void setUp() {
+        sender = new ReliableTransport(new MessageTransfer(0), 8, 50);
+        receiver = new ReliableTransport(new MessageTransfer(0));
+        running = true;
+    }
+
+    @AfterEach
+    void tearDown() {
+        running = false;
+        sender.close();
+        receiver.close();
+    }
+
+    /**
+     * Returns the loopback address of a port.
+     *
+     * @param portNumber the port number
+     * @return the loopback address of the port
+     */
+    private static InetSocketAddress loopback(int portNumber) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), portNumber);
+    }
+
+    /**
+     * Starts a thread that processes the acknowledgements received by the sender.
+     *
+     * @return the started thread
+     */
+    private Thread startAcknowledgementThread() {
+        Thread thread = new Thread(() -> {
+            while (running) {
+                sender.receiveObject(10);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Starts a thread that forwards frames between the sender and the receiver,
+     * dropping every DROP_INTERVAL-th frame in either direction, and every frame while the link is down.
+     *
+     * @param proxy the MessageTransfer the sender sends to
+     * @return the started thread
+     */
+    private Thread startLossyProxy(MessageTransfer proxy) {
+        Thread thread = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocate(MessageTransfer.MAX_BYTE_ARRAY_SIZE);
+            int frames = 0;
+            while (running) {
+                buffer.clear();
+                SocketAddress source = proxy.receiveFrame(buffer, 10);
+                if (source == null || linkDown || ++frames % DROP_INTERVAL == 0) {
+                    continue;
+                }
+                buffer.flip();
+                int sourcePort = ((InetSocketAddress) source).getPort();
+                int destinationPort = sourcePort == sender.getPortNumber() ? receiver.getPortNumber() : sender.getPortNumber();
+                proxy.sendFrame(buffer, loopback(destinationPort));
+            }
+            proxy.closeSocket();
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void testLostMessagesAreRetransmittedInOrder() throws InterruptedException {
+        MessageTransfer proxy = new MessageTransfer(0);
+        InetSocketAddress proxyAddress = loopback(proxy.getPortNumber());
+        Thread proxyThread = startLossyProxy(proxy);
+        Thread acknowledgementThread = startAcknowledgementThread();
+
+        for (int i = 1; i <= MESSAGES; i++) {
+            sender.sendObject(new ElevatorRequest(LocalTime.now(), i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM), proxyAddress);
+        }
+        for (int i = 1; i <= MESSAGES; i++) {
+            ElevatorRequest request = (ElevatorRequest) receiver.receiveObject(5000);
+            assertNotNull(request, "message " + i + " was not delivered");
+            assertEquals(i, request.getFloorNumber());
+        }
+        assertTrue(sender.getRetransmissions() > 0);
+
+        running = false;
+        acknowledgementThread.join();
+        proxyThread.join();
+    }
+
+    @Test
+    void testBatchesAreRetransmittedInOrder() throws InterruptedException {
+        MessageTransfer proxy = new MessageTransfer(0);
+        InetSocketAddress proxyAddress = loopback(proxy.getPortNumber());
+        Thread proxyThread = startLossyProxy(proxy);
+        Thread acknowledgementThread = startAcknowledgementThread();
+
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 1; i <= MESSAGES; i++) {
+            events.add(new ElevatorRequest(LocalTime.now(), i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM));
+            sender.sendBatch(events, List.of(proxyAddress));
+        }
+        for (int i = 1; i <= MESSAGES; i++) {
+            List<?> batch = (List<?>) receiver.receiveObject(5000);
+            assertNotNull(batch, "batch " + i + " was not delivered");
+            assertEquals(i, ((ElevatorRequest) batch.get(0)).getFloorNumber());
+        }
+        assertTrue(sender.getRetransmissions() > 0);
+
+        running = false;
+        acknowledgementThread.join();
+        proxyThread.join();
+    }
+
+    @Test
+    void testLargeMessagesAreFragmentedOverLossyLink() throws InterruptedException {
+        MessageTransfer proxy = new MessageTransfer(0);
+        InetSocketAddress proxyAddress = loopback(proxy.getPortNumber());
+        Thread proxyThread = startLossyProxy(proxy);
+        Thread acknowledgementThread = startAcknowledgementThread();
+
+        for (int i = 1; i <= 10; i++) {
+            sender.sendObject(String.valueOf(i).repeat(5000), proxyAddress);
+        }
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(String.valueOf(i).repeat(5000), receiver.receiveObject(5000));
+        }
+        assertTrue(sender.getRetransmissions() > 0);
+
+        running = false;
+        acknowledgementThread.join();
+        proxyThread.join();
+    }
+
+    @Test
+    void testAcknowledgedMessagesAreNotRetransmitted() throws UnknownHostException, InterruptedException {
+        // Clients address the Scheduler through the local host address rather than the loopback address
+        InetSocketAddress receiverAddress = new InetSocketAddress(InetAddress.getLocalHost(), receiver.getPortNumber());
+        Thread acknowledgementThread = startAcknowledgementThread();
+
+        for (int i = 1; i <= 10; i++) {
+            sender.sendObject(RequestMessage.REQUEST.getMessage(), receiverAddress);
+        }
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(RequestMessage.REQUEST.getMessage(), receiver.receiveObject(1000));
+        }
+        Thread.sleep(4 * ReliableTransport.DEFAULT_INITIAL_RTO);
+        assertEquals(0, sender.getRetransmissions());
+
+        running = false;
+        acknowledgementThread.join();
+    }
+
+    @Test
+    void testFramesUnacknowledgedForManyRtosAreDelivered() throws InterruptedException {
+        sender.close();
+        sender = new ReliableTransport(new MessageTransfer(0), 8, 20, 40);
+        MessageTransfer proxy = new MessageTransfer(0);
+        InetSocketAddress proxyAddress = loopback(proxy.getPortNumber());
+        Thread proxyThread = startLossyProxy(proxy);
+        Thread acknowledgementThread = startAcknowledgementThread();
+
+        sender.sendObject(RequestMessage.REQUEST.getMessage(), proxyAddress);
+        assertEquals(RequestMessage.REQUEST.getMessage(), receiver.receiveObject(5000));
+        // the acknowledgement of the first frame reaches the sender before the link goes down
+        Thread.sleep(200);
+        // the link stays down until every frame sent meanwhile has gone unacknowledged for more than 10 RTOs
+        linkDown = true;
+        for (int i = 1; i <= 4; i++) {
+            sender.sendObject(new ElevatorRequest(LocalTime.now(), i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM), proxyAddress);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sender.getRetransmissions() < 4 * 12 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(sender.getRetransmissions() >= 4 * 12);
+        linkDown = false;
+
+        for (int i = 1; i <= 4; i++) {
+            ElevatorRequest request = (ElevatorRequest) receiver.receiveObject(5000);
+            assertNotNull(request, "message " + i + " was not delivered");
+            assertEquals(i, request.getFloorNumber());
+        }
+        sender.sendObject(RequestMessage.TERMINATE.getMessage(), proxyAddress);
+        assertEquals(RequestMessage.TERMINATE.getMessage(), receiver.receiveObject(5000));
+
+        running = false;
+        acknowledgementThread.join();
+        proxyThread.join();
+    }
+
+    @Test
+    void testMessagesAreDeliveredAfterSenderRestarts() {
+        InetSocketAddress receiverAddress = loopback(receiver.getPortNumber());
+        for (int i = 0; i < 3; i++) {
+            sender.sendObject(RequestMessage.REQUEST.getMessage(), receiverAddress);
+            assertEquals(RequestMessage.REQUEST.getMessage(), receiver.receiveObject(1000));
+        }
+        // the restarted sender numbers its frames from 0 again, on the same port
+        int portNumber = sender.getPortNumber();
+        sender.close();
+        sender = new ReliableTransport(new MessageTransfer(portNumber), 8, 50);
+
+        sender.sendObject(RequestMessage.ACKNOWLEDGE.getMessage(), receiverAddress);
+        assertEquals(RequestMessage.ACKNOWLEDGE.getMessage(), receiver.receiveObject(1000));
+    }
+
+    @Test
+    void testUnsequencedMessagesAreDelivered() {
+        MessageTransfer messageTransfer = new MessageTransfer(0);
+        messageTransfer.sendObject(RequestMessage.ACKNOWLEDGE.getMessage(), loopback(receiver.getPortNumber()));
+
+        assertEquals(RequestMessage.ACKNOWLEDGE.getMessage(), receiver.receiveObject(1000));
+        assertEquals(messageTransfer.getPortNumber(), ((InetSocketAddress) receiver.getLastSender()).getPort());
+        messageTransfer.closeSocket();
+    }
+
+    @Test
+    void testWindowSizeMustFitSelectiveAcknowledgements() {
+        MessageTransfer messageTransfer = new MessageTransfer(0);
+        assertThrows(IllegalArgumentException.class, () -> new ReliableTransport(messageTransfer, 65, 50));
+        messageTransfer.closeSocket();
+    }
+}
@@ -0,0 +1,53 @@
+package client_server_host;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SharedMemoryTransportBenchmark echoes messages between two SharedMemoryTransports and prints
+ * the average round trip time. It is not part of the unit tests; run it with
+ * java -cp target/classes:target/test-classes client_server_host.SharedMemoryTransportBenchmark
+ */
+public class SharedMemoryTransportBenchmark {
+
+    private static final int RING_CAPACITY = 1 << 12;
+    private static final int ROUND_TRIPS = 10000;
+
+    /**
+     * Prints the average round trip time of a message through shared memory.
+     *
+     * @param args not used
+     * @throws IOException if the directory holding the rings cannot be created
+     * @throws InterruptedException if interrupted while waiting for the echoing thread
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("shared-memory-benchmark");
+        SharedMemoryTransportFactory factory = new SharedMemoryTransportFactory(directory, RING_CAPACITY);
+        Transport transport1 = factory.open(1);
+        Transport transport2 = factory.open(2);
+        InetSocketAddress address1 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 1);
+        InetSocketAddress address2 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 2);
+        Thread echo = new Thread(() -> {
+            for (int i = 0; i < ROUND_TRIPS; i++) {
+                transport2.sendObject(transport2.receiveObject(0), address1);
+            }
+        });
+        echo.start();
+
+        String message = RequestMessage.SUBSCRIBE.getMessage();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUND_TRIPS; i++) {
+            transport1.sendObject(message, address2);
+            transport1.receiveObject(0);
+        }
+        long averageRoundTrip = (System.nanoTime() - start) / ROUND_TRIPS;
+        echo.join();
+
+        System.out.println("Average shared memory round trip: " + averageRoundTrip / 1000.0 + " microseconds");
+        transport1.close();
+        transport2.close();
+    }
+}
@@ -0,0 +1,199 @@
+package client_server_host;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import requests.ElevatorRequest;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SharedMemoryTransportTest ensures that SharedMemoryRings keep messages in order across
+ * the end of the ring and that SharedMemoryTransports exchange objects through them.
+ */
+public class SharedMemoryTransportTest {
+
+    private static final int RING_CAPACITY = 1 << 12;
+    private static final int ROUND_TRIPS = 10000;
+
+    @TempDir
+    Path directory;
+    private SharedMemoryTransportFactory factory;
+    private Transport transport1;
+    private Transport transport2;
+    private InetSocketAddress address1;
+    private InetSocketAddress address2;
+
+    @BeforeEach
+    void setUp() {
+        factory = new SharedMemoryTransportFactory(directory, RING_CAPACITY);
+        transport1 = factory.open(1);
+        transport2 = factory.open(2);
+        address1 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 1);
+        address2 = new InetSocketAddress(InetAddress.getLoopbackAddress(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport1.close();
+        transport2.close();
+    }
+
+    @Test
+    void testRingKeepsOrderAcrossWraparound() throws IOException {
+        SharedMemoryRing producer = new SharedMemoryRing(directory.resolve("ring"), 256);
+        SharedMemoryRing consumer = new SharedMemoryRing(directory.resolve("ring"), 256);
+        ByteBuffer destination = ByteBuffer.allocate(256);
+
+        // 1000 messages of varying size pass the end of the 256 byte ring many times
+        for (int i = 0; i < 1000; i++) {
+            ByteBuffer message = ByteBuffer.allocate(1 + i % 37);
+            message.put(0, (byte) i);
+            assertTrue(producer.offer(message));
+            assertFalse(consumer.isEmpty());
+
+            destination.clear();
+            assertTrue(consumer.poll(destination));
+            assertEquals(1 + i % 37, destination.position());
+            assertEquals((byte) i, destination.get(0));
+        }
+        assertTrue(consumer.isEmpty());
+        assertFalse(consumer.poll(destination));
+    }
+
+    @Test
+    void testFullRingRejectsMessages() throws IOException {
+        SharedMemoryRing ring = new SharedMemoryRing(directory.resolve("ring"), 64);
+        int offered = 0;
+        while (ring.offer(ByteBuffer.allocate(12))) {
+            offered++;
+        }
+        assertEquals(4, offered);
+
+        ring.clear();
+        assertTrue(ring.isEmpty());
+        assertTrue(ring.offer(ByteBuffer.allocate(12)));
+    }
+
+    @Test
+    void testObjectsAreReceivedFromSender() {
+        ElevatorRequest elevatorRequest = new ElevatorRequest(LocalTime.now(), 2, Direction.UP, 4, Origin.FLOOR_SYSTEM);
+        transport2.sendObject(elevatorRequest, address1);
+
+        ElevatorRequest received = (ElevatorRequest) transport1.receiveObject(0);
+        assertEquals(2, received.getFloorNumber());
+        assertEquals(Direction.UP, received.getDirection());
+        assertEquals(2, ((InetSocketAddress) transport1.getLastSender()).getPort());
+        assertTrue(transport1.isReliable());
+    }
+
+    @Test
+    void testReceiveTimesOutWithoutObjects() {
+        assertNull(transport1.receiveObject(-1));
+        assertNull(transport1.receiveObject(10));
+    }
+
+    @Test
+    void testBatchIsReceivedInOrder() {
+        Queue<SystemEvent> events = new ArrayDeque<>();
+        for (int i = 1; i <= 5; i++) {
+            events.add(new ElevatorRequest(LocalTime.now(), i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM));
+        }
+
+        assertEquals(5, transport2.sendBatch(events, List.of(address1)));
+        List<?> batch = (List<?>) transport1.receiveObject(0);
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, ((ElevatorRequest) batch.get(i - 1)).getFloorNumber());
+        }
+    }
+
+    @Test
+    void testPortCannotBeOpenedTwice() {
+        assertThrows(IllegalStateException.class, () -> factory.open(1));
+
+        transport1.close();
+        transport1 = factory.open(1);
+        assertEquals(1, transport1.getPortNumber());
+    }
+
+    @Test
+    void testSenderWaitsWhileReceiverRingIsFull() throws InterruptedException {
+        int messages = 500;
+        Thread senderThread = new Thread(() -> {
+            for (int i = 1; i <= messages; i++) {
+                transport2.sendObject(new ElevatorRequest(LocalTime.now(), i, Direction.UP, i + 1, Origin.FLOOR_SYSTEM), address1);
+            }
+        });
+        senderThread.start();
+        // the ring stays full for longer than the sender waits before checking on the receiver
+        Thread.sleep(1500);
+
+        for (int i = 1; i <= messages; i++) {
+            ElevatorRequest request = (ElevatorRequest) transport1.receiveObject(5000);
+            assertNotNull(request, "message " + i + " was not delivered");
+            assertEquals(i, request.getFloorNumber());
+        }
+        senderThread.join();
+        assertEquals(0, ((SharedMemoryTransport) transport2).getDroppedMessages());
+    }
+
+    @Test
+    void testMessagesToClosedReceiverAreDropped() {
+        transport1.close();
+        SharedMemoryTransport sender = (SharedMemoryTransport) transport2;
+        for (int i = 0; i < 5000 && sender.getDroppedMessages() == 0; i++) {
+            sender.sendObject(RequestMessage.REQUEST.getMessage(), address1);
+        }
+        assertEquals(1, sender.getDroppedMessages());
+
+        transport1 = factory.open(1);
+        assertNull(transport1.receiveObject(-1));
+    }
+
+    @Test
+    void testSelectorReportsTransportWithObjects() {
+        TransportSelector selector = factory.openSelector();
+        transport1.register(selector, "transport1");
+        transport2.register(selector, "transport2");
+
+        assertTrue(selector.select(10).isEmpty());
+        transport2.sendObject(RequestMessage.SUBSCRIBE.getMessage(), address1);
+        assertEquals(List.of("transport1"), selector.select(0));
+    }
+
+    @Test
+    void testEchoedObjectsKeepTheirOrder() throws InterruptedException {
+        Thread echo = new Thread(() -> {
+            for (int i = 0; i < ROUND_TRIPS; i++) {
+                transport2.sendObject(transport2.receiveObject(0), address1);
+            }
+        });
+        echo.start();
+
+        // the round trips pass the end of both rings many times
+        for (int i = 0; i < ROUND_TRIPS; i++) {
+            ElevatorRequest elevatorRequest = new ElevatorRequest(LocalTime.now(), 1 + i % 20, Direction.UP, 21, Origin.FLOOR_SYSTEM);
+            transport1.sendObject(elevatorRequest, address2);
+            ElevatorRequest received = (ElevatorRequest) transport1.receiveObject(0);
+            assertEquals(1 + i % 20, received.getFloorNumber());
+            assertEquals(2, ((InetSocketAddress) transport1.getLastSender()).getPort());
+        }
+        echo.join();
+        assertNull(transport1.receiveObject(-1));
+        assertNull(transport2.receiveObject(-1));
+    }
+}
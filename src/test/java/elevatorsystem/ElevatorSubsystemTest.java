@@ -0,0 +1,64 @@
+package elevatorsystem;
+
+import client_server_host.InMemoryTransportFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ApproachEvent;
+import requests.ElevatorRequest;
+import systemwide.Direction;
+import systemwide.Origin;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ElevatorSubsystemTest ensures that the ElevatorSubsystem skips the events it cannot process,
+ * such as requests for elevators run by other ElevatorSubsystems, instead of stopping.
+ */
+public class ElevatorSubsystemTest {
+
+    private ElevatorSubsystem elevatorSubsystem;
+
+    @BeforeEach
+    void setUp() {
+        elevatorSubsystem = new ElevatorSubsystem(200, new InMemoryTransportFactory());
+        Structure structure = new Structure(20, 4, 1000, 1000);
+        structure.addZone(new Zone(1, 2, 10, 1, 2));
+        structure.addZone(new Zone(1, 11, 20, 3, 4));
+        elevatorSubsystem.initializeElevators(structure, 1, 2);
+    }
+
+    /**
+     * Returns an ElevatorRequest assigned to the specified elevator.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param desiredFloor the floor the passenger travels to
+     * @return an ElevatorRequest from the lobby for the elevator
+     */
+    private ElevatorRequest requestFor(int elevatorNumber, int desiredFloor) {
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 1, Direction.UP, desiredFloor, Origin.ELEVATOR_SYSTEM);
+        request.setElevatorNumber(elevatorNumber);
+        return request;
+    }
+
+    @Test
+    void testEventsForUnknownElevatorsAreSkipped() {
+        assertDoesNotThrow(() -> elevatorSubsystem.handleEvent(requestFor(0, 5)));
+        assertDoesNotThrow(() -> elevatorSubsystem.handleEvent(requestFor(3, 15)));
+        assertDoesNotThrow(() -> elevatorSubsystem.handleEvent(new ApproachEvent(requestFor(4, 15), 2, 4)));
+        assertTrue(elevatorSubsystem.getElevator(1).getRequestQueue().isEmpty());
+        assertTrue(elevatorSubsystem.getElevator(2).getRequestQueue().isEmpty());
+
+        elevatorSubsystem.handleEvent(requestFor(2, 5));
+        assertFalse(elevatorSubsystem.getElevator(2).getRequestQueue().isEmpty());
+    }
+
+    @Test
+    void testRequestsOutsideTheElevatorsZoneAreSkipped() {
+        assertDoesNotThrow(() -> elevatorSubsystem.handleEvent(requestFor(1, 15)));
+        assertTrue(elevatorSubsystem.getElevator(1).getRequestQueue().isEmpty());
+    }
+}
@@ -0,0 +1,209 @@
+package elevatorsystem;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ApproachEvent;
+import requests.ElevatorMonitor;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OutboundEventQueueTest ensures that ElevatorMonitors are coalesced per elevator
+ * while other events stay in the order they were added, and that a full queue makes
+ * elevators wait for room.
+ */
+public class OutboundEventQueueTest {
+
+    private OutboundEventQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new OutboundEventQueue();
+    }
+
+    /**
+     * Creates an ElevatorMonitor of an elevator moving up at the specified floor.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param floor the current floor of the elevator
+     * @return the ElevatorMonitor
+     */
+    private ElevatorMonitor monitorAt(int elevatorNumber, int floor) {
+        return new ElevatorMonitor(elevatorNumber, floor, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, floor);
+    }
+
+    @Test
+    void testOnlyTheLatestMonitorPerElevatorWaits() {
+        for (int floor = 1; floor <= 100; floor++) {
+            queue.add(monitorAt(1, floor));
+            queue.add(monitorAt(2, floor * 2));
+        }
+
+        assertEquals(2, queue.size());
+        assertEquals(198, queue.getCoalescedMonitors());
+        List<SystemEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        assertEquals(100, ((ElevatorMonitor) events.get(0)).getCurrentFloor());
+        assertEquals(200, ((ElevatorMonitor) events.get(1)).getCurrentFloor());
+        assertTrue(((ElevatorMonitor) events.get(0)).isKeyframe());
+    }
+
+    @Test
+    void testApproachEventsStayInOrder() throws InterruptedException {
+        queue.add(new ApproachEvent(LocalTime.now(), 2, Direction.UP, 1, Origin.ELEVATOR_SYSTEM));
+        queue.add(monitorAt(1, 2));
+        queue.add(new ApproachEvent(LocalTime.now(), 3, Direction.UP, 1, Origin.ELEVATOR_SYSTEM));
+        queue.add(monitorAt(1, 3));
+        queue.add(new ApproachEvent(LocalTime.now(), 4, Direction.UP, 1, Origin.ELEVATOR_SYSTEM));
+
+        assertEquals(2, ((ApproachEvent) queue.poll(0)).getFloorNumber());
+        // the monitor keeps its place but carries the newest status
+        assertEquals(3, ((ElevatorMonitor) queue.poll(0)).getCurrentFloor());
+        assertEquals(3, ((ApproachEvent) queue.poll(0)).getFloorNumber());
+        assertEquals(4, ((ApproachEvent) queue.poll(0)).getFloorNumber());
+        assertNull(queue.poll(10));
+    }
+
+    @Test
+    void testCoalescedDeltasHaveTheSameEffect() throws InterruptedException {
+        ElevatorMonitor keyframe = monitorAt(1, 1);
+        ElevatorMonitor doorsOpen = new ElevatorMonitor(1, 1, Direction.UP, MovementState.IDLE, Direction.NONE, Doors.State.OPEN, Fault.NONE, false, 1);
+        ElevatorMonitor nextFloor = new ElevatorMonitor(1, 2, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, 1);
+        ElevatorMonitor schedulerMonitor = new ElevatorMonitor(1);
+        schedulerMonitor.updateMonitor(keyframe);
+
+        queue.add(doorsOpen.deltaFrom(keyframe));
+        queue.add(nextFloor.deltaFrom(doorsOpen));
+        ElevatorMonitor coalesced = (ElevatorMonitor) queue.poll(0);
+        assertFalse(coalesced.isKeyframe());
+        schedulerMonitor.updateMonitor(coalesced);
+
+        assertEquals(2, schedulerMonitor.getCurrentFloor());
+        assertEquals(MovementState.ACTIVE, schedulerMonitor.getState());
+        assertEquals(Direction.UP, schedulerMonitor.getMovementDirection());
+        assertEquals(Doors.State.CLOSED, schedulerMonitor.getDoorsState());
+        // the sender's deltas are not modified by coalescing
+        assertEquals(1, doorsOpen.getCurrentFloor());
+    }
+
+    @Test
+    void testPollWaitsForEvents() throws InterruptedException {
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            queue.add(monitorAt(1, 5));
+        });
+        producer.start();
+
+        assertEquals(5, ((ElevatorMonitor) queue.poll(5000)).getCurrentFloor());
+        producer.join();
+    }
+
+    /**
+     * Creates an ApproachEvent of an elevator approaching the specified floor.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param floor the floor the elevator is approaching
+     * @return the ApproachEvent
+     */
+    private ApproachEvent approachEventAt(int elevatorNumber, int floor) {
+        return new ApproachEvent(LocalTime.now(), floor, Direction.UP, elevatorNumber, Origin.ELEVATOR_SYSTEM);
+    }
+
+    @Test
+    void testFullQueueWaitsForRoom() throws InterruptedException {
+        queue = new OutboundEventQueue(2);
+        queue.add(approachEventAt(1, 1));
+        queue.add(monitorAt(1, 1));
+        // merging into a waiting monitor never needs room
+        queue.add(monitorAt(1, 2));
+        assertEquals(2, queue.size());
+
+        Thread elevator = new Thread(() -> queue.add(approachEventAt(1, 3)));
+        elevator.start();
+        elevator.join(50);
+        assertTrue(elevator.isAlive());
+
+        assertEquals(1, ((ApproachEvent) queue.poll(0)).getFloorNumber());
+        elevator.join(5000);
+        assertFalse(elevator.isAlive());
+        assertEquals(1, queue.getBlockedAdds());
+        assertTrue(queue.getMaximumWaitTime() >= 40_000_000L);
+        assertEquals(queue.getMaximumWaitTime(), queue.getTotalWaitTime());
+        assertEquals(2, queue.getMaximumSize());
+        assertEquals(2, ((ElevatorMonitor) queue.poll(0)).getCurrentFloor());
+        assertEquals(3, ((ApproachEvent) queue.poll(0)).getFloorNumber());
+    }
+
+    @Test
+    void testAddWithoutWaitingAndCloseNeverWait() throws InterruptedException {
+        queue = new OutboundEventQueue(1);
+        queue.add(approachEventAt(1, 1));
+        queue.addWithoutWaiting(monitorAt(1, 1));
+        assertEquals(2, queue.size());
+
+        Thread elevator = new Thread(() -> queue.add(approachEventAt(1, 2)));
+        elevator.start();
+        elevator.join(50);
+        assertTrue(elevator.isAlive());
+        queue.close();
+        elevator.join(5000);
+        assertFalse(elevator.isAlive());
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.getBlockedAdds());
+    }
+
+    @Test
+    void testManyElevatorsShareABoundedQueue() throws InterruptedException {
+        int elevators = 120;
+        int eventsPerElevator = 50;
+        queue = new OutboundEventQueue(32);
+        List<Thread> elevatorThreads = new ArrayList<>();
+        for (int i = 1; i <= elevators; i++) {
+            int elevatorNumber = i;
+            Thread thread = new Thread(() -> {
+                for (int floor = 1; floor <= eventsPerElevator; floor++) {
+                    queue.add(approachEventAt(elevatorNumber, floor));
+                    queue.add(monitorAt(elevatorNumber, floor));
+                }
+            });
+            elevatorThreads.add(thread);
+            thread.start();
+        }
+
+        // each elevator's ApproachEvents must arrive in order, and every one must arrive
+        int[] nextFloor = new int[elevators + 1];
+        int approachEvents = 0;
+        List<SystemEvent> batch = new ArrayList<>();
+        while (approachEvents < elevators * eventsPerElevator) {
+            SystemEvent event = queue.poll(5000);
+            assertNotNull(event);
+            batch.add(event);
+            queue.drainTo(batch);
+            for (SystemEvent received : batch) {
+                if (received instanceof ApproachEvent approachEvent) {
+                    int elevatorNumber = approachEvent.getElevatorNumber();
+                    assertEquals(++nextFloor[elevatorNumber], approachEvent.getFloorNumber());
+                    approachEvents++;
+                }
+            }
+            batch.clear();
+        }
+        for (Thread thread : elevatorThreads) {
+            thread.join();
+        }
+        assertTrue(queue.getMaximumSize() <= queue.getCapacity());
+        System.out.printf("%d elevators: %d blocked additions, mean enqueue wait %.1f microseconds, maximum %.1f microseconds%n",
+                elevators, queue.getBlockedAdds(), queue.getMeanWaitTime() / 1000, queue.getMaximumWaitTime() / 1000.0);
+    }
+}
@@ -6,11 +6,15 @@ import requests.ElevatorRequest;
 import requests.ServiceRequest;
 import systemwide.Direction;
 import systemwide.Origin;
+import systemwide.Zone;
 
 import java.time.LocalTime;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -360,4 +364,56 @@ class RequestQueueTest {
         testQueue.addRequest(1, Direction.UP, serviceRequest2);
         assertFalse(testQueue.toString().contains(","));
     }
+
+    @Test
+    void testZoneFloorsOnlyAreAccepted() {
+        testQueue.setZone(Zone.shuttle(1, 51, 1, 2));
+        assertTrue(testQueue.servesFloor(51));
+        assertFalse(testQueue.servesFloor(30));
+
+        testQueue.addRequest(1, Direction.UP, new ElevatorRequest(LocalTime.now(), 1, Direction.UP, 51, Origin.FLOOR_SYSTEM));
+        assertThrows(IllegalArgumentException.class, () -> testQueue.addRequest(1, Direction.UP,
+                new ElevatorRequest(LocalTime.now(), 1, Direction.UP, 30, Origin.FLOOR_SYSTEM)));
+        assertThrows(IllegalArgumentException.class, () -> testQueue.addRequest(1, Direction.UP,
+                new ServiceRequest(LocalTime.now(), 40, Direction.DOWN, Origin.FLOOR_SYSTEM)));
+        assertEquals(1, testQueue.removeRequest().getFloorNumber());
+        assertEquals(51, testQueue.removeRequest().getFloorNumber());
+        assertTrue(testQueue.isEmpty());
+
+        testQueue.setZone(null);
+        assertTrue(testQueue.servesFloor(30));
+    }
+
+    @Test
+    void testExpectedTimeMatchesFullRecomputation() {
+        Random random = new Random(19);
+        Direction[] directions = {Direction.UP, Direction.DOWN};
+        for (int run = 0; run < 200; run++) {
+            RequestQueue queue = new RequestQueue();
+            int elevatorFloor = random.nextInt(22);
+            Direction serviceDirection = directions[random.nextInt(2)];
+            for (int operation = 0; operation < 100; operation++) {
+                int choice = random.nextInt(10);
+                if (choice < 5) {
+                    int floorNumber = random.nextInt(22);
+                    Direction requestDirection = directions[random.nextInt(2)];
+                    ServiceRequest request = random.nextBoolean()
+                            ? new ElevatorRequest(LocalTime.now(), floorNumber, requestDirection, random.nextInt(22), Origin.FLOOR_SYSTEM)
+                            : new ServiceRequest(LocalTime.now(), floorNumber, requestDirection, Origin.ELEVATOR_SYSTEM);
+                    queue.addRequest(elevatorFloor, serviceDirection, request);
+                } else if (choice < 8) {
+                    ServiceRequest removed = queue.removeRequest();
+                    if (removed != null) {
+                        elevatorFloor = removed.getFloorNumber();
+                    }
+                } else if (queue.swapQueues()) {
+                    serviceDirection = Direction.swapDirection(serviceDirection);
+                }
+                int loadTime = random.nextInt(5000);
+                int travelTime = random.nextInt(5000);
+                assertEquals(queue.recomputeExpectedTime(elevatorFloor, loadTime, travelTime),
+                        queue.getExpectedTime(elevatorFloor, loadTime, travelTime), 1e-9);
+            }
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package scheduler;
+
+import org.junit.jupiter.api.Test;
+import requests.ElevatorRequest;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ArrivalTimeEstimatorTest ensures that arrival times follow the sweep of a collective
+ * elevator and that the cost of a request includes the delay it adds to other passengers.
+ */
+public class ArrivalTimeEstimatorTest {
+
+    private final ArrivalTimeEstimator estimator = new ArrivalTimeEstimator(1000, 500);
+
+    @Test
+    void testStopsAreServedInSweepOrder() {
+        PlannedStop hallCallDown = new PlannedStop(5, Direction.DOWN, null);
+        PlannedStop carCall = new PlannedStop(3, Direction.NONE, null);
+        PlannedStop carCallAfterBoarding = new PlannedStop(2, Direction.NONE, hallCallDown);
+        PlannedStop hallCallUp = new PlannedStop(4, Direction.UP, null);
+
+        double[] arrivalTimes = estimator.estimateArrivalTimes(1, Direction.UP,
+                List.of(hallCallDown, carCall, carCallAfterBoarding, hallCallUp));
+        // up to 3 and 4, turn around at 5, then down to 2 (which was passed before boarding)
+        assertEquals(2000, arrivalTimes[1]);
+        assertEquals(3500, arrivalTimes[3]);
+        assertEquals(5000, arrivalTimes[0]);
+        assertEquals(8500, arrivalTimes[2]);
+    }
+
+    @Test
+    void testIdleElevatorMovesToNearestStop() {
+        double[] arrivalTimes = estimator.estimateArrivalTimes(10, Direction.NONE,
+                List.of(new PlannedStop(15, Direction.UP, null), new PlannedStop(8, Direction.UP, null)));
+        assertEquals(2000, arrivalTimes[1]);
+        assertEquals(9500, arrivalTimes[0]);
+    }
+
+    @Test
+    void testCostIncludesDelayToAssignedPassengers() {
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 5, Direction.UP, 6, Origin.FLOOR_SYSTEM);
+        List<PlannedStop> stops = List.of(new PlannedStop(10, Direction.NONE, null));
+
+        // arrives at 5 after 3 floors; stopping at 5 and 6 delays the passenger going to 10 by 1 second
+        assertEquals(3000 + 1000, estimator.estimateCost(2, Direction.UP, stops, request));
+        assertEquals(3000, estimator.estimateCost(2, Direction.UP, List.of(), request));
+    }
+}
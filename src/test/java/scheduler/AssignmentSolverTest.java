@@ -0,0 +1,78 @@
+package scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AssignmentSolverTest compares the assignments of AssignmentSolver with the cheapest
+ * assignment found by trying every permutation.
+ */
+public class AssignmentSolverTest {
+
+    /**
+     * Returns the lowest total cost of assigning min(rows, columns) rows to distinct columns, by exhaustive search.
+     *
+     * @param costs the cost of assigning each row to each column
+     * @param row the next row to assign
+     * @param usedColumns whether each column is already assigned
+     * @param assignmentsLeft the number of rows that still have to be assigned
+     * @return the lowest total cost of assigning the remaining rows
+     */
+    private double bruteForce(double[][] costs, int row, boolean[] usedColumns, int assignmentsLeft) {
+        if (assignmentsLeft == 0) {
+            return 0;
+        }
+        if (costs.length - row < assignmentsLeft) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // the row may be left unassigned if there are more rows than columns
+        double lowestCost = bruteForce(costs, row + 1, usedColumns, assignmentsLeft);
+        for (int column = 0; column < usedColumns.length; column++) {
+            if (!usedColumns[column]) {
+                usedColumns[column] = true;
+                lowestCost = Math.min(lowestCost, costs[row][column] + bruteForce(costs, row + 1, usedColumns, assignmentsLeft - 1));
+                usedColumns[column] = false;
+            }
+        }
+        return lowestCost;
+    }
+
+    @Test
+    void testAssignmentsHaveMinimumCost() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 200; trial++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double[][] costs = new double[rows][columns];
+            for (double[] row : costs) {
+                for (int j = 0; j < columns; j++) {
+                    row[j] = random.nextInt(100);
+                }
+            }
+
+            int[] assignment = AssignmentSolver.solve(costs);
+            double totalCost = 0;
+            boolean[] usedColumns = new boolean[columns];
+            int assignedRows = 0;
+            for (int i = 0; i < rows; i++) {
+                if (assignment[i] != -1) {
+                    assertFalse(usedColumns[assignment[i]]);
+                    usedColumns[assignment[i]] = true;
+                    totalCost += costs[i][assignment[i]];
+                    assignedRows++;
+                }
+            }
+            int expectedAssignments = Math.min(rows, columns);
+            assertEquals(expectedAssignments, assignedRows);
+            assertEquals(bruteForce(costs, 0, new boolean[columns], expectedAssignments), totalCost, 1e-9);
+        }
+    }
+
+    @Test
+    void testEmptyMatrix() {
+        assertEquals(0, AssignmentSolver.solve(new double[0][0]).length);
+    }
+}
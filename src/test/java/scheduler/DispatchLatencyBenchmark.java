@@ -0,0 +1,82 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * DispatchLatencyBenchmark measures how long EstimatedTimeStrategy takes to choose an elevator
+ * for a request with increasing numbers of busy elevators, scoring every elevator and scoring
+ * the nearest candidates found in the ElevatorIndex, and how often both choose equally cheap
+ * elevators. It is not part of the unit tests; run it with
+ * java -cp target/classes:target/test-classes scheduler.DispatchLatencyBenchmark
+ */
+public class DispatchLatencyBenchmark {
+
+    private static final int[] NUMBERS_OF_ELEVATORS = {10, 100, 1000, 10000};
+    private static final int NUMBER_OF_REQUESTS = 2000;
+
+    /**
+     * Returns the mean time a strategy takes to choose an elevator for each request.
+     *
+     * @param strategy the strategy choosing the elevators
+     * @param elevators a read-only view of the elevators
+     * @param requests the requests to choose elevators for
+     * @param chosenElevators receives the elevator chosen for each request
+     * @return the mean dispatch latency in microseconds
+     */
+    private static double measureLatency(DispatchStrategy strategy, ElevatorStateTable elevators, List<ElevatorRequest> requests,
+                                         int[] chosenElevators) {
+        // warm up before measuring
+        for (ElevatorRequest request : requests) {
+            strategy.chooseElevator(request, elevators);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < requests.size(); i++) {
+            chosenElevators[i] = strategy.chooseElevator(requests.get(i), elevators);
+        }
+        return (System.nanoTime() - start) / 1e3 / requests.size();
+    }
+
+    /**
+     * Returns the estimated cost of assigning a request to an elevator.
+     *
+     * @param elevators a read-only view of the elevators
+     * @param elevatorNumber the number of the elevator
+     * @param elevatorRequest the request
+     * @return the cost of the assignment in milliseconds
+     */
+    private static double estimateCost(ElevatorStateTable elevators, int elevatorNumber, ElevatorRequest elevatorRequest) {
+        ElevatorEstimate elevator = EstimatedTimeStrategy.readAvailableElevators(List.of(elevators.getElevator(elevatorNumber)), elevators).get(0);
+        return elevators.getArrivalTimeEstimator().estimateCost(elevator.floor(), elevator.direction(), elevator.stops(), elevatorRequest);
+    }
+
+    /**
+     * Prints the dispatch latency of both searches at each number of elevators.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        Random random = new Random(20);
+        List<ElevatorRequest> requests = DispatchLatencyTest.createRequests(NUMBER_OF_REQUESTS, random);
+        EstimatedTimeStrategy indexedStrategy = new EstimatedTimeStrategy();
+        EstimatedTimeStrategy scanningStrategy = new EstimatedTimeStrategy();
+        scanningStrategy.setCandidateLimit(0);
+        for (int numberOfElevators : NUMBERS_OF_ELEVATORS) {
+            ElevatorStateTable elevators = DispatchLatencyTest.createScheduler(numberOfElevators, 2, random).getElevatorStateTable();
+            int[] scannedElevators = new int[NUMBER_OF_REQUESTS];
+            int[] indexedElevators = new int[NUMBER_OF_REQUESTS];
+            double scanLatency = measureLatency(scanningStrategy, elevators, requests, scannedElevators);
+            double indexLatency = measureLatency(indexedStrategy, elevators, requests, indexedElevators);
+            int cheapestChoices = 0;
+            for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+                if (estimateCost(elevators, indexedElevators[i], requests.get(i)) == estimateCost(elevators, scannedElevators[i], requests.get(i))) {
+                    cheapestChoices++;
+                }
+            }
+            System.out.printf("%d elevators: %.2f us per request scoring every elevator, %.2f us with the ElevatorIndex, %d%% as cheap%n",
+                    numberOfElevators, scanLatency, indexLatency, cheapestChoices * 100 / NUMBER_OF_REQUESTS);
+        }
+    }
+}
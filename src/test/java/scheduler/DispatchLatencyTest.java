@@ -0,0 +1,248 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorMonitor;
+import requests.ElevatorRequest;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import systemwide.Zone;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DispatchLatencyTest ensures that EstimatedTimeStrategy, searching the ElevatorIndex nearest
+ * first, chooses an elevator that costs as little as the one chosen by scoring every elevator,
+ * while scoring a small fraction of the elevators at campus scale.
+ * DispatchLatencyBenchmark measures the time both searches take.
+ */
+public class DispatchLatencyTest {
+
+    static final int NUMBER_OF_FLOORS = 100;
+    private static final int NUMBER_OF_REQUESTS = 500;
+
+    /**
+     * CountingStateTable is a view of the elevators that counts the elevators a DispatchStrategy scores,
+     * each of which has its planned stops read once.
+     */
+    private static class CountingStateTable implements ElevatorStateTable {
+
+        private final ElevatorStateTable elevators;
+        private int scoredElevators;
+
+        /**
+         * Constructor for CountingStateTable.
+         *
+         * @param elevators the view of the elevators read through
+         */
+        CountingStateTable(ElevatorStateTable elevators) {
+            this.elevators = elevators;
+        }
+
+        /**
+         * Returns the number of elevators scored since the last call, and starts counting again.
+         *
+         * @return the number of elevators scored
+         */
+        int takeScoredElevators() {
+            int count = scoredElevators;
+            scoredElevators = 0;
+            return count;
+        }
+
+        @Override
+        public List<ElevatorStatus> getElevators() {
+            return elevators.getElevators();
+        }
+
+        @Override
+        public ElevatorStatus getElevator(int elevatorNumber) {
+            return elevators.getElevator(elevatorNumber);
+        }
+
+        @Override
+        public List<PlannedStop> getPlannedStops(int elevatorNumber) {
+            scoredElevators++;
+            return elevators.getPlannedStops(elevatorNumber);
+        }
+
+        @Override
+        public ArrivalTimeEstimator getArrivalTimeEstimator() {
+            return elevators.getArrivalTimeEstimator();
+        }
+
+        @Override
+        public int getNumberOfFloors() {
+            return elevators.getNumberOfFloors();
+        }
+
+        @Override
+        public List<Zone> getZones() {
+            return elevators.getZones();
+        }
+
+        @Override
+        public Zone getZone(int elevatorNumber) {
+            return elevators.getZone(elevatorNumber);
+        }
+
+        @Override
+        public List<Integer> findElevatorsOnPath(int floorNumber, Direction direction, int limit) {
+            return elevators.findElevatorsOnPath(floorNumber, direction, limit);
+        }
+
+        @Override
+        public List<Integer> findNearestElevators(int floorNumber, int limit) {
+            return elevators.findNearestElevators(floorNumber, limit);
+        }
+    }
+
+    /**
+     * Creates a Scheduler whose elevators are all busy at random floors, serving random directions,
+     * each with stops planned for a random number of passengers.
+     *
+     * @param numberOfElevators the number of elevators
+     * @param plannedRequests the largest number of passengers whose stops each elevator has planned
+     * @param random the source of the elevators' floors, directions and stops
+     * @return the Scheduler
+     */
+    static Scheduler createScheduler(int numberOfElevators, int plannedRequests, Random random) {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        for (int i = 1; i <= numberOfElevators; i++) {
+            scheduler.addElevatorMonitor(i);
+            Direction direction = random.nextBoolean() ? Direction.UP : Direction.DOWN;
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(i, 1 + random.nextInt(NUMBER_OF_FLOORS), direction,
+                    MovementState.ACTIVE, direction, Doors.State.CLOSED, Fault.NONE, false, random.nextInt(60)));
+            for (int j = random.nextInt(plannedRequests + 1); j > 0; j--) {
+                scheduler.getPlannedStops(i).addRequest(createRequest(random));
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Creates a random request between floors.
+     *
+     * @param random the source of the request's floors
+     * @return the request
+     */
+    private static ElevatorRequest createRequest(Random random) {
+        int floor = 1 + random.nextInt(NUMBER_OF_FLOORS);
+        int desiredFloor = 1 + random.nextInt(NUMBER_OF_FLOORS);
+        if (desiredFloor == floor) {
+            desiredFloor = floor == NUMBER_OF_FLOORS ? floor - 1 : floor + 1;
+        }
+        Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+        return new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM);
+    }
+
+    /**
+     * Creates random requests between floors.
+     *
+     * @param numberOfRequests the number of requests
+     * @param random the source of the requests' floors
+     * @return the requests
+     */
+    static List<ElevatorRequest> createRequests(int numberOfRequests, Random random) {
+        List<ElevatorRequest> requests = new ArrayList<>(numberOfRequests);
+        for (int i = 0; i < numberOfRequests; i++) {
+            requests.add(createRequest(random));
+        }
+        return requests;
+    }
+
+    /**
+     * Returns the estimated cost of assigning a request to an elevator.
+     *
+     * @param elevators a read-only view of the elevators
+     * @param elevatorNumber the number of the elevator
+     * @param elevatorRequest the request
+     * @return the cost of the assignment in milliseconds
+     */
+    private double estimateCost(ElevatorStateTable elevators, int elevatorNumber, ElevatorRequest elevatorRequest) {
+        ElevatorEstimate elevator = EstimatedTimeStrategy.readAvailableElevators(List.of(elevators.getElevator(elevatorNumber)), elevators).get(0);
+        return elevators.getArrivalTimeEstimator().estimateCost(elevator.floor(), elevator.direction(), elevator.stops(), elevatorRequest);
+    }
+
+    @Test
+    void testSmallFleetIsScoredWhole() {
+        Random random = new Random(20);
+        EstimatedTimeStrategy indexedStrategy = new EstimatedTimeStrategy();
+        EstimatedTimeStrategy scanningStrategy = new EstimatedTimeStrategy();
+        scanningStrategy.setCandidateLimit(0);
+        CountingStateTable elevators = new CountingStateTable(createScheduler(EstimatedTimeStrategy.DEFAULT_CANDIDATE_LIMIT, 2, random)
+                .getElevatorStateTable());
+        for (ElevatorRequest request : createRequests(NUMBER_OF_REQUESTS, random)) {
+            int scannedElevator = scanningStrategy.chooseElevator(request, elevators);
+            assertEquals(EstimatedTimeStrategy.DEFAULT_CANDIDATE_LIMIT, elevators.takeScoredElevators());
+            assertEquals(scannedElevator, indexedStrategy.chooseElevator(request, elevators));
+            assertEquals(EstimatedTimeStrategy.DEFAULT_CANDIDATE_LIMIT, elevators.takeScoredElevators());
+        }
+    }
+
+    @Test
+    void testLargeFleetIsScoredNearTheRequest() {
+        Random random = new Random(20);
+        EstimatedTimeStrategy indexedStrategy = new EstimatedTimeStrategy();
+        EstimatedTimeStrategy scanningStrategy = new EstimatedTimeStrategy();
+        scanningStrategy.setCandidateLimit(0);
+        // without planned stops, an elevator's cost is its travel time, so the nearest are the cheapest
+        CountingStateTable elevators = new CountingStateTable(createScheduler(1000, 0, random).getElevatorStateTable());
+        for (ElevatorRequest request : createRequests(NUMBER_OF_REQUESTS, random)) {
+            int scannedElevator = scanningStrategy.chooseElevator(request, elevators);
+            assertEquals(1000, elevators.takeScoredElevators());
+            int indexedElevator = indexedStrategy.chooseElevator(request, elevators);
+            // a request is scored against the nearest elevators and the nearest on its path
+            assertTrue(elevators.takeScoredElevators() <= 2 * EstimatedTimeStrategy.DEFAULT_CANDIDATE_LIMIT);
+            assertEquals(estimateCost(elevators, scannedElevator, request), estimateCost(elevators, indexedElevator, request));
+            elevators.takeScoredElevators();
+        }
+    }
+
+    @Test
+    void testIndexedSearchKeepsToTheRequestsZone() {
+        Scheduler scheduler = createScheduler(100, 2, new Random(21));
+        systemwide.Structure structure = new systemwide.Structure(NUMBER_OF_FLOORS, 100, 1000, 1000);
+        structure.addZone(new Zone(1, 2, 50, 1, 50));
+        structure.addZone(new Zone(1, 51, NUMBER_OF_FLOORS, 51, 100));
+        scheduler.setStructure(structure);
+        scheduler.setDispatchMode(DispatchMode.ZONED);
+        for (ElevatorRequest request : createRequests(NUMBER_OF_REQUESTS, new Random(22))) {
+            int chosenElevator = scheduler.chooseElevator(request);
+            boolean upperZone = request.getFloorNumber() > 50 || request.getDesiredFloor() > 50;
+            boolean lowerZone = request.getFloorNumber() <= 50 && request.getFloorNumber() != 1
+                    || request.getDesiredFloor() <= 50 && request.getDesiredFloor() != 1;
+            if (upperZone && !lowerZone) {
+                assertTrue(chosenElevator > 50, "Elevator #" + chosenElevator + " chosen for " + request);
+            } else if (lowerZone && !upperZone) {
+                assertTrue(chosenElevator <= 50, "Elevator #" + chosenElevator + " chosen for " + request);
+            }
+        }
+    }
+
+    @Test
+    void testNearestElevatorOnPathIsChosen() {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setDispatchMode(DispatchMode.NEAREST);
+        for (int i = 1; i <= 3; i++) {
+            scheduler.addElevatorMonitor(i);
+        }
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(1, 9, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, 5));
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(2, 3, Direction.UP, MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, 5));
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(3, 7, Direction.DOWN, MovementState.ACTIVE, Direction.DOWN, Doors.State.CLOSED, Fault.NONE, false, 5));
+
+        // elevator 1 has passed floor 6 and elevator 3 serves the other direction
+        assertEquals(2, scheduler.chooseElevator(new ElevatorRequest(LocalTime.now(), 6, Direction.UP, 10, Origin.FLOOR_SYSTEM)));
+        // no elevator serving down is above floor 8, so the nearest elevator is chosen
+        assertNotEquals(2, scheduler.chooseElevator(new ElevatorRequest(LocalTime.now(), 8, Direction.DOWN, 2, Origin.FLOOR_SYSTEM)));
+    }
+}
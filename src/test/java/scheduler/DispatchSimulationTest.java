@@ -0,0 +1,373 @@
+package scheduler;
+
+import org.junit.jupiter.api.Test;
+import requests.ElevatorRequest;
+import scheduler.DispatchReplay.Passenger;
+import scheduler.DispatchReplay.ReplayResult;
+import systemwide.Direction;
+import systemwide.Origin;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DispatchSimulationTest replays passengers' calls through the Scheduler's dispatcher against the
+ * simulated elevators of a DispatchReplay, and compares the average time passengers wait in each
+ * DispatchMode and with each DispatchStrategy. In DispatchMode.BATCHED, calls are collected for
+ * BATCH_WINDOW before they are assigned, and the wait includes that delay. A tall building
+ * compares elevators serving every floor with elevators grouped in Zones around a sky lobby.
+ */
+public class DispatchSimulationTest {
+
+    private static final int NUMBER_OF_FLOORS = 20;
+    private static final int NUMBER_OF_ELEVATORS = 4;
+    private static final int ELEVATOR_TIME = 1000; // milliseconds per floor
+    private static final int DOORS_TIME = 1000; // milliseconds per stop
+    private static final int TIME_STEP = 100; // milliseconds
+    private static final int NUMBER_OF_PASSENGERS = 400;
+    private static final int MEAN_ARRIVAL_INTERVAL = 3000; // milliseconds
+    private static final int MEAN_BURST_INTERVAL = 8000; // milliseconds
+    private static final int BATCH_WINDOW = 200; // milliseconds
+    private static final int MEAN_UP_PEAK_INTERVAL = 5000; // milliseconds
+    private static final double UP_PEAK_LOBBY_SHARE = 0.8;
+    private static final int TALL_NUMBER_OF_FLOORS = 100;
+    private static final int TALL_NUMBER_OF_ELEVATORS = 12;
+    private static final int SKY_LOBBY = 51;
+    private static final int CAR_CAPACITY = 16; // passengers
+    private static final int TALL_NUMBER_OF_PASSENGERS = 600;
+    private static final int MEAN_TALL_ARRIVAL_INTERVAL = 400; // milliseconds
+
+    private final DispatchReplay dispatchReplay = new DispatchReplay(
+            new Structure(NUMBER_OF_FLOORS, NUMBER_OF_ELEVATORS, ELEVATOR_TIME, DOORS_TIME), TIME_STEP);
+
+    /**
+     * Creates passengers calling elevators at random times between random floors.
+     *
+     * @param seed the seed of the random passengers
+     * @return the passengers, in the order of their calls
+     */
+    private List<Passenger> createPassengers(long seed) {
+        Random random = new Random(seed);
+        List<Passenger> passengers = new ArrayList<>();
+        long callTime = 0;
+        for (int i = 0; i < NUMBER_OF_PASSENGERS; i++) {
+            callTime += (long) (-Math.log(1 - random.nextDouble()) * MEAN_ARRIVAL_INTERVAL) / TIME_STEP * TIME_STEP;
+            int floor = 1 + random.nextInt(NUMBER_OF_FLOORS);
+            int desiredFloor = 1 + random.nextInt(NUMBER_OF_FLOORS - 1);
+            if (desiredFloor >= floor) {
+                desiredFloor++;
+            }
+            Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+            passengers.add(new Passenger(callTime, new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM)));
+        }
+        return passengers;
+    }
+
+    /**
+     * Creates passengers calling elevators in bursts, whose calls arrive within milliseconds of each other.
+     *
+     * @param seed the seed of the random passengers
+     * @param fromLobby whether every passenger goes up from the lobby, as at up-peak, or between random floors
+     * @return the passengers, in the order of their calls
+     */
+    private List<Passenger> createBurstPassengers(long seed, boolean fromLobby) {
+        Random random = new Random(seed);
+        List<Passenger> passengers = new ArrayList<>();
+        long burstTime = 0;
+        while (passengers.size() < NUMBER_OF_PASSENGERS) {
+            burstTime += (long) (-Math.log(1 - random.nextDouble()) * MEAN_BURST_INTERVAL) / TIME_STEP * TIME_STEP;
+            int burstSize = 2 + random.nextInt(5);
+            for (int i = 0; i < burstSize; i++) {
+                int floor = fromLobby ? 1 : 1 + random.nextInt(NUMBER_OF_FLOORS);
+                int desiredFloor = 1 + random.nextInt(NUMBER_OF_FLOORS - 1);
+                if (desiredFloor >= floor) {
+                    desiredFloor++;
+                }
+                Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+                passengers.add(new Passenger(burstTime, new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM)));
+            }
+        }
+        return passengers;
+    }
+
+    /**
+     * Creates passengers arriving at random times during up-peak: most go up from the lobby,
+     * and the others travel between random floors.
+     *
+     * @param seed the seed of the random passengers
+     * @return the passengers, in the order of their calls
+     */
+    private List<Passenger> createUpPeakPassengers(long seed) {
+        Random random = new Random(seed);
+        List<Passenger> passengers = new ArrayList<>();
+        long callTime = 0;
+        for (int i = 0; i < NUMBER_OF_PASSENGERS; i++) {
+            callTime += (long) (-Math.log(1 - random.nextDouble()) * MEAN_UP_PEAK_INTERVAL) / TIME_STEP * TIME_STEP;
+            int floor = random.nextDouble() < UP_PEAK_LOBBY_SHARE ? 1 : 1 + random.nextInt(NUMBER_OF_FLOORS);
+            int desiredFloor = 1 + random.nextInt(NUMBER_OF_FLOORS - 1);
+            if (desiredFloor >= floor) {
+                desiredFloor++;
+            }
+            Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+            passengers.add(new Passenger(callTime, new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM)));
+        }
+        return passengers;
+    }
+
+    /**
+     * Creates passengers arriving at the lobby of the tall building faster than its elevators
+     * can carry them, each going up to a random floor.
+     *
+     * @param seed the seed of the random passengers
+     * @return the passengers, in the order of their calls
+     */
+    private List<Passenger> createTallUpPeakPassengers(long seed) {
+        Random random = new Random(seed);
+        List<Passenger> passengers = new ArrayList<>();
+        long callTime = 0;
+        for (int i = 0; i < TALL_NUMBER_OF_PASSENGERS; i++) {
+            callTime += (long) (-Math.log(1 - random.nextDouble()) * MEAN_TALL_ARRIVAL_INTERVAL) / TIME_STEP * TIME_STEP;
+            int desiredFloor = 2 + random.nextInt(TALL_NUMBER_OF_FLOORS - 1);
+            passengers.add(new Passenger(callTime, new ElevatorRequest(LocalTime.now(), 1, Direction.UP, desiredFloor, Origin.FLOOR_SYSTEM)));
+        }
+        return passengers;
+    }
+
+    /**
+     * Adds passengers arriving at random times, some going up from the lobby, some going down
+     * to the lobby and the others travelling between random floors.
+     *
+     * @param passengers the passengers to add to
+     * @param random the source of the passengers' times and floors
+     * @param numberOfPassengers the number of passengers to add
+     * @param incomingShare the share of passengers going up from the lobby
+     * @param outgoingShare the share of passengers going down to the lobby
+     */
+    private void addPassengers(List<Passenger> passengers, Random random, int numberOfPassengers, double incomingShare, double outgoingShare) {
+        long callTime = passengers.isEmpty() ? 0 : passengers.get(passengers.size() - 1).callTime();
+        for (int i = 0; i < numberOfPassengers; i++) {
+            callTime += (long) (-Math.log(1 - random.nextDouble()) * MEAN_UP_PEAK_INTERVAL) / TIME_STEP * TIME_STEP;
+            double kind = random.nextDouble();
+            int floor;
+            int desiredFloor;
+            if (kind < incomingShare) {
+                floor = 1;
+                desiredFloor = 2 + random.nextInt(NUMBER_OF_FLOORS - 1);
+            } else if (kind < incomingShare + outgoingShare) {
+                floor = 2 + random.nextInt(NUMBER_OF_FLOORS - 1);
+                desiredFloor = 1;
+            } else {
+                floor = 2 + random.nextInt(NUMBER_OF_FLOORS - 1);
+                desiredFloor = 2 + random.nextInt(NUMBER_OF_FLOORS - 2);
+                if (desiredFloor >= floor) {
+                    desiredFloor++;
+                }
+            }
+            Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+            passengers.add(new Passenger(callTime, new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM)));
+        }
+    }
+
+    /**
+     * Simulates passengers served by elevators dispatched in the specified DispatchMode.
+     *
+     * @param dispatchMode the DispatchMode of the Scheduler
+     * @param passengers the passengers calling the elevators
+     * @return the wait times and batch latency of the passengers
+     */
+    private ReplayResult simulate(DispatchMode dispatchMode, List<Passenger> passengers) {
+        return simulate(dispatchMode, passengers, null);
+    }
+
+    /**
+     * Simulates passengers served by elevators dispatched in the specified DispatchMode,
+     * with idle elevators parked by a ParkingEngine.
+     *
+     * @param dispatchMode the DispatchMode of the Scheduler
+     * @param passengers the passengers calling the elevators
+     * @param parkingEngine the ParkingEngine parking idle elevators, or null to leave them at their last floor
+     * @return the wait times and batch latency of the passengers
+     */
+    private ReplayResult simulate(DispatchMode dispatchMode, List<Passenger> passengers, ParkingEngine parkingEngine) {
+        return simulate(dispatchMode, passengers, parkingEngine, null);
+    }
+
+    /**
+     * Simulates passengers served by elevators whose DispatchMode is switched by a TrafficClassifier.
+     *
+     * @param dispatchMode the DispatchMode of the Scheduler, unless a TrafficClassifier switches it
+     * @param passengers the passengers calling the elevators
+     * @param parkingEngine the ParkingEngine parking idle elevators, or null to leave them at their last floor
+     * @param trafficClassifier the TrafficClassifier choosing the DispatchMode, or null
+     * @return the wait times and batch latency of the passengers
+     */
+    private ReplayResult simulate(DispatchMode dispatchMode, List<Passenger> passengers, ParkingEngine parkingEngine,
+                                  TrafficClassifier trafficClassifier) {
+        Scheduler scheduler = dispatchReplay.createScheduler();
+        scheduler.setDispatchMode(dispatchMode);
+        scheduler.setTrafficClassifier(trafficClassifier);
+        return dispatchReplay.replay(scheduler, passengers, parkingEngine);
+    }
+
+    @Test
+    void testEstimatedTimeReducesAverageWaitTime() {
+        for (long seed = 1; seed <= 3; seed++) {
+            List<Passenger> passengers = createPassengers(seed);
+            double tieredWaitTime = simulate(DispatchMode.TIERED, passengers).averageWaitTime();
+            double estimatedTimeWaitTime = simulate(DispatchMode.ESTIMATED_TIME, passengers).averageWaitTime();
+            System.out.printf("Seed %d: average wait %.1f s with tiers, %.1f s with estimated times%n",
+                    seed, tieredWaitTime / 1000, estimatedTimeWaitTime / 1000);
+
+            assertTrue(estimatedTimeWaitTime < tieredWaitTime);
+        }
+    }
+
+    @Test
+    void testBatchedAssignmentOfBursts() {
+        int seeds = 10;
+        for (boolean fromLobby : new boolean[]{true, false}) {
+            double greedyWaitTime = 0;
+            double batchedWaitTime = 0;
+            double batchLatency = 0;
+            for (long seed = 1; seed <= seeds; seed++) {
+                List<Passenger> passengers = createBurstPassengers(seed, fromLobby);
+                greedyWaitTime += simulate(DispatchMode.ESTIMATED_TIME, passengers).averageWaitTime() / seeds;
+                ReplayResult batched = simulate(DispatchMode.BATCHED, passengers);
+                batchedWaitTime += batched.averageWaitTime() / seeds;
+                batchLatency += batched.averageBatchLatency() / seeds;
+            }
+            System.out.printf("%s bursts: average wait %.2f s assigning each call, %.2f s assigning batches, " +
+                            "of which %.2f s is batch latency%n",
+                    fromLobby ? "Lobby" : "Interfloor", greedyWaitTime / 1000, batchedWaitTime / 1000, batchLatency / 1000);
+
+            assertTrue(batchLatency <= BATCH_WINDOW);
+            if (!fromLobby) {
+                // calls from several floors at once are where the order of greedy assignment costs the most
+                assertTrue(batchedWaitTime < greedyWaitTime);
+            }
+        }
+    }
+
+    @Test
+    void testParkingIdleElevatorsReducesWaitTime() {
+        int seeds = 5;
+        for (boolean upPeak : new boolean[]{true, false}) {
+            double[] waitTime = new double[2];
+            double[] percentile95WaitTime = new double[2];
+            for (long seed = 1; seed <= seeds; seed++) {
+                List<Passenger> passengers = upPeak ? createUpPeakPassengers(seed) : createPassengers(seed);
+                ReplayResult[] results = {
+                        simulate(DispatchMode.ESTIMATED_TIME, passengers),
+                        simulate(DispatchMode.ESTIMATED_TIME, passengers, new ParkingEngine(NUMBER_OF_FLOORS))
+                };
+                for (int i = 0; i < results.length; i++) {
+                    waitTime[i] += results[i].averageWaitTime() / seeds;
+                    percentile95WaitTime[i] += results[i].percentile95WaitTime() / seeds;
+                }
+            }
+            System.out.printf("%s traffic: average wait %.2f s, 95th percentile %.2f s without parking; " +
+                            "average wait %.2f s, 95th percentile %.2f s parking idle elevators%n",
+                    upPeak ? "Up-peak" : "Interfloor", waitTime[0] / 1000, percentile95WaitTime[0] / 1000,
+                    waitTime[1] / 1000, percentile95WaitTime[1] / 1000);
+
+            if (upPeak) {
+                // elevators waiting at the lobby board most passengers without a trip
+                assertTrue(waitTime[1] < waitTime[0]);
+                assertTrue(percentile95WaitTime[1] < percentile95WaitTime[0]);
+            }
+        }
+    }
+
+    @Test
+    void testTrafficClassifierSwitchesStrategyDuringDay() {
+        // up-peak, inter-floor, lunch, inter-floor and down-peak traffic
+        double[][] phases = {{0.8, 0.05}, {0.05, 0.05}, {0.4, 0.4}, {0.05, 0.05}, {0.05, 0.8}};
+        int seeds = 5;
+        double[] waitTime = new double[3];
+        double[] percentile95WaitTime = new double[3];
+        for (long seed = 1; seed <= seeds; seed++) {
+            Random random = new Random(seed);
+            List<Passenger> passengers = new ArrayList<>();
+            for (double[] phase : phases) {
+                addPassengers(passengers, random, NUMBER_OF_PASSENGERS / phases.length, phase[0], phase[1]);
+            }
+            ReplayResult[] results = {
+                    simulate(DispatchMode.ESTIMATED_TIME, passengers),
+                    simulate(DispatchMode.ESTIMATED_TIME, passengers, new ParkingEngine(NUMBER_OF_FLOORS)),
+                    simulate(DispatchMode.ESTIMATED_TIME, passengers, new ParkingEngine(NUMBER_OF_FLOORS), new TrafficClassifier())
+            };
+            for (int i = 0; i < results.length; i++) {
+                waitTime[i] += results[i].averageWaitTime() / seeds;
+                percentile95WaitTime[i] += results[i].percentile95WaitTime() / seeds;
+            }
+        }
+        String[] strategies = {"never parking", "always parking", "switching with the traffic pattern"};
+        for (int i = 0; i < strategies.length; i++) {
+            System.out.printf("Day of traffic %s: average wait %.2f s, 95th percentile %.2f s%n",
+                    strategies[i], waitTime[i] / 1000, percentile95WaitTime[i] / 1000);
+        }
+
+        assertTrue(waitTime[2] < waitTime[0]);
+        assertTrue(waitTime[2] < waitTime[1]);
+    }
+
+    @Test
+    void testStrategiesReplayTheSameTrace() {
+        DispatchStrategy[] strategies = {new TieredStrategy(), new NearestCarStrategy(), new EstimatedTimeStrategy(), new ZoningStrategy()};
+        int seeds = 3;
+        for (boolean upPeak : new boolean[]{true, false}) {
+            double[] waitTime = new double[strategies.length];
+            double[] percentile95WaitTime = new double[strategies.length];
+            double[] dispatchTime = new double[strategies.length];
+            for (long seed = 1; seed <= seeds; seed++) {
+                List<Passenger> passengers = upPeak ? createUpPeakPassengers(seed) : createPassengers(seed);
+                for (int i = 0; i < strategies.length; i++) {
+                    ReplayResult result = dispatchReplay.replay(strategies[i], passengers);
+                    waitTime[i] += result.averageWaitTime() / seeds;
+                    percentile95WaitTime[i] += result.percentile95WaitTime() / seeds;
+                    dispatchTime[i] += result.averageDispatchTime() / seeds;
+                }
+            }
+            for (int i = 0; i < strategies.length; i++) {
+                System.out.printf("%s traffic with %s strategy: average wait %.2f s, 95th percentile %.2f s, dispatch %.2f us per call%n",
+                        upPeak ? "Up-peak" : "Interfloor", strategies[i].getName(), waitTime[i] / 1000,
+                        percentile95WaitTime[i] / 1000, dispatchTime[i]);
+            }
+
+            // estimating the time of every elevator's stops waits less than the tiers
+            assertTrue(waitTime[2] < waitTime[0]);
+        }
+    }
+
+    @Test
+    void testZonesShortenRoundTripInTallBuilding() {
+        Structure conventional = new Structure(TALL_NUMBER_OF_FLOORS, TALL_NUMBER_OF_ELEVATORS, ELEVATOR_TIME, DOORS_TIME);
+        // a low zone and shuttles to the sky lobby leave from the lobby; a high zone leaves from the sky lobby
+        Structure zoned = new Structure(TALL_NUMBER_OF_FLOORS, TALL_NUMBER_OF_ELEVATORS, ELEVATOR_TIME, DOORS_TIME);
+        zoned.addZone(new Zone(1, 2, SKY_LOBBY - 1, 1, 4));
+        zoned.addZone(Zone.shuttle(1, SKY_LOBBY, 5, 8));
+        zoned.addZone(new Zone(SKY_LOBBY, SKY_LOBBY + 1, TALL_NUMBER_OF_FLOORS, 9, 12));
+
+        DispatchReplay conventionalReplay = new DispatchReplay(conventional, TIME_STEP);
+        DispatchReplay zonedReplay = new DispatchReplay(zoned, TIME_STEP);
+        conventionalReplay.setCarCapacity(CAR_CAPACITY);
+        zonedReplay.setCarCapacity(CAR_CAPACITY);
+        List<Passenger> passengers = createTallUpPeakPassengers(1);
+        ReplayResult conventionalResult = conventionalReplay.replay(new EstimatedTimeStrategy(), passengers);
+        ReplayResult zonedResult = zonedReplay.replay(new ZoningStrategy(), passengers);
+        for (ReplayResult result : new ReplayResult[]{conventionalResult, zonedResult}) {
+            System.out.printf("%s %d-floor building at up-peak: round trip %.1f s, %.0f passengers per 5 minutes, average journey %.1f s%n",
+                    result == zonedResult ? "Zoned" : "Conventional", TALL_NUMBER_OF_FLOORS, result.averageRoundTripTime() / 1000,
+                    result.handlingCapacity(), result.averageJourneyTime() / 1000);
+        }
+
+        assertTrue(zonedResult.averageRoundTripTime() < conventionalResult.averageRoundTripTime());
+        assertTrue(zonedResult.handlingCapacity() > conventionalResult.handlingCapacity());
+    }
+}
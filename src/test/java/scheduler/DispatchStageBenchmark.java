@@ -0,0 +1,73 @@
+package scheduler;
+
+import requests.ElevatorRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * DispatchStageBenchmark measures the tail latency of choosing an elevator by estimated time,
+ * scoring every elevator in order and in parallel on a DispatchStage, as the numbers of elevators
+ * and planned stops grow. It is not part of the unit tests; run it with
+ * java -cp target/classes:target/test-classes scheduler.DispatchStageBenchmark
+ */
+public class DispatchStageBenchmark {
+
+    private static final int[] NUMBERS_OF_ELEVATORS = {16, 64, 256};
+    private static final int[] QUEUE_LENGTHS = {2, 8};
+    private static final int NUMBER_OF_REQUESTS = 200;
+
+    /**
+     * Returns the 99th percentile of the time a strategy takes to choose an elevator for each request.
+     *
+     * @param strategy the strategy choosing the elevators
+     * @param elevators a read-only view of the elevators
+     * @param requests the requests to choose elevators for
+     * @return the 99th percentile latency in microseconds
+     */
+    private static double measureTailLatency(DispatchStrategy strategy, ElevatorStateTable elevators, List<ElevatorRequest> requests) {
+        for (ElevatorRequest request : requests) {
+            strategy.chooseElevator(request, elevators);
+        }
+        long[] latencies = new long[requests.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            strategy.chooseElevator(requests.get(i), elevators);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies[(int) (latencies.length * 0.99)] / 1e3;
+    }
+
+    /**
+     * Prints the tail latency of scoring in order and in parallel for each fleet.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        Random random = new Random(21);
+        List<ElevatorRequest> requests = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+            requests.add(DispatchStageTest.createRequest(random));
+        }
+        EstimatedTimeStrategy strategy = new EstimatedTimeStrategy();
+        // every elevator is scored, so that the stage splits the whole fleet
+        strategy.setCandidateLimit(0);
+        for (int numberOfElevators : NUMBERS_OF_ELEVATORS) {
+            for (int queueLength : QUEUE_LENGTHS) {
+                ElevatorStateTable elevators = DispatchStageTest.createScheduler(numberOfElevators, queueLength, random).getElevatorStateTable();
+                strategy.setDispatchStage(null);
+                double sequentialLatency = measureTailLatency(strategy, elevators, requests);
+                strategy.setDispatchStage(new DispatchStage(pool));
+                double parallelLatency = measureTailLatency(strategy, elevators, requests);
+                System.out.printf("%d elevators with %d planned requests: p99 %.0f us scored in order, %.0f us scored in parallel%n",
+                        numberOfElevators, queueLength, sequentialLatency, parallelLatency);
+            }
+        }
+        pool.shutdown();
+    }
+}
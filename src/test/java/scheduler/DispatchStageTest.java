@@ -0,0 +1,188 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorMonitor;
+import requests.ElevatorRequest;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DispatchStageTest ensures that scoring elevators in parallel on a ForkJoinPool chooses the
+ * same elevators as scoring them in order, and that each candidate is scored once, on the pool
+ * only when there are more candidates than the threshold. DispatchStageBenchmark measures the
+ * tail latency of choosing an elevator as the numbers of elevators and planned stops grow.
+ */
+public class DispatchStageTest {
+
+    static final int NUMBER_OF_FLOORS = 30;
+
+    private ForkJoinPool pool;
+
+    /**
+     * RecordingEstimator is an ArrivalTimeEstimator that records the threads scoring each elevator floor.
+     */
+    private static class RecordingEstimator extends ArrivalTimeEstimator {
+
+        private final Map<Integer, List<Thread>> scoringThreads;
+
+        /**
+         * Constructor for RecordingEstimator.
+         */
+        RecordingEstimator() {
+            super(1000, 1000);
+            scoringThreads = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Records the thread scoring an elevator, then estimates its cost.
+         *
+         * @param elevatorFloor the floor of the elevator, unique to each candidate
+         * @param direction the direction the elevator is moving in
+         * @param stops the stops of the elevator
+         * @param elevatorRequest the request to assign
+         * @return the cost of the assignment in milliseconds
+         */
+        @Override
+        public double estimateCost(int elevatorFloor, Direction direction, List<PlannedStop> stops, ElevatorRequest elevatorRequest) {
+            scoringThreads.computeIfAbsent(elevatorFloor, floor -> new ArrayList<>()).add(Thread.currentThread());
+            return super.estimateCost(elevatorFloor, direction, stops, elevatorRequest);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns a random request between two different floors.
+     *
+     * @param random the source of the request's floors
+     * @return the request
+     */
+    static ElevatorRequest createRequest(Random random) {
+        int floor = 1 + random.nextInt(NUMBER_OF_FLOORS);
+        int desiredFloor = 1 + random.nextInt(NUMBER_OF_FLOORS - 1);
+        if (desiredFloor >= floor) {
+            desiredFloor++;
+        }
+        Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+        return new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM);
+    }
+
+    /**
+     * Creates a Scheduler assigning requests by estimated time, whose elevators are at random
+     * floors and already have a number of requests planned.
+     *
+     * @param numberOfElevators the number of elevators
+     * @param queueLength the number of requests planned for each elevator
+     * @param random the source of the elevators' floors and requests
+     * @return the Scheduler
+     */
+    static Scheduler createScheduler(int numberOfElevators, int queueLength, Random random) {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        for (int i = 1; i <= numberOfElevators; i++) {
+            scheduler.addElevatorMonitor(i);
+            Direction direction = random.nextBoolean() ? Direction.UP : Direction.DOWN;
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(i, 1 + random.nextInt(NUMBER_OF_FLOORS), direction,
+                    MovementState.ACTIVE, direction, Doors.State.CLOSED, Fault.NONE, false, 0));
+            for (int j = 0; j < queueLength; j++) {
+                scheduler.getPlannedStops(i).addRequest(createRequest(random));
+            }
+        }
+        return scheduler;
+    }
+
+    @Test
+    void testParallelScoringMatchesSequentialScoring() {
+        Random random = new Random(21);
+        Scheduler scheduler = createScheduler(64, 4, random);
+        // identical idle elevators tie, and the first of them must still be chosen
+        for (int i = 65; i <= 72; i++) {
+            scheduler.addElevatorMonitor(i);
+        }
+
+        for (int threshold : new int[]{1, 3, DispatchStage.DEFAULT_THRESHOLD, 100}) {
+            for (int i = 0; i < 200; i++) {
+                ElevatorRequest request = createRequest(random);
+                scheduler.setDispatchStage(null);
+                int sequentialChoice = scheduler.chooseElevator(request);
+                scheduler.setDispatchStage(new DispatchStage(pool, threshold));
+                assertEquals(sequentialChoice, scheduler.chooseElevator(request));
+            }
+        }
+
+        List<ElevatorRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(createRequest(random));
+        }
+        scheduler.setDispatchStage(null);
+        int[] sequentialChoices = scheduler.chooseElevators(batch);
+        scheduler.setDispatchStage(new DispatchStage(pool));
+        assertArrayEquals(sequentialChoices, scheduler.chooseElevators(batch));
+    }
+
+    @Test
+    void testStuckElevatorsAreNotChosen() {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        scheduler.setDispatchStage(new DispatchStage(pool, 1));
+        for (int i = 1; i <= 4; i++) {
+            scheduler.addElevatorMonitor(i);
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(i, 5, Direction.UP, MovementState.STUCK,
+                    Direction.UP, Doors.State.CLOSED, Fault.ELEVATOR_STUCK, false, 0));
+        }
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 3, Direction.UP, 9, Origin.FLOOR_SYSTEM);
+        assertEquals(0, scheduler.chooseElevator(request));
+
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(3, 5, Direction.UP, MovementState.IDLE,
+                Direction.UP, Doors.State.CLOSED, Fault.NONE, true, 0));
+        assertEquals(3, scheduler.chooseElevator(request));
+    }
+
+    @Test
+    void testCandidatesAreScoredOnceOnThePoolAboveTheThreshold() {
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 3, Direction.UP, 9, Origin.FLOOR_SYSTEM);
+        for (int numberOfCandidates : new int[]{DispatchStage.DEFAULT_THRESHOLD, 64}) {
+            List<ElevatorEstimate> elevators = new ArrayList<>();
+            List<List<PlannedStop>> stops = new ArrayList<>();
+            for (int i = 1; i <= numberOfCandidates; i++) {
+                elevators.add(new ElevatorEstimate(i, i, Direction.UP, List.of()));
+                stops.add(List.of());
+            }
+            RecordingEstimator estimator = new RecordingEstimator();
+
+            // the candidate at the request's floor costs the least
+            assertEquals(2, new DispatchStage(pool).findLowestCost(estimator, elevators, stops, request));
+            assertEquals(numberOfCandidates, estimator.scoringThreads.size());
+            for (List<Thread> threads : estimator.scoringThreads.values()) {
+                assertEquals(1, threads.size());
+                boolean scoredOnPool = threads.get(0) instanceof ForkJoinWorkerThread;
+                assertEquals(numberOfCandidates > DispatchStage.DEFAULT_THRESHOLD, scoredOnPool);
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorMonitor;
+import requests.ElevatorRequest;
+import systemwide.Direction;
+import systemwide.Origin;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DispatchStrategyTest ensures that DispatchStrategies are found by name, that the Scheduler
+ * chooses elevators with the strategy it is given through a read-only ElevatorStateTable,
+ * that ZoningStrategy serves each request with the elevators of its zone, and that the Scheduler
+ * dispatches trips between the Zones of a Structure one leg at a time.
+ */
+public class DispatchStrategyTest {
+
+    /**
+     * Returns a request between two floors.
+     *
+     * @param floor the floor of the request
+     * @param desiredFloor the floor the passenger goes to
+     * @return the request
+     */
+    private ElevatorRequest request(int floor, int desiredFloor) {
+        Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+        return new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM);
+    }
+
+    /**
+     * Creates a Scheduler for a building of 21 floors whose idle elevators are at the specified floors.
+     *
+     * @param floors the floor of each elevator
+     * @return the Scheduler
+     */
+    private Scheduler createScheduler(int... floors) {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setStructure(new Structure(21, floors.length, 1000, 1000));
+        for (int i = 1; i <= floors.length; i++) {
+            scheduler.addElevatorMonitor(i);
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(i, floors[i - 1], Direction.NONE, MovementState.IDLE,
+                    Direction.NONE, Doors.State.CLOSED, Fault.NONE, true, 0));
+        }
+        return scheduler;
+    }
+
+    @Test
+    void testStrategiesAreFoundByName() {
+        assertInstanceOf(TieredStrategy.class, DispatchStrategy.forName("tiered"));
+        assertInstanceOf(NearestCarStrategy.class, DispatchStrategy.forName("Nearest"));
+        assertInstanceOf(EstimatedTimeStrategy.class, DispatchStrategy.forName("estimated-time"));
+        assertInstanceOf(ZoningStrategy.class, DispatchStrategy.forName("zoning"));
+        assertInstanceOf(ZoningStrategy.class, DispatchStrategy.forName(ZoningStrategy.class.getName()));
+        assertThrows(IllegalArgumentException.class, () -> DispatchStrategy.forName("random"));
+        assertThrows(IllegalArgumentException.class, () -> DispatchStrategy.forName(Scheduler.class.getName()));
+    }
+
+    @Test
+    void testSchedulerUsesStrategyItIsGiven() {
+        Scheduler scheduler = createScheduler(4, 9);
+        scheduler.getPlannedStops(2).addRequest(request(9, 12));
+        assertInstanceOf(TieredStrategy.class, scheduler.getDispatchStrategy());
+        scheduler.setDispatchMode(DispatchMode.ZONED);
+        assertInstanceOf(ZoningStrategy.class, scheduler.getDispatchStrategy());
+
+        DispatchStrategy lastElevator = new DispatchStrategy() {
+            @Override
+            public String getName() {
+                return "last";
+            }
+
+            @Override
+            public int chooseElevator(ElevatorRequest elevatorRequest, ElevatorStateTable elevators) {
+                List<ElevatorStatus> statuses = elevators.getElevators();
+                ElevatorStatus last = statuses.get(statuses.size() - 1);
+                // the view cannot change the Scheduler's elevators
+                assertThrows(UnsupportedOperationException.class, () -> statuses.remove(0));
+                assertThrows(UnsupportedOperationException.class, () -> elevators.getPlannedStops(last.elevatorNumber()).clear());
+                return last.elevatorNumber();
+            }
+        };
+        scheduler.setDispatchStrategy(lastElevator);
+        assertEquals(2, scheduler.chooseElevator(request(3, 1)));
+        assertEquals(2, scheduler.getPlannedStops(2).size());
+
+        scheduler.setDispatchStrategy(null);
+        assertInstanceOf(ZoningStrategy.class, scheduler.getDispatchStrategy());
+    }
+
+    @Test
+    void testZonesDivideFloorsAboveLobby() {
+        // floors 2 to 11 are in the low zone, and floors 12 to 21 in the high zone
+        assertEquals(0, ZoningStrategy.getZone(1, 21, 2));
+        assertEquals(0, ZoningStrategy.getZone(11, 21, 2));
+        assertEquals(1, ZoningStrategy.getZone(12, 21, 2));
+        assertEquals(1, ZoningStrategy.getZone(21, 21, 2));
+        assertEquals(2, ZoningStrategy.getZone(18, 21, 3));
+    }
+
+    @Test
+    void testZoneElevatorsServeRequests() {
+        // elevators 1 and 2 serve the low zone, and elevators 3 and 4 the high zone
+        Scheduler scheduler = createScheduler(1, 10, 1, 20);
+        scheduler.setDispatchStrategy(new ZoningStrategy());
+
+        // the nearest elevator at the lobby is in the low zone
+        assertEquals(3, scheduler.chooseElevator(request(1, 15)));
+        assertEquals(1, scheduler.chooseElevator(request(1, 5)));
+        assertEquals(4, scheduler.chooseElevator(request(13, 1)));
+        assertEquals(2, scheduler.chooseElevator(request(8, 1)));
+
+        // when the elevators of a zone are stuck, another zone serves its requests
+        for (int i = 3; i <= 4; i++) {
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(i, 20, Direction.NONE, MovementState.STUCK,
+                    Direction.NONE, Doors.State.CLOSED, Fault.ELEVATOR_STUCK, false, 0));
+        }
+        assertEquals(2, scheduler.chooseElevator(request(13, 1)));
+    }
+
+    @Test
+    void testTripsBetweenZonesTransferAtSkyLobby() {
+        // elevator 1 serves the low zone, elevator 2 shuttles to the sky lobby, and elevator 3 serves the high zone
+        Structure structure = new Structure(100, 3, 1000, 1000);
+        structure.addZone(new Zone(1, 2, 50, 1, 1));
+        structure.addZone(Zone.shuttle(1, 51, 2, 2));
+        structure.addZone(new Zone(51, 52, 100, 3, 3));
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setStructure(structure);
+        int[] floors = {1, 1, 51};
+        for (int i = 1; i <= floors.length; i++) {
+            scheduler.addElevatorMonitor(i);
+            scheduler.updateElevatorMonitor(new ElevatorMonitor(i, floors[i - 1], Direction.NONE, MovementState.IDLE,
+                    Direction.NONE, Doors.State.CLOSED, Fault.NONE, true, 0));
+        }
+
+        // every strategy is overruled by the Zones
+        for (DispatchMode dispatchMode : new DispatchMode[]{DispatchMode.TIERED, DispatchMode.NEAREST, DispatchMode.ZONED}) {
+            scheduler.setDispatchMode(dispatchMode);
+            assertEquals(1, scheduler.chooseElevator(request(1, 30)));
+            assertEquals(2, scheduler.chooseElevator(request(1, 51)));
+            assertEquals(3, scheduler.chooseElevator(request(60, 90)));
+        }
+        assertEquals(0, scheduler.chooseElevator(request(30, 75)));
+
+        // the shuttle takes the passenger to the sky lobby, where the high zone is called
+        scheduler.processData(request(1, 75));
+        assertEquals(2, scheduler.getPlannedStops(2).size());
+        assertTrue(scheduler.getPlannedStops(3).isEmpty());
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(2, 51, Direction.UP, MovementState.IDLE,
+                Direction.UP, Doors.State.OPEN, Fault.NONE, false, 0));
+        List<PlannedStop> highZoneStops = scheduler.getPlannedStops(3).getStops();
+        assertEquals(51, highZoneStops.get(0).getFloorNumber());
+        assertEquals(75, highZoneStops.get(1).getFloorNumber());
+    }
+}
@@ -0,0 +1,104 @@
+package scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import systemwide.Direction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ElevatorIndexTest ensures that ElevatorIndex finds the nearest elevators that can absorb
+ * a request on their path, and that it agrees with a scan of every elevator after many updates.
+ */
+public class ElevatorIndexTest {
+
+    private ElevatorIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ElevatorIndex();
+    }
+
+    @Test
+    void testElevatorsOnPathAreNearestFirst() {
+        index.update(1, 2, Direction.UP, false, false);
+        index.update(2, 8, Direction.UP, false, false);
+        index.update(3, 5, Direction.UP, false, false);
+        index.update(4, 12, Direction.UP, false, false);
+        index.update(5, 9, Direction.DOWN, false, false);
+
+        // elevator 4 has passed floor 10 and elevator 5 serves the other direction
+        assertEquals(List.of(2, 3, 1), index.findElevatorsOnPath(10, Direction.UP, 5));
+        assertEquals(List.of(2), index.findElevatorsOnPath(10, Direction.UP, 1));
+        assertEquals(List.of(5), index.findElevatorsOnPath(3, Direction.DOWN, 5));
+    }
+
+    @Test
+    void testIdleElevatorsAreOnEveryPath() {
+        index.update(1, 4, Direction.UP, false, false);
+        index.update(2, 11, Direction.UP, true, false);
+        assertEquals(List.of(2, 1), index.findElevatorsOnPath(10, Direction.UP, 5));
+        assertEquals(List.of(2), index.findElevatorsOnPath(10, Direction.DOWN, 5));
+    }
+
+    @Test
+    void testUpdatesMoveAndRemoveElevators() {
+        index.update(1, 4, Direction.UP, false, false);
+        index.update(1, 6, Direction.UP, false, false);
+        assertEquals(1, index.size());
+        assertTrue(index.findElevatorsOnPath(5, Direction.UP, 5).isEmpty());
+
+        index.update(1, 6, Direction.UP, false, true);
+        assertEquals(0, index.size());
+        assertTrue(index.findNearestElevators(6, 5).isEmpty());
+
+        index.update(1, 3, Direction.DOWN, false, false);
+        assertEquals(List.of(1), index.findNearestElevators(20, 5));
+    }
+
+    @Test
+    void testIndexMatchesScanOfEveryElevator() {
+        Random random = new Random(20);
+        int numberOfElevators = 200;
+        int[] floors = new int[numberOfElevators + 1];
+        Direction[] directions = new Direction[numberOfElevators + 1];
+        Direction[] serviceDirections = {Direction.UP, Direction.DOWN};
+
+        for (int operation = 0; operation < 5000; operation++) {
+            int elevatorNumber = 1 + random.nextInt(numberOfElevators);
+            int floor = 1 + random.nextInt(50);
+            boolean idle = random.nextInt(5) == 0;
+            boolean stuck = random.nextInt(20) == 0;
+            Direction direction = serviceDirections[random.nextInt(2)];
+            index.update(elevatorNumber, floor, direction, idle, stuck);
+            floors[elevatorNumber] = floor;
+            directions[elevatorNumber] = stuck ? null : idle ? Direction.NONE : direction;
+
+            int requestFloor = 1 + random.nextInt(50);
+            Direction requestDirection = serviceDirections[random.nextInt(2)];
+            List<Integer> found = index.findElevatorsOnPath(requestFloor, requestDirection, 10);
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 1; i <= numberOfElevators; i++) {
+                Direction d = directions[i];
+                if (d == Direction.NONE || (d == requestDirection
+                        && (d == Direction.UP ? floors[i] < requestFloor : floors[i] > requestFloor))) {
+                    expected.add(i);
+                }
+            }
+            expected.sort(Comparator.comparingInt(i -> Math.abs(floors[i] - requestFloor)));
+
+            assertEquals(Math.min(10, expected.size()), found.size());
+            for (int i = 0; i < found.size(); i++) {
+                assertTrue(expected.contains(found.get(i)));
+                // ties may be broken differently, but the distances must agree
+                assertEquals(Math.abs(floors[expected.get(i)] - requestFloor), Math.abs(floors[found.get(i)] - requestFloor));
+            }
+        }
+    }
+}
@@ -8,14 +8,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import requests.ElevatorMonitor;
+import requests.ElevatorRequest;
 import requests.SystemEvent;
 import systemwide.Direction;
 import systemwide.InputFileReader;
+import systemwide.Origin;
 
 import java.net.DatagramPacket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,9 +30,9 @@ public class ElevatorSelectionTest {
     static DatagramPacket elevatorPacket, messagePacket;
     static ElevatorSubsystem elevatorSubsystem;
     static Elevator elevator1, elevator2;
-    static Scheduler schedulerClient, schedulerServer;
+    static Scheduler scheduler;
     static ArrayList<ElevatorMonitor> monitorList;
-    static Thread schedulerClientThread, schedulerServerThread, elevatorSubsystemThread;
+    static Thread schedulerThread, elevatorSubsystemThread;
     private final InputFileReader inputFileReader = new InputFileReader();
     private final ArrayList<SystemEvent> eventList = inputFileReader.readInputFile(InputFileReader.INPUTS_FILENAME);
     private final static int loadTIme = 100;
@@ -59,17 +63,14 @@ public class ElevatorSelectionTest {
             elevator.setDoorTime(loadTIme);
         }
 
-        // Setup and start Scheduler Threads to send to ElevatorSubsystem
-        schedulerClient = new Scheduler(Port.CLIENT_TO_SERVER.getNumber());
-        schedulerServer = new Scheduler(Port.SERVER_TO_CLIENT.getNumber());
-        schedulerClient.addElevatorMonitor(elevator1.getElevatorNumber());
-        schedulerClient.addElevatorMonitor(elevator2.getElevatorNumber());
-        monitorList = Scheduler.getElevatorMonitorList();
-        schedulerClientThread = new Thread(schedulerClient, schedulerClient.getClass().getSimpleName());
-        schedulerServerThread = new Thread(schedulerServer, schedulerServer.getClass().getSimpleName());
+        // Setup and start the Scheduler Thread to send to ElevatorSubsystem
+        scheduler = new Scheduler();
+        scheduler.addElevatorMonitor(elevator1.getElevatorNumber());
+        scheduler.addElevatorMonitor(elevator2.getElevatorNumber());
+        monitorList = scheduler.getElevatorMonitorList();
+        schedulerThread = new Thread(scheduler, scheduler.getClass().getSimpleName());
         elevatorSubsystemThread = new Thread(elevatorSubsystem, elevatorSubsystem.getClass().getSimpleName());
-        schedulerClientThread.start();
-        schedulerServerThread.start();
+        schedulerThread.start();
         elevatorSubsystemThread.start();
     }
 
@@ -92,7 +93,24 @@ public class ElevatorSelectionTest {
 
         for (ElevatorMonitor elevatorMonitor : monitorList) {
             elevatorMonitor.updateMonitor(new ElevatorMonitor(elevatorMonitor.getElevatorNumber(), 1, Direction.UP, MovementState.IDLE, Direction.NONE, Doors.State.OPEN, Fault.NONE, true, 0.0));
+            scheduler.getPlannedStops(elevatorMonitor.getElevatorNumber()).clear();
         }
+        scheduler.setDispatchMode(DispatchMode.TIERED);
+        scheduler.setBatchWindow(200);
+    }
+
+    /**
+     * Sets the status of an elevator in the Scheduler's monitor.
+     *
+     * @param elevatorNumber the number of the elevator
+     * @param floor the current floor of the elevator
+     * @param state the MovementState of the elevator
+     * @param direction the direction the elevator is moving in
+     * @param hasNoRequests whether the elevator has no requests
+     */
+    private void setMonitor(int elevatorNumber, int floor, MovementState state, Direction direction, boolean hasNoRequests) {
+        monitorList.get(elevatorNumber - 1).updateMonitor(new ElevatorMonitor(elevatorNumber, floor, direction, state, direction,
+                Doors.State.CLOSED, Fault.NONE, hasNoRequests, 0.0));
     }
 
     /**
@@ -182,4 +200,84 @@ public class ElevatorSelectionTest {
         assertEquals(13.2, monitorList.get(1).getQueueTime());
         // Elevator 2 traveling in same direction has higher priority and Elevator 2 has 3 and 1 already in queue
     }
+
+    @Test
+    void testEstimatedTimeChoosesNearestIdleElevator() {
+        setMonitor(1, 1, MovementState.IDLE, Direction.NONE, true);
+        setMonitor(2, 20, MovementState.IDLE, Direction.NONE, true);
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 19, Direction.DOWN, 1, Origin.FLOOR_SYSTEM);
+
+        // the tiers return the first idle elevator, even though it is 18 floors away
+        assertEquals(1, scheduler.chooseElevator(request));
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        assertEquals(2, scheduler.chooseElevator(request));
+    }
+
+    @Test
+    void testEstimatedTimePrefersElevatorPassingTheFloor() {
+        // elevator 1 is taking a passenger up to floor 10; elevator 2 is idle at floor 12
+        setMonitor(1, 2, MovementState.ACTIVE, Direction.UP, false);
+        scheduler.getPlannedStops(1).addRequest(new ElevatorRequest(LocalTime.now(), 2, Direction.UP, 10, Origin.FLOOR_SYSTEM));
+        scheduler.getPlannedStops(1).serveFloor(2);
+        setMonitor(2, 12, MovementState.IDLE, Direction.NONE, true);
+        ElevatorRequest request = new ElevatorRequest(LocalTime.now(), 5, Direction.UP, 6, Origin.FLOOR_SYSTEM);
+
+        assertEquals(2, scheduler.chooseElevator(request));
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        assertEquals(1, scheduler.chooseElevator(request));
+    }
+
+    @Test
+    void testEstimatedTimeAvoidsDelayingAssignedPassengers() {
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        // elevator 1 is at floor 5 with passengers to drop off at floors 9 to 12
+        setMonitor(1, 5, MovementState.ACTIVE, Direction.UP, false);
+        for (int floor = 9; floor <= 12; floor++) {
+            scheduler.getPlannedStops(1).addRequest(new ElevatorRequest(LocalTime.now(), 5, Direction.UP, floor, Origin.FLOOR_SYSTEM));
+        }
+        scheduler.getPlannedStops(1).serveFloor(5);
+        setMonitor(2, 4, MovementState.IDLE, Direction.NONE, true);
+
+        // elevator 1 arrives first, but stopping would delay its four passengers
+        assertEquals(2, scheduler.chooseElevator(new ElevatorRequest(LocalTime.now(), 7, Direction.UP, 8, Origin.FLOOR_SYSTEM)));
+    }
+
+    @Test
+    void testEstimatedTimeSkipsStuckElevators() {
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        setMonitor(1, 5, MovementState.STUCK, Direction.NONE, true);
+        setMonitor(2, 20, MovementState.IDLE, Direction.NONE, true);
+
+        assertEquals(2, scheduler.chooseElevator(new ElevatorRequest(LocalTime.now(), 5, Direction.UP, 6, Origin.FLOOR_SYSTEM)));
+    }
+
+    @Test
+    void testBatchAssignmentBeatsAssigningInOrder() {
+        scheduler.setDispatchMode(DispatchMode.ESTIMATED_TIME);
+        setMonitor(1, 10, MovementState.IDLE, Direction.NONE, true);
+        setMonitor(2, 1, MovementState.IDLE, Direction.NONE, true);
+        ElevatorRequest first = new ElevatorRequest(LocalTime.now(), 6, Direction.UP, 7, Origin.FLOOR_SYSTEM);
+        ElevatorRequest second = new ElevatorRequest(LocalTime.now(), 14, Direction.DOWN, 13, Origin.FLOOR_SYSTEM);
+
+        // one at a time, the first request takes elevator 1, leaving the second to elevator 2 thirteen floors away
+        assertEquals(1, scheduler.chooseElevator(first));
+        scheduler.getPlannedStops(1).addRequest(first);
+        assertEquals(2, scheduler.chooseElevator(second));
+        scheduler.getPlannedStops(1).clear();
+
+        assertArrayEquals(new int[]{2, 1}, scheduler.chooseElevators(List.of(first, second)));
+        assertTrue(scheduler.getPlannedStops(1).isEmpty());
+    }
+
+    @Test
+    void testBatchedModeAssignsRequestsWhenWindowCloses() {
+        long batchedRequests = scheduler.getBatchedRequests();
+        scheduler.setDispatchMode(DispatchMode.BATCHED);
+        scheduler.setBatchWindow(50);
+
+        sendEvent(eventList.get(0));
+        assertEquals(batchedRequests + 1, scheduler.getBatchedRequests());
+        assertTrue(scheduler.getMaximumBatchLatency() >= 50);
+        assertFalse(elevator1.getRequestQueue().isEmpty());
+    }
 }
@@ -0,0 +1,175 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorMonitor;
+import systemwide.Direction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * KeyedSerialExecutorTest ensures that the tasks of one key run one at a time in order while
+ * the tasks of different keys run concurrently, and that a Scheduler with a message executor
+ * shows the updates of different elevators concurrently and those of each elevator in order.
+ */
+public class KeyedSerialExecutorTest {
+
+    private static final int NUMBER_OF_ELEVATORS = 4;
+    private static final int UPDATES_PER_ELEVATOR = 20;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        executorService = MessageExecutors.newThreadPerMessageExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * RecordingPresenter is a Presenter that records the floor of each update instead of showing it.
+     * The first update of each elevator waits until the first updates of every elevator have started.
+     */
+    private static class RecordingPresenter extends Presenter {
+
+        private final CountDownLatch firstUpdates = new CountDownLatch(NUMBER_OF_ELEVATORS);
+        private final CountDownLatch updates = new CountDownLatch(NUMBER_OF_ELEVATORS * UPDATES_PER_ELEVATOR);
+        private final Map<Integer, List<Integer>> floors = new HashMap<>();
+        private final Map<Integer, AtomicInteger> updatesInProgress = new HashMap<>();
+        private final AtomicBoolean overlapped = new AtomicBoolean();
+        private final AtomicBoolean timedOut = new AtomicBoolean();
+
+        /**
+         * Constructor for RecordingPresenter.
+         */
+        RecordingPresenter() {
+            for (int i = 1; i <= NUMBER_OF_ELEVATORS; i++) {
+                floors.put(i, Collections.synchronizedList(new ArrayList<>()));
+                updatesInProgress.put(i, new AtomicInteger());
+            }
+        }
+
+        /**
+         * Records the floor of the monitor.
+         *
+         * @param elevatorMonitor the monitor to show
+         */
+        @Override
+        public void updateElevatorView(ElevatorMonitor elevatorMonitor) {
+            int elevatorNumber = elevatorMonitor.getElevatorNumber();
+            if (updatesInProgress.get(elevatorNumber).incrementAndGet() > 1) {
+                overlapped.set(true);
+            }
+            List<Integer> elevatorFloors = floors.get(elevatorNumber);
+            if (elevatorFloors.isEmpty()) {
+                firstUpdates.countDown();
+                try {
+                    if (!firstUpdates.await(5, TimeUnit.SECONDS)) {
+                        timedOut.set(true);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            elevatorFloors.add(elevatorMonitor.getCurrentFloor());
+            updatesInProgress.get(elevatorNumber).decrementAndGet();
+            updates.countDown();
+        }
+    }
+
+    @Test
+    void testTasksOfOneKeyRunInOrder() throws InterruptedException {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(executorService);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            executor.execute("sender", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                order.add(task);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void testTasksOfDifferentKeysRunConcurrently() throws InterruptedException {
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(executorService);
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch done = new CountDownLatch(3);
+        for (int key = 1; key <= 3; key++) {
+            executor.execute(key, () -> {
+                started.countDown();
+                try {
+                    // every task waits for the others, so they only finish if they run together
+                    if (started.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSchedulerShowsEachElevatorInOrder() throws InterruptedException {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        for (int i = 1; i <= NUMBER_OF_ELEVATORS; i++) {
+            scheduler.addElevatorMonitor(i);
+        }
+        RecordingPresenter presenter = new RecordingPresenter();
+        scheduler.setPresenter(presenter);
+        scheduler.setMessageExecutor(executorService);
+
+        for (int floor = 1; floor <= UPDATES_PER_ELEVATOR; floor++) {
+            for (int i = 1; i <= NUMBER_OF_ELEVATORS; i++) {
+                scheduler.updateElevatorMonitor(new ElevatorMonitor(i, floor, Direction.UP, MovementState.ACTIVE,
+                        Direction.UP, Doors.State.CLOSED, Fault.NONE, false, 0));
+            }
+        }
+
+        assertTrue(presenter.updates.await(10, TimeUnit.SECONDS));
+        // the first updates of the elevators overlapped, but never two updates of one elevator
+        assertFalse(presenter.timedOut.get());
+        assertFalse(presenter.overlapped.get());
+        for (int i = 1; i <= NUMBER_OF_ELEVATORS; i++) {
+            List<Integer> floors = presenter.floors.get(i);
+            for (int floor = 1; floor <= UPDATES_PER_ELEVATOR; floor++) {
+                assertEquals(floor, floors.get(floor - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorMonitor;
+import requests.ElevatorRequest;
+import requests.SystemEvent;
+import systemwide.Direction;
+import systemwide.Structure;
+import systemwide.Zone;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ParkingEngineTest ensures that DemandHistogram learns and forgets the rate of requests at each
+ * floor, that ParkingEngine shares idle elevators among the busiest floors their Zones serve, and
+ * that the Scheduler sends each idle elevator to its parking floor once.
+ */
+public class ParkingEngineTest {
+
+    @Test
+    void testHistogramDecaysWithHalfLife() {
+        DemandHistogram histogram = new DemandHistogram(10, 60000);
+        for (int i = 0; i < 4; i++) {
+            histogram.recordRequest(3, 0);
+        }
+        double rate = histogram.getRate(3, 0);
+        assertEquals(4 * Math.log(2), rate, 1e-9);
+        assertEquals(rate / 2, histogram.getRate(3, 60000), 1e-9);
+        assertEquals(rate / 4, histogram.getRates(120000)[3], 1e-9);
+        assertEquals(0, histogram.getRate(4, 120000));
+
+        // requests outside the building are ignored
+        histogram.recordRequest(11, 120000);
+        histogram.recordRequest(0, 120000);
+        assertEquals(0, histogram.getRate(11, 120000));
+    }
+
+    @Test
+    void testSteadyRequestsEstimateTheirRate() {
+        DemandHistogram histogram = new DemandHistogram(5, 60000);
+        // one request every 10 seconds is 6 requests per minute
+        for (long time = 0; time <= 3600000; time += 10000) {
+            histogram.recordRequest(2, time);
+        }
+        assertEquals(6, histogram.getRate(2, 3600000), 0.5);
+    }
+
+    @Test
+    void testIdleElevatorsGoToBusiestFloors() {
+        ParkingEngine parkingEngine = new ParkingEngine(20, 60000, 0.5);
+        for (int i = 0; i < 30; i++) {
+            parkingEngine.recordRequest(1, 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            parkingEngine.recordRequest(12, 0);
+        }
+        parkingEngine.recordRequest(7, 0);
+
+        Map<Integer, Integer> idleElevatorFloors = new LinkedHashMap<>();
+        idleElevatorFloors.put(1, 15);
+        idleElevatorFloors.put(2, 3);
+        idleElevatorFloors.put(3, 1);
+        // the lobby has three times the demand of floor 12, so it gets two of the three elevators
+        Map<Integer, Integer> parkingFloors = parkingEngine.chooseParkingFloors(idleElevatorFloors, 0);
+        assertEquals(Map.of(1, 12, 2, 1), parkingFloors);
+    }
+
+    @Test
+    void testElevatorsStayWithoutEnoughDemand() {
+        ParkingEngine parkingEngine = new ParkingEngine(20, 60000, 0.5);
+        Map<Integer, Integer> idleElevatorFloors = Map.of(1, 8);
+        assertTrue(parkingEngine.chooseParkingFloors(idleElevatorFloors, 0).isEmpty());
+
+        parkingEngine.recordRequest(4, 0);
+        assertEquals(Map.of(1, 4), parkingEngine.chooseParkingFloors(idleElevatorFloors, 0));
+        // after ten half-lives the demand at floor 4 has been forgotten
+        assertTrue(parkingEngine.chooseParkingFloors(idleElevatorFloors, 600000).isEmpty());
+    }
+
+    @Test
+    void testIdleElevatorsParkInTheirZones() {
+        ParkingEngine parkingEngine = new ParkingEngine(20, 60000, 0.5);
+        for (int i = 0; i < 30; i++) {
+            parkingEngine.recordRequest(15, 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            parkingEngine.recordRequest(1, 0);
+        }
+        Zone lowZone = new Zone(1, 2, 10, 1, 2);
+        Zone highZone = new Zone(11, 12, 20, 3, 3);
+
+        Map<Integer, Integer> idleElevatorFloors = new LinkedHashMap<>();
+        idleElevatorFloors.put(1, 5);
+        idleElevatorFloors.put(2, 8);
+        idleElevatorFloors.put(3, 20);
+        // without Zones, floor 15 has three times the demand of the lobby and gets two elevators
+        assertEquals(Map.of(1, 1, 2, 15, 3, 15), parkingEngine.chooseParkingFloors(idleElevatorFloors, 0));
+        // the low Zone does not serve floor 15, so both of its elevators wait at the lobby
+        Map<Integer, Integer> parkingFloors = parkingEngine.chooseParkingFloors(idleElevatorFloors,
+                elevatorNumber -> lowZone.hasElevator(elevatorNumber) ? lowZone : highZone, 0);
+        assertEquals(Map.of(1, 1, 2, 1, 3, 15), parkingFloors);
+    }
+
+    @Test
+    void testSchedulerParksElevatorInItsZone() {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        Structure structure = new Structure(20, 1, 1000, 1000);
+        structure.addZone(new Zone(1, 2, 10, 1, 1));
+        scheduler.setStructure(structure);
+        ParkingEngine parkingEngine = new ParkingEngine(20);
+        scheduler.setParkingEngine(parkingEngine);
+        scheduler.addElevatorMonitor(1);
+        for (int i = 0; i < 10; i++) {
+            parkingEngine.recordRequest(15, System.nanoTime() / 1000000);
+            parkingEngine.recordRequest(i < 5 ? 3 : 15, System.nanoTime() / 1000000);
+        }
+        // floor 15 has the most demand, but the elevator's Zone does not serve it
+
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(1, 8, Direction.NONE, MovementState.IDLE,
+                Direction.NONE, Doors.State.CLOSED, Fault.NONE, true, 0));
+        SystemEvent parkingRequest = scheduler.getFloorToElevatorHost().getPacketFromQueue();
+        assertEquals(3, ((ElevatorRequest) parkingRequest).getFloorNumber());
+        assertTrue(scheduler.getFloorToElevatorHost().queueIsEmpty());
+    }
+
+    @Test
+    void testSchedulerParksIdleElevatorOnce() {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        ParkingEngine parkingEngine = new ParkingEngine(20);
+        scheduler.setParkingEngine(parkingEngine);
+        scheduler.addElevatorMonitor(1);
+        for (int i = 0; i < 10; i++) {
+            parkingEngine.recordRequest(1, System.nanoTime() / 1000000);
+        }
+
+        ElevatorMonitor idleMonitor = new ElevatorMonitor(1, 10, Direction.NONE, MovementState.IDLE,
+                Direction.NONE, Doors.State.CLOSED, Fault.NONE, true, 0);
+        scheduler.updateElevatorMonitor(idleMonitor);
+        List<PlannedStop> stops = scheduler.getPlannedStops(1).getStops();
+        assertEquals(1, stops.size());
+        assertEquals(1, stops.get(0).getFloorNumber());
+        assertEquals(Direction.NONE, stops.get(0).getDirection());
+        SystemEvent parkingRequest = scheduler.getFloorToElevatorHost().getPacketFromQueue();
+        assertInstanceOf(ElevatorRequest.class, parkingRequest);
+        assertEquals(1, parkingRequest.getElevatorNumber());
+        assertEquals(1, ((ElevatorRequest) parkingRequest).getFloorNumber());
+        assertEquals(1, ((ElevatorRequest) parkingRequest).getDesiredFloor());
+
+        // until the elevator reports the parking request, it is not parked again
+        scheduler.updateElevatorMonitor(idleMonitor);
+        assertEquals(1, scheduler.getPlannedStops(1).size());
+        assertTrue(scheduler.getFloorToElevatorHost().queueIsEmpty());
+
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(1, 9, Direction.DOWN, MovementState.ACTIVE,
+                Direction.DOWN, Doors.State.CLOSED, Fault.NONE, false, 0));
+        scheduler.updateElevatorMonitor(new ElevatorMonitor(1, 1, Direction.DOWN, MovementState.IDLE,
+                Direction.NONE, Doors.State.OPEN, Fault.NONE, false, 0));
+        assertTrue(scheduler.getPlannedStops(1).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package scheduler;
+
+import client_server_host.Client;
+import client_server_host.InMemoryTransportFactory;
+import client_server_host.Port;
+import elevatorsystem.Doors;
+import elevatorsystem.Fault;
+import elevatorsystem.MovementState;
+import requests.ElevatorMonitor;
+import systemwide.Direction;
+import systemwide.Structure;
+
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SchedulerLoadBenchmark offers increasing numbers of ElevatorMonitors to a Scheduler whose
+ * view is slow to update, and prints the rate at which the Scheduler processes them on its
+ * own thread and with a thread per message. It is not part of the unit tests; run it with
+ * java -cp target/classes:target/test-classes scheduler.SchedulerLoadBenchmark
+ */
+public class SchedulerLoadBenchmark {
+
+    private static final long VIEW_UPDATE_TIME = 2; // milliseconds
+    private static final int NUMBER_OF_ELEVATORS = 4;
+    private static final int[] OFFERED_LOADS = {50, 100, 200};
+
+    /**
+     * SlowPresenter is a Presenter whose view takes VIEW_UPDATE_TIME to update.
+     */
+    private static class SlowPresenter extends Presenter {
+
+        private final CountDownLatch updates;
+
+        /**
+         * Constructor for SlowPresenter.
+         *
+         * @param updates counted down once per view update
+         */
+        SlowPresenter(CountDownLatch updates) {
+            this.updates = updates;
+        }
+
+        /**
+         * Waits for VIEW_UPDATE_TIME instead of updating a view.
+         *
+         * @param elevatorMonitor the monitor to show
+         */
+        @Override
+        public void updateElevatorView(ElevatorMonitor elevatorMonitor) {
+            try {
+                Thread.sleep(VIEW_UPDATE_TIME);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            updates.countDown();
+        }
+    }
+
+    /**
+     * Sends a number of ElevatorMonitors to a new Scheduler as fast as possible and returns
+     * the rate at which the Scheduler processed them.
+     *
+     * @param messageExecutor the Scheduler's message executor, or null to process messages on its thread
+     * @param offeredMessages the number of ElevatorMonitors to send
+     * @return the number of ElevatorMonitors processed per second
+     * @throws InterruptedException if interrupted while waiting for the Scheduler
+     */
+    private static double measureThroughput(ExecutorService messageExecutor, int offeredMessages) throws InterruptedException {
+        InMemoryTransportFactory factory = new InMemoryTransportFactory();
+        Scheduler scheduler = new Scheduler(factory);
+        for (int i = 1; i <= NUMBER_OF_ELEVATORS; i++) {
+            scheduler.addElevatorMonitor(i);
+        }
+        CountDownLatch updates = new CountDownLatch(offeredMessages);
+        scheduler.setPresenter(new SlowPresenter(updates));
+        scheduler.setMessageExecutor(messageExecutor);
+        // shortens the Scheduler's inactivity delay; no FloorSubsystem receives the Structure
+        scheduler.enableSystem(new Structure(10, NUMBER_OF_ELEVATORS, 100, 100), InetAddress.getLoopbackAddress(), Port.CLIENT.getNumber());
+        Thread schedulerThread = new Thread(scheduler, scheduler.getClass().getSimpleName());
+        schedulerThread.start();
+        Client elevatorSubsystem = new Client(Port.SERVER.getNumber(), factory);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < offeredMessages; i++) {
+            int floor = 1 + i % 10;
+            elevatorSubsystem.send(new ElevatorMonitor(1 + i % NUMBER_OF_ELEVATORS, floor, Direction.UP,
+                    MovementState.ACTIVE, Direction.UP, Doors.State.CLOSED, Fault.NONE, false, floor));
+        }
+        if (!updates.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The Scheduler did not show every ElevatorMonitor");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        schedulerThread.join();
+        elevatorSubsystem.close();
+        return offeredMessages / seconds;
+    }
+
+    /**
+     * Prints the throughput of the Scheduler at each offered load.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while waiting for a Scheduler
+     */
+    public static void main(String[] args) throws InterruptedException {
+        for (int offeredLoad : OFFERED_LOADS) {
+            double inlineThroughput = measureThroughput(null, offeredLoad);
+            double threadPerMessageThroughput = measureThroughput(MessageExecutors.newThreadPerMessageExecutor(), offeredLoad);
+            System.out.printf("Offered %d messages: %.0f messages/s on the Scheduler thread, %.0f messages/s with a thread per message%n",
+                    offeredLoad, inlineThroughput, threadPerMessageThroughput);
+        }
+    }
+}
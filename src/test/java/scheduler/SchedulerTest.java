@@ -1,6 +1,5 @@
 package scheduler;
 
-import client_server_host.Port;
 import elevatorsystem.*;
 import floorsystem.FloorSubsystem;
 import org.junit.jupiter.api.AfterEach;
@@ -23,8 +22,7 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class SchedulerTest {
 
-    private static Scheduler schedulerClient;
-    private static Scheduler schedulerServer;
+    private static Scheduler scheduler;
     private static FloorSubsystem floorSubsystem;
     private static Elevator elevator1;
     private static SystemEvent elevatorRequest;
@@ -39,17 +37,15 @@ class SchedulerTest {
         elevatorMonitor.setOrigin(Origin.ELEVATOR_SYSTEM);
 
         // Set up systems
-        schedulerClient = new Scheduler(Port.CLIENT_TO_SERVER.getNumber());
-        schedulerServer = new Scheduler(Port.SERVER_TO_CLIENT.getNumber());
+        scheduler = new Scheduler();
         floorSubsystem = new FloorSubsystem();
         ElevatorSubsystem elevatorSubsystem = new ElevatorSubsystem();
         elevator1 = new Elevator(1, elevatorSubsystem);
         elevatorSubsystem.addElevator(elevator1);
-        schedulerClient.addElevatorMonitor(elevator1.getElevatorNumber());
+        scheduler.addElevatorMonitor(elevator1.getElevatorNumber());
 
         new Thread(floorSubsystem, floorSubsystem.getClass().getSimpleName()).start();
-        new Thread(schedulerClient, schedulerClient.getClass().getSimpleName()).start();
-        new Thread(schedulerServer, schedulerServer.getClass().getSimpleName()).start();
+        new Thread(scheduler, scheduler.getClass().getSimpleName()).start();
         new Thread(elevatorSubsystem, elevatorSubsystem.getClass().getSimpleName()).start();
     }
 
@@ -63,7 +59,7 @@ class SchedulerTest {
         assertTrue(elevator1.getRequestQueue().isEmpty());
 
         try {
-            schedulerClient.processData(elevatorRequest);
+            scheduler.processData(elevatorRequest);
             Thread.sleep(1000);
         } catch (InterruptedException e) {
             e.printStackTrace();
@@ -83,7 +79,7 @@ class SchedulerTest {
     void sendElevatorMonitor() {
         // Send req from scheduler to FloorBuffer
         try {
-            schedulerServer.processData(elevatorMonitor);
+            scheduler.processData(elevatorMonitor);
             Thread.sleep(1000);
         } catch (InterruptedException e) {
             e.printStackTrace();
@@ -20,8 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  */
 public class SimulationTest {
 
-    private Scheduler schedulerFloorsToElevators;
-    private Scheduler schedulerElevatorsToFloors;
+    private Scheduler scheduler;
     private ElevatorSubsystem elevatorSubsystem;
     private FloorSubsystem floorSubsystem;
     private Structure structure;
@@ -31,17 +30,16 @@ public class SimulationTest {
 
     void setup() {
         structure = new Structure(20, 4, elevatorTime, doorsTime);
-        schedulerFloorsToElevators = new Scheduler(Port.CLIENT_TO_SERVER.getNumber());
-        schedulerElevatorsToFloors = new Scheduler(Port.SERVER_TO_CLIENT.getNumber());
+        scheduler = new Scheduler();
 
         for (int i = 0; i < structure.getNumberOfElevators(); i++) {
-            schedulerFloorsToElevators.addElevatorMonitor(i + 1);
+            scheduler.addElevatorMonitor(i + 1);
         }
 
         // initialize elevators
         elevatorSubsystem = new ElevatorSubsystem();
         try {
-            schedulerFloorsToElevators.enableSystem(structure, InetAddress.getLocalHost(), Port.SERVER.getNumber());
+            scheduler.enableSystem(structure, InetAddress.getLocalHost(), Port.SERVER.getNumber());
         } catch (UnknownHostException e) {
             e.printStackTrace();
         }
@@ -54,7 +52,7 @@ public class SimulationTest {
         // initialize floor subsystem
         floorSubsystem = new FloorSubsystem();
         try {
-            schedulerElevatorsToFloors.enableSystem(structure, InetAddress.getLocalHost(), Port.CLIENT.getNumber());
+            scheduler.enableSystem(structure, InetAddress.getLocalHost(), Port.CLIENT.getNumber());
         } catch (UnknownHostException e) {
             e.printStackTrace();
         }
@@ -64,8 +62,7 @@ public class SimulationTest {
         floorSubsystemThread.start();
 
         // initialize Scheduler and entire system
-        new Thread(schedulerFloorsToElevators, "Scheduler: FloorToElevator").start();
-        new Thread(schedulerElevatorsToFloors, "Scheduler: ElevatorToFloor").start();
+        new Thread(scheduler, scheduler.getClass().getSimpleName()).start();
     }
 
     /**
@@ -75,8 +72,7 @@ public class SimulationTest {
     void testSimulationRunsToCompletion() {
         setup();
         // wait until all threads terminated
-        while (schedulerElevatorsToFloors.getSystemStatus().activated() ||
-                schedulerFloorsToElevators.getSystemStatus().activated() ||
+        while (scheduler.getSystemStatus().activated() ||
                 floorSubsystem.getSystemStatus().activated() ||
                 elevatorSubsystem.getSystemStatus().activated()) {
         }
@@ -85,8 +81,8 @@ public class SimulationTest {
             assertTrue(elevator.hasNoRequests());
         }
         assertEquals(0, floorSubsystem.getEventListSize());
-        assertTrue(schedulerElevatorsToFloors.getIntermediateHost().queueIsEmpty());
-        assertTrue(schedulerFloorsToElevators.getIntermediateHost().queueIsEmpty());
+        assertTrue(scheduler.getElevatorToFloorHost().queueIsEmpty());
+        assertTrue(scheduler.getFloorToElevatorHost().queueIsEmpty());
     }
 
     @Test
@@ -98,4 +94,23 @@ public class SimulationTest {
             System.out.println("Number of tests: " + i);
         }
     }
+
+    /**
+     * Tests that all requests are served when every system runs in one JVM.
+     */
+    @Test
+    void testInProcessSimulationRunsToCompletion() {
+        InProcessLauncher launcher = new InProcessLauncher(new Structure(20, 4, elevatorTime, doorsTime));
+        launcher.start();
+        // wait until all threads terminated
+        while (launcher.isRunning()) {
+        }
+
+        for (Elevator elevator : launcher.getElevatorSubsystem().getElevatorList()) {
+            assertTrue(elevator.hasNoRequests());
+        }
+        assertEquals(0, launcher.getFloorSubsystem().getEventListSize());
+        assertTrue(launcher.getScheduler().getElevatorToFloorHost().queueIsEmpty());
+        assertTrue(launcher.getScheduler().getFloorToElevatorHost().queueIsEmpty());
+    }
 }
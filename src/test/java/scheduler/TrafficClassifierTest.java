@@ -0,0 +1,97 @@
+package scheduler;
+
+import client_server_host.InMemoryTransportFactory;
+import org.junit.jupiter.api.Test;
+import requests.ElevatorRequest;
+import systemwide.Direction;
+import systemwide.Origin;
+
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TrafficClassifierTest ensures that TrafficClassifier detects each TrafficPattern over its
+ * sliding window of requests, and that the Scheduler switches its strategy with the pattern.
+ */
+public class TrafficClassifierTest {
+
+    /**
+     * Returns a request between two floors.
+     *
+     * @param floor the floor of the request
+     * @param desiredFloor the floor the passenger goes to
+     * @return the request
+     */
+    private ElevatorRequest request(int floor, int desiredFloor) {
+        Direction direction = desiredFloor > floor ? Direction.UP : Direction.DOWN;
+        return new ElevatorRequest(LocalTime.now(), floor, direction, desiredFloor, Origin.FLOOR_SYSTEM);
+    }
+
+    @Test
+    void testPatternsAreDetected() {
+        TrafficClassifier classifier = new TrafficClassifier(20, 5);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(TrafficPattern.INTER_FLOOR, classifier.recordRequest(request(1, 10)));
+        }
+        // the minimum number of requests is reached
+        assertEquals(TrafficPattern.UP_PEAK, classifier.recordRequest(request(1, 10)));
+
+        for (int i = 0; i < 20; i++) {
+            classifier.recordRequest(request(8, 1));
+        }
+        assertEquals(TrafficPattern.DOWN_PEAK, classifier.getPattern());
+
+        for (int i = 0; i < 20; i++) {
+            classifier.recordRequest(i % 2 == 0 ? request(1, 5) : request(5, 1));
+        }
+        assertEquals(TrafficPattern.LUNCH, classifier.getPattern());
+
+        for (int i = 0; i < 20; i++) {
+            classifier.recordRequest(request(3 + i % 5, 12));
+        }
+        assertEquals(TrafficPattern.INTER_FLOOR, classifier.getPattern());
+        assertEquals(20, classifier.size());
+    }
+
+    @Test
+    void testOldRequestsLeaveWindow() {
+        TrafficClassifier classifier = new TrafficClassifier(10, 1);
+        for (int i = 0; i < 10; i++) {
+            classifier.recordRequest(request(1, 6));
+        }
+        assertEquals(TrafficPattern.UP_PEAK, classifier.getPattern());
+        // half of the window is incoming until the last incoming request leaves it
+        for (int i = 0; i < 5; i++) {
+            assertEquals(TrafficPattern.UP_PEAK, classifier.recordRequest(request(4, 9)));
+        }
+        assertEquals(TrafficPattern.INTER_FLOOR, classifier.recordRequest(request(4, 9)));
+    }
+
+    @Test
+    void testSchedulerSwitchesStrategyWithPattern() {
+        Scheduler scheduler = new Scheduler(new InMemoryTransportFactory());
+        scheduler.setDispatchMode(TrafficPattern.UP_PEAK, DispatchMode.NEAREST);
+        scheduler.setParking(TrafficPattern.INTER_FLOOR, false);
+        assertTrue(scheduler.parksIdleElevators());
+        assertNull(scheduler.getTrafficPattern());
+
+        scheduler.setTrafficClassifier(new TrafficClassifier(10, 5));
+        assertEquals(DispatchMode.ESTIMATED_TIME, scheduler.getDispatchMode());
+        assertFalse(scheduler.parksIdleElevators());
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.observeRequest(request(1, 15));
+        }
+        assertEquals(TrafficPattern.UP_PEAK, scheduler.getTrafficPattern());
+        assertEquals(DispatchMode.NEAREST, scheduler.getDispatchMode());
+        assertTrue(scheduler.parksIdleElevators());
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.observeRequest(request(7, 3));
+        }
+        assertEquals(TrafficPattern.INTER_FLOOR, scheduler.getTrafficPattern());
+        assertEquals(DispatchMode.ESTIMATED_TIME, scheduler.getDispatchMode());
+        assertFalse(scheduler.parksIdleElevators());
+    }
+}
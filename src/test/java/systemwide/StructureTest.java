@@ -0,0 +1,47 @@
+package systemwide;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StructureTest ensures that a Structure finds the Zone of each elevator and routes
+ * passengers through the sky lobbies shared by its Zones.
+ */
+public class StructureTest {
+
+    private Structure structure;
+
+    @BeforeEach
+    void setUp() {
+        // a low zone and a shuttle leave from the lobby; a high zone leaves from the sky lobby
+        structure = new Structure(100, 12, 1000, 1000);
+        structure.addZone(new Zone(1, 2, 50, 1, 4));
+        structure.addZone(Zone.shuttle(1, 51, 5, 7));
+        structure.addZone(new Zone(51, 52, 100, 8, 12));
+    }
+
+    @Test
+    void testElevatorsBelongToTheirZone() {
+        assertEquals(1, structure.getZone(4).getLobbyFloor());
+        assertTrue(structure.getZone(6).isExpress());
+        assertEquals(52, structure.getZone(8).getLowestFloor());
+        assertNull(structure.getZone(13));
+        assertNull(new Structure(20, 4, 1000, 1000).getZone(1));
+    }
+
+    @Test
+    void testPassengersTransferAtSkyLobby() {
+        assertEquals(30, structure.getTransferFloor(1, 30));
+        assertEquals(1, structure.getTransferFloor(30, 1));
+        assertEquals(90, structure.getTransferFloor(60, 90));
+        assertEquals(51, structure.getTransferFloor(1, 75));
+        assertEquals(51, structure.getTransferFloor(75, 1));
+        // from the high zone to the low zone, passengers take the high zone and the shuttle to the lobby
+        assertEquals(51, structure.getTransferFloor(75, 30));
+        assertEquals(1, structure.getTransferFloor(51, 30));
+        // without zones, every elevator serves every floor
+        assertEquals(75, new Structure(100, 12, 1000, 1000).getTransferFloor(1, 75));
+    }
+}